@@ -0,0 +1,265 @@
+//***************************************************************************
+//Class:        BaseServiceBenchmark
+//Extends:      None
+//
+//JMH suite for the BaseService operations (save, findAll, findById,
+//findAllById, delete, deleteById) of every entity service other than
+//OwnerService (which has its own, larger suite - see OwnerServiceBenchmark).
+//Like that suite, the benchmark methods only talk to the BaseService interface,
+//and each persistence type (map, springdatajpa) has a small subclass that
+//builds its IMPLs.
+//
+//Parameters:
+//   entity - which service:  PetType, Specialty, Vet, Pet, Visit, WorkingHours,
+//            Appointment.  Override with -p entity=Pet,Visit
+//   size   - dataset size (number of entities seeded before measuring).
+//
+//Entities that need a saved parent (Pet - Owner and PetType, Visit - Pet,
+//WorkingHours / Appointment - Vet) all share one parent saved in setUp.  An
+//Appointment also books its own Visit, saved along with it.
+//Save benchmarks keep the dataset size steady the same way OwnerServiceBenchmark
+//does.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.model.BaseEntity;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Specialty;
+import guru.springframework5.sfw5bgpetclinic.model.Vet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.SpecialtyService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.services.WorkingHoursService;
+
+@State(Scope.Benchmark)                    // One service / dataset shared by all benchmark threads (like the @Service singleton).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class BaseServiceBenchmark {
+
+	// Ids looked up by one findAllById call.
+	protected static final int FIND_ALL_BY_ID = 100;
+
+	@Param({"PetType", "Specialty", "Vet", "Pet", "Visit", "WorkingHours", "Appointment"})
+	public String entity;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private BaseService<BaseEntity, Long> service;
+	private IntFunction<BaseEntity> newEntity;
+
+	// Seeded entities have ids firstId..lastId (ids are generated, so recorded after seeding).
+	protected long firstId;
+	protected long lastId;
+
+	// -------------------------------------------------------
+	// Implemented by each persistence type (map, springdatajpa)
+	// -------------------------------------------------------
+
+	/**
+	 * Build (or look up) the service IMPL of the given type being measured.
+	 * @param type - entity service interface, i.e., PetService.class
+	 * @return IMPL
+	 */
+	protected abstract <S> S service(Class<S> type);
+
+	/**
+	 * Release anything the services need (Spring context, DB, etc.).
+	 */
+	protected void close() {
+	}
+
+	// -------------------------------------------------------
+	// Setup / Tear down - once per fork for each entity / size
+	// -------------------------------------------------------
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (entity) {
+		case "PetType":
+			use(service(PetTypeService.class), i -> PetType.builder().name("Type" + i).build());
+			break;
+		case "Specialty":
+			use(service(SpecialtyService.class), i -> new Specialty("Specialty" + i));
+			break;
+		case "Vet":
+			use(service(VetService.class), BaseServiceBenchmark::newVet);
+			break;
+		case "Pet": {
+			Owner owner = service(OwnerService.class).save(Owner.builder().firstName("Bench").lastName("Owner").build());
+			PetType petType = service(PetTypeService.class).save(PetType.builder().name("Benchtype").build());
+			// The new Pets point at the saved Owner but are not added to its Pets (the Pet constructor would, and
+			// the one Owner would collect every Pet made).
+			use(service(PetService.class), i -> {
+				Pet pet = new Pet("Pet" + i, petType, null, LocalDate.of(2015, 1, 1).plusDays(i % 1000));
+				pet.setOwner(owner);
+				return pet;
+			});
+			break;
+		}
+		case "Visit": {
+			Owner owner = service(OwnerService.class).save(Owner.builder().firstName("Bench").lastName("Owner").build());
+			PetType petType = service(PetTypeService.class).save(PetType.builder().name("Benchtype").build());
+			Pet pet = service(PetService.class).save(new Pet("Benchpet", petType, owner, null));
+			// Each Visit gets its own Pet stand-in (see Pet.reference).
+			use(service(VisitService.class), i -> new Visit(LocalDate.of(2020, 1, 1).plusDays(i % 1000), "Visit " + i, Pet.reference(pet)));
+			break;
+		}
+		case "WorkingHours": {
+			Vet vet = service(VetService.class).save(newVet(0));
+			use(service(WorkingHoursService.class),
+			    i -> WorkingHours.builder().vet(vet).dayOfWeek(DayOfWeek.of(1 + i % 7)).startTime(LocalTime.of(8, 0)).endTime(LocalTime.of(17, 0)).build());
+			break;
+		}
+		case "Appointment": {
+			Vet vet = service(VetService.class).save(newVet(0));
+			Owner owner = service(OwnerService.class).save(Owner.builder().firstName("Bench").lastName("Owner").build());
+			PetType petType = service(PetTypeService.class).save(PetType.builder().name("Benchtype").build());
+			Pet pet = service(PetService.class).save(new Pet("Benchpet", petType, owner, null));
+			VisitService visitService = service(VisitService.class);
+			// An Appointment books a saved Visit, so each new one saves its Visit too (included in the save
+			// timings).  A counter, not i, picks the slot:  saveExisting must not land on another Appointment's
+			// (vet, date, start time).
+			AtomicInteger slots = new AtomicInteger();
+			use(service(AppointmentService.class), i -> {
+				int slot = slots.getAndIncrement();
+				Visit visit = visitService.save(new Visit(LocalDate.of(2020, 1, 1).plusDays(slot / 32), "Appointment " + i, Pet.reference(pet)));
+				LocalTime start = LocalTime.of(8, 0).plusMinutes(slot % 32 * 15);
+				return Appointment.builder().vet(vet).visit(visit).startTime(start).endTime(start.plusMinutes(15)).build();
+			});
+			break;
+		}
+		default:
+			throw new IllegalArgumentException("No benchmark for entity " + entity);
+		}
+		seed(size);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		close();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends BaseEntity> void use(BaseService<T, Long> service, IntFunction<T> newEntity) {
+		this.service = (BaseService<BaseEntity, Long>) service;
+		this.newEntity = (IntFunction<BaseEntity>) newEntity;
+	}
+
+	// Seeding is not measured, so saveAll in chunks (one transaction per chunk on springdatajpa).
+	private void seed(int count) {
+		List<BaseEntity> chunk = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			chunk.add(newEntity.apply(i));
+			if ( (chunk.size() == 10_000) || (i == count - 1) ) {
+				for (BaseEntity saved : service.saveAll(chunk)) {
+					if (firstId == 0L)
+						firstId = saved.getId();
+					lastId = saved.getId();
+				}
+				chunk.clear();
+			}
+		}
+	}
+
+	// -------------------------------------------------------
+	// Benchmarks - BaseService
+	// -------------------------------------------------------
+
+	@Benchmark
+	public BaseEntity findById() {
+		return service.findById(randomId());
+	}
+
+	@Benchmark
+	public List<BaseEntity> findAllById() {
+		List<Long> ids = new ArrayList<>(FIND_ALL_BY_ID);
+		for (int i = 0; i < FIND_ALL_BY_ID; i++)
+			ids.add(randomId());
+		return service.findAllById(ids);
+	}
+
+	@Benchmark
+	public Set<BaseEntity> findAll() {
+		return service.findAll();
+	}
+
+	// Update of an existing entity (new object with existing id, as the edit forms do).
+	@Benchmark
+	public BaseEntity saveExisting() {
+		long id = randomId();
+		BaseEntity object = newEntity.apply((int)id);
+		object.setId(id);
+		return service.save(object);
+	}
+
+	// Insert, then deleteById so dataset size stays the same.
+	@Benchmark
+	public BaseEntity saveNewThenDeleteById() {
+		BaseEntity saved = service.save(newEntity.apply(ThreadLocalRandom.current().nextInt(size)));
+		service.deleteById(saved.getId());
+		return saved;
+	}
+
+	// Insert, then delete(entity) so dataset size stays the same.
+	@Benchmark
+	public BaseEntity saveNewThenDelete() {
+		BaseEntity saved = service.save(newEntity.apply(ThreadLocalRandom.current().nextInt(size)));
+		service.delete(saved);
+		return saved;
+	}
+
+	// -------------------------------------------------------
+	// Helpers
+	// -------------------------------------------------------
+
+	protected long randomId() {
+		return ThreadLocalRandom.current().nextLong(firstId, lastId + 1);
+	}
+
+	private static Vet newVet(int i) {
+		Vet vet = new Vet();
+		vet.setFirstName("Vet" + i);
+		vet.setLastName("Bench" + Math.floorMod(i, 1000));
+		return vet;
+	}
+
+}  // end class BaseServiceBenchmark
@@ -0,0 +1,113 @@
+//***************************************************************************
+//Class:        BatchLoaderBenchmark
+//
+//Measures the batch loader (pet-clinic-web batching.BatchLoaderPostProcessor) on both backends.  Every
+//benchmark thread asks for a random Owner by id; compare:
+//    plainFindById     - OwnerService as is (one lookup / one select per call)
+//    batchedFindById   - same service wrapped by the post processor (calls in flight share one findAllById)
+//The threads are the concurrent callers, so run with -t:  at 1 thread there is nothing to batch (every call is
+//direct) and the difference is the proxy; with more threads the batches grow (see the batch count and size
+//printed at the end of each trial).
+//
+//   java -jar pet-clinic-bench/target/benchmarks.jar BatchLoaderBenchmark -t 1,4,16
+//   java -jar pet-clinic-bench/target/benchmarks.jar BatchLoaderBenchmark -t 16 -p window=0ms,1ms
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.batching.BatchLoaderPostProcessor;
+import guru.springframework5.sfw5bgpetclinic.bench.springdatajpa.BenchJpaApplication;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.repositories.OwnerRepository;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchLoaderBenchmark {
+
+	private static final int OWNERS = 10_000;
+
+	@Param({"map", "springdatajpa"})
+	public String backend;
+
+	@Param({"0ms"})                // petclinic.batching.window
+	public String window;
+
+	private ConfigurableApplicationContext context;
+	private SimpleMeterRegistry registry;
+	private OwnerService plain;
+	private OwnerService batched;
+	private long firstId;
+
+	@Setup
+	public void setUp() {
+		if (backend.equals("map")) {
+			plain = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+			for (int i = 0; i < OWNERS; i++)
+				plain.save(Owner.builder().firstName("First" + i).lastName("Last" + i).build());
+			firstId = 1L;
+		} else {
+			context = BenchJpaApplication.start();
+			plain = context.getBean(OwnerService.class);
+			List<Owner> owners = new ArrayList<>(OWNERS);
+			for (int i = 0; i < OWNERS; i++)
+				owners.add(Owner.builder().firstName("First" + i).lastName("Last" + i).build());
+			firstId = context.getBean(OwnerRepository.class).saveAll(owners).iterator().next().getId();
+		}
+		registry = new SimpleMeterRegistry();
+		batched = (OwnerService) BatchLoaderPostProcessor.batch(plain, registry, true, DurationStyle.detectAndParse(window), 100);
+	}  // end setUp()
+
+	@TearDown
+	public void tearDown() {
+		System.out.printf("%nbatches %.0f, average size %.1f%n",
+		                  registry.get(BatchLoaderPostProcessor.BATCHES).functionCounter().count(),
+		                  registry.get(BatchLoaderPostProcessor.SIZE).gauge().value());
+		BatchLoaderPostProcessor.shutdown(batched);
+		if (context != null)
+			context.close();
+	}
+
+	@Benchmark
+	public Owner plainFindById() {
+		return plain.findById(randomId());
+	}
+
+	@Benchmark
+	public Owner batchedFindById() {
+		return batched.findById(randomId());
+	}
+
+	private long randomId() {
+		return firstId + ThreadLocalRandom.current().nextInt(OWNERS);
+	}
+
+}  // end class BatchLoaderBenchmark
@@ -0,0 +1,79 @@
+//***************************************************************************
+//Class:        BenchmarkRunner
+//
+//Main-Class of benchmarks.jar.  Thin wrapper around the JMH runner that: 
+//  (1) runs the selected suites once per thread count, and 
+//  (2) always writes JMH JSON results so runs can be compared across commits.
+//
+//Usage:
+//   java -jar pet-clinic-bench/target/benchmarks.jar [runner options] [JMH options] [include regex]
+//
+//Runner options (removed before the rest is handed to JMH):
+//   -t 1,4,16          thread counts to run (default 1).  
+//   --results DIR      where to write JSON (default target/jmh-results)
+//   --label NAME       file name prefix, usually the git commit (default $GIT_COMMIT or "local")
+//
+//Everything else is regular JMH, for example:
+//   -p owners=1000,100000   OwnerServiceMapBenchmark.find   -jvmArgsAppend -Xmx8g
+//
+//Output:  DIR/<label>-t<threads>.json  (one file per thread count)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		
+		List<Integer> threadCounts = new ArrayList<>();
+		String resultsDir = "target/jmh-results";
+		String label = (System.getenv("GIT_COMMIT") != null) ? System.getenv("GIT_COMMIT") : "local";
+		
+		// Pull out the runner options.  Anything not recognized is for JMH. 
+		List<String> jmhArgs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if ("-t".equals(args[i]) && (i + 1 < args.length)) {
+				for (String t : args[++i].split(","))
+					threadCounts.add(Integer.valueOf(t.trim()));
+			} else if ("--results".equals(args[i]) && (i + 1 < args.length)) {
+				resultsDir = args[++i];
+			} else if ("--label".equals(args[i]) && (i + 1 < args.length)) {
+				label = args[++i];
+			} else {
+				jmhArgs.add(args[i]);
+			}
+		}
+		if (threadCounts.isEmpty())
+			threadCounts.add(1);
+
+		CommandLineOptions jmhOptions = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+		if (jmhOptions.shouldHelp() || jmhOptions.shouldList()) {
+			// -h / -l ... just let JMH do it. 
+			org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+			return;
+		}
+
+		new File(resultsDir).mkdirs();
+		for (int threads : threadCounts) {
+			String resultFile = resultsDir + File.separator + label + "-t" + threads + ".json";
+			Options options = new OptionsBuilder()
+					                  .parent(jmhOptions)
+					                  .threads(threads)
+					                  .resultFormat(ResultFormatType.JSON)
+					                  .result(resultFile)
+					                  .build();
+			System.out.println("Running benchmarks with " + threads + " thread(s).  Results: " + resultFile);
+			new Runner(options).run();
+		}
+	}  // end main
+
+}  // end class BenchmarkRunner
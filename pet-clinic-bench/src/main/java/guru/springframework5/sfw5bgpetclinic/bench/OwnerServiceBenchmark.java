@@ -0,0 +1,189 @@
+//***************************************************************************
+//Class:        OwnerServiceBenchmark
+//Extends:      None
+//
+//JMH suite for every BaseService operation (save, findAll, findById, delete,
+//deleteById) plus the OwnerService specific findByLastName and 
+//findAllByLastNameLike.  The benchmark 
+//methods only talk to the OwnerService interface, exactly like the controllers 
+//do, so the same suite measures any IMPL.  Each persistence type (map, 
+//springdatajpa) has a small subclass that builds its IMPL and seeds it. 
+//[JMH generates benchmark code for the concrete subclasses - this class is 
+//abstract so it is not run on its own.]
+//
+//Parameters:
+//   owners - dataset size (number of Owners seeded before measuring).
+//            Override from the command line with -p owners=1000,100000 
+//   Thread counts are not fixed here.  BenchmarkRunner re-runs the suites once 
+//   per requested thread count (-t 1,4,16).  
+//
+//Save benchmarks keep the dataset size steady:  saveExisting updates an Owner 
+//that is already there, the saveNew... methods remove the Owner they just 
+//added (which is also how delete / deleteById get measured).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+@State(Scope.Benchmark)                    // One service / dataset shared by all benchmark threads (like the @Service singleton).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)                                   // Large datasets need a bigger heap:  -jvmArgsAppend -Xmx8g
+public abstract class OwnerServiceBenchmark {
+
+	// Number of distinct last names.  Keeps findByLastName / LIKE searches realistic (many Owners per name). 
+	protected static final int LAST_NAMES = 1000;
+	
+	@Param({"1000", "100000", "1000000", "10000000"})  // 1K to 10M owners
+	public int owners;
+
+	protected OwnerService ownerService;
+
+	// Seeded Owners have ids firstId..lastId (ids are generated, so recorded after seeding). 
+	protected long firstId;
+	protected long lastId;
+
+	// -------------------------------------------------------
+	// Implemented by each persistence type (map, springdatajpa)
+	// -------------------------------------------------------
+
+	/**
+	 * Build (or look up) the OwnerService IMPL being measured. 
+	 * @return OwnerService IMPL 
+	 */
+	protected abstract OwnerService createOwnerService();
+
+	/**
+	 * Add the given number of Owners.  Default goes one at a time through save(); 
+	 * subclasses may use a faster path since seeding is not measured.
+	 * @param count - number of Owners to add 
+	 */
+	protected void seed(int count) {
+		for (int i = 0; i < count; i++) {
+			Owner saved = ownerService.save(newOwner(i));
+			if (i == 0)
+				firstId = saved.getId();
+			lastId = saved.getId();
+		}
+	}
+
+	/**
+	 * Release anything created by createOwnerService (Spring context, DB, etc.).
+	 */
+	protected void close() {
+	}
+
+	// -------------------------------------------------------
+	// Setup / Tear down - once per fork for each "owners" value
+	// -------------------------------------------------------
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		ownerService = createOwnerService();
+		seed(owners);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		close();
+	}
+
+	// -------------------------------------------------------
+	// Benchmarks - BaseService
+	// -------------------------------------------------------
+
+	@Benchmark
+	public Owner findById() {
+		return ownerService.findById(randomId());
+	}
+
+	@Benchmark
+	public Set<Owner> findAll() {
+		return ownerService.findAll();
+	}
+
+	// Update of an existing Owner (what processUpdateOwnerForm does - new object with existing id). 
+	@Benchmark
+	public Owner saveExisting() {
+		long id = randomId();
+		Owner owner = newOwner((int)id);
+		owner.setId(id);
+		return ownerService.save(owner);
+	}
+
+	// Insert, then deleteById so dataset size stays the same. 
+	@Benchmark
+	public Owner saveNewThenDeleteById() {
+		Owner saved = ownerService.save(newOwner(ThreadLocalRandom.current().nextInt()));
+		ownerService.deleteById(saved.getId());
+		return saved;
+	}
+
+	// Insert, then delete(entity) so dataset size stays the same. 
+	@Benchmark
+	public Owner saveNewThenDelete() {
+		Owner saved = ownerService.save(newOwner(ThreadLocalRandom.current().nextInt()));
+		ownerService.delete(saved);
+		return saved;
+	}
+
+	// -------------------------------------------------------
+	// Benchmarks - OwnerService
+	// -------------------------------------------------------
+
+	@Benchmark
+	public Owner findByLastName() {
+		return ownerService.findByLastName(lastName(ThreadLocalRandom.current().nextInt(LAST_NAMES)));
+	}
+
+	// Same search string OwnerController.processFindForm builds ("%" + lastName + "%").
+	@Benchmark
+	public HashSet<Owner> findAllByLastNameLike() {
+		return ownerService.findAllByLastNameLike("%" + lastName(ThreadLocalRandom.current().nextInt(LAST_NAMES)) + "%");
+	}
+
+	// -------------------------------------------------------
+	// Helpers
+	// -------------------------------------------------------
+
+	protected long randomId() {
+		return ThreadLocalRandom.current().nextLong(firstId, lastId + 1);
+	}
+
+	protected static String lastName(int i) {
+		return "Last" + Math.floorMod(i, LAST_NAMES);
+	}
+
+	protected static Owner newOwner(int i) {
+		return Owner.builder()
+				    .firstName("First" + i)
+				    .lastName(lastName(i))
+				    .address(i + " Main St.")
+				    .city("City" + Math.floorMod(i, 100))
+				    .telephone(String.format("%010d", Math.floorMod(i, 1_000_000_000)))
+				    .build();
+	}
+
+}  // end class OwnerServiceBenchmark
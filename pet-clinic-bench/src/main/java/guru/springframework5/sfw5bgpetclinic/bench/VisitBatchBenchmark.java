@@ -0,0 +1,148 @@
+//***************************************************************************
+//Class:        VisitBatchBenchmark
+//
+//Measures the visit batch API's ingest (pet-clinic-web ingest.VisitBatchIngest) on springdatajpa, in Visits a
+//second (throughput, one op = one Visit).  Every call is one request's worth (VISITS) for random Pets; compare:
+//    insertAll    - VisitService.insertAll alone (JDBC batches, one transaction)
+//    ingest       - VisitBatchIngest.ingest:  the checks, one PetService.findAllById, then insertAll
+//    ingestJson   - the same from the JSON body to the JSON response (what the controller adds, short of HTTP)
+//The requests (items and JSON bodies) are made in setUp, REQUESTS of them taken in turn, so building them is not
+//measured.  The data-only context has no EntityChangeListeners (near-cache, analytics, search), so this is the
+//ingest without them - the HTTP load harness measures the whole request.  The Visits table is emptied after
+//every iteration, so every iteration inserts into the same size of table.
+//
+//   java -jar pet-clinic-bench/target/benchmarks.jar VisitBatchBenchmark
+//   java -jar pet-clinic-bench/target/benchmarks.jar VisitBatchBenchmark -p pets=1,1000
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import guru.springframework5.sfw5bgpetclinic.bench.springdatajpa.BenchJpaApplication;
+import guru.springframework5.sfw5bgpetclinic.ingest.VisitBatchIngest;
+import guru.springframework5.sfw5bgpetclinic.ingest.VisitBatchItem;
+import guru.springframework5.sfw5bgpetclinic.ingest.VisitBatchResponse;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(VisitBatchBenchmark.VISITS)
+@Warmup(iterations = 3, time = 5)                   // a call takes 0.1 - 0.3s - 2s iterations are too few calls
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VisitBatchBenchmark {
+
+	static final int VISITS = 10_000;                     // per call - the API's default max-items
+	private static final int REQUESTS = 8;
+
+	private static final TypeReference<List<VisitBatchItem>> ITEMS = new TypeReference<List<VisitBatchItem>>() {};
+
+	@Param({"1000"})               // the Visits are for random Pets out of this many
+	public int pets;
+
+	private ConfigurableApplicationContext context;
+	private VisitService visitService;
+	private VisitBatchIngest ingest;
+	private ObjectMapper objectMapper;
+	private final List<List<VisitBatchItem>> requests = new ArrayList<>(REQUESTS);
+	private final List<byte[]> bodies = new ArrayList<>(REQUESTS);
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		context = BenchJpaApplication.start();
+		visitService = context.getBean(VisitService.class);
+		ingest = new VisitBatchIngest(context.getBean(PetService.class), visitService, context.getEnvironment());
+		objectMapper = new ObjectMapper();
+
+		PetType petType = context.getBean(PetTypeService.class).save(PetType.builder().name("Dog").build());
+		OwnerService ownerService = context.getBean(OwnerService.class);
+		List<Long> petIds = new ArrayList<>(pets);
+		for (int i = 0; i < pets; i++) {
+			Owner owner = Owner.builder().firstName("First" + i).lastName("Last" + i).build();
+			new Pet("Pet" + i, petType, owner, LocalDate.of(2015, 1, 1));
+			petIds.add(ownerService.save(owner).getPet("Pet" + i, false).getId());
+		}
+
+		for (int r = 0; r < REQUESTS; r++) {
+			List<VisitBatchItem> items = new ArrayList<>(VISITS);
+			for (int i = 0; i < VISITS; i++)
+				items.add(new VisitBatchItem(petIds.get(ThreadLocalRandom.current().nextInt(pets)),
+				                             LocalDate.of(2021, 6, 1 + i % 28).toString(), "Visit " + i));
+			requests.add(items);
+			bodies.add(objectMapper.writeValueAsBytes(items));
+		}
+	}  // end setUp()
+
+	@TearDown(Level.Iteration)
+	public void emptyVisits() {
+		context.getBean(JdbcTemplate.class).update("delete from visits");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Visit> insertAll() {
+		// New Visits (and Pet stand-ins) every call, as the ingest.
+		Map<Long, Pet> references = new HashMap<>();
+		List<Visit> visits = new ArrayList<>(VISITS);
+		for (VisitBatchItem item : nextRequest()) {
+			Pet pet = references.computeIfAbsent(item.petId, Pet::reference);
+			visits.add(new Visit(LocalDate.parse(item.date), item.description, pet));
+		}
+		return visitService.insertAll(visits);
+	}
+
+	@Benchmark
+	public VisitBatchResponse ingest() {
+		return ingest.ingest(nextRequest());
+	}
+
+	@Benchmark
+	public byte[] ingestJson() throws Exception {
+		byte[] body = bodies.get(next++ % REQUESTS);
+		return objectMapper.writeValueAsBytes(ingest.ingest(objectMapper.readValue(body, ITEMS)));
+	}
+
+	private List<VisitBatchItem> nextRequest() {
+		return requests.get(next++ % REQUESTS);
+	}
+
+}  // end class VisitBatchBenchmark
@@ -0,0 +1,53 @@
+//***************************************************************************
+//Enum:         Endpoint
+//
+//The controller flows driven by LoadHarness, with their default share of the 
+//request mix (weights are relative, not percentages).  Name is what shows in 
+//the report and the tag on each histogram in the HdrHistogram log.
+//
+//Override the mix with --mix showOwner=50,findOwners=20,... (missing = 0).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.load;
+
+public enum Endpoint {
+
+	FIND_OWNERS  ("findOwners",   20),   // OwnerController.processFindForm     GET  /owners?lastName=
+	SHOW_OWNER   ("showOwner",    35),   // OwnerController.showOwner           GET  /owners/{ownerId}
+	LIST_VETS    ("listVets",     10),   // VetController.listVets              GET  /vets
+	CREATE_OWNER ("createOwner",   5),   // OwnerController.processCreateOwnerForm  POST /owners/new
+	UPDATE_OWNER ("updateOwner",  10),   // OwnerController.processUpdateOwnerForm  POST /owners/{ownerId}/update
+	CREATE_PET   ("createPet",     5),   // PetController.processCreatePetForm      POST /owners/{ownerId}/pets/new
+	UPDATE_PET   ("updatePet",     5),   // PetController.processUpdatePetForm      POST /owners/{ownerId}/pets/{petId}/update
+	CREATE_VISIT ("createVisit",  10);   // VisitController.processCreateVisitForm  POST /owners/{ownerId}/pets/{petId}/visits/new
+
+	private final String label;
+	private final int defaultWeight;
+
+	Endpoint(String label, int defaultWeight) {
+		this.label = label;
+		this.defaultWeight = defaultWeight;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public int getDefaultWeight() {
+		return defaultWeight;
+	}
+
+	/**
+	 * Look up by report name (case insensitive).
+	 * @param label - i.e. "showOwner"
+	 * @return Endpoint
+	 * @throws IllegalArgumentException if no such endpoint
+	 */
+	public static Endpoint fromLabel(String label) {
+		for (Endpoint endpoint : values()) {
+			if (endpoint.label.equalsIgnoreCase(label))
+				return endpoint;
+		}
+		throw new IllegalArgumentException("Unknown endpoint '" + label + "'");
+	}
+
+}  // end enum Endpoint
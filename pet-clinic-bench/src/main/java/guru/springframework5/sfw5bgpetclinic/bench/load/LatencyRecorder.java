@@ -0,0 +1,129 @@
+//***************************************************************************
+//Class:        LatencyRecorder
+//
+//Per-endpoint latency bookkeeping for LoadHarness, built on HdrHistogram.
+//Worker threads call record() (lock free - HdrHistogram Recorder).  Once a 
+//second the harness calls writeInterval() which moves the interval histograms 
+//into the HdrHistogram log (one tagged histogram per endpoint) and into the 
+//run totals used for the final report.
+//
+//Values are in microseconds.  Log can be read back with HdrHistogram's 
+//HistogramLogProcessor / HistogramLogReader (use -tag <endpoint>).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.load;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+public class LatencyRecorder {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = 60_000_000L;  // 60 seconds
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Histogram> recycled = new EnumMap<>(Endpoint.class);
+	
+	private final HistogramLogWriter logWriter;
+	private long intervalStartMillis;
+	private long measureStartMillis;
+	private long measureEndMillis;
+
+	public LatencyRecorder(PrintStream log) {
+		for (Endpoint endpoint : Endpoint.values()) {
+			recorders.put(endpoint, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+			totals.put(endpoint, new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+			errors.put(endpoint, new LongAdder());
+		}
+		this.logWriter = new HistogramLogWriter(log);
+	}
+
+	/**
+	 * Record one request.  Called by worker threads.
+	 * @param endpoint - which flow
+	 * @param micros - latency (from intended start time when running at a fixed rate)
+	 * @param success - false if the request failed or returned 4xx/5xx
+	 */
+	public void record(Endpoint endpoint, long micros, boolean success) {
+		recorders.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+		if (!success)
+			errors.get(endpoint).increment();
+	}
+
+	/**
+	 * Start of the measured period.  Throws away whatever was recorded during warmup.
+	 */
+	public void startMeasuring() {
+		for (Endpoint endpoint : Endpoint.values()) {
+			recorders.get(endpoint).reset();
+			totals.get(endpoint).reset();
+			errors.get(endpoint).reset();
+		}
+		measureStartMillis = intervalStartMillis = System.currentTimeMillis();
+		logWriter.outputLogFormatVersion();
+		logWriter.outputStartTime(measureStartMillis);
+		logWriter.setBaseTime(measureStartMillis);
+		logWriter.outputLegend();
+	}
+
+	/**
+	 * Move the latest interval into the log and the totals.  Called once a second by the harness thread.
+	 */
+	public void writeInterval() {
+		long now = System.currentTimeMillis();
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram interval = recorders.get(endpoint).getIntervalHistogram(recycled.get(endpoint));
+			recycled.put(endpoint, interval);
+			if (interval.getTotalCount() == 0)
+				continue;
+			interval.setStartTimeStamp(intervalStartMillis);
+			interval.setEndTimeStamp(now);
+			interval.setTag(endpoint.getLabel());
+			logWriter.outputIntervalHistogram(interval);
+			totals.get(endpoint).add(interval);
+		}
+		intervalStartMillis = now;
+		measureEndMillis = now;
+	}
+
+	/**
+	 * Print throughput and p50 / p99 / p99.9 per endpoint (milliseconds).
+	 * @param out - where to print
+	 */
+	public void printSummary(PrintStream out) {
+		double seconds = Math.max(1L, measureEndMillis - measureStartMillis) / 1000.0;
+		out.println(String.format("%-14s %10s %10s %8s %9s %9s %9s %9s", 
+				                  "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+		Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+		long allErrors = 0;
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram h = totals.get(endpoint);
+			if (h.getTotalCount() == 0)
+				continue;
+			all.add(h);
+			allErrors += errors.get(endpoint).sum();
+			printLine(out, endpoint.getLabel(), h, errors.get(endpoint).sum(), seconds);
+		}
+		printLine(out, "ALL", all, allErrors, seconds);
+	}
+
+	private static void printLine(PrintStream out, String label, Histogram h, long errors, double seconds) {
+		out.println(String.format("%-14s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f", 
+				                  label, 
+				                  h.getTotalCount(), 
+				                  h.getTotalCount() / seconds, 
+				                  errors,
+				                  h.getValueAtPercentile(50.0) / 1000.0,
+				                  h.getValueAtPercentile(99.0) / 1000.0,
+				                  h.getValueAtPercentile(99.9) / 1000.0,
+				                  h.getMaxValue() / 1000.0));
+	}
+
+}  // end class LatencyRecorder
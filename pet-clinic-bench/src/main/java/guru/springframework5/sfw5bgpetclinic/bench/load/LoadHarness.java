@@ -0,0 +1,309 @@
+//***************************************************************************
+//Class:        LoadHarness
+//
+//Self-contained end-to-end HTTP load test for the pet-clinic-web controllers 
+//(OwnerController, PetController, VisitController, VetController).  No external 
+//services:  boots Sfw5BgPetclinicApplication on an embedded Tomcat (random port) 
+//with an in-memory H2 database (or the map profile), seeds a dataset through the 
+//services, then drives a weighted mix of find / show / create / update requests 
+//with java.net.http.HttpClient.
+//
+//Reports requests/sec and p50 / p99 / p99.9 latency per endpoint, and writes the 
+//per-second latency histograms to an HdrHistogram log (tagged by endpoint).
+//
+//Usage:
+//   java -cp pet-clinic-bench/target/benchmarks.jar \
+//        guru.springframework5.sfw5bgpetclinic.bench.load.LoadHarness [options]
+//
+//Options (defaults in brackets):
+//   --profile P          springdatajpa | map                          [springdatajpa]
+//   --owners N           Owners to seed                               [1000]
+//   --pets-per-owner N   Pets per Owner                               [2]
+//   --visits-per-pet N   Visits per Pet                               [1]
+//   --threads N          concurrent clients                           [16]
+//   --rate N             total requests/sec (0 = as fast as possible)  [0]
+//   --warmup S           seconds of unmeasured warmup                 [10]
+//   --duration S         seconds measured                             [30]
+//   --mix a=w,b=w,...    request mix by endpoint name (see Endpoint)   [Endpoint defaults]
+//   --out DIR            where to write the .hlog file                [target/load-results]
+//   --label NAME         log file name                                [$GIT_COMMIT or "local"]
+//
+//With --rate, each client has a fixed schedule and latency is measured from the 
+//time the request SHOULD have been sent (avoids coordinated omission).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.load;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.Sfw5BgPetclinicApplication;
+
+public class LoadHarness {
+
+	// Options 
+	private String profile = "springdatajpa";
+	private int owners = 1000;
+	private int petsPerOwner = 2;
+	private int visitsPerPet = 1;
+	private int threads = 16;
+	private int rate = 0;
+	private int warmupSeconds = 10;
+	private int durationSeconds = 30;
+	private final Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+	private String outDir = "target/load-results";
+	private String label = (System.getenv("GIT_COMMIT") != null) ? System.getenv("GIT_COMMIT") : "local";
+
+	// Run state
+	private Endpoint[] weightedEndpoints;   // each endpoint repeated "weight" times; pick one at random
+	private SeededData data;
+	private String baseUrl;
+	private HttpClient client;
+	private LatencyRecorder latencies;
+	private volatile boolean running = true;
+	private final AtomicLong sequence = new AtomicLong();  // unique names for created Owners / Pets
+
+	public static void main(String[] args) throws Exception {
+		LoadHarness harness = new LoadHarness();
+		harness.parse(args);
+		harness.run();
+		System.exit(0);   // Tomcat / Hikari threads are non-daemon
+	}
+
+	// -------------------------------------------------------
+	// Options
+	// -------------------------------------------------------
+
+	private void parse(String[] args) {
+		for (Endpoint endpoint : Endpoint.values())
+			mix.put(endpoint, endpoint.getDefaultWeight());
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "--profile":        profile = value; break;
+				case "--owners":         owners = Integer.parseInt(value); break;
+				case "--pets-per-owner": petsPerOwner = Integer.parseInt(value); break;
+				case "--visits-per-pet": visitsPerPet = Integer.parseInt(value); break;
+				case "--threads":        threads = Integer.parseInt(value); break;
+				case "--rate":           rate = Integer.parseInt(value); break;
+				case "--warmup":         warmupSeconds = Integer.parseInt(value); break;
+				case "--duration":       durationSeconds = Integer.parseInt(value); break;
+				case "--out":            outDir = value; break;
+				case "--label":          label = value; break;
+				case "--mix":
+					mix.replaceAll((endpoint, weight) -> 0);
+					for (String entry : value.split(",")) {
+						String[] pair = entry.split("=");
+						mix.put(Endpoint.fromLabel(pair[0].trim()), Integer.valueOf(pair[1].trim()));
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		List<Endpoint> weighted = new ArrayList<>();
+		mix.forEach((endpoint, weight) -> {
+			for (int w = 0; w < weight; w++)
+				weighted.add(endpoint);
+		});
+		if (weighted.isEmpty())
+			throw new IllegalArgumentException("Request mix is empty");
+		weightedEndpoints = weighted.toArray(new Endpoint[0]);
+	}  // end parse
+
+	// -------------------------------------------------------
+	// Run
+	// -------------------------------------------------------
+
+	private void run() throws Exception {
+		System.out.println("Starting pet-clinic-web (profile " + profile + ") ...");
+		ConfigurableApplicationContext context = 
+				new SpringApplicationBuilder(Sfw5BgPetclinicApplication.class)
+				        .profiles(profile)
+				        .properties("server.port=0",
+				        		    "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+				        		    "spring.devtools.restart.enabled=false",
+				        		    "logging.level.root=WARN")
+				        .run();
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			baseUrl = "http://localhost:" + port;
+
+			System.out.println("Seeding " + owners + " owners, " + petsPerOwner + " pets/owner, " + visitsPerPet + " visits/pet ...");
+			long seedStart = System.nanoTime();
+			data = SeededData.seed(context, owners, petsPerOwner, visitsPerPet);
+			System.out.println("Seeded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart) + " ms");
+
+			client = HttpClient.newBuilder()
+					           .followRedirects(HttpClient.Redirect.NEVER)   // POSTs answer with a redirect; don't follow (not part of that flow)
+					           .connectTimeout(Duration.ofSeconds(5))
+					           .build();
+
+			new File(outDir).mkdirs();
+			File logFile = new File(outDir, label + ".hlog");
+			try (PrintStream log = new PrintStream(new FileOutputStream(logFile), false, "UTF-8")) {
+				latencies = new LatencyRecorder(log);
+				drive(logFile);
+			}
+		} finally {
+			context.close();
+		}
+	}  // end run
+
+	private void drive(File logFile) throws InterruptedException {
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread worker = new Thread(this::workerLoop, "load-" + t);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+
+		System.out.println("Warming up for " + warmupSeconds + " s with " + threads + " clients ...");
+		Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+
+		System.out.println("Measuring for " + durationSeconds + " s ...");
+		latencies.startMeasuring();
+		for (int s = 1; s < durationSeconds; s++) {
+			Thread.sleep(1000);
+			latencies.writeInterval();
+		}
+		Thread.sleep(1000);
+		running = false;
+		for (Thread worker : workers)
+			worker.join(TimeUnit.SECONDS.toMillis(10));
+		latencies.writeInterval();   // last second, including requests that were in flight when stopped
+
+		System.out.println();
+		System.out.println("profile=" + profile + " owners=" + owners + " threads=" + threads + 
+				           " rate=" + ((rate > 0) ? rate + "/s" : "max") + " duration=" + durationSeconds + "s");
+		latencies.printSummary(System.out);
+		System.out.println("HdrHistogram log: " + logFile.getAbsolutePath());
+	}  // end drive
+
+	// -------------------------------------------------------
+	// Worker
+	// -------------------------------------------------------
+
+	private void workerLoop() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long intervalNanos = (rate > 0) ? TimeUnit.SECONDS.toNanos(threads) / rate : 0L;
+		long intendedStart = System.nanoTime();
+
+		while (running) {
+			if (intervalNanos > 0) {
+				// Fixed schedule.  If we are behind, send right away but still measure from the intended time. 
+				long wait = intendedStart - System.nanoTime();
+				if (wait > 0)
+					LockSupport.parkNanos(wait);
+			} else {
+				intendedStart = System.nanoTime();
+			}
+
+			Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+			boolean success;
+			try {
+				HttpResponse<Void> response = client.send(buildRequest(endpoint, random), HttpResponse.BodyHandlers.discarding());
+				success = response.statusCode() < 400;
+			} catch (Exception e) {
+				success = false;
+			}
+			latencies.record(endpoint, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart), success);
+
+			if (intervalNanos > 0)
+				intendedStart += intervalNanos;
+		}
+	}  // end workerLoop
+
+	private HttpRequest buildRequest(Endpoint endpoint, ThreadLocalRandom random) {
+		int ownerIndex = data.randomOwnerIndex(random);
+		long ownerId = data.ownerId(ownerIndex);
+		long petId = data.randomPetId(ownerIndex, random);
+		long n = sequence.incrementAndGet();
+		Map<String, String> form = new HashMap<>();
+
+		switch (endpoint) {
+			case FIND_OWNERS:
+				return get("/owners?lastName=" + encode(SeededData.lastName(random.nextInt(SeededData.LAST_NAMES))));
+			case SHOW_OWNER:
+				return get("/owners/" + ownerId);
+			case LIST_VETS:
+				return get("/vets");
+			case CREATE_OWNER:
+				ownerForm(form, "New" + n, SeededData.lastName(random.nextInt(SeededData.LAST_NAMES)));
+				return post("/owners/new", form);
+			case UPDATE_OWNER:
+				ownerForm(form, "Load" + ownerIndex, SeededData.lastName(ownerIndex));
+				return post("/owners/" + ownerId + "/update", form);
+			case CREATE_PET:
+				form.put("name", "LoadPet" + n);
+				form.put("birthDate", "2018-06-01");
+				form.put("petType", data.randomPetTypeName(random));
+				return post("/owners/" + ownerId + "/pets/new", form);
+			case UPDATE_PET:
+				if (petId < 0)
+					return get("/owners/" + ownerId);
+				form.put("name", "Pet" + (random.nextInt(Math.max(1, petsPerOwner))));
+				form.put("birthDate", "2016-03-03");
+				form.put("petType", data.randomPetTypeName(random));
+				return post("/owners/" + ownerId + "/pets/" + petId + "/update", form);
+			case CREATE_VISIT:
+				if (petId < 0)
+					return get("/owners/" + ownerId);
+				form.put("date", "2021-02-02");
+				form.put("description", "Load visit " + n);
+				return post("/owners/" + ownerId + "/pets/" + petId + "/visits/new", form);
+			default:
+				throw new IllegalStateException("No request for " + endpoint);
+		}
+	}  // end buildRequest
+
+	private static void ownerForm(Map<String, String> form, String firstName, String lastName) {
+		form.put("firstName", firstName);
+		form.put("lastName", lastName);
+		form.put("address", "1 Load St.");
+		form.put("city", "Loadville");
+		form.put("telephone", "5555555555");
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+	}
+
+	private HttpRequest post(String path, Map<String, String> form) {
+		StringJoiner body = new StringJoiner("&");
+		form.forEach((name, value) -> body.add(encode(name) + "=" + encode(value)));
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				          .header("Content-Type", "application/x-www-form-urlencoded")
+				          .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+				          .build();
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+}  // end class LoadHarness
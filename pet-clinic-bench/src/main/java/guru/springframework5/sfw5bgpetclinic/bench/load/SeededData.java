@@ -0,0 +1,119 @@
+//***************************************************************************
+//Class:        SeededData
+//
+//Loads the configurable dataset through the app's own services (so it works 
+//for both the map and springdatajpa profiles) and remembers the ids so the 
+//load generator can build requests for Owners / Pets that exist.
+//
+//Owners are saved first, then their Pets (PetServiceMapImpl requires the 
+//Owner to already have an id), then Visits.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.load;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.ApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+public class SeededData {
+
+	// Distinct last names, so a find by last name returns a list (not always one Owner). 
+	static final int LAST_NAMES = 500;
+	
+	private final long[] ownerIds;
+	private final long[][] petIds;       // petIds[i] = ids of the Pets of ownerIds[i]
+	private final List<String> petTypeNames = new ArrayList<>();
+
+	private SeededData(int owners) {
+		this.ownerIds = new long[owners];
+		this.petIds = new long[owners][];
+	}
+
+	/**
+	 * Seed Owners, Pets and Visits through the services found in the application context.  
+	 * @param context - running pet-clinic-web context
+	 * @param owners - number of Owners to add
+	 * @param petsPerOwner - number of Pets per Owner
+	 * @param visitsPerPet - number of Visits per Pet
+	 * @return the ids of everything added
+	 */
+	public static SeededData seed(ApplicationContext context, int owners, int petsPerOwner, int visitsPerPet) {
+		OwnerService ownerService = context.getBean(OwnerService.class);
+		PetService petService = context.getBean(PetService.class);
+		PetTypeService petTypeService = context.getBean(PetTypeService.class);
+		VisitService visitService = context.getBean(VisitService.class);
+
+		// Use the PetTypes DataLoader created; add some if there are none (e.g. DataLoader disabled). 
+		List<PetType> petTypes = new ArrayList<>(petTypeService.findAll());
+		if (petTypes.isEmpty()) {
+			petTypes.add(petTypeService.save(PetType.builder().name("Dog").build()));
+			petTypes.add(petTypeService.save(PetType.builder().name("Cat").build()));
+		}
+
+		SeededData data = new SeededData(owners);
+		petTypes.forEach(type -> data.petTypeNames.add(type.getName()));
+
+		for (int i = 0; i < owners; i++) {
+			Owner owner = ownerService.save(Owner.builder()
+					                             .firstName("Load" + i)
+					                             .lastName(lastName(i))
+					                             .address(i + " Load St.")
+					                             .city("City" + (i % 50))
+					                             .telephone(String.format("%010d", i))
+					                             .build());
+			data.ownerIds[i] = owner.getId();
+			data.petIds[i] = new long[petsPerOwner];
+			for (int p = 0; p < petsPerOwner; p++) {
+				Pet pet = petService.save(new Pet("Pet" + p, petTypes.get(p % petTypes.size()), owner, LocalDate.of(2015, 1, 1).plusDays(i % 1000)));
+				data.petIds[i][p] = pet.getId();
+				for (int v = 0; v < visitsPerPet; v++)
+					visitService.save(new Visit(LocalDate.of(2020, 1, 1).plusDays(v), "Checkup " + v, pet));
+			}
+		}
+		return data;
+	}  // end seed
+
+	static String lastName(int i) {
+		return "Loadowner" + (i % LAST_NAMES);
+	}
+
+	// -------------------------------------------------------
+	// Random picks for the load generator
+	// -------------------------------------------------------
+
+	int randomOwnerIndex(ThreadLocalRandom random) {
+		return random.nextInt(ownerIds.length);
+	}
+
+	long ownerId(int ownerIndex) {
+		return ownerIds[ownerIndex];
+	}
+
+	/**
+	 * @return a Pet id of the given Owner, or -1 if the Owner has no Pets
+	 */
+	long randomPetId(int ownerIndex, ThreadLocalRandom random) {
+		long[] pets = petIds[ownerIndex];
+		return (pets.length == 0) ? -1L : pets[random.nextInt(pets.length)];
+	}
+
+	String randomPetTypeName(ThreadLocalRandom random) {
+		return petTypeNames.get(random.nextInt(petTypeNames.size()));
+	}
+
+	int ownerCount() {
+		return ownerIds.length;
+	}
+
+}  // end class SeededData
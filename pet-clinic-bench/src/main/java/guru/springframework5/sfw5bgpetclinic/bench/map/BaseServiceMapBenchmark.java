@@ -0,0 +1,56 @@
+//***************************************************************************
+//Class:        BaseServiceMapBenchmark
+//Extends:      BaseServiceBenchmark (all @Benchmark methods live there)
+//
+//Runs the BaseService suite against the map IMPLs (HashMap kept in 
+//AbstractMapService).  No Spring context - IMPLs are built by hand, wired 
+//to each other the way the map profile wires them. 
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.map;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import guru.springframework5.sfw5bgpetclinic.bench.BaseServiceBenchmark;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.SpecialtyService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.services.WorkingHoursService;
+import guru.springframework5.sfw5bgpetclinic.services.map.AppointmentServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.SpecialtyServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.WorkingHoursServiceMapImpl;
+
+public class BaseServiceMapBenchmark extends BaseServiceBenchmark {
+
+	private Map<Class<?>, Object> services;
+
+	@Override
+	protected <S> S service(Class<S> type) {
+		if (services == null) {
+			services = new HashMap<>();
+			PetTypeService petTypeService = new PetTypeServiceMapImpl();
+			VisitService visitService = new VisitServiceMapImpl();
+			PetService petService = new PetServiceMapImpl(petTypeService, visitService);
+			SpecialtyService specialtyService = new SpecialtyServiceMapImpl();
+			services.put(PetTypeService.class, petTypeService);
+			services.put(VisitService.class, visitService);
+			services.put(PetService.class, petService);
+			services.put(OwnerService.class, new OwnerServiceMapImpl(petService));
+			services.put(SpecialtyService.class, specialtyService);
+			services.put(VetService.class, new VetServiceMapImpl(specialtyService));
+			services.put(WorkingHoursService.class, new WorkingHoursServiceMapImpl());
+			services.put(AppointmentService.class, new AppointmentServiceMapImpl());
+		}
+		return type.cast(services.get(type));
+	}
+
+}  // end class BaseServiceMapBenchmark
@@ -0,0 +1,26 @@
+//***************************************************************************
+//Class:        OwnerServiceMapBenchmark
+//Extends:      OwnerServiceBenchmark (all @Benchmark methods live there)
+//
+//Runs the OwnerService suite against OwnerServiceMapImpl (HashMap kept in 
+//AbstractMapService).  No Spring context - IMPLs are built by hand the same 
+//way OwnerServiceMapImplTest does it. 
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.map;
+
+import guru.springframework5.sfw5bgpetclinic.bench.OwnerServiceBenchmark;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+public class OwnerServiceMapBenchmark extends OwnerServiceBenchmark {
+
+	@Override
+	protected OwnerService createOwnerService() {
+		return new OwnerServiceMapImpl(
+				   new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+	}
+
+}  // end class OwnerServiceMapBenchmark
@@ -0,0 +1,82 @@
+//***************************************************************************
+//Class:        ServiceMetricsBenchmark
+//
+//Measures what the service metrics (pet-clinic-web metrics.ServiceMetricsPostProcessor) add to a
+//service call.  Uses the map OwnerService since its findById is only a HashMap lookup - anything
+//on top of "plain" is the instrumentation.  Compare:
+//    plainFindById         - OwnerServiceMapImpl as is
+//    instrumentedFindById  - same service wrapped by the post processor (Timer + result size)
+//The difference between the two (ns/op) is the per call overhead.  Run with -t 1,16 to also see the
+//cost under contention (all threads record into the same Timer).
+//
+//   java -jar pet-clinic-bench/target/benchmarks.jar ServiceMetricsBenchmark -t 1,16
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.map;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import guru.springframework5.sfw5bgpetclinic.metrics.ServiceMetricsPostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceMetricsBenchmark {
+
+	private static final int OWNERS = 1000;
+
+	@Param({"false", "true"})   // percentile histogram buckets off / on
+	public boolean percentileHistogram;
+
+	@Param({"1", "8"})          // time every call / 1 in 8 (ignored with the histogram - it times every call)
+	public int timingSample;
+
+	private OwnerService plain;
+	private OwnerService instrumented;
+
+	@Setup
+	public void setUp() {
+		plain = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+		for (int i = 0; i < OWNERS; i++)
+			plain.save(Owner.builder().firstName("First" + i).lastName("Last" + i).build());
+		instrumented = (OwnerService) ServiceMetricsPostProcessor.instrument(plain, new SimpleMeterRegistry(), percentileHistogram,
+		                                                                   timingSample);
+	}
+
+	@Benchmark
+	public Owner plainFindById() {
+		return plain.findById(randomId());
+	}
+
+	@Benchmark
+	public Owner instrumentedFindById() {
+		return instrumented.findById(randomId());
+	}
+
+	private static long randomId() {
+		return ThreadLocalRandom.current().nextLong(1, OWNERS + 1);
+	}
+
+}  // end class ServiceMetricsBenchmark
@@ -0,0 +1,31 @@
+//***************************************************************************
+//Class:        BaseServiceSDJpaBenchmark
+//Extends:      BaseServiceBenchmark (all @Benchmark methods live there)
+//
+//Runs the BaseService suite against the springdatajpa IMPLs backed by an 
+//embedded, in-memory H2 database (see BenchJpaApplication).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.springdatajpa;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.bench.BaseServiceBenchmark;
+
+public class BaseServiceSDJpaBenchmark extends BaseServiceBenchmark {
+
+	private ConfigurableApplicationContext context;
+
+	@Override
+	protected <S> S service(Class<S> type) {
+		if (context == null)
+			context = BenchJpaApplication.start();
+		return context.getBean(type);
+	}
+
+	@Override
+	protected void close() {
+		if (context != null)
+			context.close();
+	}
+
+}  // end class BaseServiceSDJpaBenchmark
@@ -0,0 +1,41 @@
+//***************************************************************************
+//Class:        BenchJpaApplication
+//
+//Minimal Spring Boot context for benchmarking the springdatajpa services:  
+//entities, repositories and the services package only (no web layer, no 
+//DataLoader).  Runs against a private in-memory H2 database so every JMH 
+//fork starts empty.
+//
+//Properties are passed in code (not application.properties) so they cannot 
+//clash with the web module's application.properties inside benchmarks.jar.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.springdatajpa;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@SpringBootApplication(scanBasePackages = "guru.springframework5.sfw5bgpetclinic.services")
+@EntityScan("guru.springframework5.sfw5bgpetclinic.model")
+@EnableJpaRepositories("guru.springframework5.sfw5bgpetclinic.repositories")
+public class BenchJpaApplication {
+
+	/**
+	 * Start the context with the springdatajpa profile active.
+	 * @return running context (caller closes) 
+	 */
+	public static ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(BenchJpaApplication.class)
+				       .profiles("springdatajpa")
+				       .properties("spring.main.web-application-type=none",
+				    		       "spring.main.banner-mode=off",
+				    		       "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+				    		       "spring.jpa.hibernate.ddl-auto=create-drop",
+				    		       "spring.datasource.hikari.maximum-pool-size=64",  // >= largest benchmark thread count
+				    		       "logging.level.root=WARN")
+				       .run();
+	}
+
+}  // end class BenchJpaApplication
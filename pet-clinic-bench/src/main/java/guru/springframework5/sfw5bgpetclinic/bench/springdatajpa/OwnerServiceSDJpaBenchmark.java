@@ -0,0 +1,58 @@
+//***************************************************************************
+//Class:        OwnerServiceSDJpaBenchmark
+//Extends:      OwnerServiceBenchmark (all @Benchmark methods live there)
+//
+//Runs the OwnerService suite against OwnerServiceSDJpaImpl backed by an 
+//embedded, in-memory H2 database (see BenchJpaApplication).
+//
+//Seeding goes straight to OwnerRepository.saveAll in chunks (one transaction 
+//per chunk) since it is not measured and 10M single saves would take too long.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.springdatajpa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.bench.OwnerServiceBenchmark;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.repositories.OwnerRepository;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+public class OwnerServiceSDJpaBenchmark extends OwnerServiceBenchmark {
+
+	private static final int SEED_CHUNK = 10_000;
+	
+	private ConfigurableApplicationContext context;
+
+	@Override
+	protected OwnerService createOwnerService() {
+		context = BenchJpaApplication.start();
+		return context.getBean(OwnerService.class);
+	}
+
+	@Override
+	protected void seed(int count) {
+		OwnerRepository ownerRepository = context.getBean(OwnerRepository.class);
+		List<Owner> chunk = new ArrayList<>(SEED_CHUNK);
+		for (int i = 0; i < count; i++) {
+			chunk.add(newOwner(i));
+			if ( (chunk.size() == SEED_CHUNK) || (i == count - 1) ) {
+				for (Owner saved : ownerRepository.saveAll(chunk)) {
+					if (firstId == 0L)
+						firstId = saved.getId();
+					lastId = saved.getId();
+				}
+				chunk.clear();
+			}
+		}
+	}
+
+	@Override
+	protected void close() {
+		if (context != null)
+			context.close();
+	}
+
+}  // end class OwnerServiceSDJpaBenchmark
@@ -0,0 +1,81 @@
+//***************************************************************************
+//Class:        TimeToFirstRequestBenchmark
+//
+//Time from SpringApplication.run to the first successful GET / - what a user (or a load balancer health
+//check) actually waits for - with and without the fast-startup profile (application-fast-startup.properties).
+//
+//SingleShotTime in a fresh fork per measurement: startup only happens once per JVM, and a warmed up JVM
+//(JIT compiled Spring, classes already loaded) would hide most of what is being measured.
+//Random port (server.port=0) so forks never collide; devtools restart off (it would restart the context).
+//
+//Run:  java -jar pet-clinic-bench/target/benchmarks.jar TimeToFirstRequestBenchmark
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bench.startup;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import guru.springframework5.sfw5bgpetclinic.Sfw5BgPetclinicApplication;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class TimeToFirstRequestBenchmark {
+
+	// Active profiles - the persistence profile alone (what application.properties sets), or plus fast-startup.
+	@Param({"springdatajpa", "springdatajpa,fast-startup"})
+	public String profiles;
+
+	private ConfigurableApplicationContext context;
+
+	@Benchmark
+	public int timeToFirstRequest() throws IOException {
+		context = SpringApplication.run(Sfw5BgPetclinicApplication.class,
+		                                "--spring.profiles.active=" + profiles,
+		                                "--server.port=0",
+		                                "--spring.devtools.restart.enabled=false");
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		return get("http://localhost:" + port + "/");
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() {
+		if (context != null)
+			context.close();
+	}
+
+	// The server is listening once run() returns; anything but 200 means the page is broken, not slow.
+	private static int get(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try {
+			int status = connection.getResponseCode();
+			if (status != 200)
+				throw new IllegalStateException("GET " + url + " answered " + status);
+			return status;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+}  // end class TimeToFirstRequestBenchmark
@@ -0,0 +1,91 @@
+//***************************************************************************
+//Class:    Appointment (model object)
+//Extends:  BaseEntity
+//
+//Model (entity) object for a booked appointment:  the Visit (Pet, date, reason) with the Vet who sees it,
+//the time from startTime up to (not including) endTime on the Visit's date and, if the appointment needs
+//one, the Specialty it was booked for (i.e., surgery).
+//
+//Booked through the appointment scheduler (pet-clinic-web), which keeps every Vet's booked times in memory
+//and makes sure two Appointments of one Vet never overlap.  The database backs it up where it can:  one Vet
+//cannot have two Appointments starting at the same date and time (unique vet_id, date, start_time) - even when
+//two scheduler instances, each with its own memory, book against the same database.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor   // Lombok - required by JPA / Hibernate
+@Getter				 // Lombok
+@Setter              // Lombok
+@Entity
+@Table(name = "appointments",
+       uniqueConstraints = @UniqueConstraint(name = "appointments_vet_start", columnNames = {"vet_id", "date", "start_time"}))
+public class Appointment extends BaseEntity {
+
+	private static final long serialVersionUID = 5237114386210719561L;
+
+	@ManyToOne                       // Many Appointments for 1 Vet
+	@JoinColumn(name = "vet_id")
+	private Vet vet;
+
+	@OneToOne                        // The Visit booked - no cascade, saved (and deleted) through VisitService
+	@JoinColumn(name = "visit_id")
+	private Visit visit;
+
+	@ManyToOne                       // null if any Vet will do
+	@JoinColumn(name = "specialty_id")
+	private Specialty specialty;
+
+	@Column(name = "date")           // same as the Visit's date - here too so a Vet's day is found without the Visit
+	private LocalDate date;
+
+	@Column(name = "start_time")
+	private LocalTime startTime;
+
+	@Column(name = "end_time")       // exclusive
+	private LocalTime endTime;
+
+	/** 
+	 * Constructor - @Builder.  Do NOT include "id" as parameter.  It is generated.
+	 * The date is the Visit's date.
+     */	 
+	@Builder
+	public Appointment(Vet vet, Visit visit, Specialty specialty, LocalTime startTime, LocalTime endTime) {
+		super();
+		this.vet = vet;
+		this.visit = visit;
+		this.specialty = specialty;
+		this.date = (visit == null) ? null : visit.getDate();
+		this.startTime = startTime;
+		this.endTime = endTime;
+	}
+
+	@Override
+	public String toString() {
+		return "Appointment{" +
+		       super.toString() +
+		       "vet=" + ((vet == null) ? null : vet.getId()) +
+		       ", visit=" + ((visit == null) ? null : visit.getId()) +
+		       ", specialty=" + ((specialty == null) ? null : specialty.getDescription()) +
+		       ", date=" + date +
+		       ", startTime=" + startTime +
+		       ", endTime=" + endTime +
+		       "}";
+	}  // end toString()
+
+}  // end class Appointment
@@ -22,11 +22,13 @@ import java.util.Set;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
 import org.springframework.util.StringUtils;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -38,7 +40,8 @@ import lombok.Setter;
 @Getter				 // Lombok
 @Setter              // Lombok
 @Entity 		// Identify as JPA entity to be mapped to DB
-@Table(name = "owners")     // DB name to hold these objects
+@Table(name = "owners",     // DB name to hold these objects
+       indexes = @Index(name = "owners_telephone_digits", columnList = "telephone_digits"))   // findByTelephone
 public class Owner extends Person {
 
 	/**
@@ -64,6 +67,12 @@ public class Owner extends Person {
 	
 	@Column (name = "telephone")
 	private String 	telephone;
+
+	// telephone with everything but the digits taken out - what findByTelephone looks up (indexed).  
+	// Kept in step by setTelephone() / the constructor, never set on its own.
+	@Column (name = "telephone_digits", length = 20)
+	@Setter(AccessLevel.NONE)
+	private String 	telephoneDigits;
 	
 	// pets attribute - requires a relationship mapping EVERY OWNER CAN HAVE MULTIPLE PETS; MANY PETS HAVE ONE OWNER
 	// 		1 Owner has MANY Pet a/w it in table.  			(Owner has Hash<Pet> attribute)
@@ -92,10 +101,37 @@ public class Owner extends Person {
 		super(firstName, lastName);
 		this.address = address;
 		this.city = city;
-		this.telephone = telephone;
+		setTelephone(telephone);
 		if (pets != null) this.pets = pets;
 	}
 	
+	// -----------------------------------------------
+	// Telephone - both forms set together
+	// -----------------------------------------------
+
+	public void setTelephone(String telephone) {
+		this.telephone = telephone;
+		this.telephoneDigits = telephoneDigits(telephone);
+	}
+
+	/**
+	 * A telephone number as findByTelephone compares it - "(617) 555-0000", "617.555.0000" and "6175550000" 
+	 * are all "6175550000".  
+	 * @param telephone - any format, may be null
+	 * @return just the digits; null if there are none (or more than 20 - not a telephone number)
+	 */
+	public static String telephoneDigits(String telephone) {
+		if (telephone == null)
+			return null;
+		StringBuilder digits = new StringBuilder(telephone.length());
+		for (int i = 0; i < telephone.length(); i++) {
+			char c = telephone.charAt(i);
+			if (c >= '0' && c <= '9')
+				digits.append(c);
+		}
+		return (digits.length() == 0 || digits.length() > 20) ? null : digits.toString();
+	}  // end telephoneDigits()
+	
 	// -----------------------------------------------
 	// Public Methods
 	// -----------------------------------------------
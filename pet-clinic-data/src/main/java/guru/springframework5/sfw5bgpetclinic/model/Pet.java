@@ -133,38 +133,9 @@ public class Pet extends BaseEntity {
 	 * @return true if added; false otherwise. 
 	 */
 	public boolean add(Visit visit) {
-
-		System.out.println("All visits for pet ");
-		for (Visit v : this.visits) {
-			if 	(v.isNew()) 
-				System.out.println("New null id");
-			else  
-				System.out.println ("Visit id = " + v.getId());
-			
-			System.out.println("Visit desc " + v.getDescription());
-			System.out.println("Visit date " + v.getDate());
-
-		}
-		
-		if (this.visits.contains(visit))
-			System.out.println("In Pet:addVisit - - Contains visit already!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
-		else 
-			System.out.println("In Pet:addVisit - - DOES NOT contain visit yet !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
-
-		System.out.println("Does contains call equals?????????????????????????????????");
-		if (this.visits.contains(visit))
-			System.out.println("CONTAINS");
-		else 
-			System.out.println("NOPE");
-			
 		if ((visit == null) || (this.visits.contains(visit)) )
 			return false;
-		// Visit to be added
-		System.out.println("Visit id " + visit.getId());
-		System.out.println("Visit desc " + visit.getDescription());
-		System.out.println("Visit date " + visit.getDate());
 
-		
 		// Request to add the Visit.  If the visit already exists in the Set (equals() returns true)
 		// the existing visit will be removed and the current one added.  This handles updates where the 
 		// id's are the same (eqaual returns true), but some values are different. 
@@ -172,7 +143,6 @@ public class Pet extends BaseEntity {
 			this.visits.remove(visit);  
 
 		if (this.visits.add(visit)) {
-			System.out.println("!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!! ADDING VISIT to PETS SET OF VISITS");
 			visit.setPet(this);
 			return true;
 		}
@@ -180,6 +150,34 @@ public class Pet extends BaseEntity {
 		// Visit was not added to Pet. 
 		return false;
 	}
+
+	/**
+	 * A detached stand-in for a saved Pet, to point new Visits at without touching the real one:  the Visit
+	 * constructor adds the Visit to its Pet, so on a managed Pet that would load all its Visits, and a Pet
+	 * shared by many new Visits would collect every one of them.
+	 * @param id - id of the saved Pet (what a Visit's pet_id needs)
+	 * @return new Pet with only the id set
+	 */
+	public static Pet reference(Long id) {
+		Pet reference = new Pet(null, null, null, null);
+		reference.setId(id);
+		return reference;
+	}
+
+	/**
+	 * Stand-in as reference(Long), also carrying the Pet's name, birth date, PetType and Owner (for what reads the
+	 * new Visits' Pet - e.g. the entity change listeners) - but not its Visits, and not in its Owner's Pets.
+	 * @param pet - saved Pet
+	 * @return new Pet with the same id, name, birth date, PetType and Owner
+	 */
+	public static Pet reference(Pet pet) {
+		Pet reference = reference(pet.getId());
+		reference.setName(pet.getName());
+		reference.setBirthDate(pet.getBirthDate());
+		reference.setPetType(pet.getPetType());
+		reference.setOwner(pet.getOwner());
+		return reference;
+	}
 	
 // -----------------------------------------------
 // LOMBOK generates @Getters and @Setters 
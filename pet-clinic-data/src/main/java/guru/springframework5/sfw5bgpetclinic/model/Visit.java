@@ -87,6 +87,18 @@ public class Visit extends BaseEntity {
 //		date = LocalDate.now();  // obtain current date from system clock.
 //	}
 
+	/**
+	 * No-arg constructor REQUIRED by JPA / Hibernate to create Visits read from the DB (i.e., when a
+	 * Pet's visits are lazily loaded for ownerDetails.html).  Without it every page showing a Pet with
+	 * visits failed with "No default constructor for entity".
+	 *
+	 * NOT @Builder and protected (not public) so Spring MVC still binds the visit form through the
+	 * public constructor below (it uses the single public constructor when there is one).
+	 */
+	protected Visit() {
+		super();
+	}
+
 	/**
 	 * Constructor for Visit class. (Used for constructor injection).
 	 *
@@ -107,7 +119,6 @@ public class Visit extends BaseEntity {
               // Don't allow visits because bidirectional and need "pet.add(visit)" to make sure pet gets set as add each visit. 
 	public Visit (LocalDate date, String description, Pet pet) {
 		super();
-		System.out.println("In Visit constructor");
 
 		// If date not provided, default to current date.
 		if (date != null)
@@ -162,7 +173,6 @@ public class Visit extends BaseEntity {
 //	
 	public void setPet(Pet pet) {
 		if ( (pet != null) && ((this.pet == null) || !(this.pet.equals(pet))) ) {
-			System.out.println("!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!! SETTING VISITS PET ATTRIBUTE TO PET");
 			this.pet = pet;
 			this.pet.add(this);
 		}
@@ -191,8 +201,6 @@ public class Visit extends BaseEntity {
 	@Override
 	public boolean equals (Object o)
 	{
-		System.out.println("Invoked visit:equals");
-		
 		// Check if both object reference variables reference the same object in memory.
 		if (o == this)
 			return true;
@@ -305,8 +313,6 @@ public class Visit extends BaseEntity {
 	@Override
 	public int hashCode()
 	{
-		System.out.println("invoked Hashcode");
-		
 		final int prime = 17;
 		int result = super.hashCode();
 		
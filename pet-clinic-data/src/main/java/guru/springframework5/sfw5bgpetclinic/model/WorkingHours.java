@@ -0,0 +1,76 @@
+//***************************************************************************
+//Class:    WorkingHours (model object)
+//Extends:  BaseEntity
+//
+//Model (entity) object for one block of a Vet's working week - e.g., MONDAY 08:00 - 12:00.  A Vet can have
+//several per day (split shifts).  A Vet with none works the clinic's default hours (see the appointment
+//scheduler, petclinic.appointments.*).
+//
+//Kept in its own table pointing at the Vet (not a collection on Vet) so reading Vets - the vets page and
+///api/vets - does not read working hours too.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor   // Lombok - required by JPA / Hibernate
+@Getter				 // Lombok
+@Setter              // Lombok
+@Entity
+@Table(name = "working_hours")
+public class WorkingHours extends BaseEntity {
+
+	private static final long serialVersionUID = -2861958446407283618L;
+
+	@ManyToOne                       // Many blocks of hours for 1 Vet
+	@JoinColumn(name = "vet_id")
+	private Vet vet;
+
+	@Enumerated(EnumType.STRING)     // MONDAY, not 0 - readable and safe if the enum is ever reordered
+	@Column(name = "day_of_week")
+	private DayOfWeek dayOfWeek;
+
+	@Column(name = "start_time")
+	private LocalTime startTime;
+
+	@Column(name = "end_time")       // exclusive - 08:00 - 12:00 is four hours
+	private LocalTime endTime;
+
+	/** 
+	 * Constructor - @Builder.  Do NOT include "id" as parameter.  It is generated.
+     */	 
+	@Builder
+	public WorkingHours(Vet vet, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime) {
+		super();
+		this.vet = vet;
+		this.dayOfWeek = dayOfWeek;
+		this.startTime = startTime;
+		this.endTime = endTime;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkingHours{" +
+		       super.toString() +
+		       "vet=" + ((vet == null) ? null : vet.getId()) +
+		       ", dayOfWeek=" + dayOfWeek +
+		       ", startTime=" + startTime +
+		       ", endTime=" + endTime +
+		       "}";
+	}  // end toString()
+
+}  // end class WorkingHours
@@ -0,0 +1,23 @@
+/**
+ * Interface:  AppointmentRepository
+ * Extends:    CrudRepository 
+ *                 - Has basic create, read, update, delete operation methods
+ *                 - To use CrudRepository, will need a DB (SQL, MySQL, MongoDB, H2).
+ *                 - Through its CrudRepository implementation, Spring Framework is able to determine 
+ *                   from your @ annotations how to map objects to your DB. 
+ *                  
+ * Provides the interface for performing CRUD ops on the DB for Appointment entity objects.   
+ */
+package guru.springframework5.sfw5bgpetclinic.repositories;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.repository.CrudRepository;
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+
+public interface AppointmentRepository extends CrudRepository<Appointment, Long> {    // Long is the id type in BaseEntity
+
+	// JPA Query method - Spring Data builds "where date >= ?" from the name.
+	List<Appointment> findByDateGreaterThanEqual(LocalDate date);
+
+}  // end interface AppointmentRepository
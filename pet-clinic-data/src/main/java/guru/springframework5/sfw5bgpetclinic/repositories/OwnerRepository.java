@@ -24,4 +24,7 @@ public interface OwnerRepository extends CrudRepository<Owner, Long> {     // Lo
 	// "findAllBy" + property in camel back format + "Like"
 	public HashSet<Owner> findAllByLastNameLike(String lastNameLike);
 	
+	// Uses the owners_telephone_digits index (see Owner).  digits - Owner.telephoneDigits(number)
+	public List<Owner> findAllByTelephoneDigitsOrderById(String telephoneDigits);
+	
 }  // end interface OwnerRepository
\ No newline at end of file
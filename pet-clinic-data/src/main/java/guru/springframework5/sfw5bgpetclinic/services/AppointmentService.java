@@ -0,0 +1,28 @@
+//***************************************************************************
+//Interface:    AppointmentService
+//Extends:      BaseService (common CRUD related services)
+//
+//Public interface for Appointment related services (primarily CRUD related).  
+//Inherits common methods of base class, and adds any entity specific method 
+//signatures.  IMPL (Map or Spring Data JPA) chosen by @Profile - see BaseService.java.
+//
+//Saving an Appointment does NOT check it against the Vet's other Appointments - book through the 
+//appointment scheduler (pet-clinic-web), which does.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+
+public interface AppointmentService extends BaseService<Appointment, Long> {
+
+	/**
+	 * Appointments on the given date or later (the ones still to come - what the scheduler loads at startup).
+	 * @param date first date
+	 * @return the Appointments (never null)
+	 */
+	Set<Appointment> findByDateOnOrAfter(LocalDate date);
+
+}  // end interface AppointmentService
@@ -74,7 +74,11 @@
 // (map to jpa etc.).
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 // Type <T> [i.e. placeholder for Owner, Pet, Vet, etc.].  
 // ID [i.e. placeholder for id type - typically Long in Petclinic app]
@@ -92,11 +96,37 @@ public interface BaseService<T, ID> {
 	 */
 	T save (T object);   
 
+	/**
+	 * Save all given entities.  Same as calling save() on each (use the returned instances for further operations),
+	 * but lets an IMPL do the batch in one go - the SDJpa IMPLs override this to use CrudRepository.saveAll
+	 * (one transaction for the whole batch, not one per entity).  The Map IMPLs just use this loop.
+	 * Used by the bulk loaders (i.e., bootstrap.SyntheticDataLoader).
+	 * @param objects non-null entities
+	 * @return the saved entities, in the same order (never null) 
+	 */
+	default List<T> saveAll (Collection<T> objects) {
+		List<T> saved = new ArrayList<>(objects.size());
+		for (T object : objects)
+			saved.add(save(object));
+		return saved;
+	}
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
 	 */
 	Set<T> findAll();
+
+	/**
+	 * Hand every instance of the type to the action, one at a time, in no particular order.  For walking
+	 * all entities (export) without holding them all - findAll() builds a Set of every one of them first.
+	 * This default does just that, so only IMPLs that override it stream: the Map IMPLs walk the Map itself
+	 * (see AbstractMapService).
+	 * @param action called once per entity
+	 */
+	default void forEach (Consumer<? super T> action) {
+		findAll().forEach(action);
+	}
 	
 	/**
 	 * Returns all instances of the type with the given Id.
@@ -105,6 +135,23 @@ public interface BaseService<T, ID> {
 	 */
 	T findById(ID id);
 
+	/**
+	 * Returns the instances of the type with the given Ids.  Same as calling findById() on each, but lets an
+	 * IMPL find them all in one go - the SDJpa IMPLs override this to use CrudRepository.findAllById (one
+	 * select for all of them, not one per id).  The Map IMPLs just use this loop.
+	 * @param ids non-null ids
+	 * @return entities found, in no particular order (ids with no entity are left out - never null) 
+	 */
+	default List<T> findAllById (Collection<ID> ids) {
+		List<T> found = new ArrayList<>(ids.size());
+		for (ID id : ids) {
+			T object = findById(id);
+			if (object != null)
+				found.add(object);
+		}
+		return found;
+	}
+
    /**
 	 * Delete the given entity.
 	 * @param entity  
@@ -0,0 +1,48 @@
+//***************************************************************************
+//Interface:    ExportService
+//
+//Reads every Owner (with its Pets) or every Visit (with its Pet and the Pet's Owner) ONE AT A TIME, for
+//the streaming export (pet-clinic-web export package).  Memory does not grow with the number of rows - unlike
+//findAll(), nothing is collected.  Each object handed to the action is its own copy / the stored one and
+//must not be kept or changed by the action.
+//
+//Not a BaseService - read only.  Like the entity services there is an IMPL per persistence type picked by @Profile:
+//    ExportServiceMapImpl     walks the Maps of the Map services (BaseService.forEach) - no particular order
+//    ExportServiceSDJpaImpl   one forward only cursor (Hibernate ScrollableResults) per call - in id order
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services;
+
+import java.util.function.Consumer;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public interface ExportService {
+
+	/**
+	 * @param action - called once per Owner; getPets() has all its Pets, each with its PetType (not its Visits)
+	 * @return number of Owners
+	 */
+	long forEachOwner(Consumer<Owner> action);
+
+	/**
+	 * @param action - called once per Visit; getPet() is its Pet (with its PetType), getPet().getOwner() the
+	 *                 Pet's Owner (ids, names, PetType name and city only for the JPA IMPL)
+	 * @return number of Visits
+	 */
+	default long forEachVisit(Consumer<Visit> action) {
+		return forEachVisit(Long.MIN_VALUE, Long.MAX_VALUE, action);
+	}
+
+	/**
+	 * Same as forEachVisit(action) for the Visits with fromId <= id < toId only - so several threads can each
+	 * read a range (visit analytics rebuild).  May be called from several threads at once.
+	 */
+	long forEachVisit(long fromId, long toId, Consumer<Visit> action);
+
+	/**
+	 * @return highest Visit id there is, 0 if there are no Visits
+	 */
+	long maxVisitId();
+
+}  // end interface ExportService
@@ -0,0 +1,40 @@
+//***************************************************************************
+//Interface:    OwnerBatchService
+//
+//Bulk insert of NEW Owners together with their Pets and the Pets' Visits (the whole graph, linked the
+//usual way - Pet constructor adds the Pet to the Owner, Visit constructor adds the Visit to the Pet).
+//Used by the bulk import (pet-clinic-web bulkimport package), which writes thousands of Owners at a time.
+//
+//Not a BaseService - there is no find / delete, only "insert all of these".  Like the entity services
+//there is an IMPL per persistence type picked by @Profile:
+//    OwnerBatchServiceMapImpl     saves through the Map services (Owner first - Pets need its id)
+//    OwnerBatchServiceSDJpaImpl   Hibernate StatelessSession + JDBC batches, one transaction per call
+//The SDJpa IMPL writes around the entity services, so nothing wrapped around them (pet-clinic-web's change
+//listeners) sees its inserts - savesThroughServices() tells which kind an IMPL is.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services;
+
+import java.util.List;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+
+public interface OwnerBatchService {
+
+	/**
+	 * Insert the given new Owners, their Pets and the Pets' Visits.  All or nothing where the IMPL
+	 * has transactions (springdatajpa).  Pet types must already exist (have ids).
+	 * @param owners - new Owners (null ids) with their Pets / Visits
+	 * @return number of Visits inserted (Owners and Pets are owners.size() and the sum of their pets)
+	 */
+	long insertAll(List<Owner> owners);
+
+	/**
+	 * @return true if insertAll saves through OwnerService / PetService / VisitService (whatever wraps them
+	 *         sees every insert); false if it writes to the database around them.  Either way every inserted
+	 *         Owner, Pet and Visit has its id when insertAll returns.
+	 */
+	default boolean savesThroughServices() {
+		return false;
+	}
+
+}  // end interface OwnerBatchService
@@ -50,4 +50,8 @@ public interface OwnerService extends BaseService<Owner, Long> {
 	// "findAllBy" + property in camel back format + "Like"
 	HashSet<Owner> findAllByLastNameLike(String lastNameLike);
 	
+	// Reverse telephone lookup (incoming calls).  Compares digits only (see Owner.telephoneDigits), from an index - 
+	// never a scan.  More than one Owner when a household shares a number; oldest (lowest id) first. 
+	List<Owner> findByTelephone(String telephone);
+	
 }  // end interface OwnerService
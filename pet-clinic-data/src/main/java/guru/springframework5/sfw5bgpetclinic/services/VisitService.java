@@ -36,10 +36,24 @@
 //This will be an IMPL determined at runtime by @Profile and application.properties. 
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services;
+import java.util.List;
+
 import guru.springframework5.sfw5bgpetclinic.model.Visit;
 
 public interface VisitService extends BaseService<Visit, Long> {
 
 	// Methods specific to VisitService.  
 
+	/**
+	 * Insert the given NEW Visits (null ids) of Pets already saved - only the Pet's id is written.  Same as
+	 * saveAll() for the Map IMPL (this default); the SDJpa IMPL overrides it to insert them in JDBC batches,
+	 * without the persistence context - for thousands at a time (the visit batch API).  All or nothing:  in the
+	 * caller's transaction if there is one, else in one of its own.  Sets each Visit's generated id.
+	 * @param visits non-null new Visits
+	 * @return the inserted Visits, in the same order (never null) 
+	 */
+	default List<Visit> insertAll (List<Visit> visits) {
+		return saveAll(visits);
+	}
+
 }  // end interface VisitService
@@ -0,0 +1,16 @@
+//***************************************************************************
+//Interface:    WorkingHoursService
+//Extends:      BaseService (common CRUD related services)
+//
+//Public interface for WorkingHours related services (CRUD only).  IMPL (Map or Spring Data JPA) chosen 
+//by @Profile - see BaseService.java.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services;
+
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+
+public interface WorkingHoursService extends BaseService<WorkingHours, Long> {
+
+	// No methods specific to WorkingHoursService.
+
+}  // end interface WorkingHoursService
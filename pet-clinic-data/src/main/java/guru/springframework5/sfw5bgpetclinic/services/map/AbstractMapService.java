@@ -42,12 +42,12 @@
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services.map;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import guru.springframework5.sfw5bgpetclinic.model.BaseEntity;
 
@@ -59,7 +59,12 @@ public abstract class AbstractMapService<T extends BaseEntity, ID extends Long>
 	// will work with only that entity (i.e., Owner), so HashMap will only contain that 
 	// entity (i.e, Owners) since declare class as MyEntityServiceMapImpl <MyEntityType, MyKeyType> 
 	// [i.e., OwnerServiceMapImpl<Owner, Long>.
-	protected Map<Long, T> map = new HashMap<>();  // ID is made Long for save() call to getId(). T is Pet, Vet, Owner, etc. 
+	// ConcurrentHashMap (not HashMap) because the @Service IMPLs are singletons shared by every request thread 
+	// (and by the multi-threaded JMH benchmarks in pet-clinic-bench).  A plain HashMap can corrupt itself under concurrent puts.
+	protected Map<Long, T> map = new ConcurrentHashMap<>();  // ID is made Long for save() call to getId(). T is Pet, Vet, Owner, etc. 
+
+	// Last id handed out.  Ids are never reused (same as a DB identity column), so just count up. 
+	private final AtomicLong lastId = new AtomicLong(0L);
 
 	// -------------------------------------------
 	// BY DEFAULT, THESE METHODS ARE PACKAGE-PRIVATE.
@@ -108,13 +113,27 @@ public abstract class AbstractMapService<T extends BaseEntity, ID extends Long>
 		return new HashSet<>(map.values());  // HashMap is key based; HashSet is NOT key based
 	}
 
+	/**
+	 * Hands every entity to the action straight from the Map - no copy, so memory does not grow with the
+	 * number of entities.  ConcurrentHashMap iteration is weakly consistent: saves / deletes made while
+	 * walking may or may not be seen, nothing is seen twice and it never throws.
+	 * PUBLIC (unlike the others) so it implements BaseService.forEach for every Map IMPL without an override in each.
+	 * 
+	 * @param action called once per entity
+	 */
+	public void forEach(Consumer<? super T> action) {
+		map.values().forEach(action);
+	}
+
 	/**
 	 * Returns all instances of the type with the given Id.
 	 * 
 	 * @param id
-	 * @return entity of given type and id. 
+	 * @return entity of given type and id (null if none, or id is null). 
 	 */
 	T findById(ID id) {
+		if (id == null)      // ConcurrentHashMap.get(null) throws NPE - HashMap returned null, keep that
+			return null;
 		return map.get(id);  // gets object with key matching given id
 	}
 
@@ -143,21 +162,17 @@ public abstract class AbstractMapService<T extends BaseEntity, ID extends Long>
 	/**
 	 * Delete the entity with the given Id.
 	 * 
-	 * @param id must not be null 
+	 * @param id (null - nothing to delete, as with HashMap) 
 	 */
 	void deleteById(ID id)  {
-		map.remove(id);
+		if (id != null)      // ConcurrentHashMap.remove(null) throws NPE
+			map.remove(id);
 	}
 
 	private Long getNextId() {
-		Long nextId = null;
-		try {
-			nextId = Collections.max(map.keySet()) + 1;   // If 1+ entities exist, take greatest Id and add 1 for next id
-		} catch (NoSuchElementException e) {
-			nextId = 1L;                                  // If no entities, exception.  Return 1L as first id. 
-		}
-		
-		return nextId;
+		// Used to be Collections.max(map.keySet()) + 1, which walks every key on every save (O(n) per insert,
+		// so seeding large data sets was O(n^2)).  Counter is O(1) and thread safe. 
+		return lastId.incrementAndGet();
 	}
 }  // end AbstractMapService
 
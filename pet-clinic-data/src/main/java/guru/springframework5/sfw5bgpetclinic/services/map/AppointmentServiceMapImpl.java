@@ -0,0 +1,75 @@
+//***************************************************************************
+//Class:        AppointmentServiceMapImpl [persistence using HashMap kept in AbstractMapService]
+//Extends:      AbstractMapService 
+//Implements:   AppointmentService interface
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Same pattern as VisitServiceMapImpl - see it and BaseService.java for the full explanation.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.map;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+
+@Service
+@Profile({"default", "map"})    // Use MapImpl's by default or if specify "map"; any other Profile do not instantiate MapImpl
+public class AppointmentServiceMapImpl extends AbstractMapService<Appointment, Long> implements AppointmentService {
+
+	public AppointmentServiceMapImpl ()  {
+		super();
+	}
+
+	@Override
+	public Set<Appointment> findByDateOnOrAfter(LocalDate date) {
+		Set<Appointment> appointments = new HashSet<>();
+		forEach(appointment -> {
+			if (!appointment.getDate().isBefore(date))
+				appointments.add(appointment);
+		});
+		return appointments;
+	}
+
+	/**
+	 * Save a given entity.  Appointments only save for a Vet and a Visit already in the system (same as
+	 * Visits need a saved Pet).  Otherwise, throw exception.
+	 * @param non-null object
+	 * @return the saved entity (never null) 
+	 */
+	@Override
+	public Appointment save(Appointment appointment) {
+		if (appointment == null)
+			return null;
+		if ( (appointment.getVet() == null) || (appointment.getVet().getId() == null) ||
+		     (appointment.getVisit() == null) || (appointment.getVisit().getId() == null) )
+			throw new java.lang.RuntimeException("Appointment must have a valid Vet and Visit already in system.");
+		return super.save(appointment);
+	}  // end save
+
+	@Override
+	public Set<Appointment> findAll() {
+		return super.findAll();
+	}
+
+	@Override
+	public Appointment findById(Long id) {
+		return super.findById(id);
+	}
+
+	@Override
+	public void delete(Appointment entity) {
+		super.delete(entity);
+	}
+
+	@Override
+	public void deleteById(Long id) {
+		super.deleteById(id);
+	}
+
+}  // end class AppointmentServiceMapImpl
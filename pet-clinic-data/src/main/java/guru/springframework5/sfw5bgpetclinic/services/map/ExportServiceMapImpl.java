@@ -0,0 +1,70 @@
+//***************************************************************************
+//Class:        ExportServiceMapImpl [persistence using the HashMaps of the Map services]
+//Implements:   ExportService
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//No storage of its own - walks the Owner / Visit Maps through BaseService.forEach, which the Map IMPLs
+//implement without copying the Map.  The objects handed out are the stored ones (already linked to their
+//Pets / Owners).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.map;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+@Service
+@Profile({"default", "map"})    // Use MapImpl's by default or if specify "map"; any other Profile do not instantiate MapImpl
+public class ExportServiceMapImpl implements ExportService {
+
+	private final OwnerService ownerService;
+	private final VisitService visitService;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above.
+	// -------------------------------------------------------
+	public ExportServiceMapImpl (OwnerService ownerService, VisitService visitService)  {
+		super();
+		this.ownerService = ownerService;
+		this.visitService = visitService;
+	}
+
+	@Override
+	public long forEachOwner(Consumer<Owner> action) {
+		AtomicLong count = new AtomicLong();
+		ownerService.forEach(owner -> {
+			action.accept(owner);
+			count.incrementAndGet();
+		});
+		return count.get();
+	}  // end forEachOwner
+
+	// A range still walks the whole Map (no index by id) - only the Visits in it are handed out.
+	@Override
+	public long forEachVisit(long fromId, long toId, Consumer<Visit> action) {
+		AtomicLong count = new AtomicLong();
+		visitService.forEach(visit -> {
+			if (visit.getId() >= fromId && visit.getId() < toId) {
+				action.accept(visit);
+				count.incrementAndGet();
+			}
+		});
+		return count.get();
+	}  // end forEachVisit
+
+	@Override
+	public long maxVisitId() {
+		AtomicLong max = new AtomicLong();
+		visitService.forEach(visit -> max.accumulateAndGet(visit.getId(), Math::max));
+		return max.get();
+	}  // end maxVisitId
+
+}  // end class ExportServiceMapImpl
@@ -0,0 +1,72 @@
+//***************************************************************************
+//Class:        OwnerBatchServiceMapImpl [persistence using the HashMaps of the Map services]
+//Implements:   OwnerBatchService
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//No storage of its own - saves through OwnerService, PetService and VisitService so ids are generated
+//and composite objects saved exactly as when each entity is saved on its own.
+//
+//Order matters:  PetServiceMapImpl only saves a Pet whose Owner has an id, and OwnerServiceMapImpl saves
+//an Owner's Pets BEFORE the Owner.  So each Owner is saved with its Pets taken off, then the Pets are put
+//back and saved, then their Visits.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerBatchService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+@Service
+@Profile({"default", "map"})    // Use MapImpl's by default or if specify "map"; any other Profile do not instantiate MapImpl
+public class OwnerBatchServiceMapImpl implements OwnerBatchService {
+
+	private final OwnerService ownerService;
+	private final PetService petService;
+	private final VisitService visitService;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above.
+	// -------------------------------------------------------
+	public OwnerBatchServiceMapImpl (OwnerService ownerService, PetService petService, VisitService visitService)  {
+		super();
+		this.ownerService = ownerService;
+		this.petService = petService;
+		this.visitService = visitService;
+	}
+
+	@Override
+	public long insertAll(List<Owner> owners) {
+		List<Pet> pets = new ArrayList<>();
+		for (Owner owner : owners) {
+			List<Pet> ownersPets = new ArrayList<>(owner.getPets());
+			owner.getPets().clear();
+			ownerService.save(owner);
+			// Back on the (now saved) Owner - re-adding also re-hashes them with the Owner's id.
+			ownersPets.forEach(owner::add);
+			pets.addAll(ownersPets);
+		}
+		petService.saveAll(pets);
+
+		List<Visit> visits = new ArrayList<>();
+		for (Pet pet : pets)
+			visits.addAll(pet.getVisits());
+		visitService.saveAll(visits);
+		return visits.size();
+	}  // end insertAll
+
+	@Override
+	public boolean savesThroughServices() {
+		return true;
+	}
+
+}  // end class OwnerBatchServiceMapImpl
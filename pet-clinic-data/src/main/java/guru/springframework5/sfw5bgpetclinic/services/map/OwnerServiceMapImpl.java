@@ -39,11 +39,18 @@
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services.map;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -58,6 +65,12 @@ import guru.springframework5.sfw5bgpetclinic.services.PetService;
 public class OwnerServiceMapImpl extends AbstractMapService<Owner, Long> implements OwnerService {
 
 	private final PetService petService;
+
+	// Reverse telephone index:  digits (Owner.telephoneDigits) -> ids of the Owners with that number, and each 
+	// Owner's digits as last saved (so a save can take the old number out even when the stored Owner was 
+	// changed in place).  Reads are a single hash lookup without a lock; saves / deletes take the lock. 
+	private final Map<String, Long[]> ownerIdsByTelephone = new ConcurrentHashMap<>();
+	private final Map<Long, String> telephoneByOwnerId = new HashMap<>();
 	
 	// -------------------------------------------------------
 	// Constructor Injection - To initialize private final attributes above. 
@@ -104,13 +117,74 @@ public class OwnerServiceMapImpl extends AbstractMapService<Owner, Long> impleme
     
 	// Spring Data JPA allows searching for names containing given string
 	// "findAllBy" + property in camel back format + "Like"
+	// Same matching as the SQL LIKE the springdatajpa IMPL runs:  % any characters, _ exactly one, case sensitive.
 	@Override
     public HashSet<Owner> findAllByLastNameLike(String lastNameLike) {
-		// ToDo - - Not implemented.
-		System.out.println ("Not implemented.");
-		return null;
+		Pattern pattern = likePattern(lastNameLike);
+		HashSet<Owner> found = new HashSet<>();
+		forEach(owner -> {
+			if (owner.getLastName() != null && pattern.matcher(owner.getLastName()).matches())
+				found.add(owner);
+		});
+		return found;
+	}
+
+	// One hash lookup, then only the Owners with that number.  The stored Owners can be changed without a save,
+	// so each one found is checked against the number again. 
+	@Override
+	public List<Owner> findByTelephone(String telephone) {
+		String digits = Owner.telephoneDigits(telephone);
+		Long[] ids = (digits == null) ? null : ownerIdsByTelephone.get(digits);
+		if (ids == null)
+			return Collections.emptyList();
+		List<Owner> found = new ArrayList<>(ids.length);
+		for (Long id : ids) {
+			Owner owner = super.findById(id);
+			if (owner != null && digits.equals(owner.getTelephoneDigits()))
+				found.add(owner);
+		}
+		return found;
 	}
 
+	// Move the Owner's id from the number it was last saved with to the one it has now (either may be null). 
+	private synchronized void indexTelephone(Long id, String digits) {
+		String before = (digits == null) ? telephoneByOwnerId.remove(id) : telephoneByOwnerId.put(id, digits);
+		if (Objects.equals(before, digits))
+			return;
+		if (before != null)
+			ownerIdsByTelephone.computeIfPresent(before, (number, ids) -> {
+				Long[] rest = Arrays.stream(ids).filter(other -> !other.equals(id)).toArray(Long[]::new);
+				return (rest.length == 0) ? null : rest;
+			});
+		if (digits != null)
+			ownerIdsByTelephone.merge(digits, new Long[] {id}, (ids, added) -> {
+				Long[] more = Arrays.copyOf(ids, ids.length + 1);     // lowest id first, like SDJpa (OrderById)
+				more[ids.length] = id;
+				Arrays.sort(more);
+				return more;
+			});
+	}  // end indexTelephone()
+
+	// LIKE pattern as a regular expression - everything but % and _ matched literally.
+	private static Pattern likePattern(String like) {
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : ((like == null) ? "" : like).toCharArray()) {
+			if (c != '%' && c != '_') {
+				literal.append(c);
+				continue;
+			}
+			if (literal.length() > 0) {
+				regex.append(Pattern.quote(literal.toString()));
+				literal.setLength(0);
+			}
+			regex.append((c == '%') ? ".*" : ".");
+		}
+		if (literal.length() > 0)
+			regex.append(Pattern.quote(literal.toString()));
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}  // end likePattern()
+
 	// -------------------------------------------------------
 	// Implementation of BaseService (extended by OwnerService)
 	// -------------------------------------------------------
@@ -150,7 +224,9 @@ public class OwnerServiceMapImpl extends AbstractMapService<Owner, Long> impleme
 			}  // end if 1+ pets to save
 
 			// AbstractMapService level of OwnerServiceMapImpl owns HashMap of Owners and adds/updates Owner objects.
-			return super.save(owner);  
+			Owner saved = super.save(owner);
+			indexTelephone(saved.getId(), saved.getTelephoneDigits());
+			return saved;
 		} else {
 			// Owner was null.  Nothing saved.
 			return null;
@@ -181,6 +257,8 @@ public class OwnerServiceMapImpl extends AbstractMapService<Owner, Long> impleme
 	 */
 	public void delete(Owner owner) {
 		super.delete(owner);
+		if (owner != null && owner.getId() != null && super.findById(owner.getId()) == null)
+			indexTelephone(owner.getId(), null);
 	}
 
 	/**
@@ -189,6 +267,7 @@ public class OwnerServiceMapImpl extends AbstractMapService<Owner, Long> impleme
 	 */
 	public void deleteById(Long id) {
 		super.deleteById(id);
+		indexTelephone(id, null);
 	}
 
 }  // end class OwnerServiceMapImpl
\ No newline at end of file
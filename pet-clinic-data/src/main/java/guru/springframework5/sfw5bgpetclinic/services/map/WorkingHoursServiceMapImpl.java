@@ -0,0 +1,61 @@
+//***************************************************************************
+//Class:        WorkingHoursServiceMapImpl [persistence using HashMap kept in AbstractMapService]
+//Extends:      AbstractMapService 
+//Implements:   WorkingHoursService interface
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Same pattern as VisitServiceMapImpl - see it and BaseService.java for the full explanation.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.map;
+
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+import guru.springframework5.sfw5bgpetclinic.services.WorkingHoursService;
+
+@Service
+@Profile({"default", "map"})    // Use MapImpl's by default or if specify "map"; any other Profile do not instantiate MapImpl
+public class WorkingHoursServiceMapImpl extends AbstractMapService<WorkingHours, Long> implements WorkingHoursService {
+
+	public WorkingHoursServiceMapImpl ()  {
+		super();
+	}
+
+	/**
+	 * Save a given entity.  WorkingHours only save for a Vet already in the system.  Otherwise, throw exception.
+	 * @param non-null object
+	 * @return the saved entity (never null) 
+	 */
+	@Override
+	public WorkingHours save(WorkingHours workingHours) {
+		if (workingHours == null)
+			return null;
+		if ( (workingHours.getVet() == null) || (workingHours.getVet().getId() == null) )
+			throw new java.lang.RuntimeException("WorkingHours must have a valid Vet already in system.");
+		return super.save(workingHours);
+	}  // end save
+
+	@Override
+	public Set<WorkingHours> findAll() {
+		return super.findAll();
+	}
+
+	@Override
+	public WorkingHours findById(Long id) {
+		return super.findById(id);
+	}
+
+	@Override
+	public void delete(WorkingHours entity) {
+		super.delete(entity);
+	}
+
+	@Override
+	public void deleteById(Long id) {
+		super.deleteById(id);
+	}
+
+}  // end class WorkingHoursServiceMapImpl
@@ -0,0 +1,83 @@
+//***************************************************************************
+//Layer:        Service - Generic interface / multiple IMPLs that hide persistence type.  
+//Class:        AppointmentServiceSDJpaImpl (SDJpa = Spring Data JPA IMPL) 
+//Implements:   AppointmentService interface
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Same pattern as VisitServiceSDJpaImpl - see it and BaseService.java for the full explanation.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+import guru.springframework5.sfw5bgpetclinic.repositories.AppointmentRepository;
+
+@Service                     // Wire it up as a Spring Component
+@Profile("springdatajpa")    // Only instantiated by Spring if active profile is springdatajpa.
+public class AppointmentServiceSDJpaImpl implements AppointmentService {
+
+	private final AppointmentRepository appointmentRepository;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above. 
+	// -------------------------------------------------------
+	public AppointmentServiceSDJpaImpl (AppointmentRepository appointmentRepository)  {
+		super();
+		this.appointmentRepository = appointmentRepository;
+	}
+
+	@Override
+	public Set<Appointment> findByDateOnOrAfter(LocalDate date) {
+		return new HashSet<>(appointmentRepository.findByDateGreaterThanEqual(date));
+	}
+
+	@Override
+	public Appointment save(Appointment appointment) {
+		return appointmentRepository.save(appointment);
+	}  // end save
+
+	@Override
+	public List<Appointment> saveAll(Collection<Appointment> entities) {
+		List<Appointment> saved = new ArrayList<>(entities.size());
+		appointmentRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
+	@Override
+	public Set<Appointment> findAll() {
+		Set<Appointment> all = new HashSet<>();
+		appointmentRepository.findAll().forEach(all::add);
+		return all;
+	}
+
+	@Override
+	public Appointment findById(Long id) {
+		return appointmentRepository.findById(id).orElse(null);
+	}
+
+	@Override
+	public List<Appointment> findAllById(Collection<Long> ids) {
+		List<Appointment> appointments = new ArrayList<>(ids.size());
+		appointmentRepository.findAllById(ids).forEach(appointments::add);
+		return appointments;
+	}
+
+	@Override
+	public void delete(Appointment entity) {
+		appointmentRepository.delete(entity);
+	}
+
+	@Override
+	public void deleteById(Long id) {
+		appointmentRepository.deleteById(id);
+	}
+
+}  // end class AppointmentServiceSDJpaImpl
@@ -0,0 +1,180 @@
+//***************************************************************************
+//Layer:        Service
+//Class:        ExportServiceSDJpaImpl
+//Implements:   ExportService
+//Stereotype:   @Service  Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Reads through ONE forward only cursor per export (Hibernate ScrollableResults, FETCH_SIZE rows per round trip)
+//on a StatelessSession - no persistence context, so nothing read is kept once the action returns.  The query
+//selects columns, not entities (no lazy collections to load, no N+1):
+//    Owners   one row per Owner / Pet (left join, so Owners without Pets too), ordered by Owner id - the
+//             rows of one Owner are put back together into a new Owner with its Pets and handed out when
+//             the next Owner's first row (or the end) is read
+//    Visits   one row per Visit with its Pet's and Owner's id and names (plus PetType and city, for the visit
+//             analytics), ordered by Visit id - all of them or one id range
+//The entities handed out are new, detached copies - changing them changes nothing in the database.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+
+@Service
+@Profile("springdatajpa")    // Only instantiated by Spring if active profile is springdatajpa.
+public class ExportServiceSDJpaImpl implements ExportService {
+
+	static final int FETCH_SIZE = 1000;
+
+	static final String OWNERS_WITH_PETS =
+			"select o.id, o.firstName, o.lastName, o.address, o.city, o.telephone, p.id, p.name, p.birthDate, t.id, t.name " +
+			"from Owner o left join o.pets p left join p.petType t order by o.id, p.id";
+
+	static final String VISITS_WITH_PET_AND_OWNER =
+			"select v.id, v.date, v.description, p.id, p.name, o.id, o.firstName, o.lastName, t.id, t.name, o.city " +
+			"from Visit v join v.pet p join p.owner o left join p.petType t " +
+			"where v.id >= :fromId and v.id < :toId order by v.id";
+
+	static final String MAX_VISIT_ID = "select max(v.id) from Visit v";
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above.
+	// -------------------------------------------------------
+	public ExportServiceSDJpaImpl (EntityManagerFactory entityManagerFactory)  {
+		super();
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	@Override
+	public long forEachOwner(Consumer<Owner> action) {
+		long count = 0;
+		// Few PetTypes - one copy of each for the whole export.
+		Map<Long, PetType> petTypes = new HashMap<>();
+		StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+		// Read only - the transaction is there so databases that only stream within a transaction (PostgreSQL) use a cursor.
+		Transaction transaction = session.beginTransaction();
+		try (ScrollableResults rows = scroll(session, OWNERS_WITH_PETS)) {
+			Owner owner = null;
+			while (rows.next()) {
+				Object[] row = rows.get();
+				Long ownerId = (Long) row[0];
+				if (owner == null || !ownerId.equals(owner.getId())) {
+					if (owner != null) {
+						action.accept(owner);
+						count++;
+					}
+					owner = Owner.builder()
+					             .firstName((String) row[1])
+					             .lastName((String) row[2])
+					             .address((String) row[3])
+					             .city((String) row[4])
+					             .telephone((String) row[5])
+					             .build();
+					owner.setId(ownerId);
+				}
+				if (row[6] != null) {
+					PetType petType = null;
+					if (row[9] != null) {
+						petType = petTypes.computeIfAbsent((Long) row[9], id -> PetType.builder().name((String) row[10]).build());
+						petType.setId((Long) row[9]);
+					}
+					// Id set BEFORE adding to the Owner - Pet.hashCode() changes with it.
+					Pet pet = new Pet((String) row[7], petType, null, (LocalDate) row[8]);
+					pet.setId((Long) row[6]);
+					owner.add(pet);
+				}
+			}
+			if (owner != null) {
+				action.accept(owner);
+				count++;
+			}
+			transaction.commit();
+		} catch (RuntimeException e) {
+			if (transaction.isActive())
+				transaction.rollback();
+			throw e;
+		} finally {
+			session.close();
+		}
+		return count;
+	}  // end forEachOwner
+
+	@Override
+	public long forEachVisit(long fromId, long toId, Consumer<Visit> action) {
+		long count = 0;
+		StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+		Transaction transaction = session.beginTransaction();
+		try (ScrollableResults rows = session.createQuery(VISITS_WITH_PET_AND_OWNER)
+		                                     .setParameter("fromId", fromId)
+		                                     .setParameter("toId", toId)
+		                                     .setReadOnly(true)
+		                                     .setFetchSize(FETCH_SIZE)
+		                                     .scroll(ScrollMode.FORWARD_ONLY)) {
+			while (rows.next()) {
+				Object[] row = rows.get();
+				Owner owner = Owner.builder().firstName((String) row[6]).lastName((String) row[7]).city((String) row[10]).build();
+				owner.setId((Long) row[5]);
+				PetType petType = null;
+				if (row[8] != null) {
+					petType = PetType.builder().name((String) row[9]).build();
+					petType.setId((Long) row[8]);
+				}
+				Pet pet = new Pet((String) row[4], petType, null, null);
+				pet.setId((Long) row[3]);
+				owner.add(pet);
+				// Id set BEFORE the Visit is added to the Pet (setPet) - Visit.hashCode() changes with it.
+				Visit visit = new Visit((LocalDate) row[1], (String) row[2], null);
+				visit.setId((Long) row[0]);
+				visit.setPet(pet);
+				action.accept(visit);
+				count++;
+			}
+			transaction.commit();
+		} catch (RuntimeException e) {
+			if (transaction.isActive())
+				transaction.rollback();
+			throw e;
+		} finally {
+			session.close();
+		}
+		return count;
+	}  // end forEachVisit
+
+	@Override
+	public long maxVisitId() {
+		StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+		try {
+			Long max = (Long) session.createQuery(MAX_VISIT_ID).uniqueResult();
+			return (max == null) ? 0 : max;
+		} finally {
+			session.close();
+		}
+	}  // end maxVisitId
+
+	private static ScrollableResults scroll(StatelessSession session, String hql) {
+		return session.createQuery(hql)
+		              .setReadOnly(true)
+		              .setFetchSize(FETCH_SIZE)
+		              .scroll(ScrollMode.FORWARD_ONLY);
+	}
+
+}  // end class ExportServiceSDJpaImpl
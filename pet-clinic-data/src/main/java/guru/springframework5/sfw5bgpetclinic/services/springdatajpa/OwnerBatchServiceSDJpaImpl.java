@@ -0,0 +1,147 @@
+//***************************************************************************
+//Layer:        Service
+//Class:        OwnerBatchServiceSDJpaImpl
+//Implements:   OwnerBatchService
+//Stereotype:   @Service  Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Bulk insert WITHOUT the persistence context.  Saving through the repositories keeps every entity in the
+//EntityManager until the transaction ends (dirty checked at flush, cascades walked) - fine for one Owner,
+//the cost of a bulk load for thousands.  Here:
+//    Owners, Pets   Hibernate StatelessSession.insert - one INSERT each, nothing kept, no cascades.
+//                   (Still one statement per row - the ids are IDENTITY so each generated id is read back.)
+//    Visits         plain JDBC batch on the same connection - nothing needs their ids, so VISIT_BATCH_SIZE
+//                   rows go to the database per round trip (insertVisits - VisitServiceSDJpaImpl uses it too).
+//Both on the transaction's own connection (Session.doReturningWork):  the caller's transaction if it has one
+//(its pending changes flushed first), else one of its own per insertAll call - all or nothing either way.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.context.annotation.Profile;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerBatchService;
+
+@Service
+@Profile("springdatajpa")    // Only instantiated by Spring if active profile is springdatajpa.
+public class OwnerBatchServiceSDJpaImpl implements OwnerBatchService {
+
+	// Same table / columns Hibernate maps Visit to (see @Table / @Column / @JoinColumn on Visit).
+	static final String INSERT_VISIT = "insert into visits (date, description, pet_id) values (?, ?, ?)";
+	static final int VISIT_BATCH_SIZE = 1000;
+
+	private final SessionFactory sessionFactory;
+	private final EntityManager entityManager;                    // the transaction's (shared)
+	private final TransactionTemplate transactionTemplate;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above.
+	// -------------------------------------------------------
+	public OwnerBatchServiceSDJpaImpl (EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager)  {
+		super();
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	public long insertAll(List<Owner> owners) {
+		long visits = transactionTemplate.execute(status -> {
+			entityManager.flush();
+			return entityManager.unwrap(Session.class).doReturningWork(connection -> insert(connection, owners));
+		});
+		rehash(owners);
+		return visits;
+	}  // end insertAll
+
+	// Owners and Pets through a StatelessSession opened on the transaction's connection, then the Visits.
+	private long insert(Connection connection, List<Owner> owners) throws SQLException {
+		List<Visit> visits = new ArrayList<>();
+		StatelessSession session = sessionFactory.openStatelessSession(connection);
+		try {
+			for (Owner owner : owners) {
+				session.insert(owner);          // sets the generated id on owner - the Pets' owner_id
+				for (Pet pet : owner.getPets()) {
+					session.insert(pet);
+					visits.addAll(pet.getVisits());
+				}
+			}
+		} finally {
+			session.close();
+		}
+		insertVisits(connection, visits);
+		return visits.size();
+	}  // end insert
+
+	/**
+	 * INSERT the Visits on the given connection, VISIT_BATCH_SIZE rows per JDBC batch, and set their generated ids
+	 * (every Visit gets its id, like the Owners and Pets - see savesThroughServices()).  Only the Pet's id is read
+	 * from visit.getPet().  Shared with VisitServiceSDJpaImpl.insertAll.
+	 * @throws SQLException - as the driver threw it, or if a Visit got no generated id
+	 */
+	static void insertVisits(Connection connection, List<Visit> visits) throws SQLException {
+		try (PreparedStatement insert = connection.prepareStatement(INSERT_VISIT, Statement.RETURN_GENERATED_KEYS)) {
+			List<Visit> pending = new ArrayList<>(VISIT_BATCH_SIZE);
+			for (Visit visit : visits) {
+				insert.setDate(1, (visit.getDate() != null) ? Date.valueOf(visit.getDate()) : null);
+				insert.setString(2, visit.getDescription());
+				insert.setLong(3, visit.getPet().getId());
+				insert.addBatch();
+				pending.add(visit);
+				if (pending.size() == VISIT_BATCH_SIZE)
+					executeBatch(insert, pending);
+			}
+			if (!pending.isEmpty())
+				executeBatch(insert, pending);
+		}
+	}  // end insertVisits
+
+	// New Pets / Visits hash on their contents, saved ones on their id - put them back in their Sets with
+	// the ids they have now (like OwnerBatchServiceMapImpl re-adding the Pets), so the Sets still find them.
+	private static void rehash(List<Owner> owners) {
+		for (Owner owner : owners) {
+			List<Pet> pets = new ArrayList<>(owner.getPets());
+			owner.getPets().clear();
+			owner.getPets().addAll(pets);
+			for (Pet pet : pets) {
+				List<Visit> visits = new ArrayList<>(pet.getVisits());
+				pet.getVisits().clear();
+				pet.getVisits().addAll(visits);
+			}
+		}
+	}
+
+	// Generated keys come back in the order the rows were added.
+	private static void executeBatch(PreparedStatement insert, List<Visit> pending) throws SQLException {
+		insert.executeBatch();
+		try (ResultSet keys = insert.getGeneratedKeys()) {
+			for (Visit visit : pending) {
+				if (!keys.next())
+					throw new SQLException("No generated id for " + visit);
+				visit.setId(keys.getLong(1));
+			}
+		}
+		pending.clear();
+	}
+
+}  // end class OwnerBatchServiceSDJpaImpl
@@ -33,6 +33,9 @@
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -82,6 +85,15 @@ public class OwnerServiceSDJpaImpl implements OwnerService {
 		return ownerRepository.findAllByLastNameLike(lastNameLike);
     }
 
+	// Indexed column (Owner.telephoneDigits), so one index lookup whatever the number of Owners. 
+	@Override
+	public List<Owner> findByTelephone(String telephone) {
+		String digits = Owner.telephoneDigits(telephone);
+		if (digits == null)
+			return Collections.emptyList();
+		return ownerRepository.findAllByTelephoneDigitsOrderById(digits);
+	}
+
 	// -------------------------------------------------------
 	// Implementation of BaseService (extended by OwnerService)
 	// -------------------------------------------------------
@@ -99,6 +111,13 @@ public class OwnerServiceSDJpaImpl implements OwnerService {
 		return ownerRepository.save(entity);
 	}  // end save
 
+	@Override
+	public List<Owner> saveAll(Collection<Owner> entities) {
+		List<Owner> saved = new ArrayList<>(entities.size());
+		ownerRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -130,6 +149,13 @@ public class OwnerServiceSDJpaImpl implements OwnerService {
 		// return null;                     // owner not found    
 	}
 
+	@Override
+	public List<Owner> findAllById(Collection<Long> ids) {
+		List<Owner> owners = new ArrayList<>(ids.size());
+		ownerRepository.findAllById(ids).forEach(owners::add);
+		return owners;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
@@ -35,7 +35,10 @@ package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import guru.springframework5.sfw5bgpetclinic.model.Pet;
@@ -88,6 +91,13 @@ public class PetServiceSDJpaImpl implements PetService {
 		return petRepository.save(entity);
 	}  // end save
 
+	@Override
+	public List<Pet> saveAll(Collection<Pet> entities) {
+		List<Pet> saved = new ArrayList<>(entities.size());
+		petRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -119,6 +129,13 @@ public class PetServiceSDJpaImpl implements PetService {
 		// return null;                   // pet not found    
 	}
 
+	@Override
+	public List<Pet> findAllById(Collection<Long> ids) {
+		List<Pet> pets = new ArrayList<>(ids.size());
+		petRepository.findAllById(ids).forEach(pets::add);
+		return pets;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
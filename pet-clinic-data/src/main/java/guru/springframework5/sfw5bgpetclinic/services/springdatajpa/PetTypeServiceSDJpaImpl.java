@@ -35,7 +35,10 @@ package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import guru.springframework5.sfw5bgpetclinic.model.PetType;
 import guru.springframework5.sfw5bgpetclinic.repositories.PetTypeRepository;
@@ -87,6 +90,13 @@ public class PetTypeServiceSDJpaImpl implements PetTypeService {
 		return petTypeRepository.save(entity);
 	}  // end save
 
+	@Override
+	public List<PetType> saveAll(Collection<PetType> entities) {
+		List<PetType> saved = new ArrayList<>(entities.size());
+		petTypeRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -118,6 +128,13 @@ public class PetTypeServiceSDJpaImpl implements PetTypeService {
 		// return null;                       // petType not found    
 	}
 
+	@Override
+	public List<PetType> findAllById(Collection<Long> ids) {
+		List<PetType> petTypes = new ArrayList<>(ids.size());
+		petTypeRepository.findAllById(ids).forEach(petTypes::add);
+		return petTypes;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
@@ -33,7 +33,10 @@
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -87,6 +90,13 @@ public class SpecialtyServiceSDJpaImpl implements SpecialtyService {
 		return specialtyRepository.save(entity);
 	}  // end save
 
+	@Override
+	public List<Specialty> saveAll(Collection<Specialty> entities) {
+		List<Specialty> saved = new ArrayList<>(entities.size());
+		specialtyRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -118,6 +128,13 @@ public class SpecialtyServiceSDJpaImpl implements SpecialtyService {
 		// return null;                       // Specialty not found    
 	}
 
+	@Override
+	public List<Specialty> findAllById(Collection<Long> ids) {
+		List<Specialty> specialties = new ArrayList<>(ids.size());
+		specialtyRepository.findAllById(ids).forEach(specialties::add);
+		return specialties;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
@@ -38,7 +38,10 @@ import org.springframework.context.annotation.Profile;
 import guru.springframework5.sfw5bgpetclinic.model.Vet;
 import guru.springframework5.sfw5bgpetclinic.repositories.VetRepository;
 import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Service      // Wire it up as Spring component.
@@ -90,6 +93,13 @@ public class VetServiceSDJpaImpl implements VetService{
 		return vetRepository.save(entity);
 	}  // end save
 
+	@Override
+	public List<Vet> saveAll(Collection<Vet> entities) {
+		List<Vet> saved = new ArrayList<>(entities.size());
+		vetRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -121,6 +131,13 @@ public class VetServiceSDJpaImpl implements VetService{
 		// return null;                   // vet not found    
 	}
 
+	@Override
+	public List<Vet> findAllById(Collection<Long> ids) {
+		List<Vet> vets = new ArrayList<>(ids.size());
+		vetRepository.findAllById(ids).forEach(vets::add);
+		return vets;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
@@ -33,10 +33,21 @@
 //***************************************************************************
 package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
 import org.springframework.context.annotation.Profile;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import guru.springframework5.sfw5bgpetclinic.model.Visit;
 import guru.springframework5.sfw5bgpetclinic.services.VisitService;
 import guru.springframework5.sfw5bgpetclinic.repositories.VisitRepository;
@@ -46,13 +57,18 @@ import guru.springframework5.sfw5bgpetclinic.repositories.VisitRepository;
 public class VisitServiceSDJpaImpl implements VisitService {
 
 	private final VisitRepository visitRepository;
+	private final EntityManager entityManager;                    // insertAll only - see there
+	private final TransactionTemplate transactionTemplate;        // "
 
 	// -------------------------------------------------------
 	// Constructor Injection - To initialize private final attributes above. 
 	// -------------------------------------------------------
-	public VisitServiceSDJpaImpl (VisitRepository visitRepository)  {
+	public VisitServiceSDJpaImpl (VisitRepository visitRepository, EntityManagerFactory entityManagerFactory,
+	                              PlatformTransactionManager transactionManager)  {
 		super();
 		this.visitRepository = visitRepository;
+		this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);  // the transaction's
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	// -------------------------------------------------------
@@ -67,8 +83,24 @@ public class VisitServiceSDJpaImpl implements VisitService {
 	// These are non-standard CrudRepository methods so will 
 	// need to update VisitRepository to have this method.
 	// -------------------------------------------------------
-	// NA
-	// -------------------------------------------------------
+
+	/**
+	 * Insert new Visits in JDBC batches - with the bulk import's OwnerBatchServiceSDJpaImpl.insertVisits.  Not
+	 * through the repository:  saveAll keeps every Visit in the persistence context until the commit, and
+	 * (IDENTITY ids) sends one INSERT per Visit.  Joins the caller's transaction if it has one
+	 * (pending changes flushed first, so the Visits' Pets may be new in it), else one transaction of its own.  The
+	 * persistence context does not see the new Visits - a Pet already loaded in it keeps its old visits.
+	 * @param visits non-null new Visits of saved Pets
+	 * @return the same Visits, with the generated ids set
+	 */
+	@Override
+	public List<Visit> insertAll(List<Visit> visits) {
+		return transactionTemplate.execute(status -> {
+			entityManager.flush();
+			entityManager.unwrap(Session.class).doWork(connection -> OwnerBatchServiceSDJpaImpl.insertVisits(connection, visits));
+			return visits;
+		});
+	}  // end insertAll
 
 	// -------------------------------------------------------
 	// Implementation of BaseService (extended by VisitService)
@@ -87,6 +119,13 @@ public class VisitServiceSDJpaImpl implements VisitService {
 		return visitRepository.save(visit);
 	}  // end save
 
+	@Override
+	public List<Visit> saveAll(Collection<Visit> entities) {
+		List<Visit> saved = new ArrayList<>(entities.size());
+		visitRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
 	/**
 	 * Returns all instances of the type. 
 	 * @return all entities 
@@ -118,6 +157,13 @@ public class VisitServiceSDJpaImpl implements VisitService {
 		// return null;                     // Visit not found    
 	}
 
+	@Override
+	public List<Visit> findAllById(Collection<Long> ids) {
+		List<Visit> visits = new ArrayList<>(ids.size());
+		visitRepository.findAllById(ids).forEach(visits::add);
+		return visits;
+	}
+
 	/**
 	 * Delete the given entity.
 	 * @param entity  
@@ -0,0 +1,77 @@
+//***************************************************************************
+//Layer:        Service - Generic interface / multiple IMPLs that hide persistence type.  
+//Class:        WorkingHoursServiceSDJpaImpl (SDJpa = Spring Data JPA IMPL) 
+//Implements:   WorkingHoursService interface
+//Stereotype:   @Service    Component Scan will pick up and instantiate to keep in Spring Context as Spring Bean.
+//
+//Same pattern as VisitServiceSDJpaImpl - see it and BaseService.java for the full explanation.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+import guru.springframework5.sfw5bgpetclinic.services.WorkingHoursService;
+import guru.springframework5.sfw5bgpetclinic.repositories.WorkingHoursRepository;
+
+@Service                     // Wire it up as a Spring Component
+@Profile("springdatajpa")    // Only instantiated by Spring if active profile is springdatajpa.
+public class WorkingHoursServiceSDJpaImpl implements WorkingHoursService {
+
+	private final WorkingHoursRepository workingHoursRepository;
+
+	// -------------------------------------------------------
+	// Constructor Injection - To initialize private final attributes above. 
+	// -------------------------------------------------------
+	public WorkingHoursServiceSDJpaImpl (WorkingHoursRepository workingHoursRepository)  {
+		super();
+		this.workingHoursRepository = workingHoursRepository;
+	}
+
+	@Override
+	public WorkingHours save(WorkingHours workingHours) {
+		return workingHoursRepository.save(workingHours);
+	}  // end save
+
+	@Override
+	public List<WorkingHours> saveAll(Collection<WorkingHours> entities) {
+		List<WorkingHours> saved = new ArrayList<>(entities.size());
+		workingHoursRepository.saveAll(entities).forEach(saved::add);
+		return saved;
+	}  // end saveAll
+
+	@Override
+	public Set<WorkingHours> findAll() {
+		Set<WorkingHours> all = new HashSet<>();
+		workingHoursRepository.findAll().forEach(all::add);
+		return all;
+	}
+
+	@Override
+	public WorkingHours findById(Long id) {
+		return workingHoursRepository.findById(id).orElse(null);
+	}
+
+	@Override
+	public List<WorkingHours> findAllById(Collection<Long> ids) {
+		List<WorkingHours> workingHours = new ArrayList<>(ids.size());
+		workingHoursRepository.findAllById(ids).forEach(workingHours::add);
+		return workingHours;
+	}
+
+	@Override
+	public void delete(WorkingHours entity) {
+		workingHoursRepository.delete(entity);
+	}
+
+	@Override
+	public void deleteById(Long id) {
+		workingHoursRepository.deleteById(id);
+	}
+
+}  // end class WorkingHoursServiceSDJpaImpl
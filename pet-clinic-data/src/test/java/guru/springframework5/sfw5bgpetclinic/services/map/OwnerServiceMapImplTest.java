@@ -2,6 +2,9 @@ package guru.springframework5.sfw5bgpetclinic.services.map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -61,6 +64,57 @@ class OwnerServiceMapImplTest {
 		assertNull(owner);
 	}
 
+	// -----------------------------------------------------
+	// Test findAllByLastNameLike 
+	// -----------------------------------------------------
+
+	@Test
+	void testFindAllByLastNameLike() {
+		// Before each tests, setUp() creates an OwnerService with a map with one Owner ("Bob Smith").
+		ownerService.save(Owner.builder().firstName("Ann").lastName("Smithers").build());
+		ownerService.save(Owner.builder().firstName("Cal").lastName("Goldsmith").build());
+		ownerService.save(Owner.builder().firstName("Dee").lastName("S.mith").build());
+
+		assertEquals(4, ownerService.findAllByLastNameLike("%").size());
+		assertEquals(3, ownerService.findAllByLastNameLike("%mith").size());                   // not Smithers
+		assertEquals(4, ownerService.findAllByLastNameLike("%mith%").size());
+		assertEquals(2, ownerService.findAllByLastNameLike("Smith%").size());
+		assertEquals(1, ownerService.findAllByLastNameLike("Smith").size());
+		assertEquals(1, ownerService.findAllByLastNameLike("_mith").size());           // Smith
+		assertEquals(1, ownerService.findAllByLastNameLike("S_mith").size());          // S.mith
+		assertEquals(1, ownerService.findAllByLastNameLike("%smith").size());          // case sensitive - Goldsmith only
+		assertTrue(ownerService.findAllByLastNameLike("S.ith").isEmpty());             // "." is not a wildcard
+	}
+
+	// -----------------------------------------------------
+	// Test findByTelephone 
+	// -----------------------------------------------------
+
+	@Test
+	void testFindByTelephone() {
+		// Before each tests, setUp() creates an OwnerService with a map with one Owner ("Bob Smith", no telephone).
+		Owner ann = ownerService.save(Owner.builder().firstName("Ann").lastName("Lee").telephone("617-555-0000").build());
+		Owner cal = ownerService.save(Owner.builder().firstName("Cal").lastName("Lee").telephone("6175550000").build());
+		Owner dee = ownerService.save(Owner.builder().firstName("Dee").lastName("Day").telephone("(508) 555 1234").build());
+
+		assertEquals(Arrays.asList(ann, cal), ownerService.findByTelephone("(617) 555.0000"));         // household - lowest id first
+		assertEquals(Arrays.asList(dee), ownerService.findByTelephone("5085551234"));
+		assertTrue(ownerService.findByTelephone("555").isEmpty());
+		assertTrue(ownerService.findByTelephone("no digits").isEmpty());
+		assertTrue(ownerService.findByTelephone(null).isEmpty());
+
+		// New number - found under it, not the old one (also when the stored Owner was changed in place).
+		ann.setTelephone("508 555 1234");
+		ownerService.save(ann);
+		assertEquals(Arrays.asList(cal), ownerService.findByTelephone("6175550000"));
+		assertEquals(Arrays.asList(ann, dee), ownerService.findByTelephone("5085551234"));
+
+		ownerService.deleteById(dee.getId());
+		ownerService.delete(cal);
+		assertEquals(Arrays.asList(ann), ownerService.findByTelephone("5085551234"));
+		assertTrue(ownerService.findByTelephone("6175550000").isEmpty());
+	}
+
 	// -----------------------------------------------------
 	// Test save 
 	// -----------------------------------------------------
@@ -126,6 +180,20 @@ class OwnerServiceMapImplTest {
 		assertTrue(owners.size() == 1);
 	}
 
+	@Test
+	void testForEach() {
+		// Before each tests, setUp() creates an OwnerService with a map with one Owner.  Add a second.
+		ownerService.save(Owner.builder().firstName(ownerFirstName2).lastName(ownerLastName2).build());
+		List<Owner> owners = new ArrayList<>();
+
+		ownerService.forEach(owners::add);
+
+		// The stored objects themselves (no copies), each once.
+		assertEquals(2, owners.size());
+		assertTrue(owners.stream().anyMatch(owner -> owner == ownerService.findById(ownerId)));
+		assertTrue(owners.stream().anyMatch(owner -> owner == ownerService.findById(2L)));
+	}
+
 	// -----------------------------------------------------
 	// Test findById 
 	// -----------------------------------------------------
@@ -140,6 +208,24 @@ class OwnerServiceMapImplTest {
 		            owner.getLastName().equals(ownerLastName) );
 	}
 
+	@Test
+	void testFindByIdNull() {
+		// Same as the HashMap the map services used to keep - no Owner, not a NullPointerException.
+		assertNull(ownerService.findById(null));
+	}
+
+	@Test
+	void testFindAllById() {
+		// Before each tests, setUp() creates an OwnerService with a map with one Owner.  Add a second.
+		Owner owner2 = ownerService.save(Owner.builder().firstName(ownerFirstName2).lastName(ownerLastName2).build());
+
+		List<Owner> owners = ownerService.findAllById(Arrays.asList(owner2.getId(), 99L, ownerId));
+
+		assertEquals(2, owners.size());                                      // 99 not found - left out
+		assertTrue(owners.contains(ownerService.findById(ownerId)) && owners.contains(owner2));
+		assertTrue(ownerService.findAllById(Arrays.asList()).isEmpty());
+	}
+
 	// -----------------------------------------------------
 	// Test deleteOwner 
 	// -----------------------------------------------------
@@ -176,4 +262,11 @@ class OwnerServiceMapImplTest {
 		assertTrue ( (numOwnersBeforeDelete == 1) && (numOwnersAfterDelete == 0) );
 	}
 
+	@Test
+	void testDeleteByIdNull() {
+		// Nothing to delete - the Owner is still there.
+		ownerService.deleteById(null);
+		assertEquals(1, ownerService.findAll().size());
+	}
+
 }
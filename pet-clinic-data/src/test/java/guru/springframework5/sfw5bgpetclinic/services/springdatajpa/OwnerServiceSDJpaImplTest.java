@@ -1,6 +1,7 @@
 package guru.springframework5.sfw5bgpetclinic.services.springdatajpa;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -96,6 +97,23 @@ class OwnerServiceSDJpaImplTest {
 
 	}  // end testFindByLastNameInvalidName()
 
+	// -------------------------------------
+	// Test findByTelephone.
+	// -------------------------------------
+
+	@Test
+	void testFindByTelephone() {
+		// Looked up by the digits only, whatever the caller's format.  No digits - no query at all.
+		org.mockito.Mockito.when(ownerRepository.findAllByTelephoneDigitsOrderById("6175550000"))
+		                   .thenReturn(Collections.singletonList(expectedOwner));
+
+		assertEquals(Collections.singletonList(expectedOwner), ownerServiceSDJpaImpl.findByTelephone("(617) 555-0000"));
+		assertTrue(ownerServiceSDJpaImpl.findByTelephone("none").isEmpty());
+
+		org.mockito.Mockito.verify(ownerRepository, 
+		                           org.mockito.Mockito.times(1)).findAllByTelephoneDigitsOrderById(org.mockito.ArgumentMatchers.anyString());
+	}  // end testFindByTelephone()
+
 	// -------------------------------------
 	// Test save.
 	// -------------------------------------
@@ -126,6 +144,20 @@ class OwnerServiceSDJpaImplTest {
 				                   org.mockito.Mockito.times(1)).save(ownerToSave);
 	}
 
+	@Test
+	void testSaveAll() {
+		// saveAll goes to the repository's saveAll ONCE (one transaction), not to save() per Owner.
+		Owner owner2 = Owner.builder().firstName(ownerFirstName + "2").lastName(ownerLastName).build();
+		java.util.List<Owner> ownersToSave = java.util.Arrays.asList(expectedOwner, owner2);
+		org.mockito.Mockito.when(ownerRepository.saveAll(ownersToSave)).thenReturn(ownersToSave);
+
+		java.util.List<Owner> savedOwners = ownerServiceSDJpaImpl.saveAll(ownersToSave);
+
+		assertEquals(ownersToSave, savedOwners);
+		org.mockito.Mockito.verify(ownerRepository, org.mockito.Mockito.times(1)).saveAll(ownersToSave);
+		org.mockito.Mockito.verify(ownerRepository, org.mockito.Mockito.never()).save(org.mockito.ArgumentMatchers.any());
+	}
+
 	// -------------------------------------
 	// Test findAll.
 	// -------------------------------------
@@ -174,6 +206,19 @@ class OwnerServiceSDJpaImplTest {
 				                   org.mockito.Mockito.times(1)).findById(ownerId);
 	}  // end testFindByIdValid
 
+	@Test
+	void testFindAllById() {
+		// findAllById goes to the repository's findAllById ONCE (one select), not to findById() per id.
+		java.util.List<Long> ids = java.util.Arrays.asList(ownerId, 2L);
+		org.mockito.Mockito.when(ownerRepository.findAllById(ids)).thenReturn(Collections.singletonList(expectedOwner));
+
+		java.util.List<Owner> actualOwners = ownerServiceSDJpaImpl.findAllById(ids);
+
+		assertEquals(Collections.singletonList(expectedOwner), actualOwners);       // 2L not found - left out
+		org.mockito.Mockito.verify(ownerRepository, org.mockito.Mockito.times(1)).findAllById(ids);
+		org.mockito.Mockito.verify(ownerRepository, org.mockito.Mockito.never()).findById(org.mockito.ArgumentMatchers.any());
+	}
+
 	@Test
 	void testFindByIdInvalid() {
 		// Before each test, setUp() creates OwnerService with 1 Owner Set.
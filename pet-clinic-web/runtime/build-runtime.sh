@@ -0,0 +1,108 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# build-runtime.sh
+#
+# Builds, from the pet-clinic-web exec jar, everything a replica needs to start fast and small:
+#   target/runtime/jre/       jlink'd Java runtime with only the modules the app needs
+#   target/runtime/app/       the app exploded to plain jars (petclinic.jar + lib/*.jar)
+#   target/runtime/app.jsa    AppCDS archive (JDK + Spring + app classes, pre-parsed and verified)
+#   target/runtime/app.args   java @argfile with the class path and the archive
+#   target/runtime/start-class the main class (Start-Class of the fat jar)
+#   target/runtime/run.sh     start script:  target/runtime/run.sh [--server.port=...]
+#
+# Why exploded:  CDS can only archive classes loaded from jars on -cp by the JDK's own class loaders.
+# The Spring Boot fat jar loads BOOT-INF/classes and BOOT-INF/lib/*.jar with its own LaunchedURLClassLoader,
+# so none of them would be archived.
+#
+# The archive is built from a TRAINING RUN: the app is started with -XX:DumpLoadedClassList, every
+# controller is exercised (GET pages and POST forms) so the classes they need get loaded, then the
+# class list is dumped into app.jsa.  The archive must be dumped with the same java it will run with,
+# so it is dumped with the jlink'd runtime.
+#
+# Usage:  pet-clinic-web/runtime/build-runtime.sh [exec jar]
+#         or mvn -Pruntime-image package (runs this after the jar is built).
+# Needs JAVA_HOME (or java on PATH) pointing at a JDK 11+ with jlink / jdeps, and curl.
+#***************************************************************************
+set -euo pipefail
+
+WEB_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${1:-$(ls "$WEB_DIR"/target/pet-clinic-web-*-exec.jar | head -1)}"
+OUT="$WEB_DIR/target/runtime"
+JDK_BIN="${JAVA_HOME:+$JAVA_HOME/bin/}"
+PORT="${TRAINING_PORT:-18090}"
+
+# Modules jdeps cannot see because they are only reached by reflection / service loading:
+# JNDI (Spring, Tomcat, Hikari), EC crypto (TLS), zip file system, locale data for formatting.
+EXTRA_MODULES="java.naming,jdk.crypto.ec,jdk.zipfs,jdk.localedata"
+
+rm -rf "$OUT"
+mkdir -p "$OUT/app/lib" "$OUT/exploded"
+
+echo "== Exploding $JAR"
+(cd "$OUT/exploded" && "${JDK_BIN}jar" xf "$JAR")
+# Manifest lines are wrapped at 72 bytes (continuations start with a space) - unwrap before reading Start-Class.
+START_CLASS="$(tr -d '\r' < "$OUT/exploded/META-INF/MANIFEST.MF" | awk '/^ /{line=line substr($0,2); next} {print line; line=$0} END{print line}' \
+               | sed -n 's/^Start-Class: *//p')"
+cp "$OUT"/exploded/BOOT-INF/lib/*.jar "$OUT/app/lib/"
+# The repackaged jar keeps the app's META-INF resources (spring.components, spring.factories) at the jar
+# root, not in BOOT-INF/classes - put them back with the classes or component scan finds no controllers.
+for resource in "$OUT"/exploded/META-INF/*; do
+	case "$(basename "$resource")" in
+		MANIFEST.MF|maven) ;;
+		*) mkdir -p "$OUT/exploded/BOOT-INF/classes/META-INF" && cp -r "$resource" "$OUT/exploded/BOOT-INF/classes/META-INF/" ;;
+	esac
+done
+# CDS only archives classes from jars (a non-empty directory on -cp is refused), so the app classes are jarred.
+"${JDK_BIN}jar" cf "$OUT/app/petclinic.jar" -C "$OUT/exploded/BOOT-INF/classes" .
+rm -rf "$OUT/exploded"
+
+# Class path relative to target/runtime so the directory can be copied into an image as is.
+CLASSPATH="app/petclinic.jar"
+for lib in "$OUT"/app/lib/*.jar; do
+	CLASSPATH="$CLASSPATH:app/lib/$(basename "$lib")"
+done
+
+echo "== Finding required modules (jdeps)"
+MODULES="$("${JDK_BIN}jdeps" --ignore-missing-deps --multi-release 11 --print-module-deps \
+                              --class-path "$OUT/app/lib/*" "$OUT/app/petclinic.jar")"
+echo "   $MODULES,$EXTRA_MODULES"
+
+echo "== Linking runtime (jlink)"
+"${JDK_BIN}jlink" --add-modules "$MODULES,$EXTRA_MODULES" \
+                  --strip-debug --no-header-files --no-man-pages --compress=2 \
+                  --output "$OUT/jre"
+du -sh "$OUT/jre"
+
+cd "$OUT"
+printf -- '-cp %s\n' "$CLASSPATH" > app.args
+echo "$START_CLASS" > start-class
+
+echo "== Training run (port $PORT)"
+jre/bin/java -Xshare:off -XX:DumpLoadedClassList=classlist @app.args "$START_CLASS" \
+             --server.port="$PORT" --spring.main.banner-mode=off > training.log 2>&1 &
+APP_PID=$!
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+until curl -s -o /dev/null -f "http://localhost:$PORT/"; do
+	kill -0 $APP_PID 2>/dev/null || { echo "training run died - see $OUT/training.log"; exit 1; }
+	sleep 1
+done
+"$WEB_DIR/runtime/training-requests.sh" "http://localhost:$PORT"
+kill $APP_PID
+wait $APP_PID 2>/dev/null || true
+trap - EXIT
+echo "   $(wc -l < classlist) classes loaded"
+
+echo "== Dumping CDS archive"
+jre/bin/java -Xshare:dump -XX:SharedClassListFile=classlist -XX:SharedArchiveFile=app.jsa @app.args > dump.log 2>&1 \
+	|| { echo "dump failed - see $OUT/dump.log"; exit 1; }
+printf -- '-Xshare:auto -XX:SharedArchiveFile=app.jsa\n' >> app.args
+du -sh app.jsa
+
+cat > run.sh <<RUN
+#!/usr/bin/env bash
+# Start pet-clinic-web on the jlink'd runtime with the AppCDS archive (built by build-runtime.sh).
+cd "\$(dirname "\$0")"
+exec jre/bin/java \${JAVA_OPTS:-} @app.args $START_CLASS "\$@"
+RUN
+chmod +x run.sh
+echo "== Done: $OUT/run.sh"
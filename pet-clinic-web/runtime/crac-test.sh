@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# crac-test.sh [exec jar]
+#
+# Local checkpoint / restore test (needs JAVA_HOME pointing at a JDK with CRaC support, i.e., Azul Zulu
+# with CRaC, on Linux with CRIU's privileges - root or CAP_CHECKPOINT_RESTORE):
+#   1. starts the exec jar with the checkpoint profile and -XX:CRaCCheckpointTo=target/crac - once ready
+#      it warms up OwnerController / VetController (CheckpointWarmup) and checkpoints; the JVM exits
+#   2. restores from target/crac, prints the time until GET / answers, and drives the owner and vet
+#      pages (page-checks.sh) - data from DataLoader must be there, loaded once, before the checkpoint
+#   3. restores a second time from the same image (replicas) and checks again
+# Exit 1 if a step fails.
+#***************************************************************************
+set -euo pipefail
+
+WEB_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${1:-$(ls "$WEB_DIR"/target/pet-clinic-web-*-exec.jar | head -1)}"
+IMAGE="$WEB_DIR/target/crac"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${CRAC_PORT:-18094}"
+BASE="http://localhost:$PORT"
+
+rm -rf "$IMAGE"
+mkdir -p "$IMAGE"
+
+echo "== Starting, warming up and checkpointing (port $PORT)"
+start=$(date +%s)
+"$JAVA" -XX:CRaCCheckpointTo="$IMAGE" -jar "$JAR" --server.port="$PORT" \
+        --spring.profiles.active=springdatajpa,checkpoint > "$IMAGE/checkpoint.log" 2>&1 || true
+grep -q "Checkpoint:  stopped" "$IMAGE/checkpoint.log" && [ -n "$(ls "$IMAGE"/*.img 2>/dev/null)" ] \
+	|| { echo "FAIL: no checkpoint taken - see $IMAGE/checkpoint.log"; exit 1; }
+echo "   checkpoint written in $(( $(date +%s) - start )) s ($(du -sh "$IMAGE" | cut -f1))"
+
+for replica in 1 2; do
+	echo "== Restore $replica"
+	start=$(date +%s%N)
+	"$JAVA" -XX:CRaCRestoreFrom="$IMAGE" > "$IMAGE/restore-$replica.log" 2>&1 &
+	APP_PID=$!
+	trap 'kill $APP_PID 2>/dev/null || true' EXIT
+	until curl -s -o /dev/null -f "$BASE/"; do
+		kill -0 $APP_PID 2>/dev/null || { echo "FAIL: restored process died - see $IMAGE/restore-$replica.log"; exit 1; }
+		sleep 0.01
+	done
+	echo "   time to first request: $(( ($(date +%s%N) - start) / 1000000 )) ms"
+	"$WEB_DIR/runtime/page-checks.sh" "$BASE"
+	kill $APP_PID
+	wait $APP_PID 2>/dev/null || true
+	trap - EXIT
+done
+echo "== Done"
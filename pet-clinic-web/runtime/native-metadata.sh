@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# native-metadata.sh [exec jar]
+#
+# Records the reflection / proxy / resource / JNI metadata Spring Boot, Hibernate, Tomcat and
+# Thymeleaf need in a native executable:  runs the exec jar on the GraalVM JVM with the
+# native-image-agent and drives every controller (training-requests.sh), writing the metadata to
+# target/native-metadata.  mvn -Pnative package passes that directory to native-image next to the
+# hand written metadata in src/main/resources/META-INF/native-image (entities, repository proxies,
+# templates, formatters) - the agent fills in what Spring itself looks up reflectively.
+#
+# Needs JAVA_HOME pointing at GraalVM (22.3+, JDK 11) and curl.
+#***************************************************************************
+set -euo pipefail
+
+WEB_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${1:-$(ls "$WEB_DIR"/target/pet-clinic-web-*-exec.jar | head -1)}"
+OUT="$WEB_DIR/target/native-metadata"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${TRAINING_PORT:-18092}"
+
+rm -rf "$OUT"
+mkdir -p "$OUT"
+
+echo "== Tracing run (port $PORT)"
+# hibernate.bytecode.provider=none - same as the native executable (see Sfw5BgPetclinicApplication), so the
+# agent records what Hibernate does there, not the ByteBuddy proxy generation it cannot do.
+"$JAVA" -agentlib:native-image-agent=config-output-dir="$OUT" -Dhibernate.bytecode.provider=none \
+        -jar "$JAR" --server.port="$PORT" > "$OUT/tracing.log" 2>&1 &
+APP_PID=$!
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+until curl -s -o /dev/null -f "http://localhost:$PORT/"; do
+	kill -0 $APP_PID 2>/dev/null || { echo "tracing run died - see $OUT/tracing.log"; exit 1; }
+	sleep 1
+done
+"$WEB_DIR/runtime/training-requests.sh" "http://localhost:$PORT"
+# The agent writes its files when the JVM exits normally (SIGTERM runs the shutdown hooks).
+kill $APP_PID
+wait $APP_PID 2>/dev/null || true
+trap - EXIT
+echo "== Done: $OUT"
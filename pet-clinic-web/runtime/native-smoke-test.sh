@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# native-smoke-test.sh [executable]
+#
+# Boots the native executable built by mvn -Pnative package (target/pet-clinic-web) and drives the
+# owner and vet pages:  find / list / show / create / update an owner, the vets page and /api/vets.
+# Fails (exit 1) if it does not answer within START_TIMEOUT seconds or a page check fails (page-checks.sh -
+# i.e., a template, message bundle, entity or repository the metadata left out).  Prints the time to first request.
+# Bound to the integration-test phase of the native profile.
+#***************************************************************************
+set -euo pipefail
+
+WEB_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+EXE="${1:-$WEB_DIR/target/pet-clinic-web}"
+PORT="${SMOKE_PORT:-18093}"
+BASE="http://localhost:$PORT"
+START_TIMEOUT="${START_TIMEOUT:-10}"
+LOG="$WEB_DIR/target/native-smoke-test.log"
+
+start=$(date +%s%N)
+"$EXE" --server.port="$PORT" > "$LOG" 2>&1 &
+APP_PID=$!
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+until curl -s -o /dev/null -f "$BASE/"; do
+	kill -0 $APP_PID 2>/dev/null || { echo "FAIL: executable died - see $LOG"; exit 1; }
+	if (( ($(date +%s%N) - start) / 1000000000 >= START_TIMEOUT )); then
+		echo "FAIL: no answer within ${START_TIMEOUT}s - see $LOG"; exit 1
+	fi
+	sleep 0.05
+done
+echo "Time to first request: $(( ($(date +%s%N) - start) / 1000000 )) ms"
+
+"$WEB_DIR/runtime/page-checks.sh" "$BASE"
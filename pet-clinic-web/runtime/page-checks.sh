@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# page-checks.sh <base url>
+#
+# Drives the owner and vet pages of a running pet-clinic-web (with DataLoader's mock data):  find, list,
+# show, create and update an owner, the vets page and /api/vets.  Checks each answers with the expected
+# status and contains the expected text.  Exit 1 if any check fails.
+# Used by native-smoke-test.sh and crac-test.sh.
+#***************************************************************************
+BASE="${1:?base url}"
+
+FAILED=0
+# check <expected status> <text the body must contain ("" for none)> <curl args...>
+check() {
+	local expected="$1" text="$2"; shift 2
+	local body status
+	body="$(curl -s -w '\n%{http_code}' "$@")"
+	status="${body##*$'\n'}"
+	body="${body%$'\n'*}"
+	if [[ "$status" != "$expected" ]] || [[ -n "$text" && "$body" != *"$text"* ]]; then
+		echo "FAIL: $* -> $status (expected $expected${text:+ containing \"$text\"})"
+		FAILED=1
+	else
+		echo "ok:   $*"
+	fi
+}
+
+check 200 "Find Owners"       "$BASE/owners/find"
+check 200 "Weston"            "$BASE/owners?lastName="
+check 200 "Owner Information" "$BASE/owners/1"
+check 200 "Owner"             "$BASE/owners/new"
+check 302 ""                  -X POST "$BASE/owners/new" -d firstName=Page -d lastName=Checker -d address=1+Main -d city=Town -d telephone=5555555555
+check 200 "Checker"           -L "$BASE/owners?lastName=Checker"   # one match redirects to the owner
+check 200 "Owner"             "$BASE/owners/1/update"
+check 302 ""                  -X POST "$BASE/owners/1/update" -d firstName=Michael -d lastName=Weston -d address=123+Brickerel -d city=Miami -d telephone=1231231234
+check 200 "Pets and Visits"   "$BASE/owners/1"
+check 200 "Veterinarians"     "$BASE/vets.html"
+check 200 "firstName"         "$BASE/api/vets"
+
+exit $FAILED
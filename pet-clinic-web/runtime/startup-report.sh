@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# startup-report.sh [runs]
+#
+# Reproducible cold start / memory comparison of the ways pet-clinic-web can be started:
+#   fat-jar     full JDK, java -jar pet-clinic-web-<version>-exec.jar       (what we ship today)
+#   exploded    full JDK, plain class path (target/runtime/app), no CDS     (isolates the fat jar loader)
+#   jlink+cds   target/runtime/run.sh - jlink'd runtime + AppCDS archive     (build-runtime.sh)
+# Each is started [runs] times (default 5), one at a time.  Reported (median):
+#   start ms    process launch until GET / answers 200 (time to first request)
+#   RSS MB      resident memory just after that first request (VmRSS)
+#   image MB    size of the runtime directory a replica ships (JDK / jlink image + archive)
+#
+# Run build-runtime.sh first.  Needs JAVA_HOME (or java on PATH) and curl.
+#***************************************************************************
+set -euo pipefail
+
+WEB_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+RUNTIME="$WEB_DIR/target/runtime"
+JAR="$(ls "$WEB_DIR"/target/pet-clinic-web-*-exec.jar | head -1)"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JDK_HOME="${JAVA_HOME:-$(dirname "$(dirname "$(readlink -f "$(command -v java)")")")}"
+RUNS="${1:-5}"
+PORT="${REPORT_PORT:-18091}"
+
+[ -x "$RUNTIME/run.sh" ] || { echo "run $WEB_DIR/runtime/build-runtime.sh first"; exit 1; }
+START_CLASS="$(cat "$RUNTIME/start-class")"
+EXPLODED_CP="$(sed -n 's/^-cp //p' "$RUNTIME/app.args")"
+
+# Start the command, wait for GET / to answer 200, print "<millis> <rss kB>", stop it.
+measure() {
+	local start end pid rss
+	start=$(date +%s%N)
+	"$@" --server.port="$PORT" --spring.main.banner-mode=off > "$RUNTIME/report-run.log" 2>&1 &
+	pid=$!
+	until curl -s -o /dev/null -f "http://localhost:$PORT/"; do
+		kill -0 $pid 2>/dev/null || { echo "start failed - see $RUNTIME/report-run.log" >&2; exit 1; }
+		sleep 0.05
+	done
+	end=$(date +%s%N)
+	rss=$(awk '/VmRSS/ {print $2}' /proc/$pid/status)
+	kill $pid; wait $pid 2>/dev/null || true
+	echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+median() { sort -n | awk '{v[NR]=$1} END {print v[int((NR+1)/2)]}'; }
+
+report() {
+	local name="$1" size="$2"; shift 2
+	local results=()
+	for ((i = 1; i <= RUNS; i++)); do
+		results+=("$(measure "$@")")
+	done
+	local millis rss
+	millis=$(printf '%s\n' "${results[@]}" | awk '{print $1}' | median)
+	rss=$(printf '%s\n' "${results[@]}" | awk '{print $2}' | median)
+	printf '%-12s %10s %10s %10s\n' "$name" "$millis" "$(( rss / 1024 ))" "$size"
+}
+
+size_mb() { du -smc "$@" | tail -1 | cut -f1; }
+
+printf '%-12s %10s %10s %10s\n' "" "start ms" "RSS MB" "image MB"
+report fat-jar   "$(size_mb "$JDK_HOME" "$JAR")"               "$JAVA" -jar "$JAR"
+report exploded  "$(size_mb "$JDK_HOME" "$RUNTIME/app")"       bash -c "cd '$RUNTIME' && exec '$JAVA' -cp '$EXPLODED_CP' $START_CLASS \"\$@\"" exploded
+report jlink+cds "$(size_mb "$RUNTIME/jre" "$RUNTIME/app" "$RUNTIME/app.jsa")" "$RUNTIME/run.sh"
@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+#***************************************************************************
+# training-requests.sh <base url>
+#
+# One pass over every controller (IndexController, OwnerController, PetController, VisitController,
+# VetController) - GET pages, POST forms, the JSON API and the error page - so a training run loads
+# the classes real traffic needs (Thymeleaf templates, binding, validation, Jackson, JPA queries...).
+# Uses the mock data bootstrap.DataLoader creates (Owner 1 with Pet 1).
+#***************************************************************************
+BASE="${1:?base url}"
+
+get()  { curl -s -o /dev/null "$BASE$1"; }
+post() { local path="$1"; shift; curl -s -o /dev/null -X POST "$@" "$BASE$path"; }
+
+for pass in 1 2 3; do
+	get /
+	get /index.html
+	get /oups
+	get /vets.html
+	get /api/vets
+	get /owners/find
+	get "/owners?lastName="
+	get "/owners?lastName=Weston"
+	get /owners/1
+	get /owners/new
+	post /owners/new -d firstName=Train -d lastName=Training -d address=1+Main -d city=Town -d telephone=5555555555
+	get /owners/1/update
+	post /owners/1/update -d firstName=Michael -d lastName=Weston -d address=123+Brickerel -d city=Miami -d telephone=1231231234
+	get /owners/1/pets/new
+	post /owners/1/pets/new -d name=Trainer$pass -d birthDate=2019-01-01 -d petType=Dog
+	get /owners/1/pets/1/update
+	post /owners/1/pets/1/update -d name=Rosco -d birthDate=2018-01-01 -d petType=Dog
+	get /owners/1/pets/1/visits/new
+	post /owners/1/pets/1/visits/new -d date=2020-01-01 -d description=Training
+	get /actuator/health
+	get /actuator/metrics
+done
@@ -4,10 +4,18 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 // To Run:  pet-clinic-web:  Sfw5BgPetclinicApplication.java -> run as -> Java Application. 
-@SpringBootApplication
+// proxyBeanMethods = false - no @Bean methods here, so no need for a CGLIB subclass generated at runtime
+// (which a native executable cannot do - see the native profile in the pom).
+@SpringBootApplication(proxyBeanMethods = false)
 public class Sfw5BgPetclinicApplication {
 
 	public static void main(String[] args) {
+		// Native executable (mvn -Pnative package):  no classes can be generated at runtime, so Hibernate must not
+		// try to build ByteBuddy proxy classes.  Lazy collections still work; only lazy to-one proxies (none mapped) would not.
+		// Must be set before Hibernate's Environment is loaded, i.e., before the context starts.
+		if ("runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode")))
+			System.setProperty("hibernate.bytecode.provider", "none");
+
 		SpringApplication.run(Sfw5BgPetclinicApplication.class, args);
 		System.out.println("Petclinic is now up and running!");
 	}
@@ -0,0 +1,336 @@
+//***************************************************************************
+//Class:        VisitAnalytics
+//Stereotype:   @Component
+//
+//Visits per day, per PetType and per Owner city without reading the Visits:  the counters (VisitCounts)
+//are kept up to date as Visits change - as an EntityChangeListener<Visit> it hears saved() / deleted() after every
+//VisitService save / saveAll / insertAll / delete / deleteById - so a read only copies counters (stats()).
+//Nothing is kept per Visit:  it needsBefore(), so before() is handed the Visit as it was (what it was counted
+//as), and a save / delete moves the count by the difference - a Visit saved twice is still counted once.
+//
+//rebuild() recounts everything from the data, in parallel:  the Visit ids are cut into ranges and each of
+//petclinic.analytics.visits.threads threads (0 = one per core) reads ranges through ExportService.  Done at
+//startup (data may have been written without VisitService - JPA cascades) on a thread of its own, so it does
+//not hold up the application being ready - until it is done stats() only covers Visits changed since startup
+//(rebuilt null).  Also on request.  The new counters are swapped in when complete, so reads never see a half
+//built count.  While a rebuild reads, Visit changes wait for it (ChangeGate):  what it reads cannot change under
+//it, so no Visit is counted twice or missed.  Reads never wait.
+//
+//A Visit is counted by its Pet's PetType and its Owner's city AS OF the Visit's last save - a Pet / Owner
+//changed later keeps its Visits where they were until the next rebuild.  Two saves of the SAME Visit at the same
+//moment both see it as it was before either:  the count can be off by one until the next rebuild.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+
+@ConditionalOnProperty(prefix = "petclinic.analytics.visits", name = "enabled", matchIfMissing = true)
+@Component
+public class VisitAnalytics implements EntityChangeListener<Visit> {
+
+	private static final Logger log = LoggerFactory.getLogger(VisitAnalytics.class);
+
+	static final String UNKNOWN = "(unknown)";
+	static final int DEFAULT_DAYS = 31;
+	private static final int RANGES_PER_THREAD = 4;
+
+	private final ExportService exportService;
+	private final int threads;
+
+	private volatile VisitCounts counts = new VisitCounts();
+	private final ChangeGate gate = new ChangeGate();
+	private volatile Instant rebuilt;
+	private volatile long rebuildMillis;
+
+	public VisitAnalytics(ExportService exportService, Environment environment) {
+		this.exportService = exportService;
+		int configuredThreads = environment.getProperty("petclinic.analytics.visits.threads", Integer.class, 0);
+		this.threads = (configuredThreads > 0) ? configuredThreads : Runtime.getRuntime().availableProcessors();
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Updates (EntityChangeListener - request threads)
+	// ------------------------------------------------------
+
+	@Override
+	public boolean needsBefore() {
+		return true;
+	}
+
+	/**
+	 * Visit is about to change - waits while a rebuild reads.
+	 * @return what the Visit is counted as now (null if it is new / not found)
+	 */
+	@Override
+	public Object before(Visit current) {
+		gate.enter();
+		try {
+			return (current == null || current.getId() == null) ? null : key(current);
+		} catch (RuntimeException e) {
+			gate.exit();
+			throw e;
+		}
+	}  // end before()
+
+	/**
+	 * Visit was saved (new or changed) - moved from what it was counted as (before) to what it is now.
+	 */
+	@Override
+	public void saved(Visit visit, Object before) {
+		try {
+			if (visit == null || visit.getId() == null)         // not in the database
+				return;
+			VisitCounts.VisitKey key = key(visit);
+			if (key.equals(before))
+				return;
+			if (before != null)
+				counts.remove((VisitCounts.VisitKey) before);
+			counts.add(key);
+		} finally {
+			gate.exit();
+		}
+	}  // end saved()
+
+	/**
+	 * Visit with this id was deleted - taken off what it was counted as (nothing if it was not found).
+	 */
+	@Override
+	public void deleted(Long visitId, Object before) {
+		try {
+			if (before != null)
+				counts.remove((VisitCounts.VisitKey) before);
+		} finally {
+			gate.exit();
+		}
+	}  // end deleted()
+
+	@Override
+	public void abandoned(Object before) {
+		gate.exit();
+	}
+
+	/**
+	 * Without before() - counts the Visit as a new one.
+	 */
+	@Override
+	public void saved(Visit visit) {
+		saved(visit, before(null));
+	}
+
+	/**
+	 * Without before() what the Visit was counted as is not known - no change.
+	 */
+	@Override
+	public void deleted(Long visitId) {
+		deleted(visitId, before(null));
+	}
+
+	// ------------------------------------------------------
+	// Rebuild
+	// ------------------------------------------------------
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		Thread thread = new Thread(() -> {
+			try {
+				rebuild();
+			} catch (RuntimeException e) {
+				log.warn("Visit analytics - startup rebuild failed, counting only Visits changed since startup", e);
+			}
+		}, "visit-analytics-startup");
+		thread.setDaemon(true);
+		thread.start();
+	}  // end rebuildOnStartup()
+
+	/**
+	 * Recount every Visit from the data (one rebuild at a time - a second caller waits for the first).  Visit
+	 * changes wait while it reads.
+	 * @return the counters after the rebuild
+	 */
+	public synchronized VisitStats rebuild() {
+		long start = System.nanoTime();
+		VisitCounts building = new VisitCounts();
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("visit-analytics-");
+		threadFactory.setDaemon(true);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, threadFactory);
+		try {
+			gate.close();
+			try {
+				// Ids 1 .. max cut into ranges; several per thread so one slow range does not hold up the rest.
+				long maxId = exportService.maxVisitId();
+				int rangeCount = (int) Math.max(1, Math.min((long) threads * RANGES_PER_THREAD, maxId));
+				long rangeSize = maxId / rangeCount + 1;
+				List<Future<Long>> ranges = new ArrayList<>(rangeCount);
+				for (long from = 0; from <= maxId; from += rangeSize) {
+					long rangeFrom = from;
+					ranges.add(workers.submit(() -> exportService.forEachVisit(rangeFrom, rangeFrom + rangeSize,
+					                                                           visit -> building.add(key(visit)))));
+				}
+				long visits = 0;
+				for (Future<Long> range : ranges)
+					visits += range.get();
+				counts = building;
+				rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+				rebuilt = Instant.now();
+				log.info("Visit analytics rebuilt:  {} visits counted, {} threads, {} ms", visits, threads, rebuildMillis);
+			} finally {
+				gate.open();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Visit analytics rebuild interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Visit analytics rebuild failed", e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+		return stats(null, null);
+	}  // end rebuild()
+
+	// ------------------------------------------------------
+	// Reads
+	// ------------------------------------------------------
+
+	/**
+	 * @param from - first day for perDay (null = DEFAULT_DAYS before to)
+	 * @param to - last day for perDay (null = the last day with Visits)
+	 */
+	public VisitStats stats(LocalDate from, LocalDate to) {
+		VisitCounts current = counts;
+		if (to == null)
+			to = latestDay(current);
+		if (from == null && to != null)
+			from = to.minusDays(DEFAULT_DAYS - 1);
+
+		Map<String, Long> perDay = new LinkedHashMap<>();
+		if (from != null && to != null && !from.isAfter(to)) {
+			current.getPerDay().subMap(from, true, to, true).forEach((day, count) -> {
+				long sum = count.sum();
+				if (sum > 0)
+					perDay.put(day.toString(), sum);
+			});
+		}
+		return new VisitStats(current.getTotal(), from, to, perDay, mostFirst(current.getPerPetType()),
+		                      mostFirst(current.getPerCity()), rebuilt, rebuildMillis);
+	}  // end stats()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private static VisitCounts.VisitKey key(Visit visit) {
+		Pet pet = visit.getPet();
+		String petType = (pet == null || pet.getPetType() == null || pet.getPetType().getName() == null)
+		                 ? UNKNOWN : pet.getPetType().getName();
+		String city = (pet == null || pet.getOwner() == null || pet.getOwner().getCity() == null)
+		              ? UNKNOWN : pet.getOwner().getCity();
+		return new VisitCounts.VisitKey(visit.getDate(), petType, city);
+	}  // end key()
+
+	// Last day that still has Visits (days whose Visits were all deleted / moved stay in the map at 0).
+	private static LocalDate latestDay(VisitCounts current) {
+		for (Map.Entry<LocalDate, LongAdder> day : current.getPerDay().descendingMap().entrySet()) {
+			if (day.getValue().sum() > 0)
+				return day.getKey();
+		}
+		return null;
+	}
+
+	private static Map<String, Long> mostFirst(Map<String, LongAdder> counters) {
+		List<Map.Entry<String, Long>> entries = new ArrayList<>(counters.size());
+		counters.forEach((name, count) -> {
+			long sum = count.sum();
+			if (sum > 0)
+				entries.add(new AbstractMap.SimpleImmutableEntry<>(name, sum));
+		});
+		entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+		Map<String, Long> sorted = new LinkedHashMap<>();
+		entries.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+		return sorted;
+	}  // end mostFirst()
+
+
+	// ------------------------------------------------------
+	// Visit changes vs. the rebuild.  A change is in from before() to saved() / deleted() / abandoned() - across
+	// its transaction's commit.  close() keeps new changes out and waits for those in; open() lets them in again.
+	// A thread already in (one transaction saving several Visits) always gets in again - it must finish for the
+	// rebuild to start, so holding it back would deadlock.  No limit on changes in at once, unlike the 65535 holds
+	// of a ReentrantReadWriteLock (one bulk insertAll has more Visits).
+	// ------------------------------------------------------
+	private static final class ChangeGate {
+		private final ThreadLocal<long[]> entered = ThreadLocal.withInitial(() -> new long[1]);   // this thread's
+		private long inside;
+		private boolean closed;
+
+		void enter() {
+			long[] mine = entered.get();
+			synchronized (this) {
+				boolean interrupted = false;
+				while (closed && mine[0] == 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						interrupted = true;       // a rebuild ends - wait for it, keep the interrupt for the caller
+					}
+				}
+				if (interrupted)
+					Thread.currentThread().interrupt();
+				inside++;
+			}
+			mine[0]++;
+		}  // end enter()
+
+		void exit() {
+			entered.get()[0]--;
+			synchronized (this) {
+				if (--inside == 0)
+					notifyAll();
+			}
+		}  // end exit()
+
+		synchronized void close() throws InterruptedException {
+			closed = true;
+			try {
+				while (inside > 0)
+					wait();
+			} catch (InterruptedException e) {
+				open();
+				throw e;
+			}
+		}  // end close()
+
+		synchronized void open() {
+			closed = false;
+			notifyAll();
+		}
+	}  // end class ChangeGate
+
+}  // end class VisitAnalytics
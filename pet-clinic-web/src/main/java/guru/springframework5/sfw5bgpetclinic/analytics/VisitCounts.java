@@ -0,0 +1,103 @@
+//***************************************************************************
+//Class:        VisitCounts
+//
+//The pre-aggregated visit counters behind VisitAnalytics:  total, per day, per PetType and per Owner city.
+//All lock free (ConcurrentHashMap / ConcurrentSkipListMap of LongAdders) - request threads saving Visits and
+//the rebuild threads update it at the same time, readers never wait.
+//
+//Nothing per Visit is kept - only the counters, so the size follows the number of days, PetTypes and cities,
+//not of Visits.  Moving a saved Visit from one key to another (or taking a deleted one off) needs what it was
+//counted as; VisitAnalytics gets that from the change itself (EntityChangeListener.before()).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+class VisitCounts {
+
+	private final LongAdder total = new LongAdder();
+	private final NavigableMap<LocalDate, LongAdder> perDay = new ConcurrentSkipListMap<>();
+	private final Map<String, LongAdder> perPetType = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> perCity = new ConcurrentHashMap<>();
+
+	/**
+	 * Count one more Visit as key.
+	 */
+	void add(VisitKey key) {
+		add(key, 1);
+	}
+
+	/**
+	 * Count one Visit less as key.
+	 */
+	void remove(VisitKey key) {
+		add(key, -1);
+	}
+
+	long getTotal() {
+		return total.sum();
+	}
+
+	NavigableMap<LocalDate, LongAdder> getPerDay() {
+		return perDay;
+	}
+
+	Map<String, LongAdder> getPerPetType() {
+		return perPetType;
+	}
+
+	Map<String, LongAdder> getPerCity() {
+		return perCity;
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void add(VisitKey key, int delta) {
+		total.add(delta);
+		if (key.day != null)                                        // undated - in every count but perDay
+			perDay.computeIfAbsent(key.day, day -> new LongAdder()).add(delta);
+		perPetType.computeIfAbsent(key.petType, petType -> new LongAdder()).add(delta);
+		perCity.computeIfAbsent(key.city, city -> new LongAdder()).add(delta);
+	}  // end add()
+
+
+	// ------------------------------------------------------
+	// What one Visit is counted as.  Immutable.
+	// ------------------------------------------------------
+	static final class VisitKey {
+		final LocalDate day;
+		final String petType;
+		final String city;
+
+		VisitKey(LocalDate day, String petType, String city) {
+			this.day = day;
+			this.petType = petType;
+			this.city = city;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof VisitKey))
+				return false;
+			VisitKey other = (VisitKey) o;
+			return Objects.equals(day, other.day) && petType.equals(other.petType) && city.equals(other.city);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(day, petType, city);
+		}
+	}  // end class VisitKey
+
+}  // end class VisitCounts
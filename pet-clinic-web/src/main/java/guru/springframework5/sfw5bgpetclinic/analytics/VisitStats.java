@@ -0,0 +1,72 @@
+//***************************************************************************
+//Class:        VisitStats
+//
+//What GET /api/stats/visits returns - a copy of the VisitAnalytics counters at one moment:
+//    total                    all Visits
+//    from, to, perDay         Visits per day for the days asked for (days without Visits left out)
+//    perPetType, perCity      Visits per PetType name / Owner city, most first
+//    rebuilt, rebuildMillis   when the counters were last rebuilt from the data, and how long that took
+//Immutable; Jackson serializes the getters.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+public final class VisitStats {
+
+	private final long total;
+	private final LocalDate from;
+	private final LocalDate to;
+	private final Map<String, Long> perDay;
+	private final Map<String, Long> perPetType;
+	private final Map<String, Long> perCity;
+	private final Instant rebuilt;
+	private final long rebuildMillis;
+
+	VisitStats(long total, LocalDate from, LocalDate to, Map<String, Long> perDay, Map<String, Long> perPetType,
+	           Map<String, Long> perCity, Instant rebuilt, long rebuildMillis) {
+		this.total = total;
+		this.from = from;
+		this.to = to;
+		this.perDay = perDay;
+		this.perPetType = perPetType;
+		this.perCity = perCity;
+		this.rebuilt = rebuilt;
+		this.rebuildMillis = rebuildMillis;
+	}  // end Constructor
+
+	public long getTotal() {
+		return total;
+	}
+
+	public LocalDate getFrom() {
+		return from;
+	}
+
+	public LocalDate getTo() {
+		return to;
+	}
+
+	public Map<String, Long> getPerDay() {
+		return perDay;
+	}
+
+	public Map<String, Long> getPerPetType() {
+		return perPetType;
+	}
+
+	public Map<String, Long> getPerCity() {
+		return perCity;
+	}
+
+	public Instant getRebuilt() {
+		return rebuilt;
+	}
+
+	public long getRebuildMillis() {
+		return rebuildMillis;
+	}
+
+}  // end class VisitStats
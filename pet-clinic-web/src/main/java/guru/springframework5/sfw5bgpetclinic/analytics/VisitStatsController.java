@@ -0,0 +1,44 @@
+//***************************************************************************
+//Class:        VisitStatsController
+//Stereotype:   @RestController  (JSON - not a Thymeleaf page)
+//
+//Visit analytics (see VisitAnalytics) - reads copy pre-aggregated counters, no Visit is read:
+//    GET  /api/stats/visits[?from=yyyy-MM-dd&to=yyyy-MM-dd]   VisitStats; perDay for from .. to (default the
+//                                                            last 31 days up to the last day with Visits)
+//    POST /api/stats/visits/rebuild                          recount from the data, then VisitStats
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import java.time.LocalDate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@ConditionalOnProperty(prefix = "petclinic.analytics.visits", name = "enabled", matchIfMissing = true)
+@RestController
+@RequestMapping("/api/stats/visits")
+public class VisitStatsController {
+
+	private final VisitAnalytics visitAnalytics;
+
+	public VisitStatsController(VisitAnalytics visitAnalytics) {
+		this.visitAnalytics = visitAnalytics;
+	}  // end Constructor
+
+	@GetMapping
+	public VisitStats stats(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+	                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return visitAnalytics.stats(from, to);
+	}  // end stats()
+
+	@PostMapping("/rebuild")
+	public VisitStats rebuild() {
+		return visitAnalytics.rebuild();
+	}  // end rebuild()
+
+}  // end class VisitStatsController
@@ -0,0 +1,50 @@
+//***************************************************************************
+//Class:        BatchLoaderConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Registers BatchLoaderPostProcessor so concurrent findById calls for different ids are loaded with one
+//findAllById (see that class).  Controlled by application.properties:
+//    petclinic.batching.enabled=true|false        (default false)
+//    petclinic.batching.entities=Owner,Pet        (entity simple names whose services batch - default Owner,Pet)
+//    petclinic.batching.window=0ms                (wait for more ids after the first - default 0, take what is queued)
+//    petclinic.batching.max-batch=100             (most ids in one findAllById)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.batching;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.batching", name = "enabled")
+public class BatchLoaderConfiguration {
+
+	// static - BeanPostProcessors are created before everything else; a non-static @Bean method would
+	// force this @Configuration to be created early too.
+	@Bean
+	public static BatchLoaderPostProcessor batchLoaderPostProcessor(ObjectProvider<MeterRegistry> registryProvider,
+	                                                                ObjectProvider<PlatformTransactionManager> transactionManagers,
+	                                                                Environment environment) {
+		Set<String> entities = Arrays.stream(environment.getProperty("petclinic.batching.entities", "Owner,Pet").split(","))
+		                             .map(String::trim)
+		                             .filter(entity -> !entity.isEmpty())
+		                             .collect(Collectors.toSet());
+		// The map IMPLs hand every caller the stored object itself, so a shared result is nothing new there.
+		boolean sharedEntities = !environment.acceptsProfiles(Profiles.of("springdatajpa"));
+		return new BatchLoaderPostProcessor(registryProvider, transactionManagers, entities, sharedEntities,
+		                                    DurationStyle.detectAndParse(environment.getProperty("petclinic.batching.window", "0ms")),
+		                                    environment.getProperty("petclinic.batching.max-batch", Integer.class, 100));
+	}
+
+}  // end class BatchLoaderConfiguration
@@ -0,0 +1,378 @@
+//***************************************************************************
+//Class:        BatchLoaderPostProcessor
+//Implements:   BeanPostProcessor (Spring hands every bean to this class after it is created and before
+//                                 it is injected anywhere, so it can return a wrapped version instead.)
+//              DisposableBean    (stops the loader threads with the context)
+//
+//Batch loader for findById:  wraps the BaseService<T, Long> bean of every entity type listed in
+//petclinic.batching.entities in a JDK dynamic proxy.  A findById(id) with no other findById in flight loads
+//as before (direct) - there is nothing to batch it with, and the hand-off would only add latency.  Otherwise it
+//queues the id and waits:  one loader thread per entity type takes what is queued (up to max-batch ids) and
+//loads it all with ONE findAllById - one "where id in (...)" select with springdatajpa - then hands each caller
+//its entity (null if there is none).  Ids asked for while that select runs are queued for the next one, so the
+//busier it gets the bigger the batches (natural batching); with petclinic.batching.window above 0 the loader
+//also waits that long after the first id for more to arrive, trading latency for fewer, bigger selects.  A
+//batch of one id is loaded with findById (Spring Data builds a new criteria query for every findAllById).
+//
+//A write through the proxy needs nothing special:  an id queued after save() returned is taken by a batch
+//that starts after it.
+//
+//What a batched caller gets depends on the caller - as with coalescing.SingleFlightPostProcessor:
+//  - map IMPLs:  every caller gets the stored object anyway.
+//  - springdatajpa, no persistence context bound (background threads):  the detached entity, as their own
+//    findById would have given them.
+//  - springdatajpa, persistence context but no transaction (web requests - spring.jpa.open-in-view):  a copy of
+//    the whole aggregate (cache.DetachedCopies) of its own.  A batch with such callers is loaded in a read-only
+//    transaction on the loader thread, and the copies are made inside it, while its lazy collections can load.
+//  - springdatajpa, inside a transaction:  loads its own (counted as bypassed) - it may write what it reads, and
+//    must see its own persistence context.  So do entity types with no copy (not Owner / Pet), and every caller
+//    with a persistence context if there is no transaction manager.
+//
+//Metrics (actuator /metrics), tagged entity (Owner):
+//    petclinic.batching.calls      Counter - findById calls; result=direct (alone) | batched
+//                                  | bypassed (ran its own - not allowed to share)
+//    petclinic.batching.batches    Counter - loads run for batched calls
+//    petclinic.batching.size       Gauge - average ids per batch (distinct, so single flight's share shows too)
+//
+//Ordered after ServiceMetricsPostProcessor, so its petclinic.service.calls count the findAllById selects, and
+//before SingleFlightPostProcessor, so only a load's leader is queued - the others wait for its result.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.batching;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import guru.springframework5.sfw5bgpetclinic.cache.DetachedCopies;
+import guru.springframework5.sfw5bgpetclinic.model.BaseEntity;
+import guru.springframework5.sfw5bgpetclinic.proxies.ServiceInvocationHandler;
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class BatchLoaderPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchLoaderPostProcessor.class);
+
+	public static final String CALLS = "petclinic.batching.calls";
+	public static final String BATCHES = "petclinic.batching.batches";
+	public static final String SIZE = "petclinic.batching.size";
+
+	// ObjectProvider so the MeterRegistry is not created while BeanPostProcessors are being registered.
+	private final ObjectProvider<MeterRegistry> registryProvider;
+	private final ObjectProvider<PlatformTransactionManager> transactionManagers;
+	private final Set<String> entities;
+	private final boolean sharedEntities;
+	private final Duration window;
+	private final int maxBatch;
+	private final List<Object> proxies = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param transactionManagers - the one the loader threads copy entities in (none - see the class comment)
+	 * @param entities - simple names of the entity types to batch (Owner, Pet)
+	 * @param sharedEntities - true if the services hand every caller the same objects anyway (map IMPLs)
+	 * @param window - how long a batch waits for more ids after the first (ZERO - takes what is queued)
+	 * @param maxBatch - most ids in one findAllById
+	 */
+	public BatchLoaderPostProcessor(ObjectProvider<MeterRegistry> registryProvider,
+	                                ObjectProvider<PlatformTransactionManager> transactionManagers, Set<String> entities,
+	                                boolean sharedEntities, Duration window, int maxBatch) {
+		if (window.isNegative() || maxBatch < 1)
+			throw new IllegalArgumentException("petclinic.batching.window must be 0 or more and max-batch 1 or more:  "
+			                                   + window + ", " + maxBatch);
+		this.registryProvider = registryProvider;
+		this.transactionManagers = transactionManagers;
+		this.entities = entities;
+		this.sharedEntities = sharedEntities;
+		this.window = window;
+		this.maxBatch = maxBatch;
+	}  // end Constructor
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!(bean instanceof BaseService))
+			return bean;
+		Class<?> entityType = ServiceInvocationHandler.entityType(bean);
+		if (!entities.contains(entityType.getSimpleName()))
+			return bean;
+		Object proxy = batch(bean, registryProvider.getObject(), transactionManagers::getIfAvailable, sharedEntities, window,
+		                     maxBatch);
+		proxies.add(proxy);
+		return proxy;
+	}  // end postProcessAfterInitialization()
+
+	@Override
+	public int getOrder() {
+		return -1;
+	}
+
+	@Override
+	public void destroy() {
+		for (Object proxy : proxies)
+			shutdown(proxy);
+	}
+
+	/**
+	 * Wrap the given service in a proxy batching concurrent findById calls into findAllById calls, with no
+	 * transaction manager (callers with a persistence context are not batched).
+	 * Public and static so tests and benchmarks can wrap a service without a Spring context.
+	 * @param service any BaseService implementation (ids of type Long)
+	 * @param sharedEntities - true to batch every caller, false only callers without a persistence context
+	 * @return proxy implementing all of the service's interfaces (its loader thread is a daemon - see shutdown())
+	 */
+	public static Object batch(Object service, MeterRegistry registry, boolean sharedEntities, Duration window, int maxBatch) {
+		return batch(service, registry, null, sharedEntities, window, maxBatch);
+	}
+
+	/**
+	 * Wrap the given service in a proxy batching concurrent findById calls into findAllById calls.
+	 * @param service any BaseService implementation (ids of type Long)
+	 * @param transactionManager - asked for by the batches with callers to copy for, until it gives one; null for none
+	 * @param sharedEntities - true to share the entities with every caller, false to copy them for callers with a
+	 *                         persistence context (and not batch callers in a transaction)
+	 * @return proxy implementing all of the service's interfaces (its loader thread is a daemon - see shutdown())
+	 */
+	public static Object batch(Object service, MeterRegistry registry, Supplier<PlatformTransactionManager> transactionManager,
+	                           boolean sharedEntities, Duration window, int maxBatch) {
+		Class<?> entityType = ServiceInvocationHandler.entityType(service);
+		String entity = entityType.getSimpleName();
+		UnaryOperator<Object> copier = (transactionManager == null) ? null : DetachedCopies.copier(entityType);
+		BatchLoaderInvocationHandler handler = new BatchLoaderInvocationHandler((BaseService<?, ?>) service, sharedEntities,
+		                                                                        copier, transactionManager, window, maxBatch,
+		                                                                        entity);
+
+		FunctionCounter.builder(CALLS, handler.direct, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "direct")
+		               .register(registry);
+		FunctionCounter.builder(CALLS, handler.batched, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "batched")
+		               .register(registry);
+		FunctionCounter.builder(CALLS, handler.bypassed, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "bypassed")
+		               .register(registry);
+		FunctionCounter.builder(BATCHES, handler.batches, LongAdder::sum)
+		               .description("Loads run for batched findById calls").tag("entity", entity)
+		               .register(registry);
+		Gauge.builder(SIZE, handler, BatchLoaderInvocationHandler::averageSize)
+		     .description("Average ids per batch").tag("entity", entity)
+		     .register(registry);
+
+		handler.loader.start();
+		return handler.proxy();
+	}  // end batch()
+
+	/**
+	 * Stop the loader thread of a proxy batch() returned.  Calls still queued fail with IllegalStateException, as
+	 * do later ones.
+	 */
+	public static void shutdown(Object proxy) {
+		((BatchLoaderInvocationHandler) Proxy.getInvocationHandler(proxy)).loader.interrupt();
+	}
+
+
+	// ------------------------------------------------------
+	// The proxy's handler.  Everything but findById passes straight through.
+	// ------------------------------------------------------
+	private static final class BatchLoaderInvocationHandler extends ServiceInvocationHandler<BaseService<?, ?>> {
+
+		private static final class Request {
+			final Object id;
+			final boolean copy;                                   // the caller gets a copy of its own
+			final CompletableFuture<Object> result = new CompletableFuture<>();
+
+			Request(Object id, boolean copy) {
+				this.id = id;
+				this.copy = copy;
+			}
+		}
+
+		private final boolean sharedEntities;
+		private final UnaryOperator<Object> copier;                   // null - callers with a persistence context bypass
+		private final Supplier<PlatformTransactionManager> transactionManager;
+		private TransactionTemplate readOnly;                         // loader thread only
+		private final long windowNanos;
+		private final int maxBatch;
+		private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+		private final Thread loader;
+		private volatile boolean stopped;
+		private final AtomicInteger inFlight = new AtomicInteger();    // findById calls not yet answered
+		private final LongAdder direct = new LongAdder();
+		private final LongAdder batched = new LongAdder();
+		private final LongAdder bypassed = new LongAdder();
+		private final LongAdder batches = new LongAdder();
+		private final LongAdder batchedIds = new LongAdder();
+
+		BatchLoaderInvocationHandler(BaseService<?, ?> target, boolean sharedEntities, UnaryOperator<Object> copier,
+		                             Supplier<PlatformTransactionManager> transactionManager, Duration window, int maxBatch,
+		                             String entity) {
+			super(target);
+			this.sharedEntities = sharedEntities;
+			this.copier = copier;
+			this.transactionManager = transactionManager;
+			this.windowNanos = window.toNanos();
+			this.maxBatch = maxBatch;
+			this.loader = new Thread(this::loadBatches, "batch-loader-" + entity);
+			this.loader.setDaemon(true);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (!method.getName().equals("findById") || args[0] == null)
+				return invokeTarget(method, args);                // whatever the service does with null
+			boolean copy = !sharedEntities && !TransactionSynchronizationManager.getResourceMap().isEmpty();
+			if (copy && (copier == null || TransactionSynchronizationManager.isActualTransactionActive())) {
+				bypassed.increment();
+				return invokeTarget(method, args);
+			}
+			try {
+				if (inFlight.incrementAndGet() == 1) {
+					direct.increment();
+					return invokeTarget(method, args);            // in its own persistence context, if it has one
+				}
+				Request request = new Request(args[0], copy);
+				queue.add(request);
+				batched.increment();
+				if (stopped)
+					failQueued();                                 // shut down - nobody left to answer
+				try {
+					return request.result.join();
+				} catch (CompletionException e) {
+					throw e.getCause();                           // what the load threw
+				}
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}  // end invoke()
+
+		// ------------------------------------------------------
+		// Loader thread
+		// ------------------------------------------------------
+
+		private void loadBatches() {
+			List<Request> batch = new ArrayList<>(maxBatch);
+			try {
+				while (true) {
+					batch.add(queue.take());
+					if (windowNanos > 0)
+						waitForMore(batch);
+					queue.drainTo(batch, maxBatch - batch.size());
+					if (Thread.interrupted())                     // take() can hand over a request with shutdown() pending
+						throw new InterruptedException();
+					load(batch);
+					batch.clear();
+				}
+			} catch (InterruptedException e) {
+				stopped = true;                                   // BEFORE failQueued() - see invoke()
+				for (Request request : batch)
+					request.result.completeExceptionally(new IllegalStateException("Batch loader shut down"));
+				failQueued();
+			}
+		}  // end loadBatches()
+
+		private void waitForMore(List<Request> batch) throws InterruptedException {
+			long deadline = System.nanoTime() + windowNanos;
+			while (batch.size() < maxBatch) {
+				Request request = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				if (request == null)
+					return;
+				batch.add(request);
+			}
+		}
+
+		private void failQueued() {
+			for (Request request; (request = queue.poll()) != null; )
+				request.result.completeExceptionally(new IllegalStateException("Batch loader shut down"));
+		}
+
+		// One load for the distinct ids; every request for an id gets its entity (or a copy), or null if none came
+		// back.  Nobody is answered before a transaction the copies needed has ended - callers sharing a detached
+		// entity must not touch it while this thread may still be using its persistence context.
+		private void load(List<Request> batch) {
+			Map<Object, List<Request>> byId = new LinkedHashMap<>();
+			boolean copies = false;
+			for (Request request : batch) {
+				byId.computeIfAbsent(request.id, id -> new ArrayList<>(1)).add(request);
+				copies |= request.copy;
+			}
+			batches.increment();
+			batchedIds.add(byId.size());
+			try {
+				TransactionTemplate transaction = copies ? readOnly() : null;
+				Map<Request, Object> answers = (transaction != null) ? transaction.execute(status -> answer(byId)) : answer(byId);
+				answers.forEach((request, answer) -> request.result.complete(answer));
+			} catch (Throwable t) {
+				log.debug("Batch of {} ids failed", byId.size(), t);
+				for (Request request : batch)
+					request.result.completeExceptionally(t);
+			}
+		}  // end load()
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Map<Request, Object> answer(Map<Object, List<Request>> byId) {
+			Map<Object, Object> found = new HashMap<>();
+			if (byId.size() == 1) {
+				Object id = byId.keySet().iterator().next();
+				found.put(id, ((BaseService) target).findById(id));
+			} else {
+				for (Object entity : ((BaseService) target).findAllById((Collection) byId.keySet()))
+					found.put(((BaseEntity) entity).getId(), entity);
+			}
+			Map<Request, Object> answers = new HashMap<>();
+			byId.forEach((id, requests) -> {
+				Object entity = found.get(id);
+				for (Request request : requests)
+					answers.put(request, (request.copy && entity != null) ? copier.apply(entity) : entity);
+			});
+			return answers;
+		}  // end answer()
+
+		// null while the supplier has no transaction manager (e.g. the map profile) - the copies are then made
+		// without one.
+		private TransactionTemplate readOnly() {
+			if (readOnly == null) {
+				PlatformTransactionManager manager = transactionManager.get();
+				if (manager == null)
+					return null;
+				readOnly = new TransactionTemplate(manager);
+				readOnly.setReadOnly(true);
+			}
+			return readOnly;
+		}
+
+		double averageSize() {
+			long runs = batches.sum();
+			return (runs == 0) ? 0.0 : (double) batchedIds.sum() / runs;
+		}
+
+	}  // end class BatchLoaderInvocationHandler
+
+}  // end class BatchLoaderPostProcessor
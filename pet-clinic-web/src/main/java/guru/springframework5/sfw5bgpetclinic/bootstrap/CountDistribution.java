@@ -0,0 +1,80 @@
+//***************************************************************************
+//Enum:         CountDistribution
+//
+//How SyntheticDataGenerator picks "how many" - Pets per Owner, Visits per Pet, Specialties per Vet.
+//Every distribution is given the wanted MEAN, so switching distribution keeps the expected totals
+//(owners * pets-per-owner * visits-per-pet) the same and only changes the spread:
+//    FIXED      always the mean (rounded)
+//    UNIFORM    0 .. 2 * mean, every count equally likely
+//    POISSON    counts cluster around the mean (most owners have 1-3 pets when the mean is 2)
+//    GEOMETRIC  many small counts and a long tail (most pets have few visits, a few have dozens)
+//
+//Draws only from the SplittableRandom passed in, so the same random gives the same counts.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bootstrap;
+
+import java.util.SplittableRandom;
+
+public enum CountDistribution {
+
+	FIXED {
+		@Override
+		public int sample(SplittableRandom random, double mean) {
+			return (int) Math.max(0, Math.round(mean));
+		}
+	},
+
+	UNIFORM {
+		@Override
+		public int sample(SplittableRandom random, double mean) {
+			if (mean <= 0)
+				return 0;
+			// Continuous uniform on [0, 2 * mean + 1), floored - mean of the result is the given mean.
+			return (int) (random.nextDouble() * (2 * mean + 1));
+		}
+	},
+
+	POISSON {
+		@Override
+		public int sample(SplittableRandom random, double mean) {
+			if (mean <= 0)
+				return 0;
+			if (mean > 30)   // Knuth's method needs ~mean draws - use the normal approximation for big means.
+				return Math.max(0, (int) Math.round(mean + Math.sqrt(mean) * gaussian(random)));
+			// Knuth - multiply uniforms until the product drops below e^-mean.
+			double limit = Math.exp(-mean);
+			double product = random.nextDouble();
+			int count = 0;
+			while (product > limit) {
+				count++;
+				product *= random.nextDouble();
+			}
+			return count;
+		}
+	},
+
+	GEOMETRIC {
+		@Override
+		public int sample(SplittableRandom random, double mean) {
+			if (mean <= 0)
+				return 0;
+			// Number of failures before the first success, p = 1 / (1 + mean) - inverse transform of one uniform.
+			double p = 1.0 / (1.0 + mean);
+			return (int) Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+		}
+	};
+
+	/**
+	 * Draw a count.
+	 * @param random - source of randomness (the generator's per partition random)
+	 * @param mean - wanted average count (0 or less always gives 0)
+	 * @return count >= 0
+	 */
+	public abstract int sample(SplittableRandom random, double mean);
+
+	// Standard normal (Box-Muller, one of the pair).
+	private static double gaussian(SplittableRandom random) {
+		return Math.sqrt(-2.0 * Math.log(1.0 - random.nextDouble())) * Math.cos(2.0 * Math.PI * random.nextDouble());
+	}
+
+}  // end enum CountDistribution
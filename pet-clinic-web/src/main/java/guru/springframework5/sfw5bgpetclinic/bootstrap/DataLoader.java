@@ -12,8 +12,12 @@
 //
 // NOTE:  Id management will be an issue (particularly for Maps).  Currently, can input a duplicate ID into the map.  Therefore, will
 // want to move the responsibility of ID generation to the Map classes.  This is like DB that generate IDs. 
+//
+// Skipped (bean not even created) when petclinic.bootstrap.load-data=false - i.e., the fast-startup profile,
+// where the services / repositories are not wanted until the first request.
 package guru.springframework5.sfw5bgpetclinic.bootstrap;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import guru.springframework5.sfw5bgpetclinic.model.Owner;
 import guru.springframework5.sfw5bgpetclinic.model.Pet;
@@ -27,6 +31,7 @@ import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
 import guru.springframework5.sfw5bgpetclinic.services.SpecialtyService;
 import guru.springframework5.sfw5bgpetclinic.services.VisitService;
 
+@ConditionalOnProperty(prefix = "petclinic.bootstrap", name = "load-data", matchIfMissing = true)
 @Component   // Make this a Spring bean loaded into Spring Context, therefore Spring sees CommandLineRunner and executes with run(). 
 public class DataLoader implements CommandLineRunner {
 
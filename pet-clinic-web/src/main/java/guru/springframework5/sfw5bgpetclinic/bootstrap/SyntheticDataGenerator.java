@@ -0,0 +1,332 @@
+//***************************************************************************
+//Class:        SyntheticDataGenerator
+//
+//Creates a large, realistic looking data set (SyntheticDataPlan says how large) through the app's own
+//services, so it works for both the map and springdatajpa profiles - the same way DataLoader does for its
+//two Owners / two Vets.
+//
+//How:
+//  1. PetTypes, Specialties and Vets (small) are created first, on the calling thread.
+//  2. The Owners are split into partitions of plan.partitionSize.  Each partition is generated and saved by
+//     one thread of a pool (one thread per core by default):  Owners, then their Pets (PetServiceMapImpl needs
+//     the Owner to have an id), then the Pets' Visits - one saveAll per entity type.  With a transaction
+//     manager (springdatajpa) the whole partition is one transaction, so a partition is also the batch size
+//     and its entities are released (persistence context cleared) when it commits.
+//  3. Every partition has its OWN SplittableRandom, seeded from the plan seed and the partition number, so
+//     partition 17 always gets the same Owners / Pets / Visits no matter which thread runs it or when.
+//
+//Only the CONTENTS are deterministic, not the ids.  Ids are handed out as the saves happen (the map IMPLs'
+//counter, the database's IDENTITY column), and with more than one thread the partitions' saves interleave
+//differently on every run.  For the same ids too, run with plan.threads = 1.
+//
+//NOTE:  The ids are GenerationType.IDENTITY, so Hibernate cannot batch the inserts into one JDBC batch
+//       (it needs each generated id back straight away).  What saveAll saves is the transaction per entity.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bootstrap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Specialty;
+import guru.springframework5.sfw5bgpetclinic.model.Vet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.SpecialtyService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+public class SyntheticDataGenerator {
+
+	static final String[] FIRST_NAMES = {
+			"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+			"David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+			"Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Sandra", "Steven", "Ashley",
+			"Paul", "Emily", "Andrew", "Donna", "Joshua", "Michelle", "Kenneth", "Carol", "Kevin", "Amanda"
+	};
+	static final String[] LAST_NAMES = {
+			"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+			"Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+			"Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+			"Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+			"Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+			"Weston", "Glenanne", "Axe", "Porter", "Booth", "Franklin", "Estaban", "Black", "Coleman", "McTavish"
+	};
+	static final String[] STREETS = {
+			"Brickerel", "Main St.", "Oak Ave.", "Maple Dr.", "Cedar Ln.", "Elm St.", "Washington Blvd.", "Lake Rd.",
+			"Hill St.", "Park Ave.", "Sunset Blvd.", "River Rd."
+	};
+	static final String[] CITIES = {
+			"Miami", "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee", "Denver", "Austin",
+			"Portland", "Boston", "Chicago"
+	};
+	static final String[] PET_NAMES = {
+			"Bella", "Max", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo", "Bailey", "Rocky",
+			"Molly", "Buddy", "Sadie", "Tucker", "Chloe", "Leo", "Lola", "Oliver", "Zoe", "Bear",
+			"Basil", "Jewel", "Iggy", "George", "Samantha", "Lucky", "Mulligan", "Freddy", "Rosy", "Jasper"
+	};
+	static final String[] PET_TYPES = {
+			"Dog", "Cat", "Bird", "Hamster", "Lizard", "Snake", "Rabbit", "Fish"
+	};
+	static final String[] SPECIALTIES = {
+			"Radiology", "Surgery", "Dentistry", "Cardiology", "Dermatology", "Oncology", "Neurology",
+			"Ophthalmology", "Anesthesia", "Internal Medicine", "Emergency", "Behavior"
+	};
+	static final String[] VISIT_REASONS = {
+			"Annual checkup.", "Vaccinations.", "Sneezy.", "Limping.", "Not eating.", "Dental cleaning.",
+			"Ear infection.", "Skin rash.", "Spay / neuter.", "Upset stomach.", "Follow up.", "Nail trim."
+	};
+
+	// Pets are up to 15 years old.
+	private static final int MAX_PET_AGE_DAYS = 15 * 365;
+
+	private final OwnerService ownerService;
+	private final PetService petService;
+	private final VisitService visitService;
+	private final PetTypeService petTypeService;
+	private final SpecialtyService specialtyService;
+	private final VetService vetService;
+	private final TransactionTemplate transactionTemplate;   // null = no transactions (map profile)
+
+	/**
+	 * @param transactionTemplate - each partition (and the reference data) runs in one transaction of this
+	 *                              template; null when there is no transaction manager (map profile)
+	 */
+	public SyntheticDataGenerator(OwnerService ownerService, PetService petService, VisitService visitService,
+	                              PetTypeService petTypeService, SpecialtyService specialtyService, VetService vetService,
+	                              TransactionTemplate transactionTemplate) {
+		this.ownerService = ownerService;
+		this.petService = petService;
+		this.visitService = visitService;
+		this.petTypeService = petTypeService;
+		this.specialtyService = specialtyService;
+		this.vetService = vetService;
+		this.transactionTemplate = transactionTemplate;
+	}  // end Constructor
+
+	/**
+	 * Create and save everything the plan asks for.  Returns when all of it is saved.
+	 * @param plan - counts, distributions, seed, partition size and threads
+	 * @return what was saved
+	 */
+	public Totals generate(SyntheticDataPlan plan) throws InterruptedException {
+		long start = System.nanoTime();
+		Totals totals = new Totals();
+
+		List<PetType> petTypes = inTransaction(() -> createReferenceData(plan, totals));
+
+		int partitions = (plan.getOwners() + plan.getPartitionSize() - 1) / plan.getPartitionSize();
+		int threads = (plan.getThreads() > 0) ? plan.getThreads() : Runtime.getRuntime().availableProcessors();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("synthetic-data-");
+		threadFactory.setDaemon(true);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, partitions)), threadFactory);
+		try {
+			List<Future<Totals>> results = new ArrayList<>(partitions);
+			for (int partition = 0; partition < partitions; partition++) {
+				int number = partition;
+				results.add(executor.submit(() -> inTransaction(() -> createPartition(plan, number, petTypes))));
+			}
+			for (Future<Totals> result : results)
+				totals.add(result.get());
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Synthetic data partition failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		totals.millis = (System.nanoTime() - start) / 1_000_000;
+		return totals;
+	}  // end generate()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// PetTypes, Specialties and Vets.  Returns the saved PetTypes for the partitions to share.
+	private List<PetType> createReferenceData(SyntheticDataPlan plan, Totals totals) {
+		SplittableRandom random = new SplittableRandom(plan.getSeed());
+
+		List<PetType> petTypes = new ArrayList<>(PET_TYPES.length);
+		for (String name : PET_TYPES)
+			petTypes.add(PetType.builder().name(name).build());
+		petTypes = petTypeService.saveAll(petTypes);
+
+		List<Specialty> specialties = new ArrayList<>(plan.getSpecialties());
+		for (int i = 0; i < plan.getSpecialties(); i++) {
+			Specialty specialty = new Specialty();
+			// Past the list of real names, number them (Radiology 2, ...) so descriptions stay unique.
+			specialty.setDescription(SPECIALTIES[i % SPECIALTIES.length] + ((i < SPECIALTIES.length) ? "" : " " + (i / SPECIALTIES.length + 1)));
+			specialties.add(specialty);
+		}
+		specialties = specialtyService.saveAll(specialties);
+
+		List<Vet> vets = new ArrayList<>(plan.getVets());
+		int[] picks = new int[specialties.size()];
+		for (int i = 0; i < plan.getVets(); i++) {
+			Vet vet = new Vet();
+			vet.setFirstName(pick(random, FIRST_NAMES));
+			vet.setLastName(pick(random, LAST_NAMES));
+			// k distinct Specialties - partial Fisher-Yates shuffle of the indexes.
+			int count = Math.min(plan.getSpecialtiesPerVetDistribution().sample(random, plan.getSpecialtiesPerVet()), picks.length);
+			Arrays.setAll(picks, index -> index);
+			for (int s = 0; s < count; s++) {
+				int swap = s + random.nextInt(picks.length - s);
+				int chosen = picks[swap];
+				picks[swap] = picks[s];
+				picks[s] = chosen;
+				vet.add(specialties.get(chosen));
+			}
+			vets.add(vet);
+		}
+		vetService.saveAll(vets);
+
+		totals.petTypes = petTypes.size();
+		totals.specialties = specialties.size();
+		totals.vets = vets.size();
+		return petTypes;
+	}  // end createReferenceData()
+
+	// Owners [partition * partitionSize, ...) with their Pets and Visits.
+	private Totals createPartition(SyntheticDataPlan plan, int partition, List<PetType> petTypes) {
+		SplittableRandom random = new SplittableRandom(mix64(plan.getSeed() + (partition + 1) * 0x9E3779B97F4A7C15L));
+		int first = partition * plan.getPartitionSize();
+		int owners = Math.min(plan.getPartitionSize(), plan.getOwners() - first);
+		long asOfDay = plan.getAsOf().toEpochDay();
+
+		List<Owner> newOwners = new ArrayList<>(owners);
+		for (int i = 0; i < owners; i++) {
+			newOwners.add(Owner.builder()
+			                   .firstName(pick(random, FIRST_NAMES))
+			                   .lastName(pick(random, LAST_NAMES))
+			                   .address((1 + random.nextInt(9999)) + " " + pick(random, STREETS))
+			                   .city(pick(random, CITIES))
+			                   .telephone(telephone(random))
+			                   .build());
+		}
+		List<Owner> savedOwners = ownerService.saveAll(newOwners);
+
+		List<Pet> newPets = new ArrayList<>();
+		for (Owner owner : savedOwners) {
+			int pets = plan.getPetsPerOwnerDistribution().sample(random, plan.getPetsPerOwner());
+			for (int p = 0; p < pets; p++) {
+				LocalDate birthDate = LocalDate.ofEpochDay(asOfDay - 1 - random.nextInt(MAX_PET_AGE_DAYS));
+				// Pet constructor adds the Pet to the Owner.
+				newPets.add(new Pet(pick(random, PET_NAMES), petTypes.get(random.nextInt(petTypes.size())), owner, birthDate));
+			}
+		}
+		List<Pet> savedPets = petService.saveAll(newPets);
+
+		List<Visit> newVisits = new ArrayList<>();
+		for (Pet pet : savedPets) {
+			int visits = plan.getVisitsPerPetDistribution().sample(random, plan.getVisitsPerPet());
+			long birthDay = pet.getBirthDate().toEpochDay();
+			for (int v = 0; v < visits; v++) {
+				LocalDate date = LocalDate.ofEpochDay(birthDay + 1 + random.nextLong(asOfDay - birthDay));
+				// Visit constructor adds the Visit to the Pet.
+				newVisits.add(new Visit(date, pick(random, VISIT_REASONS), pet));
+			}
+		}
+		visitService.saveAll(newVisits);
+
+		Totals totals = new Totals();
+		totals.owners = savedOwners.size();
+		totals.pets = savedPets.size();
+		totals.visits = newVisits.size();
+		return totals;
+	}  // end createPartition()
+
+	private <T> T inTransaction(Supplier<T> work) {
+		if (transactionTemplate == null)
+			return work.get();
+		return transactionTemplate.execute(status -> work.get());
+	}
+
+	private static String pick(SplittableRandom random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static String telephone(SplittableRandom random) {
+		// 10 digits, first not 0.
+		return Long.toString(1_000_000_000L + random.nextLong(9_000_000_000L));
+	}
+
+	// SplittableRandom's own seed mixer - neighbouring partition numbers get unrelated sequences.
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+
+	// ------------------------------------------------------
+	// What was saved (a generate() total, or one partition's share of it).
+	// ------------------------------------------------------
+	public static final class Totals {
+		private long owners;
+		private long pets;
+		private long visits;
+		private int vets;
+		private int specialties;
+		private int petTypes;
+		private long millis;
+
+		private void add(Totals partition) {
+			owners += partition.owners;
+			pets += partition.pets;
+			visits += partition.visits;
+		}
+
+		public long getOwners() {
+			return owners;
+		}
+
+		public long getPets() {
+			return pets;
+		}
+
+		public long getVisits() {
+			return visits;
+		}
+
+		public int getVets() {
+			return vets;
+		}
+
+		public int getSpecialties() {
+			return specialties;
+		}
+
+		public int getPetTypes() {
+			return petTypes;
+		}
+
+		public long getMillis() {
+			return millis;
+		}
+
+		@Override
+		public String toString() {
+			return owners + " owners, " + pets + " pets, " + visits + " visits, " + vets + " vets, " +
+			       specialties + " specialties, " + petTypes + " pet types in " + millis + " ms";
+		}
+	}  // end class Totals
+
+
+
+}  // end class SyntheticDataGenerator
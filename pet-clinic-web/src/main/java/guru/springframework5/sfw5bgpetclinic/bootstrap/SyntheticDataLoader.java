@@ -0,0 +1,90 @@
+//***************************************************************************
+//Class:       SyntheticDataLoader
+//Implements:  CommandLineRunner (run() is executed on startup - same as DataLoader)
+//
+//Loads a large generated data set (see SyntheticDataGenerator) instead of DataLoader's two Owners / two
+//Vets, so production sized behavior (queries, paging, caches, memory) can be reproduced locally.
+//Turned on by the synthetic profile (application-synthetic.properties), which also turns DataLoader off:
+//    java -jar pet-clinic-web-<version>-exec.jar --spring.profiles.active=springdatajpa,synthetic
+//Counts, distributions and the seed are petclinic.bootstrap.synthetic.* properties (defaults in
+//SyntheticDataPlan), i.e., --petclinic.bootstrap.synthetic.owners=1000000 for ~10,000,000 Visits.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bootstrap;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.SpecialtyService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+@ConditionalOnProperty(prefix = "petclinic.bootstrap.synthetic", name = "enabled")
+@Component
+public class SyntheticDataLoader implements CommandLineRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+	private static final String PREFIX = "petclinic.bootstrap.synthetic.";
+
+	private final SyntheticDataGenerator generator;
+	private final SyntheticDataPlan plan;
+
+	// No transaction manager with the map profile - the generator then saves without transactions.
+	public SyntheticDataLoader(OwnerService ownerService, PetService petService, VisitService visitService,
+	                           PetTypeService petTypeService, SpecialtyService specialtyService, VetService vetService,
+	                           ObjectProvider<PlatformTransactionManager> transactionManager, Environment environment) {
+		PlatformTransactionManager manager = transactionManager.getIfAvailable();
+		this.generator = new SyntheticDataGenerator(ownerService, petService, visitService, petTypeService, specialtyService,
+		                                            vetService, (manager == null) ? null : new TransactionTemplate(manager));
+		this.plan = plan(environment);
+	}  // end Constructor
+
+	@Override
+	public void run(String... args) throws Exception {
+		log.info("Loading synthetic data:  {}", plan);
+		SyntheticDataGenerator.Totals totals = generator.generate(plan);
+		log.info("Loaded synthetic data:  {} ({} visits / second)", totals,
+		         (totals.getMillis() == 0) ? totals.getVisits() : totals.getVisits() * 1000 / totals.getMillis());
+	}  // end run()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// Properties not given keep the SyntheticDataPlan defaults.
+	private static SyntheticDataPlan plan(Environment environment) {
+		SyntheticDataPlan plan = new SyntheticDataPlan();
+		plan.setSeed(environment.getProperty(PREFIX + "seed", Long.class, plan.getSeed()));
+		plan.setOwners(environment.getProperty(PREFIX + "owners", Integer.class, plan.getOwners()));
+		plan.setPetsPerOwner(environment.getProperty(PREFIX + "pets-per-owner", Double.class, plan.getPetsPerOwner()));
+		plan.setPetsPerOwnerDistribution(environment.getProperty(PREFIX + "pets-per-owner-distribution", CountDistribution.class,
+		                                                         plan.getPetsPerOwnerDistribution()));
+		plan.setVisitsPerPet(environment.getProperty(PREFIX + "visits-per-pet", Double.class, plan.getVisitsPerPet()));
+		plan.setVisitsPerPetDistribution(environment.getProperty(PREFIX + "visits-per-pet-distribution", CountDistribution.class,
+		                                                         plan.getVisitsPerPetDistribution()));
+		plan.setVets(environment.getProperty(PREFIX + "vets", Integer.class, plan.getVets()));
+		plan.setSpecialties(environment.getProperty(PREFIX + "specialties", Integer.class, plan.getSpecialties()));
+		plan.setSpecialtiesPerVet(environment.getProperty(PREFIX + "specialties-per-vet", Double.class, plan.getSpecialtiesPerVet()));
+		plan.setSpecialtiesPerVetDistribution(environment.getProperty(PREFIX + "specialties-per-vet-distribution", CountDistribution.class,
+		                                                              plan.getSpecialtiesPerVetDistribution()));
+		plan.setPartitionSize(environment.getProperty(PREFIX + "partition-size", Integer.class, plan.getPartitionSize()));
+		plan.setThreads(environment.getProperty(PREFIX + "threads", Integer.class, plan.getThreads()));
+		String asOf = environment.getProperty(PREFIX + "as-of");
+		if (asOf != null)
+			plan.setAsOf(LocalDate.parse(asOf));
+		return plan;
+	}  // end plan()
+
+}  // end class SyntheticDataLoader
@@ -0,0 +1,164 @@
+//***************************************************************************
+//Class:        SyntheticDataPlan
+//
+//What SyntheticDataGenerator should create.  Plain JavaBean - SyntheticDataLoader fills it from the
+//petclinic.bootstrap.synthetic.* properties, tests / benchmarks just set what they need.
+//
+//Defaults give ~1,000,000 Visits:  100,000 Owners * 2 Pets (Poisson) * 5 Visits (geometric).
+//
+//Same seed (and same counts / distributions) = same Owners, Pets, Visits and Vets, whatever the number
+//of threads.  Only the generated ids can differ between runs with more than one thread (partitions are
+//saved in whatever order the threads finish them).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bootstrap;
+
+import java.time.LocalDate;
+
+public class SyntheticDataPlan {
+
+	private long seed = 42L;
+
+	private int owners = 100_000;
+	private double petsPerOwner = 2.0;
+	private CountDistribution petsPerOwnerDistribution = CountDistribution.POISSON;
+	private double visitsPerPet = 5.0;
+	private CountDistribution visitsPerPetDistribution = CountDistribution.GEOMETRIC;
+
+	private int vets = 200;
+	private int specialties = 12;
+	private double specialtiesPerVet = 2.0;
+	private CountDistribution specialtiesPerVetDistribution = CountDistribution.UNIFORM;
+
+	// Owners per partition.  A partition is generated on one thread from its own random and saved with one
+	// saveAll per entity type (one transaction each on springdatajpa) - so this is also the batch size.
+	private int partitionSize = 1_000;
+	// 0 = one per available processor.
+	private int threads = 0;
+	// Birth dates and visit dates are before this date.  Fixed (not LocalDate.now()) so the data set is the same every day.
+	private LocalDate asOf = LocalDate.of(2020, 1, 1);
+
+	// -----------------------------------------------
+	// Getters / Setters
+	// -----------------------------------------------
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public int getOwners() {
+		return owners;
+	}
+
+	public void setOwners(int owners) {
+		this.owners = owners;
+	}
+
+	public double getPetsPerOwner() {
+		return petsPerOwner;
+	}
+
+	public void setPetsPerOwner(double petsPerOwner) {
+		this.petsPerOwner = petsPerOwner;
+	}
+
+	public CountDistribution getPetsPerOwnerDistribution() {
+		return petsPerOwnerDistribution;
+	}
+
+	public void setPetsPerOwnerDistribution(CountDistribution petsPerOwnerDistribution) {
+		this.petsPerOwnerDistribution = petsPerOwnerDistribution;
+	}
+
+	public double getVisitsPerPet() {
+		return visitsPerPet;
+	}
+
+	public void setVisitsPerPet(double visitsPerPet) {
+		this.visitsPerPet = visitsPerPet;
+	}
+
+	public CountDistribution getVisitsPerPetDistribution() {
+		return visitsPerPetDistribution;
+	}
+
+	public void setVisitsPerPetDistribution(CountDistribution visitsPerPetDistribution) {
+		this.visitsPerPetDistribution = visitsPerPetDistribution;
+	}
+
+	public int getVets() {
+		return vets;
+	}
+
+	public void setVets(int vets) {
+		this.vets = vets;
+	}
+
+	public int getSpecialties() {
+		return specialties;
+	}
+
+	public void setSpecialties(int specialties) {
+		this.specialties = specialties;
+	}
+
+	public double getSpecialtiesPerVet() {
+		return specialtiesPerVet;
+	}
+
+	public void setSpecialtiesPerVet(double specialtiesPerVet) {
+		this.specialtiesPerVet = specialtiesPerVet;
+	}
+
+	public CountDistribution getSpecialtiesPerVetDistribution() {
+		return specialtiesPerVetDistribution;
+	}
+
+	public void setSpecialtiesPerVetDistribution(CountDistribution specialtiesPerVetDistribution) {
+		this.specialtiesPerVetDistribution = specialtiesPerVetDistribution;
+	}
+
+	public int getPartitionSize() {
+		return partitionSize;
+	}
+
+	public void setPartitionSize(int partitionSize) {
+		this.partitionSize = partitionSize;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public LocalDate getAsOf() {
+		return asOf;
+	}
+
+	public void setAsOf(LocalDate asOf) {
+		this.asOf = asOf;
+	}
+
+	@Override
+	public String toString() {
+		return "SyntheticDataPlan{" +
+		       "seed=" + seed +
+		       ", owners=" + owners +
+		       ", petsPerOwner=" + petsPerOwner + " (" + petsPerOwnerDistribution + ")" +
+		       ", visitsPerPet=" + visitsPerPet + " (" + visitsPerPetDistribution + ")" +
+		       ", vets=" + vets +
+		       ", specialties=" + specialties +
+		       ", specialtiesPerVet=" + specialtiesPerVet + " (" + specialtiesPerVetDistribution + ")" +
+		       ", partitionSize=" + partitionSize +
+		       ", threads=" + threads +
+		       ", asOf=" + asOf +
+		       "}";
+	}  // end toString()
+
+}  // end class SyntheticDataPlan
@@ -0,0 +1,87 @@
+//***************************************************************************
+//Class:        BulkImportController
+//Stereotype:   @RestController  (JSON in / out - not a Thymeleaf page)
+//
+//Admin endpoint for BulkImporter:
+//    POST /admin/import[?format=csv|ndjson]   body is the file; format from the parameter, else the Content-Type
+//                                             (text/csv, application/x-ndjson).  The body is copied to a temp
+//                                             file and imported in the background:  202 with the ImportProgress
+//                                             (state RUNNING, its id) as soon as the copy is done.
+//                                             400 unknown format, 409 an import is already running.
+//    GET  /admin/import                       ImportProgress of the running / last import (404 if none)
+//    GET  /admin/import/{id}                  the same, for that import (404 if it is not the last one)
+//    curl -X POST -H "Content-Type: text/csv" --data-binary @owners.csv localhost:8080/admin/import
+//Turned on by petclinic.import.endpoint-enabled (application.properties) - OFF by default:  anyone who can
+//reach it can write Owners, so only turn it on where /admin is not reachable from outside.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@ConditionalOnProperty(prefix = "petclinic.import", name = "endpoint-enabled")
+@RestController
+@RequestMapping("/admin/import")
+public class BulkImportController {
+
+	private final BulkImporter bulkImporter;
+
+	public BulkImportController(BulkImporter bulkImporter) {
+		this.bulkImporter = bulkImporter;
+	}  // end Constructor
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public ImportProgress importOwners(@RequestParam(required = false) String format, HttpServletRequest request) throws IOException {
+		ImportFormat importFormat = ImportFormat.of((format != null) ? format : request.getContentType());
+		if (importFormat == null)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+			                                  "Unknown import format - use ?format=csv or ?format=ndjson (or a text/csv, application/x-ndjson body)");
+		if (bulkImporter.isRunning())       // before copying a body that cannot be imported anyway
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "An import is already running: " + bulkImporter.getLastImport());
+
+		Path file = Files.createTempFile("petclinic-import-", "." + importFormat.name().toLowerCase());
+		try {
+			Files.copy(request.getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+			return bulkImporter.importInBackground("POST /admin/import", importFormat, file);
+		} catch (IllegalStateException e) {
+			Files.deleteIfExists(file);
+			throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+	}  // end importOwners()
+
+	@GetMapping
+	public ImportProgress lastImport() {
+		ImportProgress progress = bulkImporter.getLastImport();
+		if (progress == null)
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No import yet");
+		return progress;
+	}  // end lastImport()
+
+	@GetMapping("/{id}")
+	public ImportProgress findImport(@PathVariable long id) {
+		ImportProgress progress = bulkImporter.getLastImport();
+		if (progress == null || progress.getId() != id)
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No import " + id + " - only the last one is kept");
+		return progress;
+	}  // end findImport()
+
+}  // end class BulkImportController
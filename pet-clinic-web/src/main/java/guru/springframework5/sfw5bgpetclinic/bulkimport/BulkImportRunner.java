@@ -0,0 +1,76 @@
+//***************************************************************************
+//Class:        BulkImportRunner
+//Implements:   ApplicationListener<ApplicationReadyEvent> (after every CommandLineRunner, i.e., after DataLoader
+//              has saved the PetTypes the file refers to)
+//
+//Command line import of one file with BulkImporter:
+//    java -jar pet-clinic-web-<version>-exec.jar --petclinic.import.file=owners.csv [--petclinic.import.exit=true]
+//Format from the file extension (.csv, .ndjson / .jsonl), or petclinic.import.format.  With
+//petclinic.import.exit the application stops when the import is done - exit code 0 if every row was
+//imported, 2 if rows were rejected, 1 if the import failed.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+@ConditionalOnProperty(prefix = "petclinic.import", name = "file")
+@Component
+public class BulkImportRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkImportRunner.class);
+
+	private final BulkImporter bulkImporter;
+	private final Environment environment;
+
+	public BulkImportRunner(BulkImporter bulkImporter, Environment environment) {
+		this.bulkImporter = bulkImporter;
+		this.environment = environment;
+	}  // end Constructor
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		Path file = Paths.get(environment.getProperty("petclinic.import.file"));
+		ImportFormat format = ImportFormat.of(environment.getProperty("petclinic.import.format", file.getFileName().toString()));
+		ImportProgress progress;
+		if (format == null) {
+			log.error("Import of {} not started - unknown format (set petclinic.import.format to csv or ndjson)", file);
+			progress = null;
+		} else {
+			try {
+				progress = bulkImporter.importFrom(file.toString(), format, Files.newBufferedReader(file, StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				log.error("Import of {} not started - cannot read it", file, e);
+				progress = null;
+			}
+		}
+		if (progress != null) {
+			for (ImportRejection rejection : progress.getRejections())
+				log.warn("Rejected:  {}", rejection);
+		}
+
+		if (environment.getProperty("petclinic.import.exit", Boolean.class, false)) {
+			int exitCode = exitCode(progress);
+			System.exit(SpringApplication.exit(event.getApplicationContext(), () -> exitCode));
+		}
+	}  // end onApplicationEvent()
+
+	static int exitCode(ImportProgress progress) {
+		if (progress == null || progress.getState() != ImportProgress.State.DONE)
+			return 1;
+		return (progress.getRejectedRows() == 0) ? 0 : 2;
+	}
+
+}  // end class BulkImportRunner
@@ -0,0 +1,262 @@
+//***************************************************************************
+//Class:        BulkImporter
+//Stereotype:   @Component  Used by BulkImportController (POST /admin/import) and BulkImportRunner (CLI).
+//
+//importFrom() imports on the calling thread (the CLI runner); importInBackground() starts the same import on
+//its own import-job-<id> thread and returns at once (the endpoint - a large file must not hold an HTTP
+//request thread for minutes).  Each import gets an id; getLastImport() has the running / last one.
+//
+//Streaming import of Owners with their Pets and Visits from a CSV or NDJSON file (see the readers for
+//the layouts).  Pipeline:
+//    reader (calling thread)   reads one Owner at a time, collects batch-size Owners into a batch
+//    workers (thread pool)     validate the batch (ImportValidator, PetTypes from a PetTypeCache) and
+//                              write what is valid with ONE OwnerBatchService.insertAll - on springdatajpa a
+//                              StatelessSession + JDBC batches in one transaction, not a save() per entity
+//Memory is bounded:  the reader waits when 2 batches per worker are queued or being written, so a file of
+//any size holds at most (2 * threads * batch-size) Owners in memory.
+//
+//Rejected rows (unreadable, invalid, or in a batch whose write failed) are counted in the ImportProgress
+//with their line and reason; the import carries on.  Only one import runs at a time.  The ImportProgress is
+//published as an application event when the import starts (RUNNING) and again when it ends.
+//
+//On springdatajpa the batches are written around the entity services, so OwnerBatchService is wrapped by
+//changes.EntityChangePostProcessor:  every Owner / Pet / Visit of a committed batch is reported to the
+//EntityChangeListeners (search, analytics, near-cache) as soon as it is written - none of them waits for the
+//end of the import.  Only the Owner search filter rebuilds after it (it cannot say "nobody" while rows arrive).
+//
+//Settings:  petclinic.import.batch-size (Owners, default 500), petclinic.import.threads (0 = one per core),
+//           petclinic.import.create-pet-types (default false - unknown pet types reject the Pet).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerBatchService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+
+@Component
+public class BulkImporter {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+	private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final PetTypeService petTypeService;
+	private final OwnerBatchService ownerBatchService;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+	private final int threads;
+	private final boolean createPetTypes;
+
+	// Import running now, or the last one.  Also the "only one at a time" lock.
+	private final AtomicReference<ImportProgress> lastImport = new AtomicReference<>();
+	private final AtomicLong importIds = new AtomicLong();
+
+	public BulkImporter(PetTypeService petTypeService, OwnerBatchService ownerBatchService,
+	                    ApplicationEventPublisher eventPublisher, Environment environment) {
+		this.petTypeService = petTypeService;
+		this.ownerBatchService = ownerBatchService;
+		this.eventPublisher = eventPublisher;
+		this.batchSize = Math.max(1, environment.getProperty("petclinic.import.batch-size", Integer.class, 500));
+		int configuredThreads = environment.getProperty("petclinic.import.threads", Integer.class, 0);
+		this.threads = (configuredThreads > 0) ? configuredThreads : Runtime.getRuntime().availableProcessors();
+		this.createPetTypes = environment.getProperty("petclinic.import.create-pet-types", Boolean.class, false);
+	}  // end Constructor
+
+	/**
+	 * Import everything in the reader.  Returns when it is all written (or the import failed).
+	 * @param source - where the data comes from (file name, request) - for the report and the log
+	 * @param format - CSV or NDJSON
+	 * @param reader - the data; closed when done
+	 * @return the final progress (state DONE, or FAILED if the file could not be read to the end)
+	 * @throws IllegalStateException if another import is running
+	 */
+	public ImportProgress importFrom(String source, ImportFormat format, Reader reader) {
+		return run(begin(source, format), reader);
+	}  // end importFrom()
+
+	/**
+	 * Start importing the file on a thread of its own and return straight away.  Follow it with getLastImport().
+	 * @param source - where the data comes from (request) - for the report and the log
+	 * @param format - CSV or NDJSON
+	 * @param file - the data (a copy of an upload):  DELETED when the import is done
+	 * @return the progress of the import just started (state RUNNING, with its id)
+	 * @throws IllegalStateException if another import is running (the file is left alone)
+	 */
+	public ImportProgress importInBackground(String source, ImportFormat format, Path file) throws IOException {
+		ImportProgress progress = begin(source, format);
+		Reader reader;
+		try {
+			reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			progress.failed(e);
+			throw e;
+		}
+		Thread job = new Thread(() -> {
+			try {
+				run(progress, reader);
+			} finally {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					log.warn("Import file {} not deleted", file, e);
+				}
+			}
+		}, "import-job-" + progress.getId());
+		job.setDaemon(true);
+		job.start();
+		return progress;
+	}  // end importInBackground()
+
+	/**
+	 * @return the running import, or the last one (null if there has not been one)
+	 */
+	public ImportProgress getLastImport() {
+		return lastImport.get();
+	}
+
+	/**
+	 * @return true while an import runs
+	 */
+	public boolean isRunning() {
+		ImportProgress last = lastImport.get();
+		return (last != null) && (last.getState() == ImportProgress.State.RUNNING);
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// The "only one at a time" check - the new import becomes the last one.
+	private ImportProgress begin(String source, ImportFormat format) {
+		ImportProgress progress = new ImportProgress(importIds.incrementAndGet(), source, format);
+		ImportProgress previous = lastImport.get();
+		if ((previous != null && previous.getState() == ImportProgress.State.RUNNING) || !lastImport.compareAndSet(previous, progress))
+			throw new IllegalStateException("An import is already running: " + previous);
+		return progress;
+	}
+
+	private ImportProgress run(ImportProgress progress, Reader reader) {
+		String source = progress.getSource();
+		ImportFormat format = progress.getFormat();
+		log.info("Import of {} ({}) started - batches of {} owners, {} threads", source, format, batchSize, threads);
+		eventPublisher.publishEvent(progress);
+		ImportValidator validator = new ImportValidator(new PetTypeCache(petTypeService, createPetTypes));
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("import-");
+		threadFactory.setDaemon(true);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, threadFactory);
+		int maxBatches = 2 * threads;
+		Semaphore batches = new Semaphore(maxBatches);
+		try (ImportRecordReader records = format.open(reader, progress::reject)) {
+			long lastLog = System.nanoTime();
+			List<OwnerRecord> batch = new ArrayList<>(batchSize);
+			OwnerRecord record;
+			while ((record = records.next()) != null) {
+				batch.add(record);
+				if (batch.size() == batchSize) {
+					submit(batch, validator, progress, workers, batches);
+					batch = new ArrayList<>(batchSize);
+					progress.setLinesRead(records.getLinesRead());
+					if (System.nanoTime() - lastLog > LOG_INTERVAL_NANOS) {
+						log.info("Import progress:  {}", progress);
+						lastLog = System.nanoTime();
+					}
+				}
+			}
+			if (!batch.isEmpty())
+				submit(batch, validator, progress, workers, batches);
+			progress.setLinesRead(records.getLinesRead());
+
+			batches.acquire(maxBatches);     // every batch written
+			progress.done();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Import of {} failed", source, e);
+			progress.failed(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			progress.failed(e);
+		} finally {
+			workers.shutdownNow();
+		}
+		log.info("Import finished:  {}", progress);
+		eventPublisher.publishEvent(progress);
+		return progress;
+	}  // end run()
+
+	// Blocks while maxBatches batches are already queued / being written - that is what bounds the memory.
+	private void submit(List<OwnerRecord> batch, ImportValidator validator, ImportProgress progress,
+	                    ExecutorService workers, Semaphore batches) throws InterruptedException {
+		batches.acquire();
+		try {
+			workers.execute(() -> {
+				try {
+					writeBatch(batch, validator, progress);
+				} finally {
+					batches.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			batches.release();
+			throw e;
+		}
+	}  // end submit()
+
+	// Runs on a worker thread.
+	private void writeBatch(List<OwnerRecord> batch, ImportValidator validator, ImportProgress progress) {
+		List<OwnerRecord> validRecords = new ArrayList<>(batch.size());
+		List<Owner> owners = new ArrayList<>(batch.size());
+		for (OwnerRecord record : batch) {
+			Owner owner = validator.validate(record, progress::reject);
+			if (owner != null) {
+				validRecords.add(record);
+				owners.add(owner);
+			}
+		}
+		if (owners.isEmpty())
+			return;
+
+		try {
+			long visits = ownerBatchService.insertAll(owners);
+			long pets = 0;
+			for (Owner owner : owners)
+				pets += owner.getPets().size();
+			progress.imported(owners.size(), pets, visits);
+		} catch (RuntimeException e) {
+			// All or nothing - every row of the batch that was valid is now rejected.
+			log.warn("Import batch of {} owners (lines {} - {}) not written", owners.size(), batch.get(0).line,
+			         batch.get(batch.size() - 1).line, e);
+			for (int i = 0; i < owners.size(); i++)
+				progress.reject(new ImportRejection(validRecords.get(i).line, "Not written: " + e, rows(owners.get(i))));
+		}
+	}  // end writeBatch()
+
+	private static int rows(Owner owner) {
+		int rows = 1;
+		for (Pet pet : owner.getPets())
+			rows += 1 + pet.getVisits().size();
+		return rows;
+	}
+
+
+}  // end class BulkImporter
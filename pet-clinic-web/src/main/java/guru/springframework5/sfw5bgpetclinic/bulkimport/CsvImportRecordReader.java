@@ -0,0 +1,190 @@
+//***************************************************************************
+//Class:        CsvImportRecordReader
+//Implements:   ImportRecordReader
+//
+//CSV import file - one row per Owner, Pet or Visit, the first column saying which.  Pets belong to the
+//OWNER row above them, Visits to the PET row above them:
+//    # comment lines and blank lines are skipped
+//    OWNER,firstName,lastName,address,city,telephone
+//    PET,name,type,birthDate                       (type = PetType name, dates yyyy-MM-dd)
+//    VISIT,date,description
+//Fields with a comma or quote in them are quoted, quotes doubled ("Sneezy, ""very"" sneezy").
+//
+//Only the Owner being read is held in memory - it is handed out when the next OWNER row (or the end of
+//the file) is reached.  Rows that cannot be placed (unknown record type, too many columns, a PET / VISIT
+//with no OWNER / PET above it) go to the rejections consumer and are skipped.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+public class CsvImportRecordReader implements ImportRecordReader {
+
+	private static final int OWNER_COLUMNS = 6;
+	private static final int PET_COLUMNS = 4;
+	private static final int VISIT_COLUMNS = 3;
+
+	private final BufferedReader reader;
+	private final Consumer<ImportRejection> rejections;
+	private long linesRead;
+
+	private OwnerRecord pending;                 // Owner being read - complete when the next OWNER row comes
+	private OwnerRecord.PetRecord currentPet;     // Pet the next VISIT rows belong to
+	private long rejectedOwnerLine;              // > 0 = OWNER row at this line was rejected; skip its PET / VISIT rows
+	private long rejectedPetLine;                // > 0 = PET row at this line was rejected; skip its VISIT rows
+
+	public CsvImportRecordReader(Reader reader, Consumer<ImportRejection> rejections) {
+		this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+		this.rejections = rejections;
+	}  // end Constructor
+
+	@Override
+	public OwnerRecord next() throws IOException {
+		String text;
+		while ((text = reader.readLine()) != null) {
+			long line = ++linesRead;
+			if (text.isEmpty() || text.startsWith("#") || text.trim().isEmpty())
+				continue;
+
+			List<String> columns = split(text);
+			String type = columns.get(0).trim().toUpperCase(Locale.ROOT);
+			switch (type) {
+				case "OWNER":
+					OwnerRecord complete = pending;
+					pending = null;
+					currentPet = null;
+					rejectedOwnerLine = 0;
+					rejectedPetLine = 0;
+					if (columns.size() > OWNER_COLUMNS) {
+						reject(line, "OWNER row has " + columns.size() + " columns, expected at most " + OWNER_COLUMNS);
+						rejectedOwnerLine = line;
+					} else {
+						pending = new OwnerRecord();
+						pending.line = line;
+						pending.firstName = column(columns, 1);
+						pending.lastName = column(columns, 2);
+						pending.address = column(columns, 3);
+						pending.city = column(columns, 4);
+						pending.telephone = column(columns, 5);
+					}
+					if (complete != null)
+						return complete;
+					break;
+				case "PET":
+					currentPet = null;
+					rejectedPetLine = 0;
+					if (pending == null) {
+						reject(line, orphan("PET", "OWNER", rejectedOwnerLine));
+						rejectedPetLine = line;
+					} else if (columns.size() > PET_COLUMNS) {
+						reject(line, "PET row has " + columns.size() + " columns, expected at most " + PET_COLUMNS);
+						rejectedPetLine = line;
+					} else {
+						currentPet = new OwnerRecord.PetRecord();
+						currentPet.line = line;
+						currentPet.name = column(columns, 1);
+						currentPet.type = column(columns, 2);
+						currentPet.birthDate = column(columns, 3);
+						pending.pets.add(currentPet);
+					}
+					break;
+				case "VISIT":
+					if (currentPet == null) {
+						reject(line, orphan("VISIT", "PET", rejectedPetLine));
+					} else if (columns.size() > VISIT_COLUMNS) {
+						reject(line, "VISIT row has " + columns.size() + " columns, expected at most " + VISIT_COLUMNS +
+						             " (quote descriptions with commas)");
+					} else {
+						OwnerRecord.VisitRecord visit = new OwnerRecord.VisitRecord();
+						visit.line = line;
+						visit.date = column(columns, 1);
+						visit.description = column(columns, 2);
+						currentPet.visits.add(visit);
+					}
+					break;
+				default:
+					reject(line, "Unknown record type '" + columns.get(0) + "' (expected OWNER, PET or VISIT)");
+			}
+		}
+
+		// End of file - hand out the last Owner.
+		OwnerRecord last = pending;
+		pending = null;
+		currentPet = null;
+		return last;
+	}  // end next()
+
+	@Override
+	public long getLinesRead() {
+		return linesRead;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void reject(long line, String reason) {
+		rejections.accept(new ImportRejection(line, reason));
+	}
+
+	private static String orphan(String row, String parent, long rejectedParentLine) {
+		if (rejectedParentLine > 0)
+			return row + " row belongs to the rejected " + parent + " row at line " + rejectedParentLine;
+		return row + " row has no " + parent + " row before it";
+	}
+
+	// Missing trailing columns are null; blank ones too.
+	private static String column(List<String> columns, int index) {
+		if (index >= columns.size())
+			return null;
+		String value = columns.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	/**
+	 * Split one CSV line.  Quoted fields may contain commas and doubled quotes ("").
+	 * Package-private for the test.
+	 */
+	static List<String> split(String text) {
+		List<String> columns = new ArrayList<>();
+		StringBuilder column = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+						column.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					column.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				columns.add(column.toString());
+				column.setLength(0);
+			} else {
+				column.append(c);
+			}
+		}
+		columns.add(column.toString());
+		return columns;
+	}  // end split()
+
+}  // end class CsvImportRecordReader
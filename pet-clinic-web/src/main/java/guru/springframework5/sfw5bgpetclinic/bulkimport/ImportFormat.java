@@ -0,0 +1,40 @@
+//***************************************************************************
+//Enum:         ImportFormat
+//
+//File formats the bulk import reads.  See CsvImportRecordReader / NdjsonImportRecordReader for the layout.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.Reader;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+public enum ImportFormat {
+
+	CSV,
+	NDJSON;
+
+	/**
+	 * Format from a file name (.csv, .ndjson / .jsonl) or a content type (text/csv, application/x-ndjson).
+	 * @return the format, or null if it cannot be told
+	 */
+	public static ImportFormat of(String nameOrContentType) {
+		if (nameOrContentType == null)
+			return null;
+		String value = nameOrContentType.toLowerCase(Locale.ROOT);
+		if (value.endsWith(".csv") || value.contains("csv"))
+			return CSV;
+		if (value.endsWith(".ndjson") || value.endsWith(".jsonl") || value.contains("ndjson") || value.contains("json"))
+			return NDJSON;
+		return null;
+	}  // end of()
+
+	/**
+	 * @param reader - the file / request body (closed when the returned reader is closed)
+	 * @param rejections - gets the rows that cannot even be read (bad JSON, unknown CSV record type, ...)
+	 */
+	public ImportRecordReader open(Reader reader, Consumer<ImportRejection> rejections) {
+		return (this == CSV) ? new CsvImportRecordReader(reader, rejections) : new NdjsonImportRecordReader(reader, rejections);
+	}  // end open()
+
+}  // end enum ImportFormat
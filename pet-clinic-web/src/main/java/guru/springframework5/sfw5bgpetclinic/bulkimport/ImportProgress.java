@@ -0,0 +1,150 @@
+//***************************************************************************
+//Class:        ImportProgress
+//
+//Progress / result of one bulk import - what the POST returns when it starts it, what GET /admin/import/{id}
+//shows while it runs and what the CLI runner reports when it is done.  Updated by the reader thread and every import worker, so
+//counters are LongAdders / atomics; the getters can be read (and serialized by Jackson) at any time.
+//
+//Every rejected row is counted; only the first MAX_REJECTIONS are kept with their line and reason, so a
+//file that is wrong on every line cannot fill the heap with rejections.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ImportProgress {
+
+	public enum State { RUNNING, DONE, FAILED }
+
+	static final int MAX_REJECTIONS = 1000;
+
+	private final long id;
+	private final String source;
+	private final ImportFormat format;
+	private final Instant started = Instant.now();
+	private volatile Instant finished;
+	private volatile State state = State.RUNNING;
+	private volatile String error;
+	private volatile long linesRead;
+
+	private final LongAdder owners = new LongAdder();
+	private final LongAdder pets = new LongAdder();
+	private final LongAdder visits = new LongAdder();
+	private final LongAdder rejectedRows = new LongAdder();
+	private final List<ImportRejection> rejections = Collections.synchronizedList(new ArrayList<>());
+
+	public ImportProgress(long id, String source, ImportFormat format) {
+		this.id = id;
+		this.source = source;
+		this.format = format;
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Updates (import threads)
+	// ------------------------------------------------------
+
+	void reject(ImportRejection rejection) {
+		rejectedRows.add(rejection.getRows());
+		if (rejections.size() < MAX_REJECTIONS)
+			rejections.add(rejection);
+	}
+
+	void imported(long owners, long pets, long visits) {
+		this.owners.add(owners);
+		this.pets.add(pets);
+		this.visits.add(visits);
+	}
+
+	void setLinesRead(long linesRead) {
+		this.linesRead = linesRead;
+	}
+
+	void done() {
+		finished = Instant.now();
+		state = State.DONE;
+	}
+
+	void failed(Throwable cause) {
+		finished = Instant.now();
+		error = String.valueOf(cause);
+		state = State.FAILED;
+	}
+
+	// ------------------------------------------------------
+	// Getters (report)
+	// ------------------------------------------------------
+
+	public long getId() {
+		return id;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public ImportFormat getFormat() {
+		return format;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public Instant getStarted() {
+		return started;
+	}
+
+	public Instant getFinished() {
+		return finished;
+	}
+
+	public long getElapsedMillis() {
+		return Duration.between(started, (finished == null) ? Instant.now() : finished).toMillis();
+	}
+
+	public long getLinesRead() {
+		return linesRead;
+	}
+
+	public long getOwners() {
+		return owners.sum();
+	}
+
+	public long getPets() {
+		return pets.sum();
+	}
+
+	public long getVisits() {
+		return visits.sum();
+	}
+
+	public long getRejectedRows() {
+		return rejectedRows.sum();
+	}
+
+	/**
+	 * @return the first MAX_REJECTIONS rejections (getRejectedRows has the full count)
+	 */
+	public List<ImportRejection> getRejections() {
+		synchronized (rejections) {
+			return new ArrayList<>(rejections);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "#" + id + " " + source + " (" + format + "): " + state + ", " + linesRead + " lines, " + getOwners() + " owners, " +
+		       getPets() + " pets, " + getVisits() + " visits imported, " + getRejectedRows() + " rows rejected in " +
+		       getElapsedMillis() + " ms" + ((error == null) ? "" : " - " + error);
+	}
+
+}  // end class ImportProgress
@@ -0,0 +1,25 @@
+//***************************************************************************
+//Interface:    ImportRecordReader
+//
+//Streams OwnerRecords out of an import file, one Owner (with its Pets / Visits) at a time, so memory
+//use does not depend on the size of the file.  Single threaded - BulkImporter reads on one thread and
+//hands the records to its workers.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ImportRecordReader extends Closeable {
+
+	/**
+	 * @return the next Owner of the file, or null at the end of the file
+	 */
+	OwnerRecord next() throws IOException;
+
+	/**
+	 * @return lines read so far
+	 */
+	long getLinesRead();
+
+}  // end interface ImportRecordReader
@@ -0,0 +1,43 @@
+//***************************************************************************
+//Class:        ImportRejection
+//
+//Row(s) of an import file that were not imported, and why.  rows > 1 when a rejected Owner or Pet takes
+//its Pets / Visits with it.  Immutable - shared between the import threads
+//and the progress report (Jackson serializes the getters).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+public final class ImportRejection {
+
+	private final long line;
+	private final String reason;
+	private final int rows;
+
+	public ImportRejection(long line, String reason) {
+		this(line, reason, 1);
+	}  // end Constructor
+
+	public ImportRejection(long line, String reason, int rows) {
+		this.line = line;
+		this.reason = reason;
+		this.rows = rows;
+	}  // end Constructor
+
+	public long getLine() {
+		return line;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public String toString() {
+		return "line " + line + ": " + reason + ((rows > 1) ? " (" + rows + " rows)" : "");
+	}
+
+}  // end class ImportRejection
@@ -0,0 +1,132 @@
+//***************************************************************************
+//Class:        ImportValidator
+//
+//Checks an OwnerRecord and turns it into new Owner / Pet / Visit entities, linked the usual way.
+//A bad row is rejected with its reason; what hangs off it goes with it (a rejected Owner takes its Pets
+//and Visits, a rejected Pet its Visits).  The rest of the Owner is still imported.
+//
+//Rules (the same things the Owner / Pet / Visit forms need):
+//    Owner   first and last name; telephone, if given, 1 - 10 digits
+//    Pet     name, unique (any case) for the Owner; type a known PetType; birth date, if given, yyyy-MM-dd
+//            and not in the future
+//    Visit   date yyyy-MM-dd; description; not a duplicate (same date and description) of another of the Pet's
+//
+//No state of its own - called by several import workers at once.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public class ImportValidator {
+
+	private static final int MAX_TELEPHONE_DIGITS = 10;
+
+	private final PetTypeCache petTypes;
+
+	public ImportValidator(PetTypeCache petTypes) {
+		this.petTypes = petTypes;
+	}  // end Constructor
+
+	/**
+	 * @param record - Owner as read from the file
+	 * @param rejections - gets every rejected row (or group of rows)
+	 * @return new Owner with its valid Pets / Visits, or null if the Owner row itself is rejected
+	 */
+	public Owner validate(OwnerRecord record, Consumer<ImportRejection> rejections) {
+		String ownerError = ownerError(record);
+		if (ownerError != null) {
+			rejections.accept(new ImportRejection(record.line, "OWNER " + ownerError, record.rows()));
+			return null;
+		}
+		Owner owner = Owner.builder()
+		                   .firstName(record.firstName)
+		                   .lastName(record.lastName)
+		                   .address(record.address)
+		                   .city(record.city)
+		                   .telephone(record.telephone)
+		                   .build();
+
+		Set<String> petNames = new HashSet<>();
+		for (OwnerRecord.PetRecord petRecord : record.pets) {
+			PetType petType = petTypes.resolve(petRecord.type);
+			LocalDate birthDate = date(petRecord.birthDate);
+			String petError = null;
+			if (petRecord.name == null)
+				petError = "name is missing";
+			else if (!petNames.add(petRecord.name.toLowerCase(Locale.ROOT)))
+				petError = "name '" + petRecord.name + "' already used for this owner";
+			else if (petType == null)
+				petError = (petRecord.type == null) ? "type is missing" : "unknown pet type '" + petRecord.type + "'";
+			else if (petRecord.birthDate != null && birthDate == null)
+				petError = "birth date '" + petRecord.birthDate + "' is not yyyy-MM-dd";
+			else if (birthDate != null && birthDate.isAfter(LocalDate.now()))
+				petError = "birth date " + birthDate + " is in the future";
+			if (petError != null) {
+				rejections.accept(new ImportRejection(petRecord.line, "PET " + petError, 1 + petRecord.visits.size()));
+				continue;
+			}
+
+			// Pet constructor adds the Pet to the Owner.
+			Pet pet = new Pet(petRecord.name, petType, owner, birthDate);
+			for (OwnerRecord.VisitRecord visitRecord : petRecord.visits) {
+				LocalDate date = date(visitRecord.date);
+				String visitError = null;
+				if (visitRecord.date == null)
+					visitError = "date is missing";
+				else if (date == null)
+					visitError = "date '" + visitRecord.date + "' is not yyyy-MM-dd";
+				else if (visitRecord.description == null)
+					visitError = "description is missing";
+				if (visitError != null) {
+					rejections.accept(new ImportRejection(visitRecord.line, "VISIT " + visitError));
+					continue;
+				}
+				// Visit constructor adds the Visit to the Pet - unless the Pet already has an equal one.
+				int visits = pet.getVisits().size();
+				new Visit(date, visitRecord.description, pet);
+				if (pet.getVisits().size() == visits)
+					rejections.accept(new ImportRejection(visitRecord.line, "VISIT duplicate of another visit of this pet (same date and description)"));
+			}
+		}
+		return owner;
+	}  // end validate()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private static String ownerError(OwnerRecord record) {
+		if (record.firstName == null)
+			return "first name is missing";
+		if (record.lastName == null)
+			return "last name is missing";
+		if (record.telephone != null) {
+			if (record.telephone.length() > MAX_TELEPHONE_DIGITS || !record.telephone.chars().allMatch(Character::isDigit))
+				return "telephone '" + record.telephone + "' is not 1 - " + MAX_TELEPHONE_DIGITS + " digits";
+		}
+		return null;
+	}
+
+	// null if missing or not yyyy-MM-dd.
+	private static LocalDate date(String value) {
+		if (value == null)
+			return null;
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+}  // end class ImportValidator
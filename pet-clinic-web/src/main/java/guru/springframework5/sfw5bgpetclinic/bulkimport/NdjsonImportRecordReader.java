@@ -0,0 +1,66 @@
+//***************************************************************************
+//Class:        NdjsonImportRecordReader
+//Implements:   ImportRecordReader
+//
+//NDJSON import file - one JSON object per line, each a whole Owner with its Pets and their Visits
+//(layout in OwnerRecord).  Blank lines are skipped; a line that is not valid JSON goes to the rejections
+//consumer and the next line is read.  Only one line is held in memory at a time.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+public class NdjsonImportRecordReader implements ImportRecordReader {
+
+	// ObjectReader is immutable and thread safe - one for every import.
+	private static final ObjectReader RECORD_READER = new ObjectMapper().readerFor(OwnerRecord.class);
+
+	private final BufferedReader reader;
+	private final Consumer<ImportRejection> rejections;
+	private long linesRead;
+
+	public NdjsonImportRecordReader(Reader reader, Consumer<ImportRejection> rejections) {
+		this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+		this.rejections = rejections;
+	}  // end Constructor
+
+	@Override
+	public OwnerRecord next() throws IOException {
+		String text;
+		while ((text = reader.readLine()) != null) {
+			long line = ++linesRead;
+			if (text.trim().isEmpty())
+				continue;
+			try {
+				OwnerRecord record = RECORD_READER.readValue(text);
+				if (record == null) {       // the line was "null"
+					rejections.accept(new ImportRejection(line, "Not an Owner object"));
+					continue;
+				}
+				record.fromNdjsonLine(line);
+				return record;
+			} catch (JsonProcessingException e) {
+				rejections.accept(new ImportRejection(line, "Invalid JSON: " + e.getOriginalMessage()));
+			}
+		}
+		return null;
+	}  // end next()
+
+	@Override
+	public long getLinesRead() {
+		return linesRead;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}  // end class NdjsonImportRecordReader
@@ -0,0 +1,92 @@
+//***************************************************************************
+//Class:        OwnerRecord
+//
+//One Owner of an import file as read - still Strings, not yet validated - with its Pets and their Visits.
+//The readers (CsvImportRecordReader, NdjsonImportRecordReader) produce these one at a time; ImportValidator
+//turns them into Owner / Pet / Visit entities.  Every part remembers the line it came from, for the
+//rejected rows report.
+//
+//Public fields / setters so Jackson can read the NDJSON form straight into it:
+//    {"firstName":"..","lastName":"..","address":"..","city":"..","telephone":"..",
+//     "pets":[{"name":"..","type":"Dog","birthDate":"2015-03-01","visits":[{"date":"2019-05-01","description":".."}]}]}
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OwnerRecord {
+
+	public long line;
+	public String firstName;
+	public String lastName;
+	public String address;
+	public String city;
+	public String telephone;
+	public List<PetRecord> pets = new ArrayList<>();
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class PetRecord {
+		public long line;
+		public String name;
+		public String type;
+		public String birthDate;
+		public List<VisitRecord> visits = new ArrayList<>();
+	}  // end class PetRecord
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class VisitRecord {
+		public long line;
+		public String date;
+		public String description;
+	}  // end class VisitRecord
+
+	/**
+	 * @return number of rows (Owner + Pets + Visits) in this record
+	 */
+	public int rows() {
+		int rows = 1 + pets.size();
+		for (PetRecord pet : pets)
+			rows += pet.visits.size();
+		return rows;
+	}
+
+	// NDJSON has one line for the whole Owner, and may have "" / null where CSV has an empty column.
+	// Make it look like a CSV record:  every part on the line, blank values null, no null lists.
+	void fromNdjsonLine(long line) {
+		this.line = line;
+		firstName = trimToNull(firstName);
+		lastName = trimToNull(lastName);
+		address = trimToNull(address);
+		city = trimToNull(city);
+		telephone = trimToNull(telephone);
+		if (pets == null)
+			pets = new ArrayList<>();
+		pets.removeIf(pet -> pet == null);
+		for (PetRecord pet : pets) {
+			pet.line = line;
+			pet.name = trimToNull(pet.name);
+			pet.type = trimToNull(pet.type);
+			pet.birthDate = trimToNull(pet.birthDate);
+			if (pet.visits == null)
+				pet.visits = new ArrayList<>();
+			pet.visits.removeIf(visit -> visit == null);
+			for (VisitRecord visit : pet.visits) {
+				visit.line = line;
+				visit.date = trimToNull(visit.date);
+				visit.description = trimToNull(visit.description);
+			}
+		}
+	}
+
+	private static String trimToNull(String value) {
+		if (value == null)
+			return null;
+		String trimmed = value.trim();
+		return trimmed.isEmpty() ? null : trimmed;
+	}
+
+}  // end class OwnerRecord
@@ -0,0 +1,52 @@
+//***************************************************************************
+//Class:        PetTypeCache
+//
+//PetType by name (case insensitive) for the import workers, so a file with millions of Pets does not
+//look up "Dog" millions of times.  Loaded once from PetTypeService when the import starts.
+//
+//A name that is not there is either an error for the row (default) or - with createMissing - saved as a
+//new PetType the first time it is seen (once, even when several workers see it at the same time).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+
+public class PetTypeCache {
+
+	private final PetTypeService petTypeService;
+	private final boolean createMissing;
+	private final Map<String, PetType> byName = new ConcurrentHashMap<>();
+
+	public PetTypeCache(PetTypeService petTypeService, boolean createMissing) {
+		this.petTypeService = petTypeService;
+		this.createMissing = createMissing;
+		for (PetType petType : petTypeService.findAll()) {
+			if (petType.getName() != null)
+				byName.putIfAbsent(key(petType.getName()), petType);
+		}
+	}  // end Constructor
+
+	/**
+	 * @param name - PetType name, any case
+	 * @return the PetType, or null if there is none with that name (and createMissing is off)
+	 */
+	public PetType resolve(String name) {
+		if (name == null)
+			return null;
+		PetType petType = byName.get(key(name));
+		if (petType != null || !createMissing)
+			return petType;
+		// computeIfAbsent runs the save at most once per name.
+		return byName.computeIfAbsent(key(name), missing -> petTypeService.save(PetType.builder().name(name.trim()).build()));
+	}  // end resolve()
+
+	private static String key(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+}  // end class PetTypeCache
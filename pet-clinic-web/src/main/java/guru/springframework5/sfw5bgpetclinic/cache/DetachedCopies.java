@@ -0,0 +1,84 @@
+//***************************************************************************
+//Class:        DetachedCopies
+//
+//Copies of Owner / Pet aggregates with no link to any persistence context:  the Owner, its Pets with their
+//PetTypes, and the Pets' Visits.  A copy may be handed to any thread and changed by its caller (PetController
+//adds the new Pet to its Owner) without touching the original or anyone else's copy.  Copying reads every lazy
+//collection, so a managed entity must be copied while its persistence context is still open.
+//
+//Used by OwnerNearCache (what it caches and every hit) and by coalescing.SingleFlightPostProcessor /
+//batching.BatchLoaderPostProcessor (what callers with their own persistence context share).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public final class DetachedCopies {
+
+	private DetachedCopies() {
+	}
+
+	/**
+	 * @param entityType - entity class (Owner, Pet)
+	 * @return the copy function for it, or null if there is none for the type
+	 */
+	public static UnaryOperator<Object> copier(Class<?> entityType) {
+		if (entityType == Owner.class)
+			return owner -> copy((Owner) owner);
+		if (entityType == Pet.class)
+			return pet -> copy((Pet) pet);
+		return null;
+	}  // end copier()
+
+	/**
+	 * Copy of the whole aggregate.  Ids are set BEFORE the Pets / Visits go into their sets (equals / hashCode
+	 * use the id once there is one).
+	 */
+	public static Owner copy(Owner owner) {
+		Owner copy = Owner.builder().firstName(owner.getFirstName()).lastName(owner.getLastName())
+		                  .address(owner.getAddress()).city(owner.getCity()).telephone(owner.getTelephone()).build();
+		copy.setId(owner.getId());
+		Map<Long, PetType> petTypes = new HashMap<>();
+		for (Pet pet : owner.getPets())
+			copy.add(copy(pet, petTypes));
+		return copy;
+	}  // end copy()
+
+	/**
+	 * Copy of the Pet inside a copy of its whole Owner aggregate (the pages showing a Pet show its Owner too),
+	 * or of the Pet alone if it has no Owner.
+	 */
+	public static Pet copy(Pet pet) {
+		if (pet.getOwner() != null) {
+			for (Pet petCopy : copy(pet.getOwner()).getPets())
+				if (petCopy.getId() != null && petCopy.getId().equals(pet.getId()))
+					return petCopy;
+		}
+		return copy(pet, new HashMap<>());
+	}  // end copy()
+
+	// The Pet with its PetType (one copy per PetType id - shared by the Owner's Pets) and Visits; no Owner.
+	private static Pet copy(Pet pet, Map<Long, PetType> petTypes) {
+		PetType petType = null;
+		if (pet.getPetType() != null) {
+			petType = petTypes.computeIfAbsent(pet.getPetType().getId(), id -> new PetType(pet.getPetType().getName()));
+			petType.setId(pet.getPetType().getId());
+		}
+		Pet copy = new Pet(pet.getName(), petType, null, pet.getBirthDate());
+		copy.setId(pet.getId());
+		for (Visit visit : pet.getVisits()) {
+			Visit visitCopy = Visit.builder().date(visit.getDate()).description(visit.getDescription()).build();
+			visitCopy.setId(visit.getId());
+			copy.add(visitCopy);
+		}
+		return copy;
+	}  // end copy()
+
+}  // end class DetachedCopies
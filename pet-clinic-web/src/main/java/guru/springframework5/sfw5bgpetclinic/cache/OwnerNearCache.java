@@ -0,0 +1,283 @@
+//***************************************************************************
+//Class:        OwnerNearCache
+//Stereotype:   @Component (springdatajpa profile only - the map services already hold every Owner in memory)
+//
+//Near-cache of whole Owner aggregates - the Owner, its Pets with their PetTypes, and the Pets' Visits - for
+//OwnerService.findById (OwnerNearCachePostProcessor puts it in front of the service).  Kept in a
+//WTinyLfuCache weighed in estimated bytes (petclinic.cache.owners.max-size), so what it holds is bounded
+//by memory, not by a count of Owners of any size.
+//
+//Detached copies only.  What is cached is a copy (DetachedCopies) made inside its own read-only transaction
+//with every lazy collection loaded, and each hit hands out a NEW copy of it - callers may change what they get
+//(PetController adds the new Pet to its Owner) without changing the cache or each other.  A miss returns what
+//the service returned, as before, and asks the loader thread to load and cache the aggregate - in its own
+//transaction, so the request that missed runs no extra SQL.
+//
+//Invalidation:  every OwnerService / PetService / VisitService write is heard (EntityChangeListener - this class
+//for Owner, OwnerNearCacheConfiguration for Pet and Visit) and drops exactly the Owner it touches:  a Pet
+//through its Owner (old and new, if it moved), a Visit through its Pet.  Deletes only carry an id, so the
+//Pets and Visits of every cached Owner are indexed by id.  Every write also moves the epoch on, and a load
+//that started before a write is not cached (it may have read the data from before it).
+//
+//Metrics (actuator /metrics):
+//    petclinic.cache.owners.requests       Counter - findById calls; result=hit|miss
+//    petclinic.cache.owners.hit.ratio      Gauge - hits / requests
+//    petclinic.cache.owners.memory         Gauge - estimated bytes held
+//    petclinic.cache.owners.size           Gauge - Owners held
+//    petclinic.cache.owners.evictions      Counter - entries the size bound pushed out (or did not admit)
+//    petclinic.cache.owners.invalidations  Counter - Owners dropped because a write touched them
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Profile("springdatajpa")
+@ConditionalOnProperty(prefix = "petclinic.cache.owners", name = "enabled", matchIfMissing = true)
+@Component
+public class OwnerNearCache implements EntityChangeListener<Owner> {
+
+	private static final Logger log = LoggerFactory.getLogger(OwnerNearCache.class);
+	private static final String METRIC = "petclinic.cache.owners";
+
+	private final WTinyLfuCache<Long, Owner> cache;
+	private final TransactionTemplate readOnly;
+	private final ThreadPoolExecutor loader;
+	private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+	private long epoch;                                                   // guarded by this
+
+	// Pet / Visit id -> Owner id, for the cached Owners only (kept in step by the cache's removal listener).
+	private final Map<Long, Long> ownerIdByPetId = new ConcurrentHashMap<>();
+	private final Map<Long, Long> ownerIdByVisitId = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public OwnerNearCache(PlatformTransactionManager transactionManager, MeterRegistry registry, Environment environment) {
+		long maxSize = DataSize.parse(environment.getProperty("petclinic.cache.owners.max-size", "32MB")).toBytes();
+		int queue = environment.getProperty("petclinic.cache.owners.load-queue", Integer.class, 1000);
+		this.cache = new WTinyLfuCache<>(maxSize, (int) Math.min(1 << 20, maxSize / 2048), this::unindex);
+		this.readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		// One thread, bounded queue - a flood of misses drops loads (they are retried on the next miss), never piles up.
+		this.loader = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue), task -> {
+			Thread thread = new Thread(task, "owner-near-cache");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		FunctionCounter.builder(METRIC + ".requests", hits, LongAdder::sum)
+		               .description("Owner findById calls by cache result").tag("result", "hit")
+		               .register(registry);
+		FunctionCounter.builder(METRIC + ".requests", misses, LongAdder::sum)
+		               .description("Owner findById calls by cache result").tag("result", "miss")
+		               .register(registry);
+		Gauge.builder(METRIC + ".hit.ratio", this, OwnerNearCache::hitRatio)
+		     .description("Share of Owner findById calls answered from the cache")
+		     .register(registry);
+		Gauge.builder(METRIC + ".memory", cache, WTinyLfuCache::weightedSize)
+		     .description("Estimated memory held by cached Owner aggregates").baseUnit("bytes")
+		     .register(registry);
+		Gauge.builder(METRIC + ".size", cache, WTinyLfuCache::size)
+		     .description("Owner aggregates cached")
+		     .register(registry);
+		FunctionCounter.builder(METRIC + ".evictions", cache, WTinyLfuCache::evictions)
+		               .description("Owner aggregates pushed out (or not admitted) by the size bound")
+		               .register(registry);
+		FunctionCounter.builder(METRIC + ".invalidations", invalidations, LongAdder::sum)
+		               .description("Cached Owner aggregates dropped because a write touched them")
+		               .register(registry);
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Lookups (OwnerNearCachePostProcessor, request threads)
+	// ------------------------------------------------------
+
+	/**
+	 * @return a new detached copy of the cached aggregate, or null (miss - see loadInBackground)
+	 */
+	public Owner get(Long ownerId) {
+		Owner cached = cache.get(ownerId);
+		if (cached == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return DetachedCopies.copy(cached);
+	}  // end get()
+
+	/**
+	 * Load the Owner aggregate on the loader thread and cache it - unless a load of it is waiting already,
+	 * or the queue is full.
+	 * @param ownerService - the service behind the cache (not the proxy in front of it)
+	 */
+	public void loadInBackground(Long ownerId, OwnerService ownerService) {
+		if (!loading.add(ownerId))
+			return;
+		try {
+			loader.execute(() -> {
+				try {
+					load(ownerId, ownerService);
+				} catch (RuntimeException e) {
+					log.warn("Owner near-cache load of {} failed", ownerId, e);
+				} finally {
+					loading.remove(ownerId);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			loading.remove(ownerId);
+		}
+	}  // end loadInBackground()
+
+	/**
+	 * Load the Owner aggregate and cache it (on the calling thread).
+	 * @return true if cached - false if no such Owner, too big, or a write came in while loading
+	 */
+	public boolean load(Long ownerId, OwnerService ownerService) {
+		long started;
+		synchronized (this) {
+			started = epoch;
+		}
+		Owner loaded = readOnly.execute(status -> {
+			Owner owner = ownerService.findById(ownerId);
+			return (owner == null) ? null : DetachedCopies.copy(owner);    // every lazy collection read here
+		});
+		if (loaded == null)
+			return false;
+		synchronized (this) {
+			if (epoch != started)
+				return false;
+			index(loaded);
+			if (!cache.put(ownerId, loaded, weigh(loaded))) {
+				unindex(ownerId, loaded);
+				return false;
+			}
+			return true;
+		}
+	}  // end load()
+
+	double hitRatio() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return (total == 0) ? 0.0 : (double) hit / total;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		loader.shutdownNow();
+	}
+
+	// ------------------------------------------------------
+	// Invalidation (EntityChangeListener - request threads)
+	// ------------------------------------------------------
+
+	@Override
+	public void saved(Owner owner) {
+		invalidate(owner.getId());
+	}
+
+	@Override
+	public void deleted(Long ownerId) {
+		invalidate(ownerId);
+	}
+
+	public void petSaved(Pet pet) {
+		invalidate((pet.getOwner() == null) ? null : pet.getOwner().getId(), ownerIdByPetId.get(pet.getId()));
+	}
+
+	public void petDeleted(Long petId) {
+		invalidate(ownerIdByPetId.get(petId));
+	}
+
+	public void visitSaved(Visit visit) {
+		Pet pet = visit.getPet();
+		Long ownerId = null;
+		if (pet != null)
+			ownerId = (pet.getOwner() != null) ? pet.getOwner().getId() : ownerIdByPetId.get(pet.getId());
+		invalidate(ownerId, ownerIdByVisitId.get(visit.getId()));
+	}
+
+	public void visitDeleted(Long visitId) {
+		invalidate(ownerIdByVisitId.get(visitId));
+	}
+
+	// The epoch moves on even when no cached Owner is touched - a load running now may be of the one that is.
+	private synchronized void invalidate(Long... ownerIds) {
+		epoch++;
+		for (Long ownerId : ownerIds) {
+			if (ownerId != null && cache.invalidate(ownerId))
+				invalidations.increment();
+		}
+	}  // end invalidate()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void index(Owner owner) {
+		for (Pet pet : owner.getPets()) {
+			ownerIdByPetId.put(pet.getId(), owner.getId());
+			for (Visit visit : pet.getVisits())
+				ownerIdByVisitId.put(visit.getId(), owner.getId());
+		}
+	}  // end index()
+
+	private void unindex(Long ownerId, Owner owner) {
+		for (Pet pet : owner.getPets()) {
+			ownerIdByPetId.remove(pet.getId(), ownerId);
+			for (Visit visit : pet.getVisits())
+				ownerIdByVisitId.remove(visit.getId(), ownerId);
+		}
+	}  // end unindex()
+
+	/**
+	 * Rough bytes held by the aggregate (64 bit JVM, compressed references):  object headers and fields, Strings
+	 * at 40 + 1 byte a character, and the HashSet entries of the Pets / Visits.
+	 */
+	static long weigh(Owner owner) {
+		long bytes = 64 + 48 + string(owner.getFirstName()) + string(owner.getLastName()) + string(owner.getAddress())
+		             + string(owner.getCity()) + 2 * string(owner.getTelephone());
+		for (Pet pet : owner.getPets()) {
+			bytes += 48 + 32 + 48 + 24 + string(pet.getName());               // Pet, its set entry, visits set, LocalDate
+			if (pet.getPetType() != null)
+				bytes += 24 + string(pet.getPetType().getName());
+			for (Visit visit : pet.getVisits())
+				bytes += 32 + 32 + 24 + string(visit.getDescription());       // Visit, its set entry, LocalDate
+		}
+		return bytes;
+	}  // end weigh()
+
+	private static long string(String value) {
+		return (value == null) ? 0 : 40 + value.length();
+	}
+
+}  // end class OwnerNearCache
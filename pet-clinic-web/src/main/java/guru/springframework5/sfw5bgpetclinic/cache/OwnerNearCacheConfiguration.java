@@ -0,0 +1,67 @@
+//***************************************************************************
+//Class:        OwnerNearCacheConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Registers OwnerNearCachePostProcessor (the cache in front of OwnerService.findById) and the Pet and Visit
+//EntityChangeListeners that drop the Owner a Pet / Visit write touches - OwnerNearCache itself hears the
+//Owner writes.  Same conditions as OwnerNearCache:  springdatajpa profile, and
+//    petclinic.cache.owners.enabled=true|false        (default true)
+//    petclinic.cache.owners.max-size=32MB             (estimated memory held)
+//    petclinic.cache.owners.load-queue=1000           (misses waiting to be loaded - more are dropped)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("springdatajpa")
+@ConditionalOnProperty(prefix = "petclinic.cache.owners", name = "enabled", matchIfMissing = true)
+public class OwnerNearCacheConfiguration {
+
+	// static - BeanPostProcessors are created before everything else; a non-static @Bean method would
+	// force this @Configuration to be created early too.
+	@Bean
+	public static OwnerNearCachePostProcessor ownerNearCachePostProcessor(ObjectProvider<OwnerNearCache> cacheProvider) {
+		return new OwnerNearCachePostProcessor(cacheProvider);
+	}
+
+	// Typed return values - EntityChangePostProcessor finds the listeners of an entity type by generic type.
+	@Bean
+	public EntityChangeListener<Pet> ownerNearCachePetListener(OwnerNearCache cache) {
+		return new EntityChangeListener<Pet>() {
+			@Override
+			public void saved(Pet pet) {
+				cache.petSaved(pet);
+			}
+
+			@Override
+			public void deleted(Long petId) {
+				cache.petDeleted(petId);
+			}
+		};
+	}
+
+	@Bean
+	public EntityChangeListener<Visit> ownerNearCacheVisitListener(OwnerNearCache cache) {
+		return new EntityChangeListener<Visit>() {
+			@Override
+			public void saved(Visit visit) {
+				cache.visitSaved(visit);
+			}
+
+			@Override
+			public void deleted(Long visitId) {
+				cache.visitDeleted(visitId);
+			}
+		};
+	}
+
+}  // end class OwnerNearCacheConfiguration
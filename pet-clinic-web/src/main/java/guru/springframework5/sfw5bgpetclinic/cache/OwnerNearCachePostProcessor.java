@@ -0,0 +1,85 @@
+//***************************************************************************
+//Class:        OwnerNearCachePostProcessor
+//Implements:   BeanPostProcessor (Spring hands every bean to this class after it is created and before
+//                                 it is injected anywhere, so it can return a wrapped version instead.)
+//
+//Puts OwnerNearCache in front of OwnerService.findById:  wraps the OwnerService bean in a JDK dynamic proxy
+//that answers findById from the cache when it can, and on a miss calls the service as before and has the
+//cache load the aggregate in the background.  Everything else passes straight through (writes reach the
+//cache through its EntityChangeListeners).  Calls inside a transaction skip the cache - a transaction may
+//have changed the Owner without a save yet, and expects the entity of its own persistence context.
+//
+//Ordered after SingleFlightPostProcessor, so a miss still coalesces; EntityChangePostProcessor (ordered later)
+//wraps this proxy.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import java.lang.reflect.Method;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.proxies.ServiceInvocationHandler;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+public class OwnerNearCachePostProcessor implements BeanPostProcessor, Ordered {
+
+	// ObjectProvider - the cache needs the transaction manager and MeterRegistry, which must not be created
+	// while BeanPostProcessors are being registered.  Looked up on the first findById.
+	private final ObjectProvider<OwnerNearCache> cacheProvider;
+
+	public OwnerNearCachePostProcessor(ObjectProvider<OwnerNearCache> cacheProvider) {
+		this.cacheProvider = cacheProvider;
+	}  // end Constructor
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!(bean instanceof OwnerService))
+			return bean;
+		return new CachingInvocationHandler((OwnerService) bean, cacheProvider).proxy();
+	}  // end postProcessAfterInitialization()
+
+	@Override
+	public int getOrder() {
+		return 1;
+	}
+
+
+	// ------------------------------------------------------
+	// The proxy's handler.
+	// ------------------------------------------------------
+	private static final class CachingInvocationHandler extends ServiceInvocationHandler<OwnerService> {
+		private final ObjectProvider<OwnerNearCache> cacheProvider;
+		private volatile OwnerNearCache cache;
+
+		CachingInvocationHandler(OwnerService target, ObjectProvider<OwnerNearCache> cacheProvider) {
+			super(target);
+			this.cacheProvider = cacheProvider;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (!method.getName().equals("findById") || args[0] == null
+			    || TransactionSynchronizationManager.isActualTransactionActive())
+				return invokeTarget(method, args);
+
+			OwnerNearCache current = cache;
+			if (current == null)
+				cache = current = cacheProvider.getObject();
+			Long ownerId = (Long) args[0];
+			Owner cached = current.get(ownerId);
+			if (cached != null)
+				return cached;
+			Object owner = invokeTarget(method, args);
+			if (owner != null)
+				current.loadInBackground(ownerId, target);
+			return owner;
+		}  // end invoke()
+
+	}  // end class CachingInvocationHandler
+
+}  // end class OwnerNearCachePostProcessor
@@ -0,0 +1,230 @@
+//***************************************************************************
+//Class:        WTinyLfuCache<K, V>
+//
+//Size bounded cache that keeps what is used OFTEN, not just what was used last (Einziger, Friedman, Manes,
+//"TinyLFU:  A Highly Efficient Cache Admission Policy" - the W-TinyLFU policy Caffeine uses).  The capacity
+//is a total weight (OwnerNearCache weighs in estimated bytes), split three ways:
+//    window      1%   LRU - every new entry starts here, so a burst of new keys cannot flush the rest
+//    probation  19%   main SLRU segment for entries seen once since they were admitted
+//    protected  80%   main SLRU segment for entries hit again in probation
+//An entry pushed out of the window is only admitted to probation if the frequency sketch says its key was
+//used more often than the entry it would push out (the LRU of probation); otherwise it is dropped.  The sketch
+//is a count-min sketch of 4 bit counters over every get / put, all halved every 10 x (expected entries)
+//increments so old popularity fades.
+//
+//One lock (synchronized) - a hit moves the entry in a LinkedHashMap, a few hundred nanoseconds.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+final class WTinyLfuCache<K, V> {
+
+	private static final class Entry<V> {
+		final V value;
+		final long weight;
+
+		Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}  // end class Entry
+
+	// Access ordered:  iteration starts at the least recently used.
+	private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+	private final long windowMaximum;
+	private final long mainMaximum;
+	private final long protectedMaximum;
+	private long windowWeight;
+	private long probationWeight;
+	private long protectedWeight;
+
+	private final FrequencySketch sketch;
+	private final BiConsumer<K, V> removalListener;       // evicted or invalidated - not on replace by put
+	private long evictions;
+
+	/**
+	 * @param maximumWeight - total weight kept
+	 * @param expectedEntries - about how many entries fit (sizes the frequency sketch)
+	 * @param removalListener - told of every entry that leaves the cache, under the cache's lock
+	 */
+	WTinyLfuCache(long maximumWeight, int expectedEntries, BiConsumer<K, V> removalListener) {
+		if (maximumWeight < 1)
+			throw new IllegalArgumentException("maximum weight must be positive:  " + maximumWeight);
+		this.windowMaximum = Math.max(1, maximumWeight / 100);
+		this.mainMaximum = maximumWeight - windowMaximum;
+		this.protectedMaximum = mainMaximum * 80 / 100;
+		this.sketch = new FrequencySketch(Math.max(16, expectedEntries));
+		this.removalListener = removalListener;
+	}  // end Constructor
+
+	/**
+	 * @return the value, or null if not cached
+	 */
+	synchronized V get(K key) {
+		sketch.increment(key.hashCode());
+		Entry<V> entry = window.get(key);
+		if (entry == null)
+			entry = protectedSegment.get(key);
+		if (entry == null && (entry = probation.remove(key)) != null) {
+			// Hit again - promote; protected overflow goes back to the front of probation.
+			probationWeight -= entry.weight;
+			protectedSegment.put(key, entry);
+			protectedWeight += entry.weight;
+			while (protectedWeight > protectedMaximum && protectedSegment.size() > 1) {
+				Map.Entry<K, Entry<V>> demoted = removeEldest(protectedSegment);
+				protectedWeight -= demoted.getValue().weight;
+				probation.put(demoted.getKey(), demoted.getValue());
+				probationWeight += demoted.getValue().weight;
+			}
+		}
+		return (entry == null) ? null : entry.value;
+	}  // end get()
+
+	/**
+	 * Add (or replace) the value.  It starts in the window; whether it stays once it leaves the window
+	 * is up to the admission policy.
+	 * @return false if heavier than the whole main space - never cached
+	 */
+	synchronized boolean put(K key, V value, long weight) {
+		if (weight > mainMaximum)
+			return false;
+		remove(key, false);
+		sketch.increment(key.hashCode());
+		window.put(key, new Entry<>(value, weight));
+		windowWeight += weight;
+		while (windowWeight > windowMaximum && !window.isEmpty()) {
+			Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+			windowWeight -= candidate.getValue().weight;
+			admit(candidate.getKey(), candidate.getValue());
+		}
+		return true;
+	}  // end put()
+
+	/**
+	 * @return true if it was cached
+	 */
+	synchronized boolean invalidate(K key) {
+		return remove(key, true);
+	}
+
+	// ------------------------------------------------------
+	// Statistics
+	// ------------------------------------------------------
+
+	synchronized long weightedSize() {
+		return windowWeight + probationWeight + protectedWeight;
+	}
+
+	synchronized int size() {
+		return window.size() + probation.size() + protectedSegment.size();
+	}
+
+	synchronized long evictions() {
+		return evictions;
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// The window's LRU against probation's LRU (protected's once probation is empty), as many of them as it
+	// takes to make room - the candidate has to be used more often than each one it pushes out.
+	private void admit(K key, Entry<V> candidate) {
+		int candidateFrequency = sketch.frequency(key.hashCode());
+		while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+			LinkedHashMap<K, Entry<V>> segment = probation.isEmpty() ? protectedSegment : probation;
+			K victim = segment.keySet().iterator().next();
+			evictions++;
+			if (candidateFrequency <= sketch.frequency(victim.hashCode())) {
+				removalListener.accept(key, candidate.value);          // rejected
+				return;
+			}
+			remove(victim, true);
+		}
+		probation.put(key, candidate);
+		probationWeight += candidate.weight;
+	}  // end admit()
+
+	private boolean remove(K key, boolean notify) {
+		Entry<V> entry;
+		if ((entry = window.remove(key)) != null)
+			windowWeight -= entry.weight;
+		else if ((entry = probation.remove(key)) != null)
+			probationWeight -= entry.weight;
+		else if ((entry = protectedSegment.remove(key)) != null)
+			protectedWeight -= entry.weight;
+		if (entry != null && notify)
+			removalListener.accept(key, entry.value);
+		return entry != null;
+	}  // end remove()
+
+	private static <K, E> Map.Entry<K, E> removeEldest(LinkedHashMap<K, E> segment) {
+		Iterator<Map.Entry<K, E>> iterator = segment.entrySet().iterator();
+		Map.Entry<K, E> eldest = new AbstractMap.SimpleImmutableEntry<>(iterator.next());
+		iterator.remove();
+		return eldest;
+	}
+
+
+	// ------------------------------------------------------
+	// Count-min sketch:  4 rows of 4 bit counters packed 16 to a long.  frequency() is the smallest of the
+	// key's 4 counters - never less than the true count (since the last halving), at most 15.
+	// ------------------------------------------------------
+	static final class FrequencySketch {
+		private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+		private static final long HALF_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+		private final int counterMask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int expectedEntries) {
+			int counters = Integer.highestOneBit(Math.min(expectedEntries, 1 << 26) * 4 - 1) << 1;  // power of 2, >= 4x
+			this.table = new long[Math.max(1, counters / 16)];
+			this.counterMask = table.length * 16 - 1;
+			this.sampleSize = 10 * expectedEntries;
+		}
+
+		int frequency(int hash) {
+			int frequency = 15;
+			for (int row = 0; row < 4; row++) {
+				int counter = index(hash, row);
+				frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+			}
+			return frequency;
+		}
+
+		void increment(int hash) {
+			boolean added = false;
+			for (int row = 0; row < 4; row++) {
+				int counter = index(hash, row);
+				int shift = (counter & 15) << 2;
+				if (((table[counter >>> 4] >>> shift) & 15) < 15) {
+					table[counter >>> 4] += 1L << shift;
+					added = true;
+				}
+			}
+			if (added && ++additions >= sampleSize) {
+				for (int i = 0; i < table.length; i++)
+					table[i] = (table[i] >>> 1) & HALF_MASK;
+				additions /= 2;
+			}
+		}  // end increment()
+
+		private int index(int hash, int row) {
+			long h = (hash + SEEDS[row]) * SEEDS[(row + 1) & 3];
+			h ^= h >>> 32;
+			return (int) h & counterMask;
+		}
+	}  // end class FrequencySketch
+
+}  // end class WTinyLfuCache
@@ -0,0 +1,41 @@
+//***************************************************************************
+//Class:        CallerIdController
+//Stereotype:   @RestController  (JSON - for the telephone system; people use /owners/calls, see OwnerController)
+//
+//Reverse telephone lookup for incoming calls (see OwnerService.findByTelephone):
+//    GET  /api/owners/callers?telephone=(617) 555-0000      [CallerOwner] - none if nobody has the number,
+//                                                           more than one if a household shares it
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.callerid;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+@RestController
+@RequestMapping("/api/owners")
+public class CallerIdController {
+
+	private final OwnerService ownerService;
+
+	public CallerIdController(OwnerService ownerService) {
+		this.ownerService = ownerService;
+	}  // end Constructor
+
+	@GetMapping("/callers")
+	public List<CallerOwner> callers(@RequestParam String telephone) {
+		if (Owner.telephoneDigits(telephone) == null)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a telephone number:  " + telephone);
+		return ownerService.findByTelephone(telephone).stream().map(CallerOwner::new).collect(Collectors.toList());
+	}  // end callers()
+
+}  // end class CallerIdController
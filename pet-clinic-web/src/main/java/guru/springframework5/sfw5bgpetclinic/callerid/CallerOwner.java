@@ -0,0 +1,69 @@
+//***************************************************************************
+//Class:        CallerOwner
+//
+//What the telephone system shows when an Owner calls - the Owner's details and the names of their Pets.  Not the
+//Owner entity itself (Pets refer back to their Owner, so it does not serialize).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.callerid;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+
+public class CallerOwner {
+
+	private final Long id;
+	private final String firstName;
+	private final String lastName;
+	private final String address;
+	private final String city;
+	private final String telephone;
+	private final List<String> pets;
+
+	CallerOwner(Owner owner) {
+		this.id = owner.getId();
+		this.firstName = owner.getFirstName();
+		this.lastName = owner.getLastName();
+		this.address = owner.getAddress();
+		this.city = owner.getCity();
+		this.telephone = owner.getTelephone();
+		this.pets = owner.getPets().stream().map(Pet::getName).sorted().collect(Collectors.toList());
+	}  // end Constructor
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	public String getLastName() {
+		return lastName;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public String getCity() {
+		return city;
+	}
+
+	/**
+	 * @return the number as the Owner gave it (not just the digits)
+	 */
+	public String getTelephone() {
+		return telephone;
+	}
+
+	/**
+	 * @return Pet names, alphabetical
+	 */
+	public List<String> getPets() {
+		return pets;
+	}
+
+}  // end class CallerOwner
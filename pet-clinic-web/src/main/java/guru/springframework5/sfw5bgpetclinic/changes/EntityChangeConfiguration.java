@@ -0,0 +1,24 @@
+//***************************************************************************
+//Class:        EntityChangeConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Registers EntityChangePostProcessor so every EntityChangeListener<T> bean hears about each T saved / deleted
+//through its service (see those classes).  Turning a listener off (its own enabled property) also removes
+//the proxy from the service if nothing else listens.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.changes;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class EntityChangeConfiguration {
+
+	// static - BeanPostProcessors are created before everything else; a non-static @Bean method would
+	// force this @Configuration to be created early too.
+	@Bean
+	public static EntityChangePostProcessor entityChangePostProcessor() {
+		return new EntityChangePostProcessor();
+	}
+
+}  // end class EntityChangeConfiguration
@@ -0,0 +1,71 @@
+//***************************************************************************
+//Interface:    EntityChangeListener<T>
+//
+//Implemented by beans that keep something in step with an entity type - an in-memory index, counters - and
+//so must hear about every one saved or deleted.  EntityChangePostProcessor wraps the <T> service (the
+//BaseService<T, Long> bean, i.e., VisitService for Visit) and calls every EntityChangeListener<T> bean after
+//each save / saveAll / insertAll / delete / deleteById that returned normally, on the caller's thread - or, when the call
+//ran inside a transaction, after that transaction commits (on the thread that commits it).
+//
+//Only changes made THROUGH the service are seen - JPA cascades (Owner.save saving its Pets' Visits) are not, so
+//listeners also rebuild from the data at startup.  The bulk import's JDBC batches are seen:  the
+//OwnerBatchService is wrapped too (see EntityChangePostProcessor).
+//
+//Listeners that count (analytics.VisitAnalytics) must know what a saved / deleted entity WAS, to take it off
+//again.  needsBefore() true:  before each change the entity as the service still has it (findById - null for a
+//new one) goes to before(), and what that returns comes back with saved() / deleted(), or with abandoned() if
+//the change failed or was rolled back - exactly one of the three for each before().  Map profile:  findById
+//hands back the stored object itself, so an entity changed in place before save() looks unchanged - save a
+//new object with the id, as the forms do.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.changes;
+
+public interface EntityChangeListener<T> {
+
+	/**
+	 * Entity was saved (new or changed) - as returned by the service, so it has its id.
+	 */
+	void saved(T entity);
+
+	/**
+	 * Entity with this id was deleted.
+	 */
+	void deleted(Long id);
+
+	/**
+	 * @return true to get before() ahead of each change (costs a findById per changed entity).  Default false.
+	 */
+	default boolean needsBefore() {
+		return false;
+	}
+
+	/**
+	 * Entity is about to be saved / deleted (needsBefore() listeners only, on the caller's thread).
+	 * @param current - the entity as the service has it now (null if new or not found)
+	 * @return anything - handed back to saved() / deleted() / abandoned() for this change
+	 */
+	default Object before(T current) {
+		return null;
+	}
+
+	/**
+	 * Entity was saved - before is what before() returned (null if needsBefore() is false).
+	 */
+	default void saved(T entity, Object before) {
+		saved(entity);
+	}
+
+	/**
+	 * Entity with this id was deleted - before is what before() returned (null if needsBefore() is false).
+	 */
+	default void deleted(Long id, Object before) {
+		deleted(id);
+	}
+
+	/**
+	 * The change before() was called for threw or was rolled back.
+	 */
+	default void abandoned(Object before) {
+	}
+
+}  // end interface EntityChangeListener
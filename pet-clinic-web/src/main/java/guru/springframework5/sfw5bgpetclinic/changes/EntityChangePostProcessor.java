@@ -0,0 +1,372 @@
+//***************************************************************************
+//Class:        EntityChangePostProcessor
+//Implements:   BeanPostProcessor (Spring hands every bean to this class after it is created and before
+//                                 it is injected anywhere, so it can return a wrapped version instead.)
+//
+//Wraps each BaseService<T, Long> bean for which an EntityChangeListener<T> bean is defined in a JDK dynamic
+//proxy that calls the listeners after every save / saveAll / delete / deleteById (and VisitService.insertAll) -
+//after the call returned, so a save that threw is not reported.  Inside a transaction (TransactionTemplate,
+//@Transactional) the listeners are called after it commits instead, so they never hear about a change that was
+//rolled back and anything they read back sees it.  Listeners that needsBefore() also get before() with what
+//the service had (findById / findAllById) ahead of the call, and abandoned() if it threw or rolled back.
+//Everything else passes straight through; services nobody listens to are not wrapped.
+//Same technique as ServiceMetricsPostProcessor, which runs first (Ordered) so its meters still see the service
+//IMPL, not this proxy.
+//
+//OwnerBatchService (bulk import) is not a BaseService, but its springdatajpa IMPL writes Owners, Pets and Visits
+//around their services (savesThroughServices() false).  It is wrapped too:  after each insertAll (all or
+//nothing, so after its own commit) every Owner, Pet and Visit it inserted is reported as saved to the
+//EntityChangeListener<Owner> / <Pet> / <Visit> beans, so they do not fall behind while an import runs.  The map
+//IMPL saves through the (wrapped) services, so it is left alone - the listeners already hear it.
+//
+//Ordered after the other service proxies (metrics, coalescing, cache), so listeners only hear what went
+//through them.  A Visit written behind (writebehind.VisitWriteBehind) is reported when its batch's saveAll
+//commits, not when it is queued.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.changes;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import guru.springframework5.sfw5bgpetclinic.model.BaseEntity;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.proxies.ServiceInvocationHandler;
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerBatchService;
+
+public class EntityChangePostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+	public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
+	private ListableBeanFactory beanFactory;
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.beanFactory = (ListableBeanFactory) beanFactory;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof OwnerBatchService && !((OwnerBatchService) bean).savesThroughServices())
+			return wrapOwnerBatchService(bean);
+		if (!(bean instanceof BaseService))
+			return bean;
+		Class<?> entityType = ServiceInvocationHandler.entityType(bean);
+		if (entityType == Object.class)
+			return bean;
+		ResolvableType listenerType = ResolvableType.forClassWithGenerics(EntityChangeListener.class, entityType);
+		// Names only (no eager init) - the listeners usually need services, so they cannot be created yet.
+		if (beanFactory.getBeanNamesForType(listenerType, true, false).length == 0)
+			return bean;
+		return new ChangeInvocationHandler(bean, beanFactory.getBeanProvider(listenerType)).proxy();
+	}  // end postProcessAfterInitialization()
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private Object wrapOwnerBatchService(Object bean) {
+		ObjectProvider<EntityChangeListener<Object>> owners = listeners(Owner.class);
+		ObjectProvider<EntityChangeListener<Object>> pets = listeners(Pet.class);
+		ObjectProvider<EntityChangeListener<Object>> visits = listeners(Visit.class);
+		if (owners == null && pets == null && visits == null)
+			return bean;
+		return new OwnerBatchInvocationHandler(bean, owners, pets, visits).proxy();
+	}  // end wrapOwnerBatchService()
+
+	// null if no EntityChangeListener<entityType> bean is defined.
+	private ObjectProvider<EntityChangeListener<Object>> listeners(Class<?> entityType) {
+		ResolvableType listenerType = ResolvableType.forClassWithGenerics(EntityChangeListener.class, entityType);
+		if (beanFactory.getBeanNamesForType(listenerType, true, false).length == 0)
+			return null;
+		return beanFactory.getBeanProvider(listenerType);
+	}
+
+
+	// ------------------------------------------------------
+	// The proxy's handler.
+	// ------------------------------------------------------
+	private static final class ChangeInvocationHandler extends ServiceInvocationHandler<Object> {
+		private final ObjectProvider<EntityChangeListener<Object>> listenerProvider;
+		private volatile List<EntityChangeListener<Object>> listeners;       // looked up on the first change
+
+		ChangeInvocationHandler(Object target, ObjectProvider<EntityChangeListener<Object>> listenerProvider) {
+			super(target);
+			this.listenerProvider = listenerProvider;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (!isChange(method.getName()))
+				return invokeTarget(method, args);
+			List<EntityChangeListener<Object>> listeners = listeners();
+			Object[][] befores = listeners.stream().anyMatch(EntityChangeListener::needsBefore)
+			                     ? before(listeners, current(method.getName(), args)) : new Object[listeners.size()][];
+			Object result;
+			try {
+				result = invokeTarget(method, args);
+			} catch (Throwable e) {
+				abandon(listeners, befores);
+				throw e;
+			}
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						notifyListeners(listeners, befores, method, args, result);
+					}
+
+					@Override
+					public void afterCompletion(int status) {
+						if (status != STATUS_COMMITTED)
+							abandon(listeners, befores);
+					}
+				});
+			} else {
+				notifyListeners(listeners, befores, method, args, result);
+			}
+			return result;
+		}  // end invoke()
+
+
+		private static boolean isChange(String methodName) {
+			switch (methodName) {
+				case "save":
+				case "saveAll":
+				case "insertAll":
+				case "delete":
+				case "deleteById":
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		// For the listeners' before():  the entities as the service has them now, one per entity changed (null if
+		// new / not found).
+		@SuppressWarnings("unchecked")
+		private List<Object> current(String methodName, Object[] args) {
+			BaseService<Object, Long> service = (BaseService<Object, Long>) target;
+			List<Object> current = new ArrayList<>();
+			switch (methodName) {
+				case "save":
+					current.add(find(service, (BaseEntity) args[0]));
+					break;
+				case "saveAll": {
+					List<Long> ids = new ArrayList<>();
+					for (Object entity : (Iterable<?>) args[0]) {
+						if (((BaseEntity) entity).getId() != null)
+							ids.add(((BaseEntity) entity).getId());
+					}
+					Map<Long, Object> found = new HashMap<>();
+					if (!ids.isEmpty())
+						service.findAllById(ids).forEach(entity -> found.put(((BaseEntity) entity).getId(), entity));
+					for (Object entity : (Iterable<?>) args[0])
+						current.add(found.get(((BaseEntity) entity).getId()));
+					break;
+				}
+				case "insertAll":
+					((Collection<?>) args[0]).forEach(entity -> current.add(null));
+					break;
+				case "delete":
+					if (args[0] != null)
+						current.add(find(service, (BaseEntity) args[0]));
+					break;
+				case "deleteById":
+					current.add((args[0] == null) ? null : service.findById((Long) args[0]));
+					break;
+				default:
+			}
+			return current;
+		}  // end current()
+
+		private static Object find(BaseService<Object, Long> service, BaseEntity entity) {
+			return (entity == null || entity.getId() == null) ? null : service.findById(entity.getId());
+		}
+
+		private void notifyListeners(List<EntityChangeListener<Object>> listeners, Object[][] befores, Method method,
+		                             Object[] args, Object result) {
+			for (int i = 0; i < listeners.size(); i++) {
+				EntityChangeListener<Object> listener = listeners.get(i);
+				Object[] before = befores[i];
+				switch (method.getName()) {
+					case "save":
+						if (result != null)
+							listener.saved(result, (before == null) ? null : before[0]);
+						else if (before != null)
+							listener.abandoned(before[0]);
+						break;
+					case "saveAll":
+					case "insertAll": {
+						int index = 0;
+						for (Object entity : (Iterable<?>) result)
+							listener.saved(entity, (before == null) ? null : before[index++]);
+						for ( ; before != null && index < before.length; index++)
+							listener.abandoned(before[index]);
+						break;
+					}
+					case "delete":
+						if (args[0] != null)
+							listener.deleted(((BaseEntity) args[0]).getId(), (before == null) ? null : before[0]);
+						break;
+					case "deleteById":
+						listener.deleted((Long) args[0], (before == null) ? null : before[0]);
+						break;
+					default:
+				}
+			}
+		}  // end notifyListeners()
+
+		private List<EntityChangeListener<Object>> listeners() {
+			List<EntityChangeListener<Object>> current = listeners;
+			if (current == null)
+				listeners = current = listenerProvider.orderedStream().collect(Collectors.toList());
+			return current;
+		}
+	}  // end class ChangeInvocationHandler
+
+
+	// ------------------------------------------------------
+	// OwnerBatchService proxy's handler - insertAll reports the whole graph it inserted.
+	// ------------------------------------------------------
+	private static final class OwnerBatchInvocationHandler extends ServiceInvocationHandler<Object> {
+		private final ObjectProvider<EntityChangeListener<Object>> owners;   // null = nobody listens
+		private final ObjectProvider<EntityChangeListener<Object>> pets;
+		private final ObjectProvider<EntityChangeListener<Object>> visits;
+
+		OwnerBatchInvocationHandler(Object target, ObjectProvider<EntityChangeListener<Object>> owners,
+		                            ObjectProvider<EntityChangeListener<Object>> pets,
+		                            ObjectProvider<EntityChangeListener<Object>> visits) {
+			super(target);
+			this.owners = owners;
+			this.pets = pets;
+			this.visits = visits;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (!method.getName().equals("insertAll"))
+				return invokeTarget(method, args);
+			@SuppressWarnings("unchecked")
+			List<Owner> inserted = (List<Owner>) args[0];
+			List<EntityChangeListener<Object>> ownerListeners = listeners(owners);
+			List<EntityChangeListener<Object>> petListeners = listeners(pets);
+			List<EntityChangeListener<Object>> visitListeners = listeners(visits);
+			// All of them are new - before(null) for each, for the listeners that need it.
+			List<Object> newOwners = new ArrayList<>();
+			List<Object> newPets = new ArrayList<>();
+			List<Object> newVisits = new ArrayList<>();
+			for (Owner owner : inserted) {
+				newOwners.add(null);
+				for (Pet pet : owner.getPets()) {
+					newPets.add(null);
+					pet.getVisits().forEach(visit -> newVisits.add(null));
+				}
+			}
+			Object[][] ownerBefores = before(ownerListeners, newOwners);
+			Object[][] petBefores = new Object[petListeners.size()][];
+			Object[][] visitBefores = new Object[visitListeners.size()][];
+			Object result;
+			try {
+				petBefores = before(petListeners, newPets);
+				visitBefores = before(visitListeners, newVisits);
+				result = invokeTarget(method, args);
+			} catch (Throwable e) {
+				abandon(ownerListeners, ownerBefores);
+				abandon(petListeners, petBefores);
+				abandon(visitListeners, visitBefores);
+				throw e;
+			}
+			notifyListeners(inserted, ownerListeners, ownerBefores, petListeners, petBefores, visitListeners, visitBefores);
+			return result;
+		}  // end invoke()
+
+
+		private static void notifyListeners(List<Owner> inserted,
+		                                    List<EntityChangeListener<Object>> ownerListeners, Object[][] ownerBefores,
+		                                    List<EntityChangeListener<Object>> petListeners, Object[][] petBefores,
+		                                    List<EntityChangeListener<Object>> visitListeners, Object[][] visitBefores) {
+			int ownerIndex = 0;
+			int petIndex = 0;
+			int visitIndex = 0;
+			for (Owner owner : inserted) {
+				saved(ownerListeners, ownerBefores, ownerIndex++, owner);
+				for (Pet pet : owner.getPets()) {
+					saved(petListeners, petBefores, petIndex++, pet);
+					for (Visit visit : pet.getVisits())
+						saved(visitListeners, visitBefores, visitIndex++, visit);
+				}
+			}
+		}  // end notifyListeners()
+
+		private static void saved(List<EntityChangeListener<Object>> listeners, Object[][] befores, int index, Object entity) {
+			for (int i = 0; i < listeners.size(); i++)
+				listeners.get(i).saved(entity, (befores[i] == null) ? null : befores[i][index]);
+		}
+
+		private static List<EntityChangeListener<Object>> listeners(ObjectProvider<EntityChangeListener<Object>> provider) {
+			if (provider == null)
+				return Collections.emptyList();
+			return provider.orderedStream().collect(Collectors.toList());
+		}
+	}  // end class OwnerBatchInvocationHandler
+
+
+	// ------------------------------------------------------
+	// before() / abandoned() for the listeners that needsBefore() - shared by both handlers.
+	// ------------------------------------------------------
+
+	// befores[listener][entity] - what each listener's before() returned for each entity (null row = it does not
+	// need before()).  If a before() throws, the ones already made are abandoned.
+	static Object[][] before(List<EntityChangeListener<Object>> listeners, List<Object> current) {
+		Object[][] befores = new Object[listeners.size()][];
+		for (int i = 0; i < listeners.size(); i++) {
+			EntityChangeListener<Object> listener = listeners.get(i);
+			if (!listener.needsBefore())
+				continue;
+			Object[] row = new Object[current.size()];
+			int made = 0;
+			try {
+				for ( ; made < row.length; made++)
+					row[made] = listener.before(current.get(made));
+			} catch (RuntimeException e) {
+				for (int j = 0; j < made; j++)
+					listener.abandoned(row[j]);
+				abandon(listeners, befores);
+				throw e;
+			}
+			befores[i] = row;
+		}
+		return befores;
+	}  // end before()
+
+	static void abandon(List<EntityChangeListener<Object>> listeners, Object[][] befores) {
+		for (int i = 0; i < listeners.size(); i++) {
+			if (befores[i] != null) {
+				for (Object before : befores[i])
+					listeners.get(i).abandoned(before);
+			}
+		}
+	}  // end abandon()
+
+}  // end class EntityChangePostProcessor
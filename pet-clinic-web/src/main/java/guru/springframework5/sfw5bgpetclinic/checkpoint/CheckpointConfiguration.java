@@ -0,0 +1,109 @@
+//***************************************************************************
+//Class:        CheckpointConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Checkpoint / restore (CRaC - needs a JDK with CRaC support, i.e., started with -XX:CRaCCheckpointTo=dir).
+//Turned on by the checkpoint profile (application-checkpoint.properties):
+//    petclinic.checkpoint.enabled=true          register CheckpointRestoreResource, Tomcat binds on start not init,
+//                                               Hikari pool suspension allowed
+//    petclinic.checkpoint.on-ready=true         once the application is ready (DataLoader has run) warm up and
+//                                               take the checkpoint - the JVM writes the image and exits
+//    petclinic.checkpoint.warmup-requests=N     requests sent by CheckpointWarmup first (0 = none)
+//    petclinic.checkpoint.drain-timeout-ms=N    longest wait for in-flight requests before the connectors stop
+//                                               (default 10000)
+//Without on-ready a checkpoint can still be taken any time with jcmd <pid> JDK.checkpoint.
+//Restore with java -XX:CRaCRestoreFrom=dir - see runtime/crac-test.sh.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.checkpoint;
+
+import javax.sql.DataSource;
+
+import org.apache.catalina.Lifecycle;
+import org.crac.CheckpointException;
+import org.crac.Core;
+import org.crac.RestoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.checkpoint", name = "enabled")
+public class CheckpointConfiguration {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckpointConfiguration.class);
+
+	@Bean
+	public CheckpointRestoreResource checkpointRestoreResource(ObjectProvider<DataSource> dataSource, ApplicationContext context,
+	                                                           Environment environment) {
+		long drainMillis = environment.getProperty("petclinic.checkpoint.drain-timeout-ms", Long.class, 10_000L);
+		CheckpointRestoreResource resource = new CheckpointRestoreResource(dataSource.getIfAvailable(), () -> {
+			WebServer server = ((WebServerApplicationContext) context).getWebServer();
+			if (!(server instanceof TomcatWebServer))
+				return new Lifecycle[0];
+			return ((TomcatWebServer) server).getTomcat().getService().findConnectors();
+		}, drainMillis);
+		// The global context only keeps a weak reference - the bean keeps the resource alive.
+		Core.getGlobalContext().register(resource);
+		return resource;
+	}
+
+	// CheckpointRestoreResource suspends the pool, which Hikari refuses unless this was set before the pool
+	// started - so here, before anything (schema scripts, DataLoader) takes a connection.  Static:  it must not
+	// wait for this configuration.
+	@Bean
+	public static BeanPostProcessor checkpointPoolSuspension() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource)
+					((HikariDataSource) bean).setAllowPoolSuspension(true);
+				return bean;
+			}
+		};
+	}
+
+	// Bound at init (the default) the listening socket stays open while the connector is stopped.
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> checkpointConnectorCustomizer() {
+		return factory -> factory.addConnectorCustomizers(connector -> connector.setProperty("bindOnInit", "false"));
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "petclinic.checkpoint", name = "on-ready")
+	public ApplicationListener<ApplicationReadyEvent> checkpointOnReady(Environment environment) {
+		int warmupRequests = environment.getProperty("petclinic.checkpoint.warmup-requests", Integer.class, 5000);
+		return event -> {
+			int port = ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort();
+			try {
+				long start = System.nanoTime();
+				int failed = new CheckpointWarmup("http://localhost:" + port).run(warmupRequests);
+				log.info("Checkpoint warmup:  {} requests ({} not 200) in {} ms", warmupRequests, failed,
+				         (System.nanoTime() - start) / 1_000_000);
+				// Returns in the RESTORED process (the checkpointing one exits once the image is written).
+				Core.checkpointRestore();
+				log.info("Restored from checkpoint");
+			} catch (CheckpointException | RestoreException | UnsupportedOperationException e) {
+				// Not a CRaC JDK, or something (a file, a socket) was left open - keep serving without a checkpoint.
+				log.warn("Checkpoint not taken - continuing without", e);
+			} catch (Exception e) {
+				log.warn("Checkpoint warmup failed - continuing without", e);
+			}
+		};
+	}
+
+}  // end class CheckpointConfiguration
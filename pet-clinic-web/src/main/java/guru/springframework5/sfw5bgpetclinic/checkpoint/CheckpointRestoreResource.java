@@ -0,0 +1,116 @@
+//***************************************************************************
+//Class:        CheckpointRestoreResource
+//Implements:   org.crac.Resource (the JVM calls beforeCheckpoint() before it writes the process image and
+//                     afterRestore() when a process is restored from it.)
+//
+//A checkpoint cannot contain open sockets or files, so around the checkpoint this
+//  - pauses the Tomcat connectors (no new requests are taken) and waits, at most drainMillis, for the
+//    requests already being served to finish - stopping a connector recycles the request objects, and a
+//    request still in the filter chain then fails (i.e., WebMvcMetricsFilter reads a null method)
+//  - stops the Tomcat connectors:  closes the listening socket and open keep-alive connections
+//    (connectors are created with bindOnInit=false - see CheckpointConfiguration - so stop() unbinds)
+//  - suspends the Hikari pool and evicts its connections:  closes the JDBC connections (sockets for MySQL;
+//    H2 in-memory has none, but is handled the same way).  Suspended, the pool does not open new ones.
+//and after restore resumes the pool (it refills to minimumIdle) and starts the connectors (binds again).
+//
+//The in-memory H2 database lives on the heap, so its data (DataLoader's mock data and anything created
+//before the checkpoint) is in the image.  DataLoader itself ran before the checkpoint and does not run again.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.checkpoint;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.crac.Context;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+public class CheckpointRestoreResource implements Resource {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckpointRestoreResource.class);
+
+	private final DataSource dataSource;             // null if no data source (map profile)
+	private final Supplier<Lifecycle[]> connectors;  // Tomcat connectors - they only exist once the server is created
+	private final long drainMillis;                  // longest wait for in-flight requests before stopping anyway
+
+	public CheckpointRestoreResource(DataSource dataSource, Supplier<Lifecycle[]> connectors, long drainMillis) {
+		this.dataSource = dataSource;
+		this.connectors = connectors;
+		this.drainMillis = drainMillis;
+	}  // end Constructor
+
+	@Override
+	public void beforeCheckpoint(Context<? extends Resource> context) throws Exception {
+		// Stop taking requests first, let the ones in flight finish, then close the connections they would use.
+		Lifecycle[] all = connectors.get();
+		for (Lifecycle connector : all) {
+			if (connector instanceof Connector)
+				((Connector) connector).pause();
+		}
+		for (Lifecycle connector : all) {
+			if (connector instanceof Connector)
+				drain((Connector) connector);
+		}
+		for (Lifecycle connector : all) {
+			// server.port=0 - rebind to the port it has now, not to a new random one.
+			if (connector instanceof Connector && ((Connector) connector).getPort() == 0)
+				((Connector) connector).setPort(((Connector) connector).getLocalPort());
+			connector.stop();
+			log.info("Checkpoint:  stopped {}", connector);
+		}
+		HikariPoolMXBean pool = pool();
+		if (pool != null) {
+			pool.suspendPool();
+			pool.softEvictConnections();   // active connections are closed as soon as they are returned
+			log.info("Checkpoint:  suspended connection pool ({} connections left)", pool.getTotalConnections());
+		}
+	}  // end beforeCheckpoint()
+
+	@Override
+	public void afterRestore(Context<? extends Resource> context) throws LifecycleException {
+		HikariPoolMXBean pool = pool();
+		if (pool != null) {
+			pool.resumePool();
+			log.info("Restore:  resumed connection pool");
+		}
+		for (Lifecycle connector : connectors.get()) {
+			connector.start();
+			log.info("Restore:  started {}", connector);
+		}
+	}  // end afterRestore()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// Wait until no request thread of the connector is busy, or drainMillis passed.
+	private void drain(Connector connector) throws InterruptedException {
+		Executor executor = connector.getProtocolHandler().getExecutor();
+		if (!(executor instanceof ThreadPoolExecutor))
+			return;
+		long deadline = System.nanoTime() + drainMillis * 1_000_000;
+		int active;
+		while ( ((active = ((ThreadPoolExecutor) executor).getActiveCount()) > 0) && (System.nanoTime() < deadline) )
+			Thread.sleep(10);
+		if (active > 0)
+			log.warn("Checkpoint:  {} requests still running on {} after {} ms - stopping anyway", active, connector, drainMillis);
+	}
+
+	private HikariPoolMXBean pool() {
+		if (!(dataSource instanceof HikariDataSource))
+			return null;
+		return ((HikariDataSource) dataSource).getHikariPoolMXBean();
+	}
+
+}  // end class CheckpointRestoreResource
@@ -0,0 +1,52 @@
+//***************************************************************************
+//Class:        CheckpointWarmup
+//
+//Drives the read-only OwnerController and VetController pages over HTTP on the local port before the
+//checkpoint, so the request path (dispatching, Thymeleaf rendering, Hibernate queries, Jackson for
+///api/vets) is loaded and JIT compiled in the image instead of in the interpreter for the first few
+//thousand requests after every restore.
+//
+//GET only - the warmup must not change the data the restored processes start with.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.checkpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+public class CheckpointWarmup {
+
+	// The pages the checkpoint is meant to warm up.  /owners/1 and /owners/2 exist when DataLoader ran.
+	static final String[] PATHS = {
+			"/owners/find", "/owners?lastName=", "/owners/1", "/owners/2", "/vets.html", "/api/vets"
+	};
+
+	private final String baseUrl;
+
+	public CheckpointWarmup(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}  // end Constructor
+
+	/**
+	 * Send the requests (round robin over PATHS), reading every response body fully.
+	 * @param requests - total number of requests
+	 * @return number of requests that did not answer 200
+	 */
+	public int run(int requests) throws IOException {
+		int failed = 0;
+		byte[] buffer = new byte[8192];
+		for (int i = 0; i < requests; i++) {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + PATHS[i % PATHS.length]).openConnection();
+			int status = connection.getResponseCode();
+			if (status != 200)
+				failed++;
+			try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+				while (body != null && body.read(buffer) != -1)
+					;   // drain so the keep-alive connection is reused
+			}
+		}
+		return failed;
+	}  // end run()
+
+}  // end class CheckpointWarmup
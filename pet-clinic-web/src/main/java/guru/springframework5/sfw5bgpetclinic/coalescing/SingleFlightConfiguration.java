@@ -0,0 +1,43 @@
+//***************************************************************************
+//Class:        SingleFlightConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Registers SingleFlightPostProcessor so concurrent findById calls for the same id share one load (see that
+//class).  Controlled by application.properties:
+//    petclinic.coalescing.enabled=true|false      (default true)
+//    petclinic.coalescing.entities=Owner,Pet      (entity simple names whose services coalesce - default Owner,Pet)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.coalescing;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.coalescing", name = "enabled", matchIfMissing = true)
+public class SingleFlightConfiguration {
+
+	// static - BeanPostProcessors are created before everything else; a non-static @Bean method would
+	// force this @Configuration to be created early too.
+	@Bean
+	public static SingleFlightPostProcessor singleFlightPostProcessor(ObjectProvider<MeterRegistry> registryProvider,
+	                                                                  Environment environment) {
+		Set<String> entities = Arrays.stream(environment.getProperty("petclinic.coalescing.entities", "Owner,Pet").split(","))
+		                             .map(String::trim)
+		                             .filter(entity -> !entity.isEmpty())
+		                             .collect(Collectors.toSet());
+		// The map IMPLs hand every caller the stored object itself, so a shared result is nothing new there.
+		boolean sharedEntities = !environment.acceptsProfiles(Profiles.of("springdatajpa"));
+		return new SingleFlightPostProcessor(registryProvider, entities, sharedEntities);
+	}
+
+}  // end class SingleFlightConfiguration
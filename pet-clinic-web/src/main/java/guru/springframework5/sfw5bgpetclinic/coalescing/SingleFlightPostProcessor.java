@@ -0,0 +1,270 @@
+//***************************************************************************
+//Class:        SingleFlightPostProcessor
+//Implements:   BeanPostProcessor (Spring hands every bean to this class after it is created and before
+//                                 it is injected anywhere, so it can return a wrapped version instead.)
+//
+//Single flight for findById:  wraps the BaseService<T, Long> bean of every entity type listed in
+//petclinic.coalescing.entities in a JDK dynamic proxy.  The first findById(id) to arrive runs the load (the
+//leader); findById(id) calls arriving while it runs wait for it and get the same result - or the same
+//exception - instead of running their own.  A herd of requests for one popular Owner page costs one load.
+//Nothing is kept once the load returns:  this is not a cache, the next call runs its own load.
+//
+//A save / saveAll / delete / deleteById through the proxy drops the load in flight for that id, so callers
+//arriving after the write returned never join a load that started before it.
+//
+//What a joiner gets depends on the caller:
+//  - map IMPLs:  every caller gets the stored object anyway, so the result itself is shared.
+//  - springdatajpa, no persistence context bound (background threads):  the result is detached, shared as is.
+//  - springdatajpa, persistence context but no transaction (web requests - spring.jpa.open-in-view):  the
+//    leader keeps its own managed entity and, if anyone joined, copies the whole aggregate
+//    (cache.DetachedCopies) while its persistence context can still load it; each joiner gets its own copy of
+//    that - as a near-cache hit would - so nobody shares another thread's managed entity.  Callers only join
+//    loads of the same kind.
+//  - springdatajpa, inside a transaction:  runs its own load (counted as bypassed) - it may write what it
+//    reads, and must see its own persistence context.  So do entity types with no copy (not Owner / Pet).
+//
+//Metrics (actuator /metrics), tagged entity (Owner):
+//    petclinic.coalescing.calls    Counter - findById calls; result=led (ran the load) | joined (shared one)
+//                                  | bypassed (ran its own - not allowed to share)
+//    petclinic.coalescing.ratio    Gauge - joined / (led + joined), the share of loads saved
+//
+//Ordered after ServiceMetricsPostProcessor, so its petclinic.service.calls count only the loads actually run,
+//and before cache.OwnerNearCachePostProcessor, so the cache's misses coalesce.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.coalescing;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import guru.springframework5.sfw5bgpetclinic.cache.DetachedCopies;
+import guru.springframework5.sfw5bgpetclinic.model.BaseEntity;
+import guru.springframework5.sfw5bgpetclinic.proxies.ServiceInvocationHandler;
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class SingleFlightPostProcessor implements BeanPostProcessor, Ordered {
+
+	private static final Logger log = LoggerFactory.getLogger(SingleFlightPostProcessor.class);
+
+	public static final String CALLS = "petclinic.coalescing.calls";
+	public static final String RATIO = "petclinic.coalescing.ratio";
+
+	// ObjectProvider so the MeterRegistry is not created while BeanPostProcessors are being registered.
+	private final ObjectProvider<MeterRegistry> registryProvider;
+	private final Set<String> entities;
+	private final boolean sharedEntities;
+
+	/**
+	 * @param entities - simple names of the entity types to coalesce (Owner, Pet)
+	 * @param sharedEntities - true if the services hand every caller the same objects anyway (map IMPLs)
+	 */
+	public SingleFlightPostProcessor(ObjectProvider<MeterRegistry> registryProvider, Set<String> entities,
+	                                 boolean sharedEntities) {
+		this.registryProvider = registryProvider;
+		this.entities = entities;
+		this.sharedEntities = sharedEntities;
+	}  // end Constructor
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!(bean instanceof BaseService))
+			return bean;
+		Class<?> entityType = ServiceInvocationHandler.entityType(bean);
+		if (!entities.contains(entityType.getSimpleName()))
+			return bean;
+		return coalesce(bean, registryProvider.getObject(), sharedEntities);
+	}  // end postProcessAfterInitialization()
+
+	@Override
+	public int getOrder() {
+		return 0;
+	}
+
+	/**
+	 * Wrap the given service in a proxy coalescing concurrent findById calls for the same id.
+	 * Public and static so tests can wrap a service without a Spring context.
+	 * @param service any BaseService implementation
+	 * @param sharedEntities - true to share the result with every caller, false to copy it for callers with a
+	 *                         persistence context (and not coalesce callers in a transaction)
+	 * @return proxy implementing all of the service's interfaces
+	 */
+	public static Object coalesce(Object service, MeterRegistry registry, boolean sharedEntities) {
+		Class<?> entityType = ServiceInvocationHandler.entityType(service);
+		SingleFlightInvocationHandler handler = new SingleFlightInvocationHandler(service, sharedEntities,
+		                                                                          DetachedCopies.copier(entityType));
+
+		String entity = entityType.getSimpleName();
+		FunctionCounter.builder(CALLS, handler.led, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "led")
+		               .register(registry);
+		FunctionCounter.builder(CALLS, handler.joined, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "joined")
+		               .register(registry);
+		FunctionCounter.builder(CALLS, handler.bypassed, LongAdder::sum)
+		               .description("findById calls by how they were answered").tags("entity", entity, "result", "bypassed")
+		               .register(registry);
+		Gauge.builder(RATIO, handler, SingleFlightInvocationHandler::ratio)
+		     .description("Share of coalescable findById calls that joined a load in flight").tag("entity", entity)
+		     .register(registry);
+
+		return handler.proxy();
+	}  // end coalesce()
+
+
+	// ------------------------------------------------------
+	// The proxy's handler.  Everything but findById and the writes passes straight through.
+	// ------------------------------------------------------
+	private static final class SingleFlightInvocationHandler extends ServiceInvocationHandler<Object> {
+
+		// Handed to the joiners of a copying load whose copy failed - each runs its own load instead.
+		private static final Object OWN_LOAD = new Object();
+
+		// One load in flight.  The joiners of a copying load register first, so its leader only copies if
+		// somebody is waiting - and nobody registers once it has looked.
+		private static final class Flight {
+			final CompletableFuture<Object> result = new CompletableFuture<>();
+			private int joiners;
+			private boolean closed;
+
+			synchronized boolean join() {
+				if (!closed)
+					joiners++;
+				return !closed;
+			}
+
+			synchronized boolean close() {
+				closed = true;
+				return joiners > 0;
+			}
+		}
+
+		private final boolean sharedEntities;
+		private final UnaryOperator<Object> copier;
+		private final ConcurrentHashMap<Object, Flight> inFlight = new ConcurrentHashMap<>();         // shared results
+		private final ConcurrentHashMap<Object, Flight> inFlightCopied = new ConcurrentHashMap<>();   // copied results
+		private final LongAdder led = new LongAdder();
+		private final LongAdder joined = new LongAdder();
+		private final LongAdder bypassed = new LongAdder();
+
+		SingleFlightInvocationHandler(Object target, boolean sharedEntities, UnaryOperator<Object> copier) {
+			super(target);
+			this.sharedEntities = sharedEntities;
+			this.copier = copier;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "findById":
+					if (args[0] == null)
+						return invokeTarget(method, args);        // whatever the service does with null
+					if (sharedEntities || TransactionSynchronizationManager.getResourceMap().isEmpty())
+						return load(method, args, inFlight, null);
+					if (copier == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+						bypassed.increment();
+						return invokeTarget(method, args);
+					}
+					return load(method, args, inFlightCopied, copier);
+				case "save":
+				case "delete": {
+					Object result = invokeTarget(method, args);
+					Object entity = method.getName().equals("save") ? result : args[0];
+					if (entity instanceof BaseEntity)
+						forget(((BaseEntity) entity).getId());
+					return result;
+				}
+				case "saveAll": {
+					Object result = invokeTarget(method, args);
+					for (Object entity : (Iterable<?>) result)
+						forget(((BaseEntity) entity).getId());
+					return result;
+				}
+				case "deleteById": {
+					Object result = invokeTarget(method, args);
+					forget(args[0]);
+					return result;
+				}
+				default:
+					return invokeTarget(method, args);
+			}
+		}  // end invoke()
+
+		// copy - null to share the leader's result as is
+		private Object load(Method method, Object[] args, ConcurrentHashMap<Object, Flight> flights,
+		                    UnaryOperator<Object> copy) throws Throwable {
+			Object id = args[0];
+			Flight mine = new Flight();
+			Flight running = flights.putIfAbsent(id, mine);
+			if (running != null) {
+				if (copy != null && !running.join()) {
+					led.increment();                          // its leader is done with it - load alone
+					return invokeTarget(method, args);
+				}
+				joined.increment();
+				Object result;
+				try {
+					result = running.result.join();
+				} catch (CompletionException e) {
+					throw e.getCause();                       // what the leader's load threw
+				}
+				if (copy == null || result == null)
+					return result;
+				return (result == OWN_LOAD) ? invokeTarget(method, args) : copy.apply(result);
+			}
+			led.increment();
+			try {
+				Object result = invokeTarget(method, args);
+				mine.result.complete((copy == null) ? result : share(mine, result, copy));
+				return result;
+			} catch (Throwable t) {
+				mine.result.completeExceptionally(t);
+				throw t;
+			} finally {
+				flights.remove(id, mine);                     // not if a write already dropped it (and another started)
+			}
+		}  // end load()
+
+		// What the joiners of a copying load copy from:  a copy made on the leader's thread, with its persistence
+		// context.  Nothing if nobody joined.
+		private static Object share(Flight flight, Object result, UnaryOperator<Object> copy) {
+			if (!flight.close() || result == null)
+				return null;
+			try {
+				return copy.apply(result);
+			} catch (RuntimeException e) {                    // i.e., a lazy collection it cannot load
+				log.debug("Could not copy {} for the callers waiting on it", result, e);
+				return OWN_LOAD;
+			}
+		}  // end share()
+
+		private void forget(Object id) {
+			if (id != null) {
+				inFlight.remove(id);
+				inFlightCopied.remove(id);
+			}
+		}
+
+		double ratio() {
+			long joins = joined.sum();
+			long total = led.sum() + joins;
+			return (total == 0) ? 0.0 : (double) joins / total;
+		}
+
+	}  // end class SingleFlightInvocationHandler
+
+}  // end class SingleFlightPostProcessor
@@ -17,6 +17,9 @@
 package guru.springframework5.sfw5bgpetclinic.controllers;
 
 import java.util.HashSet;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -26,8 +29,12 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.search.NameMatch;
+import guru.springframework5.sfw5bgpetclinic.search.OwnerNameSearch;
+import guru.springframework5.sfw5bgpetclinic.search.OwnerSearchFilter;
 import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
 
 @Controller                   // Tell Spring this is a Spring MVC Controller to be instantiated.
@@ -38,6 +45,8 @@ public class OwnerController {
 	// Attriutes
 	// --------------------------------------------------------------
 	private final OwnerService ownerService;   // Interface - So actual instance can be MAP, DB, etc. 
+	private final ObjectProvider<OwnerNameSearch> ownerNameSearch;   // "Did you mean" names - none if turned off
+	private final ObjectProvider<OwnerSearchFilter> ownerSearchFilter;   // Searches nobody can match - none if turned off
 	
 	// --------------------------------------------------------------
 	// Constructor 
@@ -47,8 +56,11 @@ public class OwnerController {
 	// Component Scan sees @Controller and instantiates OwnerController bean; thereby using Constructor and 
 	// injecting OwnerService (which is a @Service and therefore available for Spring Context to see). 
 	// So far, only one OwnerService IMPL (for Map) therefore no need Profile to determine which to use. 
-	public OwnerController (OwnerService ownerService) {
+	public OwnerController (OwnerService ownerService, ObjectProvider<OwnerNameSearch> ownerNameSearch,
+	                        ObjectProvider<OwnerSearchFilter> ownerSearchFilter) {
 		this.ownerService = ownerService;
+		this.ownerNameSearch = ownerNameSearch;
+		this.ownerSearchFilter = ownerSearchFilter;
 	}  // end constructor
 
 	// --------------------------------------------------------------
@@ -83,7 +95,7 @@ public class OwnerController {
     // Process "find" form:  URL /owners
     // -------------------------
     // Process requested Owner search and redirect to appropriate page to display results.
-    // - If none found, go back to findOwners with not found message
+    // - If none found, go back to findOwners with not found message (and last names a typo or two away, if any)
     // - If 1 found, show details on that Owner. 
     // - If multiple, show list and let user select Owner to detail.
     // @param Owner owner - lastName attribute holds search string
@@ -96,10 +108,26 @@ public class OwnerController {
     		owner.setLastName("");
     	
     	// Find Owner(s) by last name.  Spring Data JPA allows "%" to search any chars before/after string.  
-    	HashSet<Owner> results = this.ownerService.findAllByLastNameLike("%" + owner.getLastName() + "%");
+    	// Skip the query when the search filter knows no last name has the letters typed (only a "maybe" runs it).
+    	String lastNameLike = "%" + owner.getLastName() + "%";
+    	OwnerSearchFilter filter = ownerSearchFilter.getIfAvailable();
+    	HashSet<Owner> results;
+    	if (filter != null && !filter.mightMatch(lastNameLike)) {
+    		results = new HashSet<>();
+    	} else {
+    		results = this.ownerService.findAllByLastNameLike(lastNameLike);
+    		if (filter != null && results.isEmpty())
+    			filter.foundNothing();
+    	}
     	if (results.isEmpty()) {  
     		// No owners found - Find Owners page displays "not found" 
     		result.rejectValue("lastName",  "notFound", "Not found");
+    		OwnerNameSearch nameSearch = ownerNameSearch.getIfAvailable();
+    		if (nameSearch != null && !owner.getLastName().trim().isEmpty()) {
+    			List<NameMatch> similar = nameSearch.similarLastNames(owner.getLastName());
+    			if (!similar.isEmpty())
+    				model.addAttribute("similarLastNames", similar);
+    		}
     		return "owners/findOwners";  // returns page to display
     	} else if (results.size() == 1) {
     		// 1 Owner found.  Display details of that Owner with showOwner page 
@@ -113,7 +141,28 @@ public class OwnerController {
     	}
     }  // end procesFindForm 
 
-    
+
+    // -------------------------
+    // Incoming call:  URL /owners/calls?telephone=(617) 555-0000
+    // -------------------------
+    // For the telephone system's screen pop - the caller's number in any format (see OwnerService.findByTelephone). 
+    // - If nobody has the number, the new Owner form with the number filled in. 
+    // - If 1 Owner has it, show details on that Owner. 
+    // - If a household shares it, show the list. 
+    @GetMapping("/calls")
+    public String processIncomingCall(@RequestParam String telephone, Model model) {
+    	List<Owner> callers = ownerService.findByTelephone(telephone);
+    	if (callers.isEmpty()) {
+    		model.addAttribute("owner", Owner.builder().telephone(Owner.telephoneDigits(telephone)).build());
+    		return "owners/createOrUpdateOwner";
+    	} else if (callers.size() == 1) {
+    		return "redirect:/owners/" + callers.get(0).getId();
+    	} else {
+    		model.addAttribute("owners", callers);
+    		return "owners/listOwners";
+    	}
+    }  // end processIncomingCall
+
     @GetMapping("/{ownerId}")  // /owners is a/w controller class; add /{ownerId}
     public String showOwner(@PathVariable String ownerId, Model model) {
     	Owner owner = ownerService.findById(Long.valueOf(ownerId));
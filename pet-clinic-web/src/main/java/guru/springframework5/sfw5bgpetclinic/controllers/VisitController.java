@@ -14,8 +14,12 @@ package guru.springframework5.sfw5bgpetclinic.controllers;
 //view name "hello." Recall when jsp, ViewResolver added prefix/suffix to 
 //tell where to find file and to add ".jsp."  When Thymeleaf, default looks in 
 //templates and finds hello.html.
+//
+//A new Visit from the form is written behind (writebehind.VisitWriteBehind.saveLater) when the write-behind is
+//on - the Owner page it redirects to may not show it for a moment.  Otherwise, and for updates, VisitService.save.
 //*************************************************************************** 
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.ui.Model;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
@@ -32,6 +36,7 @@ import guru.springframework5.sfw5bgpetclinic.model.Pet;
 import guru.springframework5.sfw5bgpetclinic.model.Visit;
 import guru.springframework5.sfw5bgpetclinic.services.PetService;
 import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.writebehind.VisitWriteBehind;
 
 @Controller							// Tell Spring this is an MVC Controller to be instantiated.
 @RequestMapping ("/owners/{ownerId}/pets/{petId}") 	// Base mapping prefixed to mappings a/w handler method
@@ -43,6 +48,7 @@ public class VisitController {
 	// --------------------------------------------------------------
 	private final PetService petService;
 	private final VisitService visitService;
+	private final ObjectProvider<VisitWriteBehind> writeBehindProvider;   // none unless the write-behind is on
 
 	// --------------------------------------------------------------
 	// Constructor 
@@ -52,9 +58,11 @@ public class VisitController {
 	// Component Scan sees @Controller and instantiates VisitController bean; thereby using Constructor and 
 	// injecting PetService (which is a @Service and therefore available for Spring Context to see). 
 	// Profile determines which IMPL to use.  
-	public VisitController (PetService petService, VisitService visitService) {
+	public VisitController (PetService petService, VisitService visitService,
+	                        ObjectProvider<VisitWriteBehind> writeBehindProvider) {
 		this.petService = petService;
 		this.visitService = visitService;
+		this.writeBehindProvider = writeBehindProvider;
 	}  // end constructor
 
 	// --------------------------------------------------------------
@@ -124,7 +132,11 @@ public class VisitController {
 		} else {
 			// Updates valid.  Save and display pet with updated visit info.
 			// When redirect, controller will re-retrive pet and grab all visits (including new saved visit).
-			visitService.save(visit);
+			VisitWriteBehind writeBehind = writeBehindProvider.getIfAvailable();
+			if ( (writeBehind != null) && VisitWriteBehind.canSaveLater(visit) )
+				writeBehind.saveLater(visit);
+			else
+				visitService.save(visit);
 			return "redirect:/owners/" + visit.getPet().getOwner().getId();
 		}
 	}
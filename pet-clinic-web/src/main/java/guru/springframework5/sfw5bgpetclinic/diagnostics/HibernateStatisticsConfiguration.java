@@ -0,0 +1,54 @@
+//***************************************************************************
+//Class:        HibernateStatisticsConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Turns on Hibernate statistics (hibernate.generate_statistics), installs SlowQueryStatistics so slow
+//queries go to the SlowQueryLog, and registers the /actuator/hibernate endpoint.  With statistics on,
+//Spring Boot also binds the hibernate.* Micrometer meters (/actuator/metrics/hibernate.query.executions ...).
+//Controlled by application.properties:
+//    petclinic.diagnostics.hibernate.enabled=true|false          (default true)
+//    petclinic.diagnostics.hibernate.slow-query-threshold-ms=N   (default 50)
+//    petclinic.diagnostics.hibernate.slow-query-sample-rate=R    (default 1.0 - keep every slow query)
+//    petclinic.diagnostics.hibernate.slow-query-capacity=N       (default 100 - ring buffer size)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.diagnostics.hibernate", name = "enabled", matchIfMissing = true)
+public class HibernateStatisticsConfiguration {
+
+	@Bean
+	public SlowQueryLog slowQueryLog(@Value("${petclinic.diagnostics.hibernate.slow-query-capacity:100}") int capacity,
+	                                 @Value("${petclinic.diagnostics.hibernate.slow-query-threshold-ms:50}") long thresholdMillis,
+	                                 @Value("${petclinic.diagnostics.hibernate.slow-query-sample-rate:1.0}") double sampleRate) {
+		return new SlowQueryLog(capacity, thresholdMillis, sampleRate);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer hibernateStatisticsCustomizer(SlowQueryLog slowQueryLog) {
+		StatisticsFactory statisticsFactory = sessionFactory -> new SlowQueryStatistics(sessionFactory, slowQueryLog);
+		return hibernateProperties -> {
+			hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+			hibernateProperties.put(StatisticsInitiator.STATS_BUILDER, statisticsFactory);
+		};
+	}
+
+	@Bean
+	public HibernateStatisticsEndpoint hibernateStatisticsEndpoint(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+	                                                               SlowQueryLog slowQueryLog) {
+		return new HibernateStatisticsEndpoint(entityManagerFactory, slowQueryLog);
+	}
+
+}  // end class HibernateStatisticsConfiguration
@@ -0,0 +1,218 @@
+//***************************************************************************
+//Class:        HibernateStatisticsEndpoint
+//Stereotype:   @Endpoint  Actuator endpoint /actuator/hibernate (exposed in application.properties)
+//
+//Hibernate Statistics for the springdatajpa profile - the place to find which repository call hurts:
+//    GET    /actuator/hibernate            everything below
+//    GET    /actuator/hibernate/{section}  one of: summary, queries, entities, collections, caches, slowQueries
+//    DELETE /actuator/hibernate            reset the counters and the slow query log
+//  summary      session / transaction / statement / flush counts, entity and collection load / fetch counts,
+//               query counts with the slowest query, second-level and query cache hit ratios
+//  queries      per HQL / SQL query: executions, rows, avg / max / min / total ms - slowest total first
+//  entities     per entity: loads, fetches, inserts, updates, deletes
+//  collections  per collection role (Owner.pets, ...): loads, fetches, recreates, updates, removes
+//  caches       per second-level cache region: hits, misses, puts, hit ratio
+//  slowQueries  SlowQueryLog - sampled recent queries over the threshold, newest first
+//Note:  Repository findById uses EntityManager.find - it shows up as an entity load, not a query.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+	// ObjectProvider - actuator creates every endpoint at startup; looking the EntityManagerFactory up only on
+	// the first read keeps this endpoint from forcing (or waiting for) JPA to start up (deferred bootstrap).
+	private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+	private final SlowQueryLog slowQueryLog;
+	private volatile Statistics cachedStatistics;
+
+	public HibernateStatisticsEndpoint(ObjectProvider<EntityManagerFactory> entityManagerFactory, SlowQueryLog slowQueryLog) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.slowQueryLog = slowQueryLog;
+	}  // end Constructor
+
+	@ReadOperation
+	public Map<String, Object> all() {
+		Map<String, Object> all = new LinkedHashMap<>();
+		all.put("summary", summary());
+		all.put("queries", queries());
+		all.put("entities", entities());
+		all.put("collections", collections());
+		all.put("caches", caches());
+		all.put("slowQueries", slowQueries());
+		return all;
+	}
+
+	@ReadOperation
+	public Object section(@Selector String section) {
+		switch (section) {
+			case "summary":     return summary();
+			case "queries":     return queries();
+			case "entities":    return entities();
+			case "collections": return collections();
+			case "caches":      return caches();
+			case "slowQueries": return slowQueries();
+			default:            return null;   // actuator answers 404
+		}
+	}
+
+	@DeleteOperation
+	public void reset() {
+		Statistics statistics = statistics();
+		statistics.clear();
+		slowQueryLog.clear();
+	}
+
+
+	// ------------------------------------------------------
+	// Sections
+	// ------------------------------------------------------
+
+	private Map<String, Object> summary() {
+		Statistics statistics = statistics();
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("statisticsEnabled", statistics.isStatisticsEnabled());
+		summary.put("sessionsOpened", statistics.getSessionOpenCount());
+		summary.put("sessionsClosed", statistics.getSessionCloseCount());
+		summary.put("transactions", statistics.getTransactionCount());
+		summary.put("connectionsObtained", statistics.getConnectCount());
+		summary.put("statementsPrepared", statistics.getPrepareStatementCount());
+		summary.put("flushes", statistics.getFlushCount());
+		summary.put("entityLoads", statistics.getEntityLoadCount());
+		summary.put("entityFetches", statistics.getEntityFetchCount());
+		summary.put("entityInserts", statistics.getEntityInsertCount());
+		summary.put("entityUpdates", statistics.getEntityUpdateCount());
+		summary.put("entityDeletes", statistics.getEntityDeleteCount());
+		summary.put("collectionLoads", statistics.getCollectionLoadCount());
+		summary.put("collectionFetches", statistics.getCollectionFetchCount());
+		summary.put("queryExecutions", statistics.getQueryExecutionCount());
+		summary.put("queryExecutionMaxMillis", statistics.getQueryExecutionMaxTime());
+		summary.put("queryExecutionMaxQuery", statistics.getQueryExecutionMaxTimeQueryString());
+		summary.put("secondLevelCache", ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+		                                      statistics.getSecondLevelCachePutCount()));
+		summary.put("queryCache", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+		                                statistics.getQueryCachePutCount()));
+		summary.put("optimisticFailures", statistics.getOptimisticFailureCount());
+		return summary;
+	}
+
+	private List<Map<String, Object>> queries() {
+		Statistics statistics = statistics();
+		List<String> queries = new ArrayList<>(Arrays.asList(statistics.getQueries()));
+		queries.sort(Comparator.comparingLong((String query) -> statistics.getQueryStatistics(query).getExecutionTotalTime()).reversed());
+
+		List<Map<String, Object>> result = new ArrayList<>(queries.size());
+		for (String query : queries) {
+			QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("query", guru.springframework5.sfw5bgpetclinic.diagnostics.QueryStatistics.shape(query));   // ours - not org.hibernate.stat.QueryStatistics
+			entry.put("executions", queryStatistics.getExecutionCount());
+			entry.put("rows", queryStatistics.getExecutionRowCount());
+			entry.put("avgMillis", queryStatistics.getExecutionAvgTimeAsDouble());
+			entry.put("maxMillis", queryStatistics.getExecutionMaxTime());
+			entry.put("minMillis", queryStatistics.getExecutionMinTime());
+			entry.put("totalMillis", queryStatistics.getExecutionTotalTime());
+			result.add(entry);
+		}
+		return result;
+	}
+
+	private Map<String, Object> entities() {
+		Statistics statistics = statistics();
+		Map<String, Object> entities = new LinkedHashMap<>();
+		for (String name : statistics.getEntityNames()) {
+			EntityStatistics entityStatistics = statistics.getEntityStatistics(name);
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("loads", entityStatistics.getLoadCount());
+			entry.put("fetches", entityStatistics.getFetchCount());
+			entry.put("inserts", entityStatistics.getInsertCount());
+			entry.put("updates", entityStatistics.getUpdateCount());
+			entry.put("deletes", entityStatistics.getDeleteCount());
+			entities.put(shortName(name), entry);
+		}
+		return entities;
+	}
+
+	private Map<String, Object> collections() {
+		Statistics statistics = statistics();
+		Map<String, Object> collections = new LinkedHashMap<>();
+		for (String role : statistics.getCollectionRoleNames()) {
+			CollectionStatistics collectionStatistics = statistics.getCollectionStatistics(role);
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("loads", collectionStatistics.getLoadCount());
+			entry.put("fetches", collectionStatistics.getFetchCount());
+			entry.put("recreates", collectionStatistics.getRecreateCount());
+			entry.put("updates", collectionStatistics.getUpdateCount());
+			entry.put("removes", collectionStatistics.getRemoveCount());
+			collections.put(shortName(role), entry);
+		}
+		return collections;
+	}
+
+	private Map<String, Object> caches() {
+		Statistics statistics = statistics();
+		Map<String, Object> caches = new LinkedHashMap<>();
+		for (String region : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+			if (regionStatistics != null)
+				caches.put(region, ratio(regionStatistics.getHitCount(), regionStatistics.getMissCount(), regionStatistics.getPutCount()));
+		}
+		return caches;
+	}
+
+	private Map<String, Object> slowQueries() {
+		Map<String, Object> slowQueries = new LinkedHashMap<>();
+		slowQueries.put("thresholdMillis", slowQueryLog.getThresholdMillis());
+		slowQueries.put("sampleRate", slowQueryLog.getSampleRate());
+		slowQueries.put("entries", slowQueryLog.getEntries());
+		return slowQueries;
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private Statistics statistics() {
+		if (cachedStatistics == null)
+			cachedStatistics = entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics();
+		return cachedStatistics;
+	}
+
+	private static Map<String, Object> ratio(long hits, long misses, long puts) {
+		Map<String, Object> ratio = new LinkedHashMap<>();
+		ratio.put("hits", hits);
+		ratio.put("misses", misses);
+		ratio.put("puts", puts);
+		ratio.put("hitRatio", (hits + misses) == 0 ? 0.0 : (double) hits / (hits + misses));
+		return ratio;
+	}
+
+	// guru.springframework5.sfw5bgpetclinic.model.Owner.pets -> Owner.pets
+	private static String shortName(String name) {
+		String prefix = "guru.springframework5.sfw5bgpetclinic.model.";
+		return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+	}
+
+}  // end class HibernateStatisticsEndpoint
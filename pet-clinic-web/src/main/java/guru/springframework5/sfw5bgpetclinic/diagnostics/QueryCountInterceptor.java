@@ -0,0 +1,125 @@
+//***************************************************************************
+//Class:        QueryCountInterceptor
+//Implements:   HandlerInterceptor (DispatcherServlet calls preHandle before the controller method,
+//                                  postHandle after it returns the view, afterCompletion after the
+//                                  view (Thymeleaf template) has been rendered.)
+//
+//Tracks the SQL run for each controller request - including the lazy loading done while the template
+//renders (open-session-in-view keeps the Hibernate session open until afterCompletion).  Then:
+//  - records petclinic.http.queries (statements per request) tagged by endpoint (OwnerController.showOwner)
+//  - if any statement shape ran repeat-threshold times or more, logs a warning naming the controller
+//    method, the view and the repeated SQL, and counts it in petclinic.http.queries.repeated
+//  - leaves the QueryStatistics on the request (QueryStatistics.ATTRIBUTE) for tests
+//Requests not handled by a controller method (static resources, webjars) are not tracked.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+	public static final String QUERIES = "petclinic.http.queries";
+	public static final String REPEATED = "petclinic.http.queries.repeated";
+
+	private static final Logger log = LoggerFactory.getLogger(QueryCountInterceptor.class);
+	private static final String VIEW_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".view";
+
+	private final MeterRegistry registry;
+	private final int repeatThreshold;
+
+	// Meters per endpoint - built on the first request to the endpoint, then reused.
+	private final Map<String, DistributionSummary> queries = new ConcurrentHashMap<>();
+	private final Map<String, Counter> repeated = new ConcurrentHashMap<>();
+
+	public QueryCountInterceptor(MeterRegistry registry, int repeatThreshold) {
+		this.registry = registry;
+		this.repeatThreshold = repeatThreshold;
+	}  // end Constructor
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod)
+			QueryCountingStatementInspector.start();
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+	                       ModelAndView modelAndView) {
+		if (modelAndView != null && modelAndView.getViewName() != null)
+			request.setAttribute(VIEW_ATTRIBUTE, modelAndView.getViewName());
+	}
+
+	// Called even if the controller or the template threw.
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+	                            Exception ex) {
+		if (!(handler instanceof HandlerMethod))
+			return;
+		QueryStatistics statistics = QueryCountingStatementInspector.stop();
+		if (statistics == null)
+			return;
+		request.setAttribute(QueryStatistics.ATTRIBUTE, statistics);
+
+		String endpoint = endpoint((HandlerMethod) handler);
+		queries.computeIfAbsent(endpoint, this::queriesSummary).record(statistics.getStatementCount());
+
+		Map<String, Integer> suspects = statistics.getRepeatedShapes(repeatThreshold);
+		if (!suspects.isEmpty()) {
+			repeated.computeIfAbsent(endpoint, this::repeatedCounter).increment();
+			if (log.isWarnEnabled())
+				log.warn(report(endpoint, (String) request.getAttribute(VIEW_ATTRIBUTE), statistics, suspects));
+		}
+	}  // end afterCompletion()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// OwnerController.showOwner
+	private static String endpoint(HandlerMethod handler) {
+		return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+	}
+
+	private DistributionSummary queriesSummary(String endpoint) {
+		return DistributionSummary.builder(QUERIES)
+		                          .description("SQL statements run per HTTP request")
+		                          .baseUnit("statements")
+		                          .tag("endpoint", endpoint)
+		                          .register(registry);
+	}
+
+	private Counter repeatedCounter(String endpoint) {
+		return Counter.builder(REPEATED)
+		              .description("HTTP requests that ran the same SQL statement repeatedly (possible N+1 select)")
+		              .tag("endpoint", endpoint)
+		              .register(registry);
+	}
+
+	private static String report(String endpoint, String view, QueryStatistics statistics, Map<String, Integer> suspects) {
+		StringBuilder report = new StringBuilder()
+			.append("Possible N+1 select in ").append(endpoint)
+			.append(" (view ").append(view == null ? "none" : view).append("): ")
+			.append(statistics.getStatementCount()).append(" statements, ")
+			.append(statistics.getShapeCount()).append(" distinct");
+		suspects.forEach((shape, count) -> report.append(System.lineSeparator())
+		                                         .append("    ").append(count).append("x ").append(shape));
+		return report.toString();
+	}
+
+}  // end class QueryCountInterceptor
@@ -0,0 +1,52 @@
+//***************************************************************************
+//Class:        QueryCountingStatementInspector
+//Implements:   StatementInspector (Hibernate calls inspect() with every SQL statement just before it
+//                                  is prepared, on the thread running the query.)
+//
+//Counts statements into the QueryStatistics of the request being handled by the current thread.
+//QueryCountInterceptor starts / stops tracking around each controller call; statements run outside
+//a request (DataLoader at startup, scheduled work, etc.) are not tracked.  The SQL is never changed.
+//
+//Registered with Hibernate by QueryDiagnosticsConfiguration (hibernate.session_factory.statement_inspector).
+//Only the springdatajpa services run SQL - with the map profile there is simply nothing to count.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class QueryCountingStatementInspector implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	// One QueryStatistics per request thread; null when not inside a tracked request.
+	private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+	@Override
+	public String inspect(String sql) {
+		QueryStatistics statistics = CURRENT.get();
+		if (statistics != null)
+			statistics.record(sql);
+		return sql;   // returned as is - we only look
+	}
+
+	/**
+	 * Start counting statements run by the current thread.
+	 * @return the (new, empty) statistics being filled in
+	 */
+	public static QueryStatistics start() {
+		QueryStatistics statistics = new QueryStatistics();
+		CURRENT.set(statistics);
+		return statistics;
+	}
+
+	/**
+	 * Stop counting for the current thread.
+	 * @return what was counted since start() (null if start() was not called)
+	 */
+	public static QueryStatistics stop() {
+		QueryStatistics statistics = CURRENT.get();
+		CURRENT.remove();   // Pooled request threads - must not leave it behind for the next request.
+		return statistics;
+	}
+
+}  // end class QueryCountingStatementInspector
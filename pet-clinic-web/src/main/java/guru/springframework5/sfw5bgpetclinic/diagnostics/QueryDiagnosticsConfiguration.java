@@ -0,0 +1,52 @@
+//***************************************************************************
+//Class:        QueryDiagnosticsConfiguration
+//Implements:   WebMvcConfigurer (lets us add the QueryCountInterceptor to Spring MVC)
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Wires up the per request SQL statistics / N+1 detector:
+//  - QueryCountingStatementInspector registered with Hibernate (via HibernatePropertiesCustomizer so it
+//    is added to whatever spring.jpa.properties already has)
+//  - QueryCountInterceptor registered with Spring MVC
+//Controlled by application.properties:
+//    petclinic.diagnostics.queries.enabled=true|false       (default true)
+//    petclinic.diagnostics.queries.repeat-threshold=N       (default 3 - same statement N+ times in one
+//                                                            request is reported as a possible N+1)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.diagnostics.queries", name = "enabled", matchIfMissing = true)
+public class QueryDiagnosticsConfiguration implements WebMvcConfigurer {
+
+	private final MeterRegistry registry;
+	private final int repeatThreshold;
+
+	public QueryDiagnosticsConfiguration(MeterRegistry registry,
+	                                     @Value("${petclinic.diagnostics.queries.repeat-threshold:3}") int repeatThreshold) {
+		this.registry = registry;
+		this.repeatThreshold = repeatThreshold;
+	}  // end Constructor
+
+	@Bean
+	public HibernatePropertiesCustomizer queryCountingStatementInspectorCustomizer() {
+		return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+		                                                      new QueryCountingStatementInspector());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry interceptors) {
+		interceptors.addInterceptor(new QueryCountInterceptor(registry, repeatThreshold));
+	}
+
+}  // end class QueryDiagnosticsConfiguration
@@ -0,0 +1,87 @@
+//***************************************************************************
+//Class:        QueryStatistics
+//
+//The SQL statements run while handling ONE HTTP request.  Statements are grouped by "shape" - the SQL
+//with whitespace collapsed and any literal values replaced by ? - so the same select for pet 1, pet 2,
+//pet 3 ... counts as one shape run 3 times.  A shape run over and over within one request is the
+//classic N+1 select (i.e., ownerDetails.html walking owner.pets and lazily loading each pet.visits).
+//
+//Only ever touched by the thread handling the request (see QueryCountingStatementInspector) so no
+//synchronization.  After the request it is left on the request as an attribute (ATTRIBUTE) so tests
+//can look at it.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class QueryStatistics {
+
+	public static final String ATTRIBUTE = QueryStatistics.class.getName();
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");   // not the digits in aliases like owner0_
+
+	private int statementCount;
+	private final Map<String, Integer> shapes = new LinkedHashMap<>();   // insertion order = order first run
+
+	/**
+	 * Count one statement.
+	 * @param sql - statement as Hibernate is about to send it to the JDBC driver
+	 */
+	public void record(String sql) {
+		statementCount++;
+		shapes.merge(shape(sql), 1, Integer::sum);
+	}
+
+	/**
+	 * @return number of statements run during the request
+	 */
+	public int getStatementCount() {
+		return statementCount;
+	}
+
+	/**
+	 * @return number of different statement shapes run during the request
+	 */
+	public int getShapeCount() {
+		return shapes.size();
+	}
+
+	/**
+	 * Statement shapes run at least the given number of times (N+1 suspects).
+	 * @param threshold - minimum number of runs
+	 * @return shape -> number of runs (empty if none)
+	 */
+	public Map<String, Integer> getRepeatedShapes(int threshold) {
+		Map<String, Integer> repeated = new LinkedHashMap<>();
+		shapes.forEach((shape, count) -> {
+			if (count >= threshold)
+				repeated.put(shape, count);
+		});
+		return repeated;
+	}
+
+	/**
+	 * @return every shape -> number of runs (read only)
+	 */
+	public Map<String, Integer> getShapes() {
+		return Collections.unmodifiableMap(shapes);
+	}
+
+	/**
+	 * Normalize a statement so runs that only differ by literal values / formatting compare equal.
+	 * Hibernate already binds entity ids as ? parameters; this catches literals written into queries.
+	 * @param sql - statement
+	 * @return its shape
+	 */
+	public static String shape(String sql) {
+		String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+		shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+		return NUMBER_LITERAL.matcher(shape).replaceAll("?");
+	}
+
+}  // end class QueryStatistics
@@ -0,0 +1,130 @@
+//***************************************************************************
+//Class:        SlowQueryLog
+//
+//Ring buffer of the most recent slow HQL / SQL queries (executed in at least threshold ms).  Filled by
+//SlowQueryStatistics (Hibernate calls it for every query when statistics are on), read by the
+///actuator/hibernate endpoint and written to the log.
+//
+//  - Sampled:   only sampleRate (0.0 - 1.0) of the slow queries are kept, so a burst of slow queries
+//               under load costs little.
+//  - Redacted:  Hibernate passes the query string (bind parameters are placeholders like ?1 or
+//               :lastName, never the values).  Literal values written into a query are replaced by ?
+//               too (same normalization as the N+1 detector - QueryStatistics.shape).
+//  - Lock free: a fixed array plus an AtomicLong "next slot" counter; the oldest entry is overwritten.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SlowQueryLog {
+
+	private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+	private final long thresholdMillis;
+	private final double sampleRate;
+	private final AtomicReferenceArray<SlowQuery> entries;
+	private final AtomicLong next = new AtomicLong();
+
+	public SlowQueryLog(int capacity, long thresholdMillis, double sampleRate) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Slow query log capacity must be at least 1.");
+		this.entries = new AtomicReferenceArray<>(capacity);
+		this.thresholdMillis = thresholdMillis;
+		this.sampleRate = sampleRate;
+	}  // end Constructor
+
+	/**
+	 * Keep the query if it is slow (and picked by the sampling).
+	 * @param query - HQL or SQL as given to Hibernate
+	 * @param rows - rows returned
+	 * @param millis - execution time
+	 */
+	public void record(String query, int rows, long millis) {
+		if (millis < thresholdMillis)
+			return;
+		if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)
+			return;
+
+		SlowQuery slowQuery = new SlowQuery(Instant.now(), QueryStatistics.shape(query), rows, millis,
+		                                    Thread.currentThread().getName());
+		entries.set((int) (next.getAndIncrement() % entries.length()), slowQuery);
+		if (log.isWarnEnabled())
+			log.warn("Slow query ({} ms, {} rows): {}", millis, rows, slowQuery.getQuery());
+	}  // end record()
+
+	/**
+	 * @return the kept slow queries, newest first
+	 */
+	public List<SlowQuery> getEntries() {
+		List<SlowQuery> newestFirst = new ArrayList<>(entries.length());
+		long last = next.get();
+		for (long i = last - 1; i >= 0 && i >= last - entries.length(); i--) {
+			SlowQuery slowQuery = entries.get((int) (i % entries.length()));
+			if (slowQuery != null)
+				newestFirst.add(slowQuery);
+		}
+		return newestFirst;
+	}
+
+	public void clear() {
+		for (int i = 0; i < entries.length(); i++)
+			entries.set(i, null);
+	}
+
+	public long getThresholdMillis() {
+		return thresholdMillis;
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+
+	// ------------------------------------------------------
+	// One slow query.  Getters so Jackson writes it out on the actuator endpoint.
+	// ------------------------------------------------------
+	public static final class SlowQuery {
+		private final Instant timestamp;
+		private final String query;
+		private final int rows;
+		private final long millis;
+		private final String thread;
+
+		SlowQuery(Instant timestamp, String query, int rows, long millis, String thread) {
+			this.timestamp = timestamp;
+			this.query = query;
+			this.rows = rows;
+			this.millis = millis;
+			this.thread = thread;
+		}
+
+		public Instant getTimestamp() {
+			return timestamp;
+		}
+
+		public String getQuery() {
+			return query;
+		}
+
+		public int getRows() {
+			return rows;
+		}
+
+		public long getMillis() {
+			return millis;
+		}
+
+		public String getThread() {
+			return thread;
+		}
+	}  // end class SlowQuery
+
+}  // end class SlowQueryLog
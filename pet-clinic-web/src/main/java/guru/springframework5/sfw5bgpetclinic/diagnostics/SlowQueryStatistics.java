@@ -0,0 +1,31 @@
+//***************************************************************************
+//Class:        SlowQueryStatistics
+//Extends:      StatisticsImpl (Hibernate's own Statistics - everything it counts is unchanged)
+//
+//Hibernate calls queryExecuted(query, rows, time) after every HQL / JPQL / native SQL query when
+//hibernate.generate_statistics is on.  Also hands the query to the SlowQueryLog.
+//Installed with hibernate.stats.factory (see HibernateStatisticsConfiguration).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+public class SlowQueryStatistics extends StatisticsImpl {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient SlowQueryLog slowQueryLog;
+
+	public SlowQueryStatistics(SessionFactoryImplementor sessionFactory, SlowQueryLog slowQueryLog) {
+		super(sessionFactory);
+		this.slowQueryLog = slowQueryLog;
+	}  // end Constructor
+
+	@Override
+	public void queryExecuted(String query, int rows, long time) {
+		super.queryExecuted(query, rows, time);
+		slowQueryLog.record(query, rows, time);
+	}
+
+}  // end class SlowQueryStatistics
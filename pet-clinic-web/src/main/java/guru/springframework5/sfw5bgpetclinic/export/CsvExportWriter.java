@@ -0,0 +1,111 @@
+//***************************************************************************
+//Class:        CsvExportWriter
+//Implements:   ExportWriter
+//
+//Owners - the bulk import's CSV layout (CsvImportRecordReader), so the file can be imported elsewhere:
+//    OWNER,firstName,lastName,address,city,telephone
+//    PET,name,type,birthDate                       (Pets in id order)
+//Visits - one row per Visit after a header row:
+//    id,date,description,petId,petName,ownerId,ownerFirstName,ownerLastName
+//Fields with a comma, quote, line break or leading / trailing blanks are quoted, quotes doubled.
+//Missing values are empty fields.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public class CsvExportWriter implements ExportWriter {
+
+	static final Comparator<Pet> BY_ID = Comparator.comparing(Pet::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+	private final Writer out;
+
+	public CsvExportWriter(Writer out) {
+		this.out = out;
+	}  // end Constructor
+
+	@Override
+	public void startOwners() {
+		line("# OWNER,firstName,lastName,address,city,telephone");
+		line("# PET,name,type,birthDate");
+	}
+
+	@Override
+	public void writeOwner(Owner owner) {
+		row("OWNER", owner.getFirstName(), owner.getLastName(), owner.getAddress(), owner.getCity(), owner.getTelephone());
+		List<Pet> pets = new ArrayList<>(owner.getPets());
+		pets.sort(BY_ID);
+		for (Pet pet : pets)
+			row("PET", pet.getName(), (pet.getPetType() == null) ? null : pet.getPetType().getName(), pet.getBirthDate());
+	}  // end writeOwner()
+
+	@Override
+	public void startVisits() {
+		line("id,date,description,petId,petName,ownerId,ownerFirstName,ownerLastName");
+	}
+
+	@Override
+	public void writeVisit(Visit visit) {
+		Pet pet = visit.getPet();
+		Owner owner = (pet == null) ? null : pet.getOwner();
+		row(visit.getId(), visit.getDate(), visit.getDescription(),
+		    (pet == null) ? null : pet.getId(), (pet == null) ? null : pet.getName(),
+		    (owner == null) ? null : owner.getId(), (owner == null) ? null : owner.getFirstName(),
+		    (owner == null) ? null : owner.getLastName());
+	}  // end writeVisit()
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void row(Object... columns) {
+		try {
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0)
+					out.write(',');
+				if (columns[i] != null)
+					out.write(quote(columns[i].toString()));
+			}
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}  // end row()
+
+	private void line(String text) {
+		try {
+			out.write(text);
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Quote the value if the import would not read it back as is.  Package-private for the test.
+	 */
+	static String quote(String value) {
+		boolean quote = !value.isEmpty() && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = (c == ',' || c == '"' || c == '\n' || c == '\r');
+		}
+		return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+	}  // end quote()
+
+}  // end class CsvExportWriter
@@ -0,0 +1,113 @@
+//***************************************************************************
+//Class:        ExportController
+//Stereotype:   @RestController  (writes the response itself - not a Thymeleaf page)
+//
+//Streaming export through ExportService - rows go from the database cursor (or the Maps) straight to the
+//response, one at a time, so memory stays the same whatever the table size:
+//    GET /admin/export/owners[?format=csv|ndjson]   every Owner with its Pets (CSV = bulk import layout)
+//    GET /admin/export/visits[?format=csv|ndjson]   every Visit with its Pet's and Owner's id and names
+//Format from the parameter, else the Accept header (text/csv, application/x-ndjson), else NDJSON; 400 if
+//the parameter is not a known format.  No Content-Length, so the response is chunked; gzip compressed
+//when the request has Accept-Encoding: gzip (curl --compressed).
+//    curl --compressed -o owners.csv "localhost:8080/admin/export/owners?format=csv"
+//Turned on by petclinic.export.endpoint-enabled (application.properties) - OFF by default:  there is no
+//authentication, and the owners export is every Owner's name, address and telephone.
+//
+//Written on the request thread (not StreamingResponseBody) so a long export is not cut off by the async
+//request timeout.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+
+@ConditionalOnProperty(prefix = "petclinic.export", name = "endpoint-enabled")
+@RestController
+@RequestMapping("/admin/export")
+public class ExportController {
+
+	private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ExportService exportService;
+
+	public ExportController(ExportService exportService) {
+		this.exportService = exportService;
+	}  // end Constructor
+
+	@GetMapping("/owners")
+	public void exportOwners(@RequestParam(required = false) String format, HttpServletRequest request,
+	                         HttpServletResponse response) throws IOException {
+		export("owners", format, request, response, writer -> {
+			writer.startOwners();
+			return exportService.forEachOwner(writer::writeOwner);
+		});
+	}  // end exportOwners()
+
+	@GetMapping("/visits")
+	public void exportVisits(@RequestParam(required = false) String format, HttpServletRequest request,
+	                         HttpServletResponse response) throws IOException {
+		export("visits", format, request, response, writer -> {
+			writer.startVisits();
+			return exportService.forEachVisit(writer::writeVisit);
+		});
+	}  // end exportVisits()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void export(String what, String format, HttpServletRequest request, HttpServletResponse response,
+	                    ToLongFunction<ExportWriter> rows) throws IOException {
+		ExportFormat exportFormat = (format != null) ? ExportFormat.of(format) : ExportFormat.of(request.getHeader(HttpHeaders.ACCEPT));
+		if (exportFormat == null) {
+			if (format != null)
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format '" + format + "' - use csv or ndjson");
+			exportFormat = ExportFormat.NDJSON;
+		}
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+		response.setContentType(exportFormat.getContentType());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + what + "." + exportFormat.getExtension() + "\"");
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip)
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+		long start = System.nanoTime();
+		OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE) : response.getOutputStream();
+		try (ExportWriter writer = exportFormat.open(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+			long count = rows.applyAsLong(writer);
+			log.info("Exported {} {} as {}{} in {} ms", count, what, exportFormat, gzip ? " (gzip)" : "",
+			         (System.nanoTime() - start) / 1_000_000);
+		} catch (UncheckedIOException e) {
+			// Nearly always the client going away - nothing more can be sent.
+			log.info("Export of {} stopped: {}", what, e.getCause().toString());
+		}
+	}  // end export()
+
+}  // end class ExportController
@@ -0,0 +1,55 @@
+//***************************************************************************
+//Enum:         ExportFormat
+//
+//File formats the export writes, with their content type and file extension.  See CsvExportWriter /
+//NdjsonExportWriter for the layout - owners come out in the layout the bulk import reads.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import java.io.Writer;
+import java.util.Locale;
+
+public enum ExportFormat {
+
+	CSV("text/csv;charset=UTF-8", "csv"),
+	NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+
+	private final String contentType;
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	/**
+	 * Format from a name (csv, ndjson / jsonl) or an Accept header (text/csv, application/x-ndjson).
+	 * @return the format, or null if it cannot be told
+	 */
+	public static ExportFormat of(String nameOrAccept) {
+		if (nameOrAccept == null)
+			return null;
+		String value = nameOrAccept.toLowerCase(Locale.ROOT);
+		if (value.contains("csv"))
+			return CSV;
+		if (value.contains("ndjson") || value.contains("jsonl") || value.contains("json"))
+			return NDJSON;
+		return null;
+	}  // end of()
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * @param out - where the rows go (flushed / closed when the returned writer is closed)
+	 */
+	public ExportWriter open(Writer out) {
+		return (this == CSV) ? new CsvExportWriter(out) : new NdjsonExportWriter(out);
+	}  // end open()
+
+}  // end enum ExportFormat
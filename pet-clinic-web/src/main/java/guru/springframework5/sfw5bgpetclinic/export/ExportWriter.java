@@ -0,0 +1,37 @@
+//***************************************************************************
+//Interface:    ExportWriter
+//
+//Writes exported Owners or Visits one at a time in one ExportFormat.  Nothing is buffered beyond the
+//underlying Writer's buffer, so memory stays the same however many rows go through.  Write errors (the
+//client went away) are thrown as UncheckedIOException so the methods can be used as a Consumer.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import java.io.Closeable;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public interface ExportWriter extends Closeable {
+
+	/**
+	 * Called once before the first writeOwner (header / comment lines, if the format has them).
+	 */
+	void startOwners();
+
+	/**
+	 * Owner with its Pets (not their Visits).
+	 */
+	void writeOwner(Owner owner);
+
+	/**
+	 * Called once before the first writeVisit.
+	 */
+	void startVisits();
+
+	/**
+	 * Visit with its Pet's and Owner's id and names.
+	 */
+	void writeVisit(Visit visit);
+
+}  // end interface ExportWriter
@@ -0,0 +1,127 @@
+//***************************************************************************
+//Class:        NdjsonExportWriter
+//Implements:   ExportWriter
+//
+//One JSON object per line, written field by field with a Jackson JsonGenerator (no object tree, no Map per row).
+//Owners - what the bulk import's NDJSON reader takes (OwnerRecord), plus the ids:
+//    {"id":1,"firstName":..,"lastName":..,"address":..,"city":..,"telephone":..,
+//     "pets":[{"id":1,"name":..,"type":..,"birthDate":"yyyy-MM-dd"}]}
+//Visits:
+//    {"id":1,"date":"yyyy-MM-dd","description":..,"petId":1,"petName":..,"ownerId":1,"ownerFirstName":..,"ownerLastName":..}
+//Missing values are left out.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+public class NdjsonExportWriter implements ExportWriter {
+
+	// JsonFactory is thread safe - one for every export.
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final JsonGenerator json;
+
+	public NdjsonExportWriter(Writer out) {
+		try {
+			this.json = JSON_FACTORY.createGenerator(out);
+			// Lines end with writeRaw('\n') - no " " (Jackson's default) between one line and the next.
+			this.json.setRootValueSeparator(null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}  // end Constructor
+
+	@Override
+	public void startOwners() {
+	}
+
+	@Override
+	public void writeOwner(Owner owner) {
+		try {
+			json.writeStartObject();
+			field("id", owner.getId());
+			field("firstName", owner.getFirstName());
+			field("lastName", owner.getLastName());
+			field("address", owner.getAddress());
+			field("city", owner.getCity());
+			field("telephone", owner.getTelephone());
+			json.writeArrayFieldStart("pets");
+			List<Pet> pets = new ArrayList<>(owner.getPets());
+			pets.sort(CsvExportWriter.BY_ID);
+			for (Pet pet : pets) {
+				json.writeStartObject();
+				field("id", pet.getId());
+				field("name", pet.getName());
+				field("type", (pet.getPetType() == null) ? null : pet.getPetType().getName());
+				field("birthDate", pet.getBirthDate());
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+			json.writeRaw('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}  // end writeOwner()
+
+	@Override
+	public void startVisits() {
+	}
+
+	@Override
+	public void writeVisit(Visit visit) {
+		Pet pet = visit.getPet();
+		Owner owner = (pet == null) ? null : pet.getOwner();
+		try {
+			json.writeStartObject();
+			field("id", visit.getId());
+			field("date", visit.getDate());
+			field("description", visit.getDescription());
+			if (pet != null) {
+				field("petId", pet.getId());
+				field("petName", pet.getName());
+			}
+			if (owner != null) {
+				field("ownerId", owner.getId());
+				field("ownerFirstName", owner.getFirstName());
+				field("ownerLastName", owner.getLastName());
+			}
+			json.writeEndObject();
+			json.writeRaw('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}  // end writeVisit()
+
+	@Override
+	public void close() throws IOException {
+		json.close();        // closes the Writer too
+	}
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// Numbers as numbers, everything else (String, LocalDate) as its toString(); nulls left out.
+	private void field(String name, Object value) throws IOException {
+		if (value == null)
+			return;
+		if (value instanceof Long)
+			json.writeNumberField(name, (Long) value);
+		else
+			json.writeStringField(name, value.toString());
+	}
+
+}  // end class NdjsonExportWriter
@@ -0,0 +1,41 @@
+//***************************************************************************
+//Class:        VisitBatchController
+//Stereotype:   @RestController  (JSON - not a Thymeleaf page)
+//
+//Bulk creation of Visits of existing Pets (see VisitBatchIngest):
+//    POST /api/visits:batch     body - JSON array of {"petId":1,"date":"yyyy-MM-dd","description":".."}
+//                               200 with a VisitBatchResponse (one result per item, CREATED or REJECTED);
+//                               400 if the body is not such an array or has more than max-items
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@ConditionalOnProperty(prefix = "petclinic.visits.batch", name = "enabled")
+@RestController
+public class VisitBatchController {
+
+	private final VisitBatchIngest ingest;
+
+	public VisitBatchController(VisitBatchIngest ingest) {
+		this.ingest = ingest;
+	}  // end Constructor
+
+	@PostMapping(path = "/api/visits:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public VisitBatchResponse batch(@RequestBody List<VisitBatchItem> items) {
+		try {
+			return ingest.ingest(items);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}  // end batch()
+
+}  // end class VisitBatchController
@@ -0,0 +1,141 @@
+//***************************************************************************
+//Class:        VisitBatchIngest
+//Stereotype:   @Component
+//
+//Creates the Visits of one POST /api/visits:batch (VisitBatchController) - thousands of Visits of existing Pets
+//at a time, from lab systems and mobile apps, where the visit form saves one.  Three steps:
+//    1. check each item on its own:  petId; description (at most 255 characters - the column); date, if given,
+//       yyyy-MM-dd (none - today, as the visit form)
+//    2. look up every Pet named in ONE PetService.findAllById (where id in (...)); an item whose Pet does not
+//       exist is rejected
+//    3. insert the rest with ONE VisitService.insertAll - JDBC batches, one transaction, with springdatajpa
+//Each item gets a VisitBatchResult - CREATED with the new Visit's id, or REJECTED with why.  A bad item never
+//fails the others; a database error fails the request (nothing is inserted).
+//
+//The Visits go through the VisitService bean, so the EntityChangeListeners (near-cache, analytics, search)
+//hear about every one.
+//
+//Controlled by application.properties:
+//    petclinic.visits.batch.enabled=false       (off unless set - the endpoint is unauthenticated)
+//    petclinic.visits.batch.max-items=10000     (most Visits in one request - more is a bad request)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+@ConditionalOnProperty(prefix = "petclinic.visits.batch", name = "enabled")
+@Component
+public class VisitBatchIngest {
+
+	static final int MAX_DESCRIPTION = 255;
+
+	private final PetService petService;
+	private final VisitService visitService;
+	private final int maxItems;
+
+	public VisitBatchIngest(PetService petService, VisitService visitService, Environment environment) {
+		this.petService = petService;
+		this.visitService = visitService;
+		this.maxItems = environment.getProperty("petclinic.visits.batch.max-items", Integer.class, 10_000);
+	}  // end Constructor
+
+	/**
+	 * Create the valid items' Visits.
+	 * @param items - as sent
+	 * @return one result per item, in the same order
+	 * @throws IllegalArgumentException if more than max-items
+	 */
+	public VisitBatchResponse ingest(List<VisitBatchItem> items) {
+		long start = System.nanoTime();
+		if (items.size() > maxItems)
+			throw new IllegalArgumentException("At most " + maxItems + " visits per request, not " + items.size());
+		VisitBatchResult[] results = new VisitBatchResult[items.size()];
+		LocalDate[] dates = new LocalDate[items.size()];
+		int rejected = 0;
+
+		Map<String, LocalDate> parsed = new HashMap<>();       // a batch has few distinct dates - parse each once
+		Set<Long> petIds = new HashSet<>();
+		for (int i = 0; i < items.size(); i++) {
+			VisitBatchItem item = items.get(i);
+			String error = check(item);
+			if (error == null) {
+				dates[i] = (item.date == null) ? LocalDate.now() : parsed.computeIfAbsent(item.date, VisitBatchIngest::parse);
+				if (dates[i] == null)
+					error = "date '" + item.date + "' is not yyyy-MM-dd";
+			}
+			if (error != null) {
+				results[i] = VisitBatchResult.rejected(i, error);
+				rejected++;
+			} else {
+				petIds.add(item.petId);
+			}
+		}
+
+		Map<Long, Pet> pets = new HashMap<>();
+		if (!petIds.isEmpty()) {
+			for (Pet pet : petService.findAllById(petIds))
+				pets.put(pet.getId(), Pet.reference(pet));
+		}
+
+		List<Visit> visits = new ArrayList<>(items.size() - rejected);
+		int[] indexes = new int[items.size() - rejected];
+		for (int i = 0; i < items.size(); i++) {
+			if (results[i] != null)
+				continue;
+			VisitBatchItem item = items.get(i);
+			Pet pet = pets.get(item.petId);
+			if (pet == null) {
+				results[i] = VisitBatchResult.rejected(i, "no Pet " + item.petId);
+				rejected++;
+				continue;
+			}
+			indexes[visits.size()] = i;
+			visits.add(new Visit(dates[i], item.description.trim(), pet));
+		}
+
+		if (!visits.isEmpty())
+			visits = visitService.insertAll(visits);
+		for (int k = 0; k < visits.size(); k++)
+			results[indexes[k]] = VisitBatchResult.created(indexes[k], visits.get(k).getId());
+		return new VisitBatchResponse(visits.size(), rejected, (System.nanoTime() - start) / 1_000, Arrays.asList(results));
+	}  // end ingest()
+
+	// The checks that need no data - null if the item is fine.
+	private static String check(VisitBatchItem item) {
+		if (item == null)
+			return "visit is missing";
+		if (item.petId == null)
+			return "petId is missing";
+		if (item.description == null || item.description.trim().isEmpty())
+			return "description is missing";
+		if (item.description.trim().length() > MAX_DESCRIPTION)
+			return "description is longer than " + MAX_DESCRIPTION + " characters";
+		return null;
+	}
+
+	private static LocalDate parse(String date) {
+		try {
+			return LocalDate.parse(date.trim());
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+}  // end class VisitBatchIngest
@@ -0,0 +1,30 @@
+//***************************************************************************
+//Class:        VisitBatchItem
+//
+//One Visit of a POST /api/visits:batch body, as sent - not yet validated (see VisitBatchIngest):
+//    {"petId":1,"date":"2021-03-04","description":"Rabies shot"}
+//The date stays a String so a bad one rejects its item, not the whole request.
+//
+//Public fields so Jackson can read the JSON straight into it (as bulkimport.OwnerRecord).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class VisitBatchItem {
+
+	public Long petId;
+	public String date;
+	public String description;
+
+	public VisitBatchItem() {
+	}  // end Constructor
+
+	public VisitBatchItem(Long petId, String date, String description) {
+		this.petId = petId;
+		this.date = date;
+		this.description = description;
+	}  // end Constructor
+
+}  // end class VisitBatchItem
@@ -0,0 +1,48 @@
+//***************************************************************************
+//Class:        VisitBatchResponse
+//
+//Body of the POST /api/visits:batch response - the counts, and one VisitBatchResult per item sent, in the
+//order sent:
+//    {"created":2,"rejected":1,"micros":5310,"results":[{"index":0,"status":"CREATED","visitId":1234}, ...]}
+//Immutable (Jackson serializes the getters).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import java.util.List;
+
+public final class VisitBatchResponse {
+
+	private final int created;
+	private final int rejected;
+	private final long micros;
+	private final List<VisitBatchResult> results;
+
+	VisitBatchResponse(int created, int rejected, long micros, List<VisitBatchResult> results) {
+		this.created = created;
+		this.rejected = rejected;
+		this.micros = micros;
+		this.results = results;
+	}  // end Constructor
+
+	public int getCreated() {
+		return created;
+	}
+
+	public int getRejected() {
+		return rejected;
+	}
+
+	public long getMicros() {
+		return micros;
+	}
+
+	public List<VisitBatchResult> getResults() {
+		return results;
+	}
+
+	@Override
+	public String toString() {
+		return "VisitBatchResponse{created=" + created + ", rejected=" + rejected + ", micros=" + micros + "}";
+	}
+
+}  // end class VisitBatchResponse
@@ -0,0 +1,59 @@
+//***************************************************************************
+//Class:        VisitBatchResult
+//
+//What happened to one item of a POST /api/visits:batch - in the response at the item's index:
+//    {"index":0,"status":"CREATED","visitId":1234}
+//    {"index":1,"status":"REJECTED","error":"no Pet 99"}
+//Immutable (Jackson serializes the getters).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class VisitBatchResult {
+
+	public enum Status { CREATED, REJECTED }
+
+	private final int index;
+	private final Status status;
+	private final Long visitId;
+	private final String error;
+
+	private VisitBatchResult(int index, Status status, Long visitId, String error) {
+		this.index = index;
+		this.status = status;
+		this.visitId = visitId;
+		this.error = error;
+	}  // end Constructor
+
+	static VisitBatchResult created(int index, Long visitId) {
+		return new VisitBatchResult(index, Status.CREATED, visitId, null);
+	}
+
+	static VisitBatchResult rejected(int index, String error) {
+		return new VisitBatchResult(index, Status.REJECTED, null, error);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public Long getVisitId() {
+		return visitId;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return index + ": " + status + ((visitId != null) ? " " + visitId : "") + ((error != null) ? " " + error : "");
+	}
+
+}  // end class VisitBatchResult
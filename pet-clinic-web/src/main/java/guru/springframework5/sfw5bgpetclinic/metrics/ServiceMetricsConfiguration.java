@@ -0,0 +1,38 @@
+//***************************************************************************
+//Class:        ServiceMetricsConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Registers ServiceMetricsPostProcessor so every service bean is timed and counted (see that class).
+//Controlled by application.properties:
+//    petclinic.metrics.services.enabled=true|false              (default true)
+//    petclinic.metrics.services.percentile-histogram=true|false (default false - publishes histogram
+//                                                                buckets for p99 etc. in Prometheus and the like)
+//    petclinic.metrics.services.timing-sample=8                 (default 8 - time 1 call in 8, count them all;
+//                                                                1 = time every call)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.metrics.services", name = "enabled", matchIfMissing = true)
+public class ServiceMetricsConfiguration {
+
+	// static - BeanPostProcessors are created before everything else; a non-static @Bean method would
+	// force this @Configuration to be created early too.
+	@Bean
+	public static ServiceMetricsPostProcessor serviceMetricsPostProcessor(ObjectProvider<MeterRegistry> registryProvider,
+	                                                                      Environment environment) {
+		boolean percentileHistogram = environment.getProperty("petclinic.metrics.services.percentile-histogram",
+		                                                      Boolean.class, false);
+		int timingSample = environment.getProperty("petclinic.metrics.services.timing-sample", Integer.class, 8);
+		return new ServiceMetricsPostProcessor(registryProvider, percentileHistogram, timingSample);
+	}
+
+}  // end class ServiceMetricsConfiguration
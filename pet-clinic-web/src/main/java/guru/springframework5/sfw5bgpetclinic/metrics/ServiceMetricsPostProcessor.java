@@ -0,0 +1,266 @@
+//***************************************************************************
+//Class:        ServiceMetricsPostProcessor
+//Implements:   BeanPostProcessor (Spring hands every bean to this class after it is created and before
+//                                 it is injected anywhere, so it can return a wrapped version instead.)
+//
+//Instruments every service bean (anything implementing BaseService - OwnerServiceMapImpl,
+//OwnerServiceSDJpaImpl, PetServiceMapImpl, etc.) with Micrometer meters.  For each method on the
+//service interfaces (BaseService methods AND the entity specific ones like findByLastName) it records:
+//    petclinic.service.calls    Timer - call count + total latency (optionally percentile histogram + max)
+//    petclinic.service.errors   Counter - calls that threw
+//    petclinic.service.results  Counter - entities returned by the finders (collection size, or 0/1
+//                               for methods returning a single entity, i.e., findById hit/miss)
+//Tags on all of them: service (OwnerService), entity (Owner), backend (map | springdatajpa), method.
+//They show up on /actuator/metrics (i.e., /actuator/metrics/petclinic.service.calls?tag=entity:Owner).
+//
+//How:  The bean is wrapped in a JDK dynamic proxy implementing the same interfaces.  Controllers only
+//ever reference the interfaces (OwnerService, etc.) so they get the proxy injected without knowing.
+//
+//Cost:  All meters are created and looked up ONCE, when the bean is wrapped.  A call does a lookup in
+//a read-only HashMap<Method, MethodMeters> and a few LongAdder adds - no tag or String building per call,
+//no locks.  Only 1 call in petclinic.metrics.services.timing-sample reads the clock (twice), since the
+//reads cost more than a map lookup.  See ServiceMetricsBenchmark in pet-clinic-bench for the measured overhead.
+//
+//Ordered (first):  other post processors wrapping services (changes.EntityChangePostProcessor) run after
+//this one, so the tags above come from the service IMPL - not from another proxy.
+//
+//Turn off with petclinic.metrics.services.enabled=false (see ServiceMetricsConfiguration).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import guru.springframework5.sfw5bgpetclinic.proxies.ServiceInvocationHandler;
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+public class ServiceMetricsPostProcessor implements BeanPostProcessor, Ordered {
+
+	public static final String CALLS = "petclinic.service.calls";
+	public static final String ERRORS = "petclinic.service.errors";
+	public static final String RESULTS = "petclinic.service.results";
+
+	// ObjectProvider so the MeterRegistry is not created while BeanPostProcessors are being registered
+	// (that would leave it un-post-processed - no common tags, binders, etc.).  Only looked up on first wrap.
+	private final ObjectProvider<MeterRegistry> registryProvider;
+	private final boolean percentileHistogram;
+	private final int timingSample;
+
+	public ServiceMetricsPostProcessor(ObjectProvider<MeterRegistry> registryProvider, boolean percentileHistogram,
+	                                   int timingSample) {
+		this.registryProvider = registryProvider;
+		this.percentileHistogram = percentileHistogram;
+		this.timingSample = timingSample;
+	}  // end Constructor
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!(bean instanceof BaseService))
+			return bean;
+		return instrument(bean, registryProvider.getObject(), percentileHistogram, timingSample);
+	}  // end postProcessAfterInitialization()
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	/**
+	 * Wrap the given service in a proxy recording meters in the given registry.
+	 * Public and static so the benchmark (and tests) can instrument a service without a Spring context.
+	 * @param service any BaseService implementation
+	 * @param timingSample time 1 call in timingSample (1 = every call); ignored with percentileHistogram
+	 * @return proxy implementing all of the service's interfaces
+	 */
+	public static Object instrument(Object service, MeterRegistry registry, boolean percentileHistogram, int timingSample) {
+		if (timingSample < 1)
+			throw new IllegalArgumentException("timingSample must be at least 1, not " + timingSample);
+		Class<?> targetClass = AopUtils.getTargetClass(service);
+		Class<?>[] interfaces = ClassUtils.getAllInterfaces(service);
+
+		// Work out the tags once - they never change for the bean.
+		Class<?> entity = ServiceInvocationHandler.entityType(service);
+		Tags tags = Tags.of("service", serviceName(interfaces),
+		                    "entity", entity.getSimpleName(),
+		                    "backend", backendName(targetClass));
+
+		Map<Method, MethodMeters> meters = new HashMap<>();
+		for (Class<?> serviceInterface : interfaces) {
+			if (!BaseService.class.isAssignableFrom(serviceInterface))
+				continue;
+			for (Method method : serviceInterface.getMethods())
+				meters.put(method, new MethodMeters(method, tags.and("method", method.getName()), registry, percentileHistogram,
+				                                    timingSample));
+		}
+
+		return new MeteredInvocationHandler(service, meters, registry.config().clock()).proxy();
+	}  // end instrument()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	// Most specific service interface, i.e., OwnerService (not BaseService).
+	private static String serviceName(Class<?>[] interfaces) {
+		for (Class<?> serviceInterface : interfaces) {
+			if (serviceInterface != BaseService.class && BaseService.class.isAssignableFrom(serviceInterface))
+				return serviceInterface.getSimpleName();
+		}
+		return BaseService.class.getSimpleName();
+	}  // end serviceName()
+
+	// IMPLs are grouped into packages by persistence type (services.map, services.springdatajpa) so
+	// the package name IS the backend.  Same name as the @Profile that activates them.
+	private static String backendName(Class<?> targetClass) {
+		String packageName = targetClass.getPackage().getName();
+		return packageName.substring(packageName.lastIndexOf('.') + 1);
+	}  // end backendName()
+
+
+	// ------------------------------------------------------
+	// Meters for one service method (created once, reused for every call).
+	//
+	// By default the numbers are kept in LongAdders and handed to Micrometer as a FunctionTimer /
+	// FunctionCounters, read only when the metrics are scraped.  A regular Timer / DistributionSummary
+	// reads the clock again on every record to maintain its rolling max, which costs more than the
+	// lookup being measured (findById on the map IMPL).  The regular Timer (with percentile histogram
+	// buckets and max) is only used when petclinic.metrics.services.percentile-histogram=true.
+	//
+	// Even two clock reads per call cost more than the lookup, so only 1 call in timingSample is timed
+	// (picked at random).  Every call is counted; the total time is the timed calls' mean times the count.
+	// ------------------------------------------------------
+	private static final class MethodMeters {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder timed = new LongAdder();
+		private final LongAdder timedNanos = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder results = new LongAdder();
+		private final Timer timer;                    // null unless percentile histogram wanted
+		private final boolean finder;                 // save/delete results are not interesting (always the entity / nothing)
+		private final boolean collectionResult;
+		private final int timingSample;               // 1 = every call (always, with the Timer)
+
+		MethodMeters(Method method, Tags tags, MeterRegistry registry, boolean percentileHistogram, int timingSample) {
+			if (percentileHistogram) {
+				timer = Timer.builder(CALLS)
+				             .description("Service method calls and latency")
+				             .tags(tags)
+				             .publishPercentileHistogram()
+				             .register(registry);
+			} else {
+				timer = null;
+				FunctionTimer.builder(CALLS, this, m -> m.count.sum(), MethodMeters::totalNanos, TimeUnit.NANOSECONDS)
+				             .description("Service method calls and latency")
+				             .tags(tags)
+				             .register(registry);
+			}
+			FunctionCounter.builder(ERRORS, this, m -> m.errors.sum())
+			               .description("Service method calls that threw an exception")
+			               .tags(tags)
+			               .register(registry);
+
+			this.timingSample = (timer != null) ? 1 : timingSample;
+			Class<?> returnType = method.getReturnType();
+			finder = returnType != void.class && method.getName().startsWith("find");
+			collectionResult = Collection.class.isAssignableFrom(returnType);
+			// Total entities returned.  Divide by petclinic.service.calls count for the average result size
+			// (for findById and the like - returns 0 or 1 - that is the hit ratio).
+			if (finder) {
+				FunctionCounter.builder(RESULTS, this, m -> m.results.sum())
+				               .description("Number of entities returned by service finder methods")
+				               .baseUnit("entities")
+				               .tags(tags)
+				               .register(registry);
+			}
+		}  // end Constructor
+
+		// Whether to time this call.
+		boolean sample() {
+			return (timingSample == 1) || (ThreadLocalRandom.current().nextInt(timingSample) == 0);
+		}
+
+		void recordCall() {
+			count.increment();
+		}
+
+		void recordCall(long nanos) {
+			if (timer != null) {
+				timer.record(nanos, TimeUnit.NANOSECONDS);
+			} else {
+				count.increment();
+				timed.increment();
+				timedNanos.add(nanos);
+			}
+		}
+
+		private double totalNanos() {
+			long timedCalls = timed.sum();
+			return (timedCalls == 0) ? 0.0 : (double) timedNanos.sum() / timedCalls * count.sum();
+		}
+
+		void recordResult(Object result) {
+			if (!finder || result == null)
+				return;
+			results.add(collectionResult ? ((Collection<?>) result).size() : 1);
+		}
+	}  // end class MethodMeters
+
+
+	// ------------------------------------------------------
+	// The proxy's handler.  Methods with no meters (equals, hashCode, toString) pass straight through.
+	// ------------------------------------------------------
+	private static final class MeteredInvocationHandler extends ServiceInvocationHandler<Object> {
+		private final Map<Method, MethodMeters> meters;   // read-only after construction so safe to share across threads
+		private final Clock clock;
+
+		MeteredInvocationHandler(Object target, Map<Method, MethodMeters> meters, Clock clock) {
+			super(target);
+			this.meters = meters;
+			this.clock = clock;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			MethodMeters methodMeters = meters.get(method);
+			if (methodMeters == null)
+				return invokeTarget(method, args);
+
+			boolean sample = methodMeters.sample();
+			long start = sample ? clock.monotonicTime() : 0L;
+			try {
+				Object result = invokeTarget(method, args);
+				methodMeters.recordResult(result);
+				return result;
+			} catch (Throwable t) {
+				methodMeters.errors.increment();
+				throw t;
+			} finally {
+				if (sample)
+					methodMeters.recordCall(clock.monotonicTime() - start);
+				else
+					methodMeters.recordCall();
+			}
+		}  // end invoke()
+
+	}  // end class MeteredInvocationHandler
+
+}  // end class ServiceMetricsPostProcessor
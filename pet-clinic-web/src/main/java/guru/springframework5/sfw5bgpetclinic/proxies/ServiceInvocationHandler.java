@@ -0,0 +1,62 @@
+//***************************************************************************
+//Class:        ServiceInvocationHandler
+//
+//Base of the InvocationHandlers behind the JDK proxies the BeanPostProcessors put around the service beans
+//(metrics.ServiceMetricsPostProcessor, coalescing.SingleFlightPostProcessor, batching.BatchLoaderPostProcessor,
+//cache.OwnerNearCachePostProcessor, changes.EntityChangePostProcessor).  Holds the service it wraps and what
+//all of them need:
+//    invokeTarget()   call the service, rethrowing what it threw (not the reflection wrapper) - callers see the
+//                     same exceptions with the proxy as without
+//    proxy()          the proxy itself:  every interface the service implements, calling this handler
+//    entityType()     the entity a BaseService is for (E of BaseService<E, ID>)
+//Each subclass adds only its own behaviour, in invoke().
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.proxies;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import guru.springframework5.sfw5bgpetclinic.services.BaseService;
+
+public abstract class ServiceInvocationHandler<S> implements InvocationHandler {
+
+	protected final S target;
+
+	protected ServiceInvocationHandler(S target) {
+		this.target = target;
+	}  // end Constructor
+
+	/**
+	 * @return a new proxy implementing all of the target's interfaces, calling this handler
+	 */
+	public Object proxy() {
+		return Proxy.newProxyInstance(target.getClass().getClassLoader(), ClassUtils.getAllInterfaces(target), this);
+	}
+
+	/**
+	 * Call the method on the target.
+	 * @throws Throwable - what the target threw
+	 */
+	protected final Object invokeTarget(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}  // end invokeTarget()
+
+	/**
+	 * @param service - any bean, possibly already a proxy (its interfaces tell)
+	 * @return the entity class of the BaseService it implements; Object.class if it is none or does not say
+	 */
+	public static Class<?> entityType(Object service) {
+		return ResolvableType.forClass(AopUtils.getTargetClass(service)).as(BaseService.class).getGeneric(0).resolve(Object.class);
+	}
+
+}  // end class ServiceInvocationHandler
@@ -0,0 +1,104 @@
+//***************************************************************************
+//Class:        AppointmentController
+//Stereotype:   @RestController  (JSON - not a Thymeleaf page)
+//
+//Appointments (see AppointmentScheduler) - searches read memory only:
+//    GET    /api/appointments/next?minutes=30[&specialty=surgery][&after=yyyy-MM-ddTHH:mm]
+//                                       earliest free slot with any (such) Vet; 404 if none
+//    GET    /api/appointments/free?vetId=1&date=yyyy-MM-dd&minutes=30     every free start time
+//    POST   /api/appointments?petId=1&minutes=30[&vetId=1&date=yyyy-MM-dd&start=HH:mm][&specialty=..][&description=..]
+//                                       book that time with that Vet, or (no vetId) the next free slot;
+//                                       201 booked, 400 bad request, 409 not free
+//    DELETE /api/appointments/{id}      cancel (deletes its Visit too); 404 if none
+//    POST   /api/appointments/reload    read Vets / working hours again
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@ConditionalOnProperty(prefix = "petclinic.appointments", name = "enabled", matchIfMissing = true)
+@RestController
+@RequestMapping("/api/appointments")
+public class AppointmentController {
+
+	private final AppointmentScheduler scheduler;
+
+	public AppointmentController(AppointmentScheduler scheduler) {
+		this.scheduler = scheduler;
+	}  // end Constructor
+
+	@GetMapping("/next")
+	public AppointmentSlot next(@RequestParam int minutes, @RequestParam(required = false) String specialty,
+	                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after) {
+		AppointmentSlot slot;
+		try {
+			slot = scheduler.findNext(specialty, minutes, (after != null) ? after : LocalDateTime.now());
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		if (slot == null)
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No free " + minutes + " minutes");
+		return slot;
+	}  // end next()
+
+	@GetMapping("/free")
+	public List<AppointmentSlot> free(@RequestParam Long vetId, @RequestParam int minutes,
+	                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+		try {
+			return scheduler.freeSlots(vetId, date, minutes);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}  // end free()
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public AppointmentSlot book(@RequestParam Long petId, @RequestParam int minutes,
+	                            @RequestParam(required = false) Long vetId,
+	                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+	                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime start,
+	                            @RequestParam(required = false) String specialty,
+	                            @RequestParam(required = false) String description) {
+		try {
+			if (vetId == null)
+				return AppointmentSlot.of(scheduler.bookNext(petId, specialty, minutes, LocalDateTime.now(), description));
+			if (date == null || start == null)
+				throw new IllegalArgumentException("date and start are required with vetId");
+			return AppointmentSlot.of(scheduler.book(vetId, petId, date, start, minutes, specialty, description));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		} catch (IllegalStateException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+		}
+	}  // end book()
+
+	@DeleteMapping("/{appointmentId}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void cancel(@PathVariable Long appointmentId) {
+		if (!scheduler.cancel(appointmentId))
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No appointment " + appointmentId);
+	}  // end cancel()
+
+	@PostMapping("/reload")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void reload() {
+		scheduler.reload();
+	}  // end reload()
+
+}  // end class AppointmentController
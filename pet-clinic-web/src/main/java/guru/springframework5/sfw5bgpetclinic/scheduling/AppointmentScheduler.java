@@ -0,0 +1,374 @@
+//***************************************************************************
+//Class:        AppointmentScheduler
+//Stereotype:   @Component
+//
+//Books Visits as Appointments with a Vet, and finds free time - "next free 60 minutes of surgery, any Vet" -
+//without reading the database:  every Vet's working hours and booked slots are kept in memory as one bitmap
+//per day (SlotGrid, VetCalendar), so a search is a few bit operations per Vet per day, and the Vets are
+//indexed by specialty up front.
+//
+//Double-booking:  a booking first reserves its slots in the Vet's VetCalendar (one compareAndSet on that
+//Vet's day - no lock), and only the request that wins saves the Visit and Appointment.  If saving fails the
+//slots are released.  The database checks too:  appointments is unique on (vet_id, date, start_time), so a
+//second instance of the application (calendars of its own) cannot book the same Vet at the same start - the
+//loser gets "not free", its Visit deleted.  Overlapping times with DIFFERENT starts are only caught in memory, so
+//book through here (not AppointmentService) and run one instance per database.
+//
+//Loaded at startup:  Vets (VetService), their WorkingHours (Vets without any work the default hours,
+//petclinic.appointments.default-days / default-hours) and the Appointments from today on.  reload() reads
+//them again for Vets / working hours changed since - updating the calendars in place, so slots booked while
+//it runs are kept.  Booked dates before today are dropped by reload() and by the first booking of each day.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Specialty;
+import guru.springframework5.sfw5bgpetclinic.model.Vet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.services.WorkingHoursService;
+
+@ConditionalOnProperty(prefix = "petclinic.appointments", name = "enabled", matchIfMissing = true)
+@Component
+public class AppointmentScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(AppointmentScheduler.class);
+
+	private static final int MAX_ATTEMPTS = 10;            // bookNext() - times to look again when beaten to a slot
+
+	private final VetService vetService;
+	private final WorkingHoursService workingHoursService;
+	private final AppointmentService appointmentService;
+	private final VisitService visitService;
+	private final PetService petService;
+	private final SlotGrid grid;
+	private final long[] defaultHours;
+	private final int searchDays;
+
+	private volatile Calendars calendars = new Calendars(Collections.emptyMap());
+	private final AtomicReference<LocalDate> prunedOn = new AtomicReference<>();
+
+	public AppointmentScheduler(VetService vetService, WorkingHoursService workingHoursService, AppointmentService appointmentService,
+	                            VisitService visitService, PetService petService, Environment environment) {
+		this.vetService = vetService;
+		this.workingHoursService = workingHoursService;
+		this.appointmentService = appointmentService;
+		this.visitService = visitService;
+		this.petService = petService;
+		this.grid = new SlotGrid(LocalTime.parse(environment.getProperty("petclinic.appointments.day-start", "06:00")),
+		                         environment.getProperty("petclinic.appointments.slot-minutes", Integer.class, 15));
+		this.searchDays = environment.getProperty("petclinic.appointments.search-days", Integer.class, 90);
+
+		String[] hours = environment.getProperty("petclinic.appointments.default-hours", "08:00-17:00").split("-");
+		long dayHours = grid.within(LocalTime.parse(hours[0].trim()), LocalTime.parse(hours[1].trim()));
+		this.defaultHours = new long[DayOfWeek.values().length];
+		for (String day : environment.getProperty("petclinic.appointments.default-days", "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY").split(","))
+			defaultHours[DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)).ordinal()] = dayHours;
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Loading
+	// ------------------------------------------------------
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		reload();
+	}
+
+	/**
+	 * Read Vets, WorkingHours and the Appointments from today on again.  A Vet's VetCalendar is updated, not
+	 * replaced, so a booking made while this runs is never lost (one cancelled while it runs may stay blocked
+	 * until the next reload - the saved Appointments only ever add booked slots).
+	 */
+	public synchronized void reload() {
+		long started = System.currentTimeMillis();
+		LocalDate today = LocalDate.now();
+
+		Map<Long, long[]> hoursByVet = new HashMap<>();
+		for (WorkingHours workingHours : workingHoursService.findAll())
+			hoursByVet.computeIfAbsent(workingHours.getVet().getId(), id -> new long[DayOfWeek.values().length])
+			          [workingHours.getDayOfWeek().ordinal()] |= grid.within(workingHours.getStartTime(), workingHours.getEndTime());
+
+		Map<Long, VetCalendar> current = calendars.byVet;
+		Map<Long, VetCalendar> loaded = new HashMap<>();
+		for (Vet vet : vetService.findAll()) {
+			Set<String> specialties = new HashSet<>();
+			for (Specialty specialty : vet.getSpecialties())
+				specialties.add(key(specialty.getDescription()));
+			String name = vet.getFirstName() + " " + vet.getLastName();
+			long[] hours = hoursByVet.getOrDefault(vet.getId(), defaultHours);
+			VetCalendar calendar = current.get(vet.getId());
+			if (calendar == null)
+				calendar = new VetCalendar(vet.getId(), name, specialties, hours);
+			else
+				calendar.update(name, specialties, hours);
+			loaded.put(vet.getId(), calendar);
+		}
+
+		int appointments = 0;
+		for (Appointment appointment : appointmentService.findByDateOnOrAfter(today)) {
+			VetCalendar vet = loaded.get(appointment.getVet().getId());
+			if (vet != null) {
+				vet.mark(appointment.getDate(), grid.covering(appointment.getStartTime(), appointment.getEndTime()));
+				appointments++;
+			}
+		}
+
+		calendars = new Calendars(loaded);
+		prunedOn.set(null);
+		pruneIfNewDay();
+		log.info("Appointment calendars loaded:  {} vets, {} appointments from {}, {} ms",
+		         loaded.size(), appointments, today, System.currentTimeMillis() - started);
+	}  // end reload()
+
+	// ------------------------------------------------------
+	// Searches - memory only
+	// ------------------------------------------------------
+
+	/**
+	 * The earliest free time of the given length with any Vet who has the specialty (any Vet if null), from
+	 * after on and up to petclinic.appointments.search-days days ahead.  Earliest wins; between Vets free at
+	 * the same time the one with the lowest id.
+	 * @return the slot, null if none
+	 */
+	public AppointmentSlot findNext(String specialty, int minutes, LocalDateTime after) {
+		int length = length(minutes);
+		VetCalendar[] vets = vets(specialty);
+		LocalDate date = after.toLocalDate();
+		int fromSlot = grid.firstSlotFrom(after.toLocalTime());
+		for (int day = 0; day < searchDays; day++, date = date.plusDays(1), fromSlot = 0) {
+			long notBefore = (fromSlot >= SlotGrid.MAX_SLOTS) ? 0L : -1L << fromSlot;
+			VetCalendar found = null;
+			int foundSlot = Integer.MAX_VALUE;
+			for (VetCalendar vet : vets) {
+				int slot = SlotGrid.firstRun(vet.free(date) & notBefore, length);
+				if (slot >= 0 && slot < foundSlot) {
+					found = vet;
+					foundSlot = slot;
+				}
+			}
+			if (found != null)
+				return slot(found, date, foundSlot, length);
+		}
+		return null;
+	}  // end findNext()
+
+	/**
+	 * Every start time on the date at which the Vet is free for the given length.
+	 */
+	public List<AppointmentSlot> freeSlots(Long vetId, LocalDate date, int minutes) {
+		int length = length(minutes);
+		VetCalendar vet = vet(vetId);
+		List<AppointmentSlot> free = new ArrayList<>();
+		long runs = vet.free(date);
+		for (int slot = SlotGrid.firstRun(runs, length); slot >= 0; slot = SlotGrid.firstRun(runs, length)) {
+			free.add(slot(vet, date, slot, length));
+			runs &= ~(1L << slot);
+		}
+		return free;
+	}  // end freeSlots()
+
+	// ------------------------------------------------------
+	// Bookings
+	// ------------------------------------------------------
+
+	/**
+	 * Book the given time with the given Vet:  saves a Visit for the Pet and its Appointment.
+	 * @throws IllegalArgumentException unknown Vet / Pet, Vet without the specialty, time off the grid or past
+	 * @throws IllegalStateException the Vet does not work then or is already booked
+	 */
+	public Appointment book(Long vetId, Long petId, LocalDate date, LocalTime start, int minutes, String specialty, String description) {
+		VetCalendar vet = vet(vetId);
+		if (specialty != null && !vet.has(key(specialty)))
+			throw new IllegalArgumentException(vet.getVetName() + " has no specialty " + specialty);
+		int first = grid.slotAt(start);
+		if (first < 0)
+			throw new IllegalArgumentException("Appointments start every " + grid.getSlotMinutes() + " minutes from " +
+			                                   grid.getDayStart() + " - not at " + start);
+		int length = length(minutes);
+		if (first + length > grid.getSlots())
+			throw new IllegalArgumentException("Appointment would end after " + grid.startOf(grid.getSlots()));
+		if (LocalDateTime.of(date, start).isBefore(LocalDateTime.now()))
+			throw new IllegalArgumentException(date + " " + start + " is in the past");
+
+		Appointment appointment = reserveAndSave(vet, pet(petId), date, first, length, specialty, description);
+		if (appointment == null)
+			throw new IllegalStateException(vet.getVetName() + " is not free on " + date + " from " + start + " for " + minutes + " minutes");
+		return appointment;
+	}  // end book()
+
+	/**
+	 * Book the earliest free time (findNext) - looking again if another request books it first.
+	 * @throws IllegalArgumentException unknown Pet or specialty
+	 * @throws IllegalStateException no free time in petclinic.appointments.search-days days
+	 */
+	public Appointment bookNext(Long petId, String specialty, int minutes, LocalDateTime after, String description) {
+		Pet pet = pet(petId);
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			AppointmentSlot slot = findNext(specialty, minutes, after);
+			if (slot == null)
+				break;
+			Appointment appointment = reserveAndSave(calendars.byVet.get(slot.getVetId()), pet, slot.getDate(),
+			                                         grid.slotAt(slot.getStart()), length(minutes), specialty, description);
+			if (appointment != null)
+				return appointment;
+		}
+		throw new IllegalStateException("No free " + minutes + " minutes" + ((specialty == null) ? "" : " of " + specialty) +
+		                                " in the next " + searchDays + " days");
+	}  // end bookNext()
+
+	/**
+	 * Cancel an Appointment:  deletes it and its Visit, and frees the time.
+	 * @return false if there is no such Appointment
+	 */
+	public boolean cancel(Long appointmentId) {
+		Appointment appointment = appointmentService.findById(appointmentId);
+		if (appointment == null)
+			return false;
+		appointmentService.delete(appointment);
+		if (appointment.getVisit() != null)
+			visitService.deleteById(appointment.getVisit().getId());
+		VetCalendar vet = calendars.byVet.get(appointment.getVet().getId());
+		if (vet != null)
+			vet.release(appointment.getDate(), grid.covering(appointment.getStartTime(), appointment.getEndTime()));
+		return true;
+	}  // end cancel()
+
+	/**
+	 * @return the saved Appointment; null if the slots are not free (nothing saved)
+	 */
+	private Appointment reserveAndSave(VetCalendar vet, Pet pet, LocalDate date, int first, int length, String specialty, String description) {
+		pruneIfNewDay();
+		long slots = SlotGrid.mask(first, length);
+		if (!vet.reserve(date, slots))
+			return null;
+		Visit visit = null;
+		try {
+			Vet bookedVet = vetService.findById(vet.getVetId());
+			visit = visitService.save(new Visit(date, description, pet));
+			return appointmentService.save(Appointment.builder().vet(bookedVet).visit(visit).specialty(specialty(bookedVet, specialty))
+			                                          .startTime(grid.startOf(first)).endTime(grid.startOf(first + length)).build());
+		} catch (RuntimeException e) {
+			if (visit != null && visit.getId() != null)
+				visitService.deleteById(visit.getId());
+			vet.release(date, slots);
+			if (visit != null && e instanceof DataIntegrityViolationException) {
+				// appointments_vet_start - another instance booked this Vet at this start.  Keep that slot
+				// booked here too, so bookNext() looks elsewhere.
+				log.info("Appointment for vet {} on {} at {} refused by the database - booked elsewhere", vet.getVetId(), date, grid.startOf(first));
+				vet.mark(date, SlotGrid.mask(first, 1));
+				return null;
+			}
+			throw e;
+		}
+	}  // end reserveAndSave()
+
+	// Booked dates before today are never looked at again - dropped once a day (the first caller of the day).
+	private void pruneIfNewDay() {
+		LocalDate today = LocalDate.now();
+		LocalDate last = prunedOn.get();
+		if (today.equals(last) || !prunedOn.compareAndSet(last, today))
+			return;
+		for (VetCalendar vet : calendars.all)
+			vet.prune(today);
+	}  // end pruneIfNewDay()
+
+	// ------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------
+
+	private int length(int minutes) {
+		if (minutes <= 0 || grid.slotsFor(minutes) > grid.getSlots())
+			throw new IllegalArgumentException("Appointments are 1 to " + grid.getSlots() * grid.getSlotMinutes() + " minutes, not " + minutes);
+		return grid.slotsFor(minutes);
+	}
+
+	private VetCalendar vet(Long vetId) {
+		VetCalendar vet = calendars.byVet.get(vetId);
+		if (vet == null)
+			throw new IllegalArgumentException("No vet " + vetId);
+		return vet;
+	}
+
+	private VetCalendar[] vets(String specialty) {
+		if (specialty == null)
+			return calendars.all;
+		VetCalendar[] vets = calendars.bySpecialty.get(key(specialty));
+		if (vets == null)
+			throw new IllegalArgumentException("No vet has specialty " + specialty);
+		return vets;
+	}
+
+	private Pet pet(Long petId) {
+		Pet pet = (petId == null) ? null : petService.findById(petId);
+		if (pet == null)
+			throw new IllegalArgumentException("No pet " + petId);
+		return pet;
+	}
+
+	private static Specialty specialty(Vet vet, String specialty) {
+		if (specialty == null)
+			return null;
+		return vet.getSpecialties().stream().filter(s -> key(s.getDescription()).equals(key(specialty))).findFirst().orElse(null);
+	}
+
+	private AppointmentSlot slot(VetCalendar vet, LocalDate date, int slot, int length) {
+		return new AppointmentSlot(null, null, vet.getVetId(), vet.getVetName(), date, grid.startOf(slot), grid.startOf(slot + length));
+	}
+
+	private static String key(String specialty) {
+		return specialty.trim().toLowerCase(Locale.ROOT);
+	}
+
+	// ------------------------------------------------------
+	// The Vets' calendars and their indexes - replaced as a whole by reload(), never changed after
+	// ------------------------------------------------------
+
+	private static final class Calendars {
+
+		private final Map<Long, VetCalendar> byVet;
+		private final VetCalendar[] all;                              // by Vet id
+		private final Map<String, VetCalendar[]> bySpecialty;
+
+		private Calendars(Map<Long, VetCalendar> byVet) {
+			this.byVet = byVet;
+			this.all = byVet.values().stream().sorted(Comparator.comparing(VetCalendar::getVetId)).toArray(VetCalendar[]::new);
+			Map<String, List<VetCalendar>> lists = new HashMap<>();
+			for (VetCalendar vet : all)
+				for (String specialty : vet.getSpecialties())
+					lists.computeIfAbsent(specialty, key -> new ArrayList<>()).add(vet);
+			this.bySpecialty = new HashMap<>();
+			lists.forEach((specialty, vets) -> bySpecialty.put(specialty, vets.toArray(new VetCalendar[0])));
+		}
+	}  // end class Calendars
+
+}  // end class AppointmentScheduler
@@ -0,0 +1,82 @@
+//***************************************************************************
+//Class:        AppointmentSlot
+//
+//JSON view of a time with a Vet - a free slot found by AppointmentScheduler (appointmentId / visitId not set),
+//or a booked Appointment.  Immutable.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentSlot {
+
+	private final Long appointmentId;
+	private final Long visitId;
+	private final Long vetId;
+	private final String vetName;
+	private final LocalDate date;
+	private final LocalTime start;
+	private final LocalTime end;
+
+	AppointmentSlot(Long appointmentId, Long visitId, Long vetId, String vetName, LocalDate date, LocalTime start, LocalTime end) {
+		this.appointmentId = appointmentId;
+		this.visitId = visitId;
+		this.vetId = vetId;
+		this.vetName = vetName;
+		this.date = date;
+		this.start = start;
+		this.end = end;
+	}  // end Constructor
+
+	static AppointmentSlot of(Appointment appointment) {
+		return new AppointmentSlot(appointment.getId(), appointment.getVisit().getId(), appointment.getVet().getId(),
+		                           appointment.getVet().getFirstName() + " " + appointment.getVet().getLastName(),
+		                           appointment.getDate(), appointment.getStartTime(), appointment.getEndTime());
+	}
+
+	public Long getAppointmentId() {
+		return appointmentId;
+	}
+
+	public Long getVisitId() {
+		return visitId;
+	}
+
+	public Long getVetId() {
+		return vetId;
+	}
+
+	public String getVetName() {
+		return vetName;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public LocalTime getStart() {
+		return start;
+	}
+
+	public LocalTime getEnd() {
+		return end;
+	}
+
+	@Override
+	public String toString() {
+		return "AppointmentSlot{" +
+		       "appointmentId=" + appointmentId +
+		       ", vetId=" + vetId +
+		       ", date=" + date +
+		       ", start=" + start +
+		       ", end=" + end +
+		       "}";
+	}  // end toString()
+
+}  // end class AppointmentSlot
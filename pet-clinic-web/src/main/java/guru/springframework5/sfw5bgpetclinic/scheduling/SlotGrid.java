@@ -0,0 +1,122 @@
+//***************************************************************************
+//Class:        SlotGrid
+//
+//The day cut into fixed slots for appointments:  slot 0 starts at petclinic.appointments.day-start, each slot
+//is petclinic.appointments.slot-minutes long, and there are at most 64 of them (06:00 - 22:00 in 15 minute
+//slots) - so any set of slots of one day (working hours, booked times, free times) is ONE long, bit n for
+//slot n.  Free time is a bit operation and a booking is one compareAndSet (see VetCalendar).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import java.time.LocalTime;
+
+final class SlotGrid {
+
+	static final int MAX_SLOTS = Long.SIZE;
+	private static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final LocalTime dayStart;
+	private final int slotMinutes;
+	private final int slots;
+
+	SlotGrid(LocalTime dayStart, int slotMinutes) {
+		if (slotMinutes <= 0)
+			throw new IllegalArgumentException("slot-minutes must be > 0, not " + slotMinutes);
+		this.dayStart = dayStart;
+		this.slotMinutes = slotMinutes;
+		this.slots = Math.min(MAX_SLOTS, (MINUTES_PER_DAY - minuteOf(dayStart)) / slotMinutes);
+		if (slots == 0)
+			throw new IllegalArgumentException("No " + slotMinutes + " minute slot fits between " + dayStart + " and midnight");
+	}  // end Constructor
+
+	int getSlots() {
+		return slots;
+	}
+
+	int getSlotMinutes() {
+		return slotMinutes;
+	}
+
+	LocalTime getDayStart() {
+		return dayStart;
+	}
+
+	/**
+	 * @return the number of slots an appointment of the given length takes (rounded up)
+	 */
+	int slotsFor(int minutes) {
+		return (minutes + slotMinutes - 1) / slotMinutes;
+	}
+
+	/**
+	 * @return the slot starting at the given time, -1 if no slot starts then (not on the grid)
+	 */
+	int slotAt(LocalTime time) {
+		int minutes = minuteOf(time) - minuteOf(dayStart);
+		if (minutes < 0 || minutes % slotMinutes != 0 || minutes / slotMinutes >= slots)
+			return -1;
+		return minutes / slotMinutes;
+	}
+
+	/**
+	 * @return the first slot starting at or after the given time; getSlots() if none does
+	 */
+	int firstSlotFrom(LocalTime time) {
+		int minutes = minuteOf(time) - minuteOf(dayStart);
+		if (minutes <= 0)
+			return 0;
+		return Math.min(slots, (minutes + slotMinutes - 1) / slotMinutes);
+	}
+
+	LocalTime startOf(int slot) {
+		return dayStart.plusMinutes((long) slot * slotMinutes);
+	}
+
+	/**
+	 * @return the slots that lie completely within start .. end (working hours)
+	 */
+	long within(LocalTime start, LocalTime end) {
+		int first = firstSlotFrom(start);
+		int last = Math.min(slots, Math.max(0, (minuteOf(end) - minuteOf(dayStart)) / slotMinutes));
+		return (last > first) ? mask(first, last - first) : 0L;
+	}
+
+	/**
+	 * @return the slots that start .. end touches (a booked appointment - even one that is off the grid)
+	 */
+	long covering(LocalTime start, LocalTime end) {
+		int first = Math.max(0, (minuteOf(start) - minuteOf(dayStart)) / slotMinutes);
+		int last = Math.min(slots, firstSlotFrom(end));
+		return (last > first) ? mask(first, last - first) : 0L;
+	}
+
+	/**
+	 * @return count slots from first on, as bits
+	 */
+	static long mask(int first, int count) {
+		long bits = (count >= MAX_SLOTS) ? -1L : (1L << count) - 1;
+		return bits << first;
+	}
+
+	/**
+	 * The first run of length free slots:  bit n of the result of free & free >>> 1 & ... & free >>> (length - 1)
+	 * is set only if slots n .. n + length - 1 are all free.  Done by doubling the run length covered, so
+	 * log2(length) shifts, not length.
+	 * @return the slot the run starts at, -1 if there is none
+	 */
+	static int firstRun(long free, int length) {
+		long runs = free;
+		int covered = 1;
+		while (covered < length && runs != 0) {
+			int shift = Math.min(covered, length - covered);
+			runs &= runs >>> shift;
+			covered += shift;
+		}
+		return (runs == 0) ? -1 : Long.numberOfTrailingZeros(runs);
+	}
+
+	private static int minuteOf(LocalTime time) {
+		return time.getHour() * 60 + time.getMinute();
+	}
+
+}  // end class SlotGrid
@@ -0,0 +1,116 @@
+//***************************************************************************
+//Class:        VetCalendar
+//
+//One Vet's time in slots of the SlotGrid:  the working hours of each day of the week, and per date the slots
+//already booked - both as bitmaps (one long, bit n = slot n).  free(date) is hours & ~booked.
+//
+//reserve() books slots with a compareAndSet on that date's AtomicLong:  it only succeeds if none of the
+//slots was booked when it was read, so two requests for overlapping times of the same Vet can never both
+//win, and there is no lock - bookings for other Vets or other dates do not even touch the same memory.
+//Dates before today are dropped by prune() (AppointmentScheduler, once a day) - nothing is booked in the past.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class VetCalendar {
+
+	private final Long vetId;
+	private volatile String vetName;
+	private volatile Set<String> specialties;               // descriptions, lower case
+	private volatile long[] hours;                          // by DayOfWeek.ordinal()
+	private final Map<LocalDate, AtomicLong> booked = new ConcurrentHashMap<>();
+
+	VetCalendar(Long vetId, String vetName, Set<String> specialties, long[] hours) {
+		this.vetId = vetId;
+		update(vetName, specialties, hours);
+	}  // end Constructor
+
+	/**
+	 * Replace name, specialties and working hours (AppointmentScheduler.reload) - the booked slots stay.
+	 */
+	void update(String vetName, Set<String> specialties, long[] hours) {
+		if (hours.length != DayOfWeek.values().length)
+			throw new IllegalArgumentException("One hours bitmap per day of the week, not " + hours.length);
+		this.vetName = vetName;
+		this.specialties = specialties;
+		this.hours = hours.clone();
+	}
+
+	Long getVetId() {
+		return vetId;
+	}
+
+	String getVetName() {
+		return vetName;
+	}
+
+	boolean has(String specialty) {
+		return specialties.contains(specialty);
+	}
+
+	Set<String> getSpecialties() {
+		return specialties;
+	}
+
+	long hours(LocalDate date) {
+		return hours[date.getDayOfWeek().ordinal()];
+	}
+
+	long booked(LocalDate date) {
+		AtomicLong day = booked.get(date);
+		return (day == null) ? 0L : day.get();
+	}
+
+	long free(LocalDate date) {
+		return hours(date) & ~booked(date);
+	}
+
+	/**
+	 * Book the slots if the Vet works all of them and none is booked.
+	 * @return true if booked; false if not (nothing changed)
+	 */
+	boolean reserve(LocalDate date, long slots) {
+		if (slots == 0 || (hours(date) & slots) != slots)
+			return false;
+		AtomicLong day = booked.computeIfAbsent(date, key -> new AtomicLong());
+		long current;
+		do {
+			current = day.get();
+			if ((current & slots) != 0)
+				return false;
+		} while (!day.compareAndSet(current, current | slots));
+		return true;
+	}
+
+	void release(LocalDate date, long slots) {
+		AtomicLong day = booked.get(date);
+		if (day != null)
+			day.getAndUpdate(current -> current & ~slots);
+	}
+
+	/**
+	 * Forget the booked slots of every date before the given one.
+	 */
+	void prune(LocalDate before) {
+		booked.keySet().removeIf(date -> date.isBefore(before));
+	}
+
+	int bookedDays() {
+		return booked.size();
+	}
+
+	/**
+	 * Mark slots booked without any check - loading Appointments that are already saved.
+	 */
+	void mark(LocalDate date, long slots) {
+		if (slots != 0)
+			booked.computeIfAbsent(date, key -> new AtomicLong()).getAndUpdate(current -> current | slots);
+	}
+
+}  // end class VetCalendar
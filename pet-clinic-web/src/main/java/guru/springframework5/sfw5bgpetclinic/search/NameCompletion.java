@@ -0,0 +1,26 @@
+//***************************************************************************
+//Class:        NameCompletion
+//
+//One autocomplete suggestion - a name (as first saved) and how many Owners have it.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+public class NameCompletion {
+
+	private final String name;
+	private final int owners;
+
+	public NameCompletion(String name, int owners) {
+		this.name = name;
+		this.owners = owners;
+	}  // end Constructor
+
+	public String getName() {
+		return name;
+	}
+
+	public int getOwners() {
+		return owners;
+	}
+
+}  // end class NameCompletion
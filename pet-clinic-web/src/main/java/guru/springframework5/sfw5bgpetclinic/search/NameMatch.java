@@ -0,0 +1,35 @@
+//***************************************************************************
+//Class:        NameMatch
+//
+//One fuzzy lookup result - a name, how many Owners have it, and its edit distance from what was asked for.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+public class NameMatch {
+
+	private final String name;
+	private final int owners;
+	private final int distance;
+
+	public NameMatch(String name, int owners, int distance) {
+		this.name = name;
+		this.owners = owners;
+		this.distance = distance;
+	}  // end Constructor
+
+	public String getName() {
+		return name;
+	}
+
+	public int getOwners() {
+		return owners;
+	}
+
+	/**
+	 * @return single character inserts, deletes and substitutions between the name and the one asked for
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+}  // end class NameMatch
@@ -0,0 +1,249 @@
+//***************************************************************************
+//Class:        NameTrie
+//
+//Compressed (radix) trie of names, each with the number of Owners that have it, answering "the k names with
+//the most Owners that start with this prefix" in O(prefix length):  every node keeps its subtree's top names
+//(most Owners, then alphabetical) - k to 2k of them - updated along the path from the changed name to the root
+//on every add / remove.  A name that gains Owners moves up or joins the list; one that loses Owners and may
+//now be behind a name not listed drops out of it.  Only when fewer than k would be left does a node merge its
+//own name and its children's lists again - exact, since any name in a subtree's top k is in its child's list.
+//
+//Keys are the names trimmed and in lower case ("smith" finds "Smith"); a suggestion shows the name as first
+//added.  Edges hold whole strings - "smith", "smithers" is a node "smith" with a child "ers" - split on insert
+//and merged back / pruned on remove, so the trie has at most 2 nodes per distinct name.
+//
+//Not thread safe - OwnerNameIndex locks around it.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+final class NameTrie {
+
+	private static final NameCompletion[] NONE = new NameCompletion[0];
+	private static final Comparator<NameCompletion> MOST_OWNERS_FIRST =
+			Comparator.comparingInt(NameCompletion::getOwners).reversed().thenComparing(NameCompletion::getName);
+
+	private static final class Node {
+		String label;                                     // the edge from the parent
+		final Map<Character, Node> children = new HashMap<>(4);
+		NameCompletion name;                              // a name ends here (null - none)
+		NameCompletion[] top = NONE;                      // subtree's top names, MOST_OWNERS_FIRST - at least k
+		boolean all = true;                               // top holds every name in the subtree
+
+		Node(String label) {
+			this.label = label;
+		}
+	}  // end class Node
+
+	private final int k;
+	private final int keep;                               // longest top list - 2k, so losing one rarely needs a merge
+	private final Node root = new Node("");
+	private int names;
+
+	/**
+	 * @param k - most suggestions a prefix can return
+	 */
+	NameTrie(int k) {
+		this.k = k;
+		this.keep = 2 * k;
+	}
+
+	/**
+	 * @return distinct names
+	 */
+	int size() {
+		return names;
+	}
+
+	void add(String name) {
+		change(name, 1);
+	}
+
+	void remove(String name) {
+		change(name, -1);
+	}
+
+	/**
+	 * @return up to limit (at most k) names starting with prefix, most Owners first
+	 */
+	List<NameCompletion> complete(String prefix, int limit) {
+		String key = key(prefix);
+		if (key.isEmpty())
+			return Collections.emptyList();
+		Node node = root;
+		int i = 0;
+		while (i < key.length()) {
+			Node child = node.children.get(key.charAt(i));
+			if (child == null)
+				return Collections.emptyList();
+			int common = commonPrefix(child.label, key, i);
+			if (i + common == key.length())
+				return first(child.top, limit);           // prefix ends on, or part way along, this edge
+			if (common < child.label.length())
+				return Collections.emptyList();
+			node = child;
+			i += common;
+		}
+		return first(node.top, limit);
+	}  // end complete()
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private void change(String name, int delta) {
+		String key = key(name);
+		if (key.isEmpty())
+			return;
+
+		// Down to the key's node - adding splits / creates edges, removing a name that is not there does nothing.
+		List<Node> path = new ArrayList<>();
+		path.add(root);
+		Node node = root;
+		int i = 0;
+		while (i < key.length()) {
+			Node child = node.children.get(key.charAt(i));
+			if (child == null) {
+				if (delta < 0)
+					return;
+				child = new Node(key.substring(i));
+				node.children.put(key.charAt(i), child);
+			} else {
+				int common = commonPrefix(child.label, key, i);
+				if (common < child.label.length()) {
+					if (delta < 0)
+						return;
+					Node split = new Node(child.label.substring(0, common));
+					child.label = child.label.substring(common);
+					split.children.put(child.label.charAt(0), child);
+					split.top = child.top;
+					split.all = child.all;
+					node.children.put(split.label.charAt(0), split);
+					child = split;
+				}
+			}
+			node = child;
+			path.add(node);
+			i += child.label.length();
+		}
+
+		int owners = ((node.name == null) ? 0 : node.name.getOwners()) + delta;
+		if (owners < 0)
+			return;
+		if (node.name == null && owners > 0)
+			names++;
+		else if (node.name != null && owners == 0)
+			names--;
+		NameCompletion old = node.name;
+		NameCompletion now = (owners == 0) ? null : new NameCompletion((old == null) ? name.trim() : old.getName(), owners);
+		node.name = now;
+
+		// Back up to the root:  prune / merge what is no longer needed, redo each node's top k.
+		for (int p = path.size() - 1; p >= 0; p--) {
+			Node current = path.get(p);
+			if (p > 0 && current.name == null && current.children.size() <= 1) {
+				Node parent = path.get(p - 1);
+				if (current.children.isEmpty())
+					parent.children.remove(current.label.charAt(0));
+				else {
+					Node only = current.children.values().iterator().next();
+					only.label = current.label + only.label;
+					parent.children.put(only.label.charAt(0), only);
+				}
+				continue;
+			}
+			update(current, old, now);
+		}
+	}  // end change()
+
+	// Keep the node's top list right after a name in its subtree went from old to now (either may be null - added /
+	// removed).  The lists hold the very NameCompletion objects of the names, so old is found by ==.
+	private void update(Node node, NameCompletion old, NameCompletion now) {
+		NameCompletion[] top = node.top;
+		int at = -1;
+		for (int i = 0; old != null && i < top.length; i++)
+			if (top[i] == old)
+				at = i;
+
+		if (at >= 0) {
+			NameCompletion[] rest = new NameCompletion[top.length - 1];
+			System.arraycopy(top, 0, rest, 0, at);
+			System.arraycopy(top, at + 1, rest, at, rest.length - at);
+			// Gone, or lost Owners and now maybe behind a name not in the list - its place is unknown, leave it out.
+			boolean leftOut = (now == null) ||
+			                  (!node.all && now.getOwners() < old.getOwners() &&
+			                   (rest.length == 0 || MOST_OWNERS_FIRST.compare(now, rest[rest.length - 1]) > 0));
+			if (!leftOut)
+				node.top = sorted(top.clone(), at, now);
+			else if (node.all || rest.length >= k)
+				node.top = rest;
+			else
+				merge(node);                                    // fewer than k left - from the children
+		} else if (now != null) {
+			// Not in the list:  in it if the list has every name below, or if it beats the list's last.
+			if (node.all || MOST_OWNERS_FIRST.compare(now, top[top.length - 1]) < 0) {
+				NameCompletion[] added = sorted(Arrays.copyOf(top, top.length + 1), top.length, now);
+				if (added.length > keep) {
+					added = Arrays.copyOf(added, keep);
+					node.all = false;
+				}
+				node.top = added;
+			}
+		}
+	}  // end update()
+
+	private static NameCompletion[] sorted(NameCompletion[] top, int at, NameCompletion name) {
+		top[at] = name;
+		Arrays.sort(top, MOST_OWNERS_FIRST);
+		return top;
+	}
+
+	// The node's list from scratch:  its own name and its children's lists, as far as they are exact - up to the
+	// best "last entry" of a child list that does not hold all its names (anything that child left out is behind it).
+	private void merge(Node node) {
+		List<NameCompletion> candidates = new ArrayList<>();
+		if (node.name != null)
+			candidates.add(node.name);
+		NameCompletion exactTo = null;
+		for (Node child : node.children.values()) {
+			candidates.addAll(Arrays.asList(child.top));
+			if (!child.all) {
+				NameCompletion last = child.top[child.top.length - 1];
+				if (exactTo == null || MOST_OWNERS_FIRST.compare(last, exactTo) < 0)
+					exactTo = last;
+			}
+		}
+		candidates.sort(MOST_OWNERS_FIRST);
+		int exact = candidates.size();
+		if (exactTo != null)
+			exact = candidates.indexOf(exactTo) + 1;
+		int length = Math.min(exact, keep);
+		node.top = candidates.subList(0, length).toArray(NONE);
+		node.all = (length == candidates.size());
+	}  // end merge()
+
+	private static List<NameCompletion> first(NameCompletion[] top, int limit) {
+		return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(top, Math.min(limit, top.length))));
+	}
+
+	private static int commonPrefix(String label, String key, int from) {
+		int max = Math.min(label.length(), key.length() - from);
+		int i = 0;
+		while (i < max && label.charAt(i) == key.charAt(from + i))
+			i++;
+		return i;
+	}
+
+	static String key(String name) {
+		return (name == null) ? "" : name.trim().toLowerCase(Locale.ROOT);
+	}
+
+}  // end class NameTrie
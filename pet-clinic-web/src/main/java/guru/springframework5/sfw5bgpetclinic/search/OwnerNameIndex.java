@@ -0,0 +1,116 @@
+//***************************************************************************
+//Class:        OwnerNameIndex
+//
+//The Owner names OwnerNameSearch answers from:  a NameTrie of last names and one of first names (completion), a
+//NameBkTree of last names (fuzzy lookup), and each indexed Owner's names (so a rename or delete takes the old
+//names off).  One ReentrantReadWriteLock - many
+//lookups at once, a save / delete (a few microseconds) on its own.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+final class OwnerNameIndex {
+
+	private static final class Names {
+		final String firstName;
+		final String lastName;
+
+		Names(String firstName, String lastName) {
+			this.firstName = firstName;
+			this.lastName = lastName;
+		}
+	}  // end class Names
+
+	private final NameTrie lastNames;
+	private final NameTrie firstNames;
+	private final NameBkTree similarLastNames = new NameBkTree();
+	private final Map<Long, Names> owners = new HashMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * @param k - most suggestions a prefix can return
+	 */
+	OwnerNameIndex(int k) {
+		lastNames = new NameTrie(k);
+		firstNames = new NameTrie(k);
+	}
+
+	int size() {
+		lock.readLock().lock();
+		try {
+			return owners.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	void put(Long ownerId, String firstName, String lastName) {
+		put(ownerId, firstName, lastName, true);
+	}
+
+	/**
+	 * put() unless the Owner is already indexed (rebuild - a save while it ran is newer than what it read).
+	 */
+	void putIfAbsent(Long ownerId, String firstName, String lastName) {
+		put(ownerId, firstName, lastName, false);
+	}
+
+	void remove(Long ownerId) {
+		lock.writeLock().lock();
+		try {
+			Names old = owners.remove(ownerId);
+			if (old != null)
+				unindex(old);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}  // end remove()
+
+	List<NameCompletion> complete(boolean firstName, String prefix, int limit) {
+		lock.readLock().lock();
+		try {
+			return (firstName ? firstNames : lastNames).complete(prefix, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}  // end complete()
+
+	List<NameMatch> similarLastNames(String lastName, int maxDistance, int limit) {
+		lock.readLock().lock();
+		try {
+			return similarLastNames.search(lastName, maxDistance, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}  // end similarLastNames()
+
+	private void put(Long ownerId, String firstName, String lastName, boolean replace) {
+		Names names = new Names(firstName, lastName);
+		lock.writeLock().lock();
+		try {
+			Names old = owners.get(ownerId);
+			if (old != null) {
+				if (!replace)
+					return;
+				unindex(old);
+			}
+			owners.put(ownerId, names);
+			lastNames.add(lastName);
+			firstNames.add(firstName);
+			similarLastNames.add(lastName);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}  // end put()
+
+	private void unindex(Names names) {
+		lastNames.remove(names.lastName);
+		firstNames.remove(names.firstName);
+		similarLastNames.remove(names.lastName);
+	}
+
+}  // end class OwnerNameIndex
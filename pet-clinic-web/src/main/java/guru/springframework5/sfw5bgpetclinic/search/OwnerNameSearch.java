@@ -0,0 +1,151 @@
+//***************************************************************************
+//Class:        OwnerNameSearch
+//Stereotype:   @Component
+//
+//As-you-type completion of Owner last / first names (OwnerNameIndex) - the names starting with a prefix that
+//most Owners have, in microseconds however many Owners there are - and fuzzy last name lookup, the names within
+//a few typos of one asked for (offered by Find Owners when nobody has the name typed).  As an EntityChangeListener<Owner> it hears
+//every OwnerService save / delete, map or springdatajpa.
+//
+//rebuild() indexes every Owner from the data (ExportService, one pass) at startup and on request, and
+//swaps the new index in when complete; Owners saved / deleted during the rebuild go to both - as VisitSearch.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+
+@ConditionalOnProperty(prefix = "petclinic.search.owners", name = "enabled", matchIfMissing = true)
+@Component
+public class OwnerNameSearch implements EntityChangeListener<Owner> {
+
+	private static final Logger log = LoggerFactory.getLogger(OwnerNameSearch.class);
+
+	private final ExportService exportService;
+	private final int maxLimit;
+	private final int maxDistance;
+
+	private volatile OwnerNameIndex index;
+	private volatile OwnerNameIndex rebuilding;                           // not null while a rebuild runs
+	private final Set<Long> deletedWhileRebuilding = ConcurrentHashMap.newKeySet();
+
+	public OwnerNameSearch(ExportService exportService, Environment environment) {
+		this.exportService = exportService;
+		this.maxLimit = environment.getProperty("petclinic.search.owners.max-limit", Integer.class, 10);
+		this.maxDistance = environment.getProperty("petclinic.search.owners.max-distance", Integer.class, 2);
+		this.index = new OwnerNameIndex(maxLimit);
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Updates (EntityChangeListener - request threads)
+	// ------------------------------------------------------
+
+	@Override
+	public void saved(Owner owner) {
+		if (owner == null || owner.getId() == null)
+			return;
+		OwnerNameIndex building = rebuilding;   // read BEFORE index - see rebuild()
+		index.put(owner.getId(), owner.getFirstName(), owner.getLastName());
+		if (building != null)
+			building.put(owner.getId(), owner.getFirstName(), owner.getLastName());
+	}  // end saved()
+
+	@Override
+	public void deleted(Long ownerId) {
+		if (ownerId == null)
+			return;
+		OwnerNameIndex building = rebuilding;
+		index.remove(ownerId);
+		if (building != null) {
+			deletedWhileRebuilding.add(ownerId);
+			building.remove(ownerId);
+		}
+	}  // end deleted()
+
+	// ------------------------------------------------------
+	// Rebuild
+	// ------------------------------------------------------
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Index every Owner from the data (one rebuild at a time - a second caller waits for the first).
+	 * @return Owners indexed
+	 */
+	public synchronized int rebuild() {
+		long start = System.nanoTime();
+		OwnerNameIndex building = new OwnerNameIndex(maxLimit);
+		deletedWhileRebuilding.clear();
+		rebuilding = building;
+		try {
+			exportService.forEachOwner(owner -> {
+				if (!deletedWhileRebuilding.contains(owner.getId()))
+					building.putIfAbsent(owner.getId(), owner.getFirstName(), owner.getLastName());
+			});
+			deletedWhileRebuilding.forEach(building::remove);     // deleted between contains() and putIfAbsent()
+
+			index = building;           // BEFORE rebuilding = null - see saved()
+			log.info("Owner name index rebuilt:  {} owners, {} ms", building.size(), (System.nanoTime() - start) / 1_000_000);
+		} finally {
+			rebuilding = null;
+			deletedWhileRebuilding.clear();
+		}
+		return building.size();
+	}  // end rebuild()
+
+	// ------------------------------------------------------
+	// Lookups
+	// ------------------------------------------------------
+
+	/**
+	 * @param firstName - complete first names (false - last names)
+	 * @param prefix - start of the name, any case; blank finds nothing
+	 * @param limit - most names to return, 1 .. petclinic.search.owners.max-limit
+	 * @return names starting with prefix, most Owners first (then alphabetical)
+	 * @throws IllegalArgumentException - limit out of range
+	 */
+	public List<NameCompletion> complete(boolean firstName, String prefix, int limit) {
+		if (limit < 1 || limit > maxLimit)
+			throw new IllegalArgumentException("limit must be 1 - " + maxLimit + ":  " + limit);
+		return index.complete(firstName, prefix, limit);
+	}  // end complete()
+
+	/**
+	 * @param lastName - as typed, any case
+	 * @param distance - most typos (inserted, deleted or changed letters), 0 .. petclinic.search.owners.max-distance
+	 * @param limit - most names to return, 1 .. petclinic.search.owners.max-limit
+	 * @return last names within distance of lastName, closest first (then most Owners)
+	 * @throws IllegalArgumentException - distance or limit out of range
+	 */
+	public List<NameMatch> similarLastNames(String lastName, int distance, int limit) {
+		if (distance < 0 || distance > maxDistance)
+			throw new IllegalArgumentException("distance must be 0 - " + maxDistance + ":  " + distance);
+		if (limit < 1 || limit > maxLimit)
+			throw new IllegalArgumentException("limit must be 1 - " + maxLimit + ":  " + limit);
+		return index.similarLastNames(lastName, distance, limit);
+	}  // end similarLastNames()
+
+	/**
+	 * similarLastNames() with the most typos and names allowed - what Find Owners offers.
+	 */
+	public List<NameMatch> similarLastNames(String lastName) {
+		return similarLastNames(lastName, maxDistance, maxLimit);
+	}
+
+}  // end class OwnerNameSearch
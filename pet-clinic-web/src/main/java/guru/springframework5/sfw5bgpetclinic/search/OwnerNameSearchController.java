@@ -0,0 +1,63 @@
+//***************************************************************************
+//Class:        OwnerNameSearchController
+//Stereotype:   @RestController  (JSON - used by the Find Owners page as you type)
+//
+//Owner name completion and fuzzy last name lookup (see OwnerNameSearch):
+//    GET  /api/owners/autocomplete?prefix=sm[&field=lastName|firstName][&limit=10]   [NameCompletion]
+//    GET  /api/owners/similar?lastName=glenane[&distance=2][&limit=10]              [NameMatch]
+//    POST /api/owners/autocomplete/rebuild                                          Owners indexed
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@ConditionalOnProperty(prefix = "petclinic.search.owners", name = "enabled", matchIfMissing = true)
+@RestController
+@RequestMapping("/api/owners")
+public class OwnerNameSearchController {
+
+	private final OwnerNameSearch ownerNameSearch;
+
+	public OwnerNameSearchController(OwnerNameSearch ownerNameSearch) {
+		this.ownerNameSearch = ownerNameSearch;
+	}  // end Constructor
+
+	@GetMapping("/autocomplete")
+	public List<NameCompletion> complete(@RequestParam String prefix,
+	                                     @RequestParam(defaultValue = "lastName") String field,
+	                                     @RequestParam(defaultValue = "10") int limit) {
+		if (!field.equals("lastName") && !field.equals("firstName"))
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "field must be lastName or firstName:  " + field);
+		try {
+			return ownerNameSearch.complete(field.equals("firstName"), prefix, limit);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}  // end complete()
+
+	@GetMapping("/similar")
+	public List<NameMatch> similar(@RequestParam String lastName,
+	                               @RequestParam(defaultValue = "2") int distance,
+	                               @RequestParam(defaultValue = "10") int limit) {
+		try {
+			return ownerNameSearch.similarLastNames(lastName, distance, limit);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}  // end similar()
+
+	@PostMapping("/autocomplete/rebuild")
+	public int rebuild() {
+		return ownerNameSearch.rebuild();
+	}  // end rebuild()
+
+}  // end class OwnerNameSearchController
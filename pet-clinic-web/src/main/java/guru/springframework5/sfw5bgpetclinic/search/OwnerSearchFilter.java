@@ -0,0 +1,278 @@
+//***************************************************************************
+//Class:        OwnerSearchFilter
+//Stereotype:   @Component
+//
+//Negative cache for Find Owners:  a ScalableBloomFilter of every piece (substring) of every Owner last name, up
+//to max-gram letters, lower case.  A last name can only be LIKE '%smyth%' if "smyth" is a piece of it (or, past
+//max-gram letters, if every max-gram letter window of it is), so when the filter has never seen one of the
+//pieces nobody can match and OwnerController answers "not found" without running the query.  A "maybe" runs the
+//query as before - the filter never hides an Owner, it can only fail to save a query.
+//
+//As an EntityChangeListener<Owner> it hears every OwnerService save, map or springdatajpa, and adds the pieces of
+//the last name.  A Bloom filter cannot take them off again, so a rename or delete leaves pieces nobody has any
+//more - a "maybe" that finds nothing, never a wrong answer.  rebuild() starts a new filter from the data (at
+//startup, on request, and on its own in the background when saves have made the filter
+//grow past its first stage), sized for what it holds now, and swaps it in when complete.
+//
+//Ready:  the filter only answers "nobody" once a complete rebuild is done and nothing is running that it may not
+//have heard yet - before the first rebuild, while one runs, and while a bulk import runs (ImportProgress event
+//RUNNING) every search is a "maybe".  An import that ends starts a rebuild; ready again when that is done.
+//
+//Metrics (actuator /metrics):
+//    petclinic.search.owners.filter.checks         Counter - searches checked; result=rejected|passed
+//    petclinic.search.owners.filter.false.positives Counter - passed, and the query then found nobody
+//    petclinic.search.owners.filter.fpp            Gauge - kind=estimated (from the bits set - one piece)
+//                                                  or observed (false positives / passed - whole searches)
+//    petclinic.search.owners.filter.memory         Gauge - bytes of bits
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.bulkimport.ImportProgress;
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ConditionalOnProperty(prefix = "petclinic.search.owners.filter", name = "enabled", matchIfMissing = true)
+@Component
+public class OwnerSearchFilter implements EntityChangeListener<Owner> {
+
+	private static final Logger log = LoggerFactory.getLogger(OwnerSearchFilter.class);
+	private static final String METRIC = "petclinic.search.owners.filter";
+
+	private final ExportService exportService;
+	private final long capacity;
+	private final double fpp;
+	private final int maxGram;
+
+	private volatile ScalableBloomFilter filter;
+	private volatile ScalableBloomFilter rebuilding;                     // not null while a rebuild runs
+	private volatile boolean ready;                                       // see header
+	private volatile boolean importing;
+	private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+	private final ExecutorService background = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "owner-search-filter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder passed = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	public OwnerSearchFilter(ExportService exportService, MeterRegistry registry, Environment environment) {
+		this.exportService = exportService;
+		this.capacity = environment.getProperty("petclinic.search.owners.filter.capacity", Long.class, 100_000L);
+		this.fpp = environment.getProperty("petclinic.search.owners.filter.fpp", Double.class, 0.01);
+		this.maxGram = environment.getProperty("petclinic.search.owners.filter.max-gram", Integer.class, 6);
+		if (maxGram < 1)
+			throw new IllegalArgumentException("petclinic.search.owners.filter.max-gram must be 1 or more:  " + maxGram);
+		this.filter = new ScalableBloomFilter(capacity, fpp);
+
+		FunctionCounter.builder(METRIC + ".checks", rejected, LongAdder::sum)
+		               .description("Find Owners searches checked against the filter").tag("result", "rejected")
+		               .register(registry);
+		FunctionCounter.builder(METRIC + ".checks", passed, LongAdder::sum)
+		               .description("Find Owners searches checked against the filter").tag("result", "passed")
+		               .register(registry);
+		FunctionCounter.builder(METRIC + ".false.positives", falsePositives, LongAdder::sum)
+		               .description("Searches the filter passed that then found nobody")
+		               .register(registry);
+		Gauge.builder(METRIC + ".fpp", this, search -> search.filter.expectedFpp())
+		     .description("Filter false positive probability").tag("kind", "estimated")
+		     .register(registry);
+		Gauge.builder(METRIC + ".fpp", this, OwnerSearchFilter::observedFpp)
+		     .description("Filter false positive probability").tag("kind", "observed")
+		     .register(registry);
+		Gauge.builder(METRIC + ".memory", this, search -> search.filter.bytes())
+		     .description("Filter bits").baseUnit("bytes")
+		     .register(registry);
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Updates (EntityChangeListener - request threads)
+	// ------------------------------------------------------
+
+	@Override
+	public void saved(Owner owner) {
+		if (owner == null || owner.getLastName() == null)
+			return;
+		ScalableBloomFilter building = rebuilding;   // read BEFORE filter - see rebuild()
+		ScalableBloomFilter current = filter;
+		addPieces(current, owner.getLastName());
+		if (building != null)
+			addPieces(building, owner.getLastName());
+		else if (current.stages() > 1)
+			rebuildInBackground();                   // outgrew its size - a new one sized for what it holds
+	}  // end saved()
+
+	@Override
+	public void deleted(Long ownerId) {
+		// Nothing to take off - the pieces stay until the next rebuild.
+	}
+
+	// ------------------------------------------------------
+	// Rebuild
+	// ------------------------------------------------------
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * BulkImporter - not ready while an import runs, rebuilt when it ends.
+	 */
+	@EventListener(ImportProgress.class)
+	public void importChanged(ImportProgress progress) {
+		if (progress.getState() == ImportProgress.State.RUNNING) {
+			importing = true;
+			ready = false;
+		} else {
+			importing = false;
+			rebuildInBackground();
+		}
+	}  // end importChanged()
+
+	/**
+	 * @return true once a complete rebuild is done, and no rebuild or import runs since
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * rebuild() on the filter's own thread; searches use the old filter until it is done.
+	 * @return false if a rebuild is already waiting to run
+	 */
+	public boolean rebuildInBackground() {
+		if (!rebuildQueued.compareAndSet(false, true))
+			return false;
+		background.execute(() -> {
+			rebuildQueued.set(false);
+			try {
+				rebuild();
+			} catch (RuntimeException e) {
+				log.warn("Owner search filter rebuild failed - keeping the old one", e);
+			}
+		});
+		return true;
+	}  // end rebuildInBackground()
+
+	/**
+	 * Add the last name of every Owner from the data to a new filter (one rebuild at a time).  Sized for twice the
+	 * pieces the current filter holds (at least petclinic.search.owners.filter.capacity), so one stage.
+	 * @return pieces in the new filter
+	 */
+	public synchronized long rebuild() {
+		long start = System.nanoTime();
+		ScalableBloomFilter building = new ScalableBloomFilter(Math.max(capacity, 2 * filter.count()), fpp);
+		ready = false;
+		rebuilding = building;
+		boolean complete = false;
+		try {
+			exportService.forEachOwner(owner -> {
+				if (owner.getLastName() != null)
+					addPieces(building, owner.getLastName());
+			});
+			filter = building;          // BEFORE rebuilding = null - see saved()
+			complete = true;
+			log.info("Owner search filter rebuilt:  {} pieces, {} stage(s), {} KB, {} ms", building.count(), building.stages(),
+			         building.bytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+		} finally {
+			rebuilding = null;
+			ready = complete && !importing;
+		}
+		return building.count();
+	}  // end rebuild()
+
+	@PreDestroy
+	public void shutdown() {
+		background.shutdownNow();
+	}
+
+	// ------------------------------------------------------
+	// Lookups (OwnerController, request threads)
+	// ------------------------------------------------------
+
+	/**
+	 * @param lastNameLike - LIKE pattern as findAllByLastNameLike takes it (% any characters, _ any one)
+	 * @return false if no Owner's last name can match - true means maybe (run the query), always while not ready
+	 */
+	public boolean mightMatch(String lastNameLike) {
+		if (!ready)
+			return true;
+		boolean maybe = mightMatch(filter, lastNameLike);
+		(maybe ? passed : rejected).increment();
+		return maybe;
+	}  // end mightMatch()
+
+	/**
+	 * The search mightMatch() passed found nobody after all - counts towards the observed false positive rate
+	 * (while ready - otherwise mightMatch() did not check).
+	 */
+	public void foundNothing() {
+		if (ready)
+			falsePositives.increment();
+	}
+
+	double observedFpp() {
+		long checked = passed.sum();
+		return (checked == 0) ? 0.0 : (double) falsePositives.sum() / checked;
+	}
+
+	// Every run of letters between the wildcards must be a piece of the name; past maxGram letters, every window of
+	// maxGram letters must.  A \ may escape a wildcard (H2) - maybe, rather than work out what it escapes.
+	private boolean mightMatch(ScalableBloomFilter filter, String lastNameLike) {
+		if (lastNameLike == null || lastNameLike.indexOf('\\') >= 0)
+			return true;
+		String like = lowerCase(lastNameLike);
+		int start = 0;
+		for (int i = 0; i <= like.length(); i++) {
+			if (i < like.length() && like.charAt(i) != '%' && like.charAt(i) != '_')
+				continue;
+			int length = i - start;
+			for (int from = start; length > 0 && from + Math.min(length, maxGram) <= i; from++) {
+				if (!filter.mightContain(like.substring(from, from + Math.min(length, maxGram))))
+					return false;
+			}
+			start = i + 1;
+		}
+		return true;
+	}  // end mightMatch()
+
+	private void addPieces(ScalableBloomFilter filter, String lastName) {
+		String name = lowerCase(lastName);
+		for (int from = 0; from < name.length(); from++) {
+			for (int to = from + 1; to <= Math.min(name.length(), from + maxGram); to++)
+				filter.add(name.substring(from, to));
+		}
+	}  // end addPieces()
+
+	// Letter by letter - String.toLowerCase() looks at the letters around (Greek final sigma), so a piece of a name
+	// would not always be a piece of the lower case name.
+	private static String lowerCase(String value) {
+		char[] letters = value.toCharArray();
+		for (int i = 0; i < letters.length; i++)
+			letters[i] = Character.toLowerCase(letters[i]);
+		return new String(letters);
+	}
+
+}  // end class OwnerSearchFilter
@@ -0,0 +1,35 @@
+//***************************************************************************
+//Class:        OwnerSearchFilterController
+//Stereotype:   @RestController
+//
+//Find Owners negative cache (see OwnerSearchFilter) - how it is doing is in the actuator metrics
+//(petclinic.search.owners.filter.*):
+//    POST /api/owners/search-filter/rebuild      202 - rebuilding in the background (or already waiting to)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@ConditionalOnProperty(prefix = "petclinic.search.owners.filter", name = "enabled", matchIfMissing = true)
+@RestController
+@RequestMapping("/api/owners/search-filter")
+public class OwnerSearchFilterController {
+
+	private final OwnerSearchFilter ownerSearchFilter;
+
+	public OwnerSearchFilterController(OwnerSearchFilter ownerSearchFilter) {
+		this.ownerSearchFilter = ownerSearchFilter;
+	}  // end Constructor
+
+	@PostMapping("/rebuild")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public void rebuild() {
+		ownerSearchFilter.rebuildInBackground();
+	}  // end rebuild()
+
+}  // end class OwnerSearchFilterController
@@ -0,0 +1,177 @@
+//***************************************************************************
+//Class:        ScalableBloomFilter
+//
+//Set of strings that answers "definitely not in" or "maybe in", in a few bits per string.  A plain Bloom filter
+//is sized up front and its false positive rate climbs once more strings go in than it was sized for; this one
+//(Almeida et al., "Scalable Bloom Filters") adds a stage twice the size with half the false positive rate each
+//time the last one fills, so the rate stays under the one asked for however many strings are added:
+//    fpp / 2 + fpp / 4 + fpp / 8 + ...  <  fpp
+//
+//Each stage is one bit array (AtomicLongArray - adds from many threads at once, reads never lock) probed at k
+//places derived from one 64 bit hash (h1 + i * h2, Kirsch / Mitzenmacher).  A string whose bits were all set
+//already does not count towards filling the stage - adding the same string again costs nothing.  Nothing can
+//be taken out; OwnerSearchFilter rebuilds a new one instead.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class ScalableBloomFilter {
+
+	private static final class Stage {
+		final AtomicLongArray bits;
+		final long size;                    // bits
+		final int hashes;
+		final long capacity;                // strings before the next stage
+		final AtomicLong count = new AtomicLong();
+
+		Stage(long capacity, double fpp) {
+			// Optimal for capacity strings at fpp:  m = -n ln(p) / (ln 2)^2, k = (m / n) ln 2
+			long wanted = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+			this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (Math.max(wanted, 64) + 63) / 64));
+			this.size = bits.length() * 64L;
+			this.hashes = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+			this.capacity = capacity;
+		}
+
+		// @return true if a bit was set (the string was not there)
+		boolean add(long hash) {
+			int h1 = (int) hash, h2 = (int) (hash >>> 32);
+			boolean changed = false;
+			for (int i = 1; i <= hashes; i++) {
+				long bit = index(h1, h2, i);
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+				long old = bits.get(word);
+				while ((old & mask) == 0) {
+					if (bits.compareAndSet(word, old, old | mask)) {
+						changed = true;
+						break;
+					}
+					old = bits.get(word);
+				}
+			}
+			return changed;
+		}  // end add()
+
+		boolean mightContain(long hash) {
+			int h1 = (int) hash, h2 = (int) (hash >>> 32);
+			for (int i = 1; i <= hashes; i++) {
+				long bit = index(h1, h2, i);
+				if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+					return false;
+			}
+			return true;
+		}
+
+		private long index(int h1, int h2, int i) {
+			long combined = h1 + (long) i * h2;
+			return (combined & Long.MAX_VALUE) % size;
+		}
+
+		// Chance a string never added finds all its bits set - (bits set / size) ^ k.  Counts the bits (scrapes only).
+		double fpp() {
+			long set = 0;
+			for (int i = 0; i < bits.length(); i++)
+				set += Long.bitCount(bits.get(i));
+			return Math.pow((double) set / size, hashes);
+		}
+	}  // end class Stage
+
+	private final double fpp;
+	private volatile Stage[] stages;
+
+	/**
+	 * @param capacity - strings the first stage holds at fpp / 2
+	 * @param fpp - highest false positive rate wanted, (0, 1)
+	 */
+	ScalableBloomFilter(long capacity, double fpp) {
+		if (capacity < 1 || !(fpp > 0 && fpp < 1))
+			throw new IllegalArgumentException("capacity must be positive and fpp between 0 and 1:  " + capacity + ", " + fpp);
+		this.fpp = fpp;
+		this.stages = new Stage[] {new Stage(capacity, fpp / 2)};
+	}  // end Constructor
+
+	void add(String value) {
+		long hash = hash(value);
+		Stage[] current = stages;
+		for (int i = 0; i < current.length - 1; i++) {
+			if (current[i].mightContain(hash))
+				return;                               // already there - in a full stage
+		}
+		Stage last = current[current.length - 1];
+		if (last.add(hash) && last.count.incrementAndGet() >= last.capacity)
+			grow(current);
+	}  // end add()
+
+	boolean mightContain(String value) {
+		long hash = hash(value);
+		for (Stage stage : stages) {
+			if (stage.mightContain(hash))
+				return true;
+		}
+		return false;
+	}
+
+	private synchronized void grow(Stage[] full) {
+		if (stages != full)
+			return;                                   // another thread grew it
+		Stage last = full[full.length - 1];
+		Stage[] more = Arrays.copyOf(full, full.length + 1);
+		more[full.length] = new Stage(last.capacity * 2, fpp / (2L << full.length));
+		stages = more;
+	}  // end grow()
+
+	// ------------------------------------------------------
+	// Statistics
+	// ------------------------------------------------------
+
+	/**
+	 * @return strings added (each counted once - an estimate, a false positive on add is not counted)
+	 */
+	long count() {
+		long count = 0;
+		for (Stage stage : stages)
+			count += stage.count.get();
+		return count;
+	}
+
+	int stages() {
+		return stages.length;
+	}
+
+	long bytes() {
+		long bytes = 0;
+		for (Stage stage : stages)
+			bytes += stage.size / 8;
+		return bytes;
+	}
+
+	/**
+	 * @return chance a string never added is reported "maybe in" - from the bits actually set, over all stages
+	 */
+	double expectedFpp() {
+		double none = 1.0;
+		for (Stage stage : stages)
+			none *= 1.0 - stage.fpp();
+		return 1.0 - none;
+	}
+
+	// 64 bit FNV-1a over the chars, then MurmurHash3's finalizer so both halves (h1, h2) are well mixed.
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}  // end hash()
+
+}  // end class ScalableBloomFilter
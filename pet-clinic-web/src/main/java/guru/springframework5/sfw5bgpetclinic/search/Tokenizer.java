@@ -0,0 +1,140 @@
+//***************************************************************************
+//Class:        Tokenizer
+//
+//Text to index terms, the same for descriptions and queries:  lower case, split on anything that is not a
+//letter or digit, each word stemmed so "limps", "limped" and "limping" are all "limp".
+//
+//The stemmer is the first step of Porter's algorithm (plurals, -ed / -ing, -y) plus its final-e rule - enough
+//for the short symptom words in Visit descriptions, without the later steps' over-stemming ("general" and
+//"generous" both "gener").
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+final class Tokenizer {
+
+	private Tokenizer() {
+	}
+
+	/**
+	 * @return the terms of the text, in order (a term's position is its index)
+	 */
+	static List<String> tokens(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null)
+			return tokens;
+		String lower = text.toLowerCase(Locale.ROOT);
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+			if (wordChar && start < 0)
+				start = i;
+			else if (!wordChar && start >= 0) {
+				tokens.add(stem(lower.substring(start, i)));
+				start = -1;
+			}
+		}
+		return tokens;
+	}  // end tokens()
+
+	// ------------------------------------------------------
+	// Porter stemmer - step 1 (a, b, c) and step 5a.  Words of a-z only; anything else is left alone.
+	// ------------------------------------------------------
+
+	static String stem(String word) {
+		if (word.length() <= 2 || !word.chars().allMatch(c -> c >= 'a' && c <= 'z'))
+			return word;
+		StringBuilder w = new StringBuilder(word);
+
+		// 1a - plurals
+		if (endsWith(w, "sses") || endsWith(w, "ies"))
+			w.setLength(w.length() - 2);
+		else if (!endsWith(w, "ss") && endsWith(w, "s"))
+			w.setLength(w.length() - 1);
+
+		// 1b - -eed, -ed, -ing
+		if (endsWith(w, "eed")) {
+			if (measure(w, w.length() - 3) > 0)
+				w.setLength(w.length() - 1);
+		} else {
+			int suffix = endsWith(w, "ed") ? 2 : endsWith(w, "ing") ? 3 : 0;
+			if (suffix > 0 && hasVowel(w, w.length() - suffix)) {
+				w.setLength(w.length() - suffix);
+				if (endsWith(w, "at") || endsWith(w, "bl") || endsWith(w, "iz"))
+					w.append('e');
+				else if (doubleConsonant(w) && "lsz".indexOf(w.charAt(w.length() - 1)) < 0)
+					w.setLength(w.length() - 1);
+				else if (measure(w, w.length()) == 1 && cvc(w))
+					w.append('e');
+			}
+		}
+
+		// 1c - y to i
+		if (endsWith(w, "y") && hasVowel(w, w.length() - 1))
+			w.setCharAt(w.length() - 1, 'i');
+
+		// 5a - final e
+		if (endsWith(w, "e")) {
+			int m = measure(w, w.length() - 1);
+			if (m > 1 || (m == 1 && !cvc(w, w.length() - 1)))
+				w.setLength(w.length() - 1);
+		}
+		return w.toString();
+	}  // end stem()
+
+	private static boolean endsWith(StringBuilder w, String suffix) {
+		int start = w.length() - suffix.length();
+		return start >= 0 && w.indexOf(suffix, start) == start;
+	}
+
+	private static boolean consonant(CharSequence w, int i) {
+		char c = w.charAt(i);
+		if ("aeiou".indexOf(c) >= 0)
+			return false;
+		return c != 'y' || i == 0 || !consonant(w, i - 1);
+	}
+
+	// Number of vowel-consonant sequences in w[0 .. end) - Porter's m.
+	private static int measure(CharSequence w, int end) {
+		int m = 0;
+		int i = 0;
+		while (i < end && consonant(w, i))
+			i++;
+		while (i < end) {
+			while (i < end && !consonant(w, i))
+				i++;
+			if (i >= end)
+				break;
+			m++;
+			while (i < end && consonant(w, i))
+				i++;
+		}
+		return m;
+	}
+
+	private static boolean hasVowel(CharSequence w, int end) {
+		for (int i = 0; i < end; i++)
+			if (!consonant(w, i))
+				return true;
+		return false;
+	}
+
+	private static boolean doubleConsonant(CharSequence w) {
+		int n = w.length();
+		return n >= 2 && w.charAt(n - 1) == w.charAt(n - 2) && consonant(w, n - 1);
+	}
+
+	private static boolean cvc(CharSequence w) {
+		return cvc(w, w.length());
+	}
+
+	// w[0 .. end) ends consonant-vowel-consonant, the last not w, x or y (hop, not hoop or box).
+	private static boolean cvc(CharSequence w, int end) {
+		return end >= 3 && consonant(w, end - 3) && !consonant(w, end - 2) && consonant(w, end - 1) &&
+		       "wxy".indexOf(w.charAt(end - 1)) < 0;
+	}
+
+}  // end class Tokenizer
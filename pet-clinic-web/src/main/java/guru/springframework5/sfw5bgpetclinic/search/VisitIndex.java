@@ -0,0 +1,235 @@
+//***************************************************************************
+//Class:        VisitIndex
+//
+//Inverted index over Visit descriptions:  term -> the Visits with it, newest first (date, then id).  Each indexed
+//Visit holds its hit and its own term -> positions in the description.
+//
+//A search walks the shortest posting list among the query's required terms and checks each of those Visits
+//against the whole query with the Visit's own positions - a phrase is its terms at p, p+1, ... - so the cost is
+//the rarest term's Visits, not the size of the index.  Posting lists are newest first, so the walk can stop once
+//it has "limit" hits and has counted maxCount matches:  a common word returns in the time of maxCount
+//matches, with the total reported as "at least" (Found.exact false).
+//
+//Safe for concurrent searches and updates:  a Visit's postings change inside docs.compute() for its id (one
+//writer per Visit) and a posting list is a ConcurrentSkipListSet, added to / removed from inside
+//postings.compute() for its term.  A search can see a Visit half way through an update - as its old or its new
+//version, each checked against its own terms.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class VisitIndex {
+
+	// Newest first - date, then id; Visits without a date last.
+	static final Comparator<Doc> NEWEST_FIRST = (a, b) -> a.newerThan(b) ? -1 : b.newerThan(a) ? 1 : 0;
+
+	/**
+	 * One indexed Visit.
+	 */
+	static final class Doc {
+		final VisitSearchHit hit;
+		final Map<String, int[]> positions;        // term -> ascending positions
+		private final long day;                    // epoch day, Long.MIN_VALUE without a date
+		private final long id;
+
+		Doc(VisitSearchHit hit) {
+			this.hit = hit;
+			Map<String, List<Integer>> found = new HashMap<>();
+			List<String> tokens = Tokenizer.tokens(hit.getDescription());
+			for (int i = 0; i < tokens.size(); i++)
+				found.computeIfAbsent(tokens.get(i), term -> new ArrayList<>()).add(i);
+			Map<String, int[]> positions = new HashMap<>();
+			found.forEach((term, list) -> positions.put(term, list.stream().mapToInt(Integer::intValue).toArray()));
+			this.positions = positions;
+			this.day = (hit.getDate() == null) ? Long.MIN_VALUE : hit.getDate().toEpochDay();
+			this.id = hit.getVisitId();
+		}  // end Constructor
+
+		boolean newerThan(Doc other) {
+			return day != other.day ? day > other.day : id > other.id;
+		}
+	}  // end class Doc
+
+	/**
+	 * One term's Visits, newest first, and how many (ConcurrentSkipListSet.size() walks the whole set).
+	 */
+	private static final class Postings {
+		final ConcurrentSkipListSet<Doc> docs = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+		final AtomicInteger size = new AtomicInteger();
+	}  // end class Postings
+
+	private final ConcurrentHashMap<String, Postings> postings = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Long, Doc> docs = new ConcurrentHashMap<>();
+
+	int size() {
+		return docs.size();
+	}
+
+	// ------------------------------------------------------
+	// Updates
+	// ------------------------------------------------------
+
+	void put(Doc doc) {
+		docs.compute(doc.hit.getVisitId(), (id, old) -> {
+			if (old != null)
+				removePostings(id, old);
+			addPostings(id, doc);
+			return doc;
+		});
+	}  // end put()
+
+	/**
+	 * put() unless the Visit is already indexed (rebuild - a save while it ran is newer than what it read).
+	 */
+	void putIfAbsent(Doc doc) {
+		docs.computeIfAbsent(doc.hit.getVisitId(), id -> {
+			addPostings(id, doc);
+			return doc;
+		});
+	}  // end putIfAbsent()
+
+	void remove(Long visitId) {
+		docs.computeIfPresent(visitId, (id, old) -> {
+			removePostings(id, old);
+			return null;
+		});
+	}  // end remove()
+
+	private void addPostings(Long id, Doc doc) {
+		doc.positions.keySet().forEach(term -> postings.compute(term, (key, ids) -> {
+			if (ids == null)
+				ids = new Postings();
+			if (ids.docs.add(doc))
+				ids.size.incrementAndGet();
+			return ids;
+		}));
+	}
+
+	private void removePostings(Long id, Doc doc) {
+		doc.positions.keySet().forEach(term -> postings.computeIfPresent(term, (key, ids) -> {
+			if (ids.docs.remove(doc))
+				ids.size.decrementAndGet();
+			return (ids.size.get() == 0) ? null : ids;
+		}));
+	}
+
+	// ------------------------------------------------------
+	// Search
+	// ------------------------------------------------------
+
+	/**
+	 * What search() found:  the number of matching Visits (a lower bound when not exact), and the newest "limit".
+	 */
+	static final class Found {
+		final int total;
+		final boolean exact;
+		final List<VisitSearchHit> hits;
+
+		Found(int total, boolean exact, List<VisitSearchHit> hits) {
+			this.total = total;
+			this.exact = exact;
+			this.hits = hits;
+		}
+	}  // end class Found
+
+	/**
+	 * @param maxCount - stop counting matches past this (once the newest limit are found)
+	 */
+	Found search(VisitQuery query, int limit, int maxCount) {
+		List<VisitQuery.Group> groups = query.getGroups();
+		Set<Long> matched = (groups.size() > 1) ? new HashSet<>() : null;     // a Visit matching two ORs counts once
+		int total = 0;
+		boolean exact = true;
+		PriorityQueue<Doc> newest = new PriorityQueue<>(limit + 1, NEWEST_FIRST.reversed());   // oldest on top
+		for (VisitQuery.Group group : groups) {
+			Postings candidates = postings.get(rarestTerm(group));
+			if (candidates == null)
+				continue;
+			int inGroup = 0;
+			for (Doc doc : candidates.docs) {
+				if (!matches(doc, group))
+					continue;
+				if (inGroup >= limit && total >= maxCount) {      // this group's newest are in, enough counted
+					exact = false;
+					break;
+				}
+				inGroup++;
+				if (matched != null && !matched.add(doc.id))
+					continue;
+				total++;
+				if (newest.size() < limit)
+					newest.add(doc);
+				else if (doc.newerThan(newest.peek())) {
+					newest.poll();
+					newest.add(doc);
+				}
+			}
+		}
+		List<Doc> sorted = new ArrayList<>(newest);
+		sorted.sort(NEWEST_FIRST);
+		List<VisitSearchHit> hits = new ArrayList<>(sorted.size());
+		sorted.forEach(doc -> hits.add(doc.hit));
+		return new Found(total, exact, Collections.unmodifiableList(hits));
+	}  // end search()
+
+	// The required term with the fewest Visits - every match of the group has it.
+	private String rarestTerm(VisitQuery.Group group) {
+		String rarest = null;
+		int fewest = Integer.MAX_VALUE;
+		for (List<String> clause : group.required) {
+			for (String term : clause) {
+				Postings ids = postings.get(term);
+				int count = (ids == null) ? 0 : ids.size.get();
+				if (count < fewest) {
+					fewest = count;
+					rarest = term;
+				}
+			}
+		}
+		return rarest;
+	}  // end rarestTerm()
+
+	private static boolean matches(Doc doc, VisitQuery.Group group) {
+		for (List<String> clause : group.required)
+			if (!contains(doc, clause))
+				return false;
+		for (List<String> clause : group.excluded)
+			if (contains(doc, clause))
+				return false;
+		return true;
+	}
+
+	// The term, or the phrase - its terms at consecutive positions.
+	private static boolean contains(Doc doc, List<String> clause) {
+		int[][] positions = new int[clause.size()][];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = doc.positions.get(clause.get(i));
+			if (positions[i] == null)
+				return false;
+		}
+		if (positions.length == 1)
+			return true;
+		next:
+		for (int start : positions[0]) {
+			for (int i = 1; i < positions.length; i++)
+				if (Arrays.binarySearch(positions[i], start + i) < 0)
+					continue next;
+			return true;
+		}
+		return false;
+	}  // end contains()
+
+}  // end class VisitIndex
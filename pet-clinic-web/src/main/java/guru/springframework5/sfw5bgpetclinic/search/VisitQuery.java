@@ -0,0 +1,101 @@
+//***************************************************************************
+//Class:        VisitQuery
+//
+//A parsed search:  words are ANDed, OR between them starts another alternative, "quoted words" must be next to
+//each other in that order (a phrase), and -word / NOT word (or -"phrase") must not be there.
+//    sneez limp            both
+//    sneez OR cough        either
+//    "eye drops" -cat      the phrase, without cat
+//Every word goes through Tokenizer, so the query is stemmed like the descriptions; a word that splits into
+//several terms ("x-ray") is a phrase.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final class VisitQuery {
+
+	/**
+	 * One alternative:  every required clause, none of the excluded ones.  A clause is one term, or a phrase.
+	 */
+	static final class Group {
+		final List<List<String>> required = new ArrayList<>();
+		final List<List<String>> excluded = new ArrayList<>();
+	}
+
+	private final List<Group> groups;
+
+	private VisitQuery(List<Group> groups) {
+		this.groups = Collections.unmodifiableList(groups);
+	}
+
+	/**
+	 * @return the alternatives that have a required clause (a group that only excludes would match everything)
+	 */
+	List<Group> getGroups() {
+		return groups;
+	}
+
+	boolean isEmpty() {
+		return groups.isEmpty();
+	}
+
+	static VisitQuery parse(String query) {
+		List<Group> groups = new ArrayList<>();
+		Group group = new Group();
+		boolean negate = false;
+		int i = 0;
+		int length = (query == null) ? 0 : query.length();
+		while (i < length) {
+			char c = query.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+			if (c == '-' && !negate) {
+				negate = true;
+				i++;
+				continue;
+			}
+			String text;
+			boolean quoted = (c == '"');
+			if (quoted) {
+				int close = query.indexOf('"', i + 1);
+				int end = (close < 0) ? length : close;
+				text = query.substring(i + 1, end);
+				i = end + 1;
+			} else {
+				int end = i;
+				while (end < length && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"')
+					end++;
+				text = query.substring(i, end);
+				i = end;
+				if (text.equals("OR") && !negate) {
+					add(groups, group);
+					group = new Group();
+					continue;
+				}
+				if (text.equals("AND") && !negate)
+					continue;
+				if (text.equals("NOT") && !negate) {
+					negate = true;
+					continue;
+				}
+			}
+			List<String> terms = Tokenizer.tokens(text);
+			if (!terms.isEmpty())
+				(negate ? group.excluded : group.required).add(terms);
+			negate = false;
+		}
+		add(groups, group);
+		return new VisitQuery(groups);
+	}  // end parse()
+
+	private static void add(List<Group> groups, Group group) {
+		if (!group.required.isEmpty())
+			groups.add(group);
+	}
+
+}  // end class VisitQuery
@@ -0,0 +1,187 @@
+//***************************************************************************
+//Class:        VisitSearch
+//Stereotype:   @Component
+//
+//Full-text search over Visit descriptions (see VisitQuery for the syntax), newest Visits first.  Matches are
+//counted up to petclinic.search.visits.max-count, so a very common word costs no more than a rare one.  The index
+//(VisitIndex) is in memory and kept up to date as Visits change - as an EntityChangeListener<Visit> it hears
+//saved() / deleted() after every VisitService save / saveAll / delete / deleteById, map or springdatajpa.
+//
+//rebuild() indexes everything from the data the same way VisitAnalytics recounts:  Visit id ranges read through
+//ExportService on petclinic.search.visits.threads threads (0 = one per core), at startup and on request, and
+//the new index swapped in when complete.  Visits saved / deleted during the rebuild go to both.
+//
+//A hit shows the Pet / Owner names AS OF the Visit's last save (until the next rebuild).
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangeListener;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.ExportService;
+
+@ConditionalOnProperty(prefix = "petclinic.search.visits", name = "enabled", matchIfMissing = true)
+@Component
+public class VisitSearch implements EntityChangeListener<Visit> {
+
+	private static final Logger log = LoggerFactory.getLogger(VisitSearch.class);
+
+	static final int DEFAULT_LIMIT = 20;
+	private static final int RANGES_PER_THREAD = 4;
+
+	private final ExportService exportService;
+	private final int threads;
+	private final int maxLimit;
+	private final int maxCount;
+
+	private volatile VisitIndex index = new VisitIndex();
+	private volatile VisitIndex rebuilding;                               // not null while a rebuild runs
+	private final Set<Long> deletedWhileRebuilding = ConcurrentHashMap.newKeySet();
+
+	public VisitSearch(ExportService exportService, Environment environment) {
+		this.exportService = exportService;
+		int configuredThreads = environment.getProperty("petclinic.search.visits.threads", Integer.class, 0);
+		this.threads = (configuredThreads > 0) ? configuredThreads : Runtime.getRuntime().availableProcessors();
+		this.maxLimit = environment.getProperty("petclinic.search.visits.max-limit", Integer.class, 100);
+		this.maxCount = environment.getProperty("petclinic.search.visits.max-count", Integer.class, 1000);
+	}  // end Constructor
+
+	// ------------------------------------------------------
+	// Updates (EntityChangeListener - request threads)
+	// ------------------------------------------------------
+
+	@Override
+	public void saved(Visit visit) {
+		if (visit == null || visit.getId() == null)
+			return;
+		VisitIndex.Doc doc = doc(visit);
+		VisitIndex building = rebuilding;       // read BEFORE index - see rebuild()
+		index.put(doc);
+		if (building != null)
+			building.put(doc);
+	}  // end saved()
+
+	@Override
+	public void deleted(Long visitId) {
+		if (visitId == null)
+			return;
+		VisitIndex building = rebuilding;
+		index.remove(visitId);
+		if (building != null) {
+			deletedWhileRebuilding.add(visitId);
+			building.remove(visitId);
+		}
+	}  // end deleted()
+
+	// ------------------------------------------------------
+	// Rebuild
+	// ------------------------------------------------------
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Index every Visit from the data (one rebuild at a time - a second caller waits for the first).
+	 * @return Visits indexed
+	 */
+	public synchronized int rebuild() {
+		long start = System.nanoTime();
+		VisitIndex building = new VisitIndex();
+		deletedWhileRebuilding.clear();
+		rebuilding = building;
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("visit-search-");
+		threadFactory.setDaemon(true);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, threadFactory);
+		try {
+			long maxId = exportService.maxVisitId();
+			int rangeCount = (int) Math.max(1, Math.min((long) threads * RANGES_PER_THREAD, maxId));
+			long rangeSize = maxId / rangeCount + 1;
+			List<Future<Long>> ranges = new ArrayList<>(rangeCount);
+			for (long from = 0; from <= maxId; from += rangeSize) {
+				long rangeFrom = from;
+				ranges.add(workers.submit(() -> exportService.forEachVisit(rangeFrom, rangeFrom + rangeSize, visit -> {
+					if (!deletedWhileRebuilding.contains(visit.getId()))
+						building.putIfAbsent(doc(visit));
+				})));
+			}
+			for (Future<Long> range : ranges)
+				range.get();
+			deletedWhileRebuilding.forEach(building::remove);     // deleted between contains() and putIfAbsent()
+
+			index = building;           // BEFORE rebuilding = null - see saved()
+			log.info("Visit search index rebuilt:  {} visits, {} threads, {} ms", building.size(), threads,
+			         (System.nanoTime() - start) / 1_000_000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Visit search rebuild interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Visit search rebuild failed", e.getCause());
+		} finally {
+			rebuilding = null;
+			deletedWhileRebuilding.clear();
+			workers.shutdownNow();
+		}
+		return building.size();
+	}  // end rebuild()
+
+	// ------------------------------------------------------
+	// Search
+	// ------------------------------------------------------
+
+	/**
+	 * @param query - see VisitQuery; blank finds nothing
+	 * @param limit - most hits to return, 1 .. petclinic.search.visits.max-limit
+	 * @throws IllegalArgumentException - limit out of range
+	 */
+	public VisitSearchResult search(String query, int limit) {
+		if (limit < 1 || limit > maxLimit)
+			throw new IllegalArgumentException("limit must be 1 - " + maxLimit + ":  " + limit);
+		long start = System.nanoTime();
+		VisitIndex current = index;
+		VisitQuery parsed = VisitQuery.parse(query);
+		if (parsed.isEmpty())
+			return new VisitSearchResult(query, 0, true, Collections.emptyList(), current.size(), 0);
+		VisitIndex.Found found = current.search(parsed, limit, maxCount);
+		return new VisitSearchResult(query, found.total, found.exact, found.hits, current.size(),
+		                             (System.nanoTime() - start) / 1_000);
+	}  // end search()
+
+
+	// ------------------------------------------------------
+	// Private Worker Methods
+	// ------------------------------------------------------
+
+	private static VisitIndex.Doc doc(Visit visit) {
+		Pet pet = visit.getPet();
+		Owner owner = (pet == null) ? null : pet.getOwner();
+		return new VisitIndex.Doc(new VisitSearchHit(visit.getId(), visit.getDate(), visit.getDescription(),
+		                                             (pet == null) ? null : pet.getId(), (pet == null) ? null : pet.getName(),
+		                                             (owner == null) ? null : owner.getId(),
+		                                             (owner == null) ? null : owner.getFirstName() + " " + owner.getLastName()));
+	}  // end doc()
+
+
+}  // end class VisitSearch
@@ -0,0 +1,62 @@
+//***************************************************************************
+//Class:        VisitSearchController
+//Stereotype:   @Controller  (a Thymeleaf page and its JSON twin, like VetController's /vets and /api/vets)
+//
+//Full-text search of Visit descriptions (see VisitSearch / VisitQuery):
+//    GET  /visits/search[?q=...&limit=20]        visits/search page
+//    GET  /api/visits/search?q=...[&limit=20]    VisitSearchResult (JSON)
+//    POST /api/visits/search/rebuild             re-index from the data, then the number of Visits indexed
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+@ConditionalOnProperty(prefix = "petclinic.search.visits", name = "enabled", matchIfMissing = true)
+@Controller
+public class VisitSearchController {
+
+	private final VisitSearch visitSearch;
+
+	public VisitSearchController(VisitSearch visitSearch) {
+		this.visitSearch = visitSearch;
+	}  // end Constructor
+
+	@GetMapping("/visits/search")
+	public String searchPage(@RequestParam(required = false) String q,
+	                         @RequestParam(defaultValue = "" + VisitSearch.DEFAULT_LIMIT) int limit, Model model) {
+		model.addAttribute("q", (q == null) ? "" : q);
+		if (q != null && !q.trim().isEmpty())
+			model.addAttribute("result", search(q, limit));
+		return "visits/search";
+	}  // end searchPage()
+
+	@GetMapping("/api/visits/search")
+	@ResponseBody
+	public VisitSearchResult searchJson(@RequestParam String q,
+	                                    @RequestParam(defaultValue = "" + VisitSearch.DEFAULT_LIMIT) int limit) {
+		return search(q, limit);
+	}  // end searchJson()
+
+	@PostMapping("/api/visits/search/rebuild")
+	@ResponseBody
+	public int rebuild() {
+		return visitSearch.rebuild();
+	}  // end rebuild()
+
+	private VisitSearchResult search(String q, int limit) {
+		try {
+			return visitSearch.search(q, limit);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}  // end search()
+
+}  // end class VisitSearchController
@@ -0,0 +1,60 @@
+//***************************************************************************
+//Class:        VisitSearchHit
+//
+//One Visit found by VisitSearch - what the results page / JSON show, copied from the Visit (and its Pet and
+//Owner) when it was indexed.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.time.LocalDate;
+
+public class VisitSearchHit {
+
+	private final Long visitId;
+	private final LocalDate date;
+	private final String description;
+	private final Long petId;
+	private final String petName;
+	private final Long ownerId;
+	private final String ownerName;
+
+	public VisitSearchHit(Long visitId, LocalDate date, String description, Long petId, String petName,
+	                      Long ownerId, String ownerName) {
+		this.visitId = visitId;
+		this.date = date;
+		this.description = description;
+		this.petId = petId;
+		this.petName = petName;
+		this.ownerId = ownerId;
+		this.ownerName = ownerName;
+	}  // end Constructor
+
+	public Long getVisitId() {
+		return visitId;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Long getPetId() {
+		return petId;
+	}
+
+	public String getPetName() {
+		return petName;
+	}
+
+	public Long getOwnerId() {
+		return ownerId;
+	}
+
+	public String getOwnerName() {
+		return ownerName;
+	}
+
+}  // end class VisitSearchHit
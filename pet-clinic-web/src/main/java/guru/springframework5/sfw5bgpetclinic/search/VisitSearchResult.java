@@ -0,0 +1,63 @@
+//***************************************************************************
+//Class:        VisitSearchResult
+//
+//What a search found:  total matching Visits, the first "limit" of them newest first, and how long it took.
+//Counting stops at petclinic.search.visits.max-count - then total is a lower bound and totalExact false.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import java.util.List;
+
+public class VisitSearchResult {
+
+	private final String query;
+	private final int total;
+	private final boolean totalExact;
+	private final List<VisitSearchHit> hits;
+	private final int indexed;
+	private final long micros;
+
+	public VisitSearchResult(String query, int total, boolean totalExact, List<VisitSearchHit> hits, int indexed,
+	                         long micros) {
+		this.query = query;
+		this.total = total;
+		this.totalExact = totalExact;
+		this.hits = hits;
+		this.indexed = indexed;
+		this.micros = micros;
+	}  // end Constructor
+
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * @return Visits matching the query (hits holds at most limit of them) - at least this many if not totalExact
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return false - there are more than total matches (counting stopped)
+	 */
+	public boolean isTotalExact() {
+		return totalExact;
+	}
+
+	public List<VisitSearchHit> getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return Visits in the index
+	 */
+	public int getIndexed() {
+		return indexed;
+	}
+
+	public long getMicros() {
+		return micros;
+	}
+
+}  // end class VisitSearchResult
@@ -0,0 +1,40 @@
+//***************************************************************************
+//Class:        BeanTimingPostProcessor
+//Implements:   InstantiationAwareBeanPostProcessor (Spring calls postProcessBeforeInstantiation just before
+//                     it constructs a bean and postProcessAfterInitialization once the bean is ready.)
+//
+//Times every bean from "about to construct" to "ready" into the StartupTimeline.  Added straight to the
+//bean factory by StartupTimelineRunListener (before any bean exists) rather than declared as a @Bean,
+//so even the other BeanPostProcessors and configuration classes are timed.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+class BeanTimingPostProcessor implements InstantiationAwareBeanPostProcessor {
+
+	private final StartupTimeline timeline;
+	private final Map<String, Long> started = new ConcurrentHashMap<>();   // beans can be created on other threads (deferred JPA)
+
+	BeanTimingPostProcessor(StartupTimeline timeline) {
+		this.timeline = timeline;
+	}
+
+	@Override
+	public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+		started.put(beanName, System.nanoTime());
+		return null;   // null = let Spring create the bean as usual
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		Long start = started.remove(beanName);
+		if (start != null)
+			timeline.bean(beanName, System.nanoTime() - start);
+		return bean;
+	}
+
+}  // end class BeanTimingPostProcessor
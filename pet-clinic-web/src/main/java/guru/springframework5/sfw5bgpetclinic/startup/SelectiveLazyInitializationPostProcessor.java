@@ -0,0 +1,71 @@
+//***************************************************************************
+//Class:        SelectiveLazyInitializationPostProcessor
+//Implements:   BeanFactoryPostProcessor (Spring calls it with all bean DEFINITIONS loaded, before any of
+//                     the beans are created, so it can change how they will be created.)
+//
+//Marks the beans of the configured types lazy: created the first time something asks for them instead
+//of during startup.  The fast-startup profile makes the controllers lazy - so their services and
+//repositories are only created by the first request that needs them (OwnerController on /owners/find
+//does not wait for VetController's).  Unlike spring.main.lazy-initialization=true (everything lazy) the
+//web server, data source, JPA and actuator stay eager, so the first request does not pay for them.
+//
+//A bean's type is its class, or for @Bean methods (all of Spring Boot's auto-configuration) the method's
+//declared return type.  A type matches if its name starts with one of the prefixes
+//(i.e., "org.springframework.boot.actuate." or "guru.springframework5.sfw5bgpetclinic.diagnostics.").
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import java.util.List;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.type.MethodMetadata;
+
+public class SelectiveLazyInitializationPostProcessor implements BeanFactoryPostProcessor {
+
+	private final List<String> lazyPrefixes;
+
+	public SelectiveLazyInitializationPostProcessor(List<String> lazyPrefixes) {
+		this.lazyPrefixes = lazyPrefixes;
+	}  // end Constructor
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		if (lazyPrefixes.isEmpty())
+			return;
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+			// Infrastructure beans (post processors, etc.) must stay as they are.
+			if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE || definition.isLazyInit())
+				continue;
+			String type = typeName(definition);
+			if (type != null && matches(type))
+				definition.setLazyInit(true);
+		}
+	}  // end postProcessBeanFactory()
+
+	/**
+	 * @param typeName - fully qualified class name
+	 * @return true if beans of this type are made lazy
+	 */
+	public boolean matches(String typeName) {
+		for (String prefix : lazyPrefixes) {
+			if (typeName.startsWith(prefix))
+				return true;
+		}
+		return false;
+	}
+
+	private static String typeName(BeanDefinition definition) {
+		if (definition instanceof AnnotatedBeanDefinition) {
+			MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) definition).getFactoryMethodMetadata();
+			if (factoryMethod != null)
+				return factoryMethod.getReturnTypeName();
+		}
+		return definition.getBeanClassName();
+	}
+
+}  // end class SelectiveLazyInitializationPostProcessor
@@ -0,0 +1,41 @@
+//***************************************************************************
+//Class:        StartupConfiguration
+//Stereotype:   @Configuration  Component Scan picks it up (same base package as Sfw5BgPetclinicApplication).
+//
+//Startup time tooling:
+//  - /actuator/startup (StartupEndpoint) - the StartupTimeline recorded by StartupTimelineRunListener
+//  - SelectiveLazyInitializationPostProcessor - beans whose type starts with one of
+//    petclinic.startup.lazy-init (comma separated packages / classes) are created on first use instead
+//    of at startup.  Empty by default; the fast-startup profile (application-fast-startup.properties) sets it.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration(proxyBeanMethods = false)
+public class StartupConfiguration {
+
+	// static - BeanFactoryPostProcessors run before any other bean is created.
+	@Bean
+	public static SelectiveLazyInitializationPostProcessor selectiveLazyInitializationPostProcessor(Environment environment) {
+		List<String> lazyPrefixes = Binder.get(environment)
+		                                  .bind("petclinic.startup.lazy-init", Bindable.listOf(String.class))
+		                                  .orElse(Collections.emptyList());
+		return new SelectiveLazyInitializationPostProcessor(lazyPrefixes);
+	}
+
+	@Bean
+	public StartupEndpoint startupEndpoint(ObjectProvider<StartupTimeline> timeline) {
+		// No timeline if started without SpringApplication (i.e., some tests) - endpoint shows an empty one.
+		return new StartupEndpoint(timeline.getIfAvailable(StartupTimeline::new));
+	}
+
+}  // end class StartupConfiguration
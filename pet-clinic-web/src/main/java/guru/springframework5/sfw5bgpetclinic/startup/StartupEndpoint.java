@@ -0,0 +1,37 @@
+//***************************************************************************
+//Class:        StartupEndpoint
+//Stereotype:   @Endpoint  Actuator endpoint /actuator/startup (exposed in application.properties)
+//
+//    GET /actuator/startup           phases, first request and the 20 slowest beans
+//    GET /actuator/startup?beans=50  ... the 50 slowest beans
+//See StartupTimeline for what each part means.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+@Endpoint(id = "startup")
+public class StartupEndpoint {
+
+	private final StartupTimeline timeline;
+
+	public StartupEndpoint(StartupTimeline timeline) {
+		this.timeline = timeline;
+	}
+
+	@ReadOperation
+	public Map<String, Object> startup(@Nullable Integer beans) {
+		Map<String, Object> startup = new LinkedHashMap<>();
+		startup.put("phases", timeline.getPhases());
+		startup.put("firstRequest", timeline.getFirstRequest());
+		startup.put("beanCount", timeline.getBeanCount());
+		startup.put("slowestBeans", timeline.getSlowestBeans(beans == null ? 20 : beans));
+		return startup;
+	}
+
+}  // end class StartupEndpoint
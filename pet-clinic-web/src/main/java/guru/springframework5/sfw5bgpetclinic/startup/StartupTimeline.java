@@ -0,0 +1,104 @@
+//***************************************************************************
+//Class:        StartupTimeline
+//
+//Where startup time goes, exposed on /actuator/startup (StartupEndpoint):
+//  - phases:        Spring Boot startup phases (environment prepared, context loaded, context refreshed,
+//                   runners done - i.e., DataLoader) as ms since the JVM started
+//  - beans:         time to create each bean (instantiation through initialization).  INCLUSIVE - a bean
+//                   that needs other beans created first includes their time (OwnerController includes
+//                   OwnerService, which includes OwnerRepository, ...)
+//  - firstRequest:  when the first HTTP request was served - what matters for an autoscaling group
+//Filled by StartupTimelineRunListener (registered in META-INF/spring.factories) and BeanTimingPostProcessor.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class StartupTimeline {
+
+	private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+	private final List<Map<String, Object>> phases = new CopyOnWriteArrayList<>();
+	private final Map<String, Long> beanNanos = new ConcurrentHashMap<>();
+	private volatile Map<String, Object> firstRequest;
+
+	/**
+	 * Record that a startup phase was reached now.
+	 * @param phase - name of the phase
+	 */
+	public void phase(String phase) {
+		Map<String, Object> entry = new LinkedHashMap<>();
+		entry.put("phase", phase);
+		entry.put("millisSinceJvmStart", sinceJvmStart());
+		phases.add(entry);
+	}
+
+	/**
+	 * Record the time it took to create a bean.
+	 * @param beanName - bean
+	 * @param nanos - instantiation through initialization
+	 */
+	public void bean(String beanName, long nanos) {
+		beanNanos.put(beanName, nanos);
+	}
+
+	/**
+	 * Record the first HTTP request served.  Later calls are ignored.
+	 * @param path - request URL
+	 * @param processingMillis - time to handle the request itself
+	 */
+	public void firstRequest(String path, long processingMillis) {
+		if (firstRequest != null)
+			return;
+		synchronized (this) {
+			if (firstRequest != null)
+				return;
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("path", path);
+			entry.put("processingMillis", processingMillis);
+			entry.put("millisSinceJvmStart", sinceJvmStart());
+			firstRequest = entry;
+		}
+	}
+
+	public boolean isFirstRequestServed() {
+		return firstRequest != null;
+	}
+
+	public List<Map<String, Object>> getPhases() {
+		return Collections.unmodifiableList(phases);
+	}
+
+	public Map<String, Object> getFirstRequest() {
+		return firstRequest;
+	}
+
+	/**
+	 * @param limit - how many
+	 * @return the slowest beans to create, slowest first: bean name -> ms
+	 */
+	public Map<String, Double> getSlowestBeans(int limit) {
+		List<Map.Entry<String, Long>> beans = new ArrayList<>(beanNanos.entrySet());
+		beans.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+		Map<String, Double> slowest = new LinkedHashMap<>();
+		for (Map.Entry<String, Long> bean : beans.subList(0, Math.min(limit, beans.size())))
+			slowest.put(bean.getKey(), bean.getValue() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+		return slowest;
+	}
+
+	public int getBeanCount() {
+		return beanNanos.size();
+	}
+
+	private long sinceJvmStart() {
+		return System.currentTimeMillis() - jvmStartMillis;
+	}
+
+}  // end class StartupTimeline
@@ -0,0 +1,80 @@
+//***************************************************************************
+//Class:        StartupTimelineRunListener
+//Implements:   SpringApplicationRunListener (Spring Boot calls it at each step of SpringApplication.run -
+//                     listed in META-INF/spring.factories since it is needed before any bean exists.)
+//
+//Creates the StartupTimeline, records the startup phases in it and, once the context is prepared,
+//  - registers the timeline as a bean (for StartupEndpoint)
+//  - adds BeanTimingPostProcessor (unless petclinic.startup.timeline.bean-timing=false)
+//  - listens for the first ServletRequestHandledEvent (DispatcherServlet publishes one per request)
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+public class StartupTimelineRunListener implements SpringApplicationRunListener, Ordered {
+
+	public static final String TIMELINE_BEAN = "startupTimeline";
+
+	private final StartupTimeline timeline = new StartupTimeline();
+
+	// Signature required by Spring Boot for spring.factories run listeners.
+	public StartupTimelineRunListener(SpringApplication application, String[] args) {
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public void starting() {
+		timeline.phase("starting");
+	}
+
+	@Override
+	public void environmentPrepared(ConfigurableEnvironment environment) {
+		timeline.phase("environmentPrepared");
+	}
+
+	@Override
+	public void contextPrepared(ConfigurableApplicationContext context) {
+		timeline.phase("contextPrepared");
+		context.getBeanFactory().registerSingleton(TIMELINE_BEAN, timeline);
+		if (context.getEnvironment().getProperty("petclinic.startup.timeline.bean-timing", Boolean.class, true))
+			context.getBeanFactory().addBeanPostProcessor(new BeanTimingPostProcessor(timeline));
+		context.addApplicationListener((ApplicationListener<ServletRequestHandledEvent>) event -> {
+			if (!timeline.isFirstRequestServed())
+				timeline.firstRequest(event.getRequestUrl(), event.getProcessingTimeMillis());
+		});
+	}
+
+	@Override
+	public void contextLoaded(ConfigurableApplicationContext context) {
+		timeline.phase("contextLoaded");
+	}
+
+	// Context refreshed - all (non lazy) beans created, web server started.
+	@Override
+	public void started(ConfigurableApplicationContext context) {
+		timeline.phase("started");
+	}
+
+	// CommandLineRunners (DataLoader) done.
+	@Override
+	public void running(ConfigurableApplicationContext context) {
+		timeline.phase("running");
+	}
+
+	@Override
+	public void failed(ConfigurableApplicationContext context, Throwable exception) {
+		timeline.phase("failed");
+	}
+
+}  // end class StartupTimelineRunListener
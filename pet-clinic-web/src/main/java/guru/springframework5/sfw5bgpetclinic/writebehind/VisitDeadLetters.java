@@ -0,0 +1,100 @@
+//***************************************************************************
+//Class:        VisitDeadLetters
+//
+//Text file of the Visits VisitWriteBehind acknowledged but could not write to the database - their Pet was
+//deleted, the database refused them, or the journal holding them was never seen by this database - so they are
+//kept, not just logged.  One line per Visit, forced to disk before the write-behind moves past it:
+//    seq <tab> petId <tab> date (yyyy-mm-dd, or empty) <tab> description <tab> reason
+//with backslash, tab, newline and carriage return in the description / reason written as \\ \t \n \r.
+//
+//Only ever appended to:  re-enter (or delete) what it holds by hand.  A Visit is in it once - a batch retried
+//after its lines were written (or flushed again one Visit at a time, or replayed after a restart) skips the
+//Visits already there, known by everything on their line but the reason.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+final class VisitDeadLetters implements Closeable {
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Set<String> written = new HashSet<>();  // key() of every line in the file, guarded by this
+
+	VisitDeadLetters(Path file) throws IOException {
+		this.file = file;
+		if (file.toAbsolutePath().getParent() != null)
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+			written.add(line.substring(0, Math.max(0, line.lastIndexOf('\t'))));
+	}  // end Constructor
+
+	/**
+	 * Write the records not in the file yet, and return once they are on disk.
+	 * @throws UncheckedIOException if they are not - the caller must not move past them
+	 */
+	synchronized void add(List<VisitJournal.Record> records, String reason) {
+		StringBuilder lines = new StringBuilder();
+		Set<String> added = new HashSet<>();
+		for (VisitJournal.Record record : records) {
+			String key = key(record);
+			if (!written.contains(key) && added.add(key))
+				lines.append(key).append('\t').append(escape(reason)).append('\n');
+		}
+		if (added.isEmpty())
+			return;
+		ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Visit dead-letter file write failed:  " + file, e);
+		}
+		written.addAll(added);                            // only once on disk - a failed write is written again
+	}  // end add()
+
+	Path file() {
+		return file;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// The line without its reason.
+	private static String key(VisitJournal.Record record) {
+		return record.seq + "\t" + record.petId + "\t" + ((record.date == null) ? "" : record.date.toString()) + "\t"
+		       + escape(record.description);
+	}
+
+	private static String escape(String text) {
+		if (text == null)
+			return "";
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			switch (c) {
+				case '\\':  escaped.append("\\\\");  break;
+				case '\t':  escaped.append("\\t");   break;
+				case '\n':  escaped.append("\\n");   break;
+				case '\r':  escaped.append("\\r");   break;
+				default:    escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}  // end escape()
+
+}  // end class VisitDeadLetters
@@ -0,0 +1,340 @@
+//***************************************************************************
+//Class:        VisitJournal
+//
+//Append-only file of new Visits (pet id, date, description) waiting to be written to the database - what
+//VisitWriteBehind acknowledges a save from.  Each record gets the next sequence number and is framed as
+//    int length | int CRC32 | long seq | long petId | long epochDay (or Long.MIN_VALUE) | boolean + UTF description
+//so a record half written when the process died is recognised (short, or CRC mismatch) and cut off on recovery
+//along with everything after it - no caller was told those were saved.
+//
+//Group fsync:  append() only writes to the file (OS cache); sync(seq) makes it durable.  The first thread to
+//sync forces everything appended so far in one FileChannel.force, threads that arrive while it runs wait and
+//find their record already covered - under load one fsync acknowledges many saves.
+//
+//Segments:  records are appended to the journal file itself.  Once it reaches the segment size (before the next
+//record) it is forced, renamed to journal name plus "." plus the sequence number of its last record, and a new
+//journal file is started.  deleteFlushed(checkpoint) deletes every closed segment whose last record is in the
+//database, and empties the journal file once all of it is - so the files (and the replay after a restart) stay
+//about as big as what the database is behind by, however long the write-behind never catches up.  Records are
+//never rewritten; the sequence carries on from where it was.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+final class VisitJournal implements Closeable {
+
+	private static final int HEADER = 8;                  // length + CRC32
+	private static final long NO_DATE = Long.MIN_VALUE;
+	static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	static final class Record {
+		final long seq;
+		final long petId;
+		final LocalDate date;
+		final String description;
+
+		Record(long seq, long petId, LocalDate date, String description) {
+			this.seq = seq;
+			this.petId = petId;
+			this.date = date;
+			this.description = description;
+		}
+	}  // end class Record
+
+	private final Path file;                              // the segment being appended to
+	private final long segmentSize;
+	private final TreeMap<Long, Path> closed = new TreeMap<>();    // by last sequence number, guarded by this
+	private volatile FileChannel channel;                 // replaced (holding this and syncLock) by roll()
+	private final Object syncLock = new Object();
+	private long nextSeq;                                 // guarded by this
+	private volatile long appendedSeq;                    // last record written (not necessarily forced)
+	private volatile long syncedSeq;                      // last record known durable
+	private volatile long syncs;
+
+	VisitJournal(Path file) throws IOException {
+		this(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param segmentSize - bytes after which the journal file is closed and a new one started
+	 */
+	VisitJournal(Path file, long segmentSize) throws IOException {
+		if (segmentSize < 1)
+			throw new IllegalArgumentException("Visit journal segment size must be at least 1 byte, not " + segmentSize);
+		this.file = file;
+		this.segmentSize = segmentSize;
+		if (file.toAbsolutePath().getParent() != null)
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}  // end Constructor
+
+	/**
+	 * Read the records back after a restart, closed segments first.  A torn or corrupt record ends the journal -
+	 * it and anything after it are cut off.  Closed segments already in the database are deleted unread.  Must be
+	 * called once, before the first append().
+	 * @param checkpoint - last sequence number already in the database
+	 * @return the records after the checkpoint, in sequence order
+	 */
+	synchronized List<Record> recover(long checkpoint) throws IOException {
+		List<Record> read = new ArrayList<>();
+		long lastSeq = checkpoint;
+		boolean cut = false;
+		TreeMap<Long, Path> segments = closedSegments();
+		for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+			Path path = segment.getValue();
+			if (cut || segment.getKey() <= checkpoint) {
+				if (!cut)
+					lastSeq = Math.max(lastSeq, segment.getKey());
+				Files.delete(path);
+				continue;
+			}
+			int before = read.size();
+			long size = Files.size(path);
+			long validEnd = read(path, size, read);
+			if (validEnd == size) {
+				closed.put(segment.getKey(), path);
+				continue;
+			}
+			// Cut short - renamed after what it still holds, so the segments stay in sequence order.
+			cut = true;
+			if (read.size() == before) {
+				Files.delete(path);
+				continue;
+			}
+			try (FileChannel damaged = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				damaged.truncate(validEnd);
+			}
+			long last = read.get(read.size() - 1).seq;
+			closed.put(last, Files.move(path, segment(last), StandardCopyOption.ATOMIC_MOVE));
+		}
+		long validEnd = cut ? 0 : read(file, channel.size(), read);
+		if (validEnd < channel.size())
+			channel.truncate(validEnd);
+		channel.position(validEnd);
+
+		List<Record> records = new ArrayList<>();
+		for (Record record : read) {
+			lastSeq = Math.max(lastSeq, record.seq);
+			if (record.seq > checkpoint)
+				records.add(record);
+		}
+		nextSeq = lastSeq + 1;
+		appendedSeq = syncedSeq = lastSeq;
+		return records;
+	}  // end recover()
+
+	/**
+	 * Write a record at the end of the journal - NOT durable until sync(record.seq).
+	 */
+	synchronized Record append(long petId, LocalDate date, String description) {
+		Record record = new Record(nextSeq, petId, date, description);
+		byte[] payload = encode(record);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER + payload.length);
+		buffer.putInt(payload.length).putInt(crc32(payload)).put(payload).flip();
+		try {
+			if (channel.position() >= segmentSize)
+				roll();                                       // before the write - a failed roll writes nothing
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Visit journal append failed:  " + file, e);
+		}
+		nextSeq++;
+		appendedSeq = record.seq;
+		return record;
+	}  // end append()
+
+	/**
+	 * Return once the record with this sequence number (and every one before it) is on disk.
+	 */
+	void sync(long seq) {
+		if (syncedSeq >= seq)
+			return;
+		synchronized (syncLock) {
+			if (syncedSeq >= seq)
+				return;                                       // another thread's force covered it
+			long upTo = appendedSeq;
+			try {
+				channel.force(false);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Visit journal sync failed:  " + file, e);
+			}
+			syncedSeq = upTo;
+			syncs++;
+		}
+	}  // end sync()
+
+	/**
+	 * Delete the closed segments whose records are all in the database, and empty the journal file if every record
+	 * appended is.
+	 * @param flushedSeq - last sequence number in the database
+	 * @return true if anything was deleted or emptied
+	 */
+	synchronized boolean deleteFlushed(long flushedSeq) throws IOException {
+		boolean deleted = false;
+		for (Iterator<Path> segments = closed.headMap(flushedSeq, true).values().iterator(); segments.hasNext(); ) {
+			Files.deleteIfExists(segments.next());
+			segments.remove();
+			deleted = true;
+		}
+		if (flushedSeq >= appendedSeq && channel.size() > 0) {
+			channel.truncate(0);
+			channel.position(0);
+			deleted = true;
+		}
+		return deleted;
+	}  // end deleteFlushed()
+
+	long lastSeq() {
+		return appendedSeq;
+	}
+
+	synchronized int segments() {
+		return closed.size() + 1;
+	}
+
+	long syncs() {
+		return syncs;
+	}
+
+	// Bytes in all segments.
+	synchronized long size() throws IOException {
+		long size = channel.size();
+		for (Path segment : closed.values())
+			size += Files.size(segment);
+		return size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// ------------------------------------------------------
+	// Segments
+	// ------------------------------------------------------
+
+	// Close the journal file as a segment (everything in it forced first) and start a new one.  Holds syncLock so
+	// no sync() forces the channel being closed.
+	private void roll() throws IOException {
+		synchronized (syncLock) {
+			channel.force(false);
+			channel.close();
+			Path segment = Files.move(file, segment(appendedSeq), StandardCopyOption.ATOMIC_MOVE);
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			syncDirectory();
+			closed.put(appendedSeq, segment);
+			syncedSeq = appendedSeq;
+		}
+	}  // end roll()
+
+	private Path segment(long lastSeq) {
+		return file.resolveSibling(file.getFileName() + "." + lastSeq);
+	}
+
+	// The closed segments on disk, by last sequence number.
+	private TreeMap<Long, Path> closedSegments() throws IOException {
+		TreeMap<Long, Path> segments = new TreeMap<>();
+		String prefix = file.getFileName() + ".";
+		try (DirectoryStream<Path> paths = Files.newDirectoryStream(file.toAbsolutePath().getParent(), prefix + "*")) {
+			for (Path path : paths) {
+				String suffix = path.getFileName().toString().substring(prefix.length());
+				if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit))
+					segments.put(Long.parseLong(suffix), path);
+			}
+		}
+		return segments;
+	}  // end closedSegments()
+
+	// Makes the rename and the new file durable.
+	private void syncDirectory() {
+		try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			// Not every platform opens a directory (Windows) - as durable there as the file system makes it.
+		}
+	}
+
+	// Adds the segment's intact records to records; returns where they end (anything after is torn or corrupt).
+	private static long read(Path segment, long size, List<Record> records) throws IOException {
+		long validEnd = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+			while (true) {
+				byte[] payload;
+				try {
+					int length = in.readInt();
+					int crc = in.readInt();
+					if (length <= 0 || length > size)
+						break;
+					payload = new byte[length];
+					in.readFully(payload);
+					if (crc32(payload) != crc)
+						break;
+				} catch (EOFException e) {
+					break;                                    // the end, or a record cut short
+				}
+				records.add(decode(payload));
+				validEnd += HEADER + payload.length;
+			}
+		}
+		return validEnd;
+	}  // end read()
+
+	// ------------------------------------------------------
+	// Record layout
+	// ------------------------------------------------------
+
+	private static byte[] encode(Record record) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(record.seq);
+			out.writeLong(record.petId);
+			out.writeLong((record.date == null) ? NO_DATE : record.date.toEpochDay());
+			out.writeBoolean(record.description != null);
+			if (record.description != null)
+				out.writeUTF(record.description);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);            // only a description over writeUTF's 64KB
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Record decode(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		long seq = in.readLong();
+		long petId = in.readLong();
+		long epochDay = in.readLong();
+		String description = in.readBoolean() ? in.readUTF() : null;
+		return new Record(seq, petId, (epochDay == NO_DATE) ? null : LocalDate.ofEpochDay(epochDay), description);
+	}
+
+	private static int crc32(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		return (int) crc.getValue();
+	}
+
+}  // end class VisitJournal
@@ -0,0 +1,350 @@
+//***************************************************************************
+//Class:        VisitWriteBehind
+//Stereotype:   @Component (springdatajpa profile, petclinic.visits.write-behind.enabled=true only)
+//
+//Write-behind for new Visits, for callers that ask for it:  saveLater(Visit) - VisitController's new Visit form.
+//VisitService.save itself is left alone, so every other caller (AppointmentScheduler, the APIs, anything in a
+//transaction) still gets its Visit saved, with its id, when save returns.  A saveLater is acknowledged once
+//the Visit is appended to a local journal (VisitJournal) and the journal is forced to disk - saves that arrive
+//together share one fsync.  One flusher thread then writes the queued Visits to the database
+//in batches:  one transaction per batch (up to max-batch Visits), through VisitService.saveAll, so the
+//EntityChangeListeners (near-cache, analytics, search) hear about them when that transaction commits.
+//
+//Ordering:  one flusher, journal order - the Visits of a Pet are inserted (and get their ids) in the order
+//they were saved.  A batch that fails is retried as it is (backing off up to 5s) until the database is back.
+//A Visit the database refuses (constraint violation) is dropped so it cannot hold up the rest; so is one whose
+//Pet was deleted in the meantime.  Dropped Visits go to the dead-letter file (VisitDeadLetters - journal name
+//plus .dead unless petclinic.visits.write-behind.dead-letters says otherwise) before the checkpoint moves past
+//them, once each however often their batch is retried; if it cannot be written the batch is retried instead.
+//
+//Restart:  each batch's transaction also records the sequence number of its last Visit in the table
+//visit_write_behind (one row per journal).  At startup the journal records after that checkpoint are queued
+//again - a Visit is written exactly once whether the process died before or after its batch committed.  The
+//journal rolls to a new segment every petclinic.visits.write-behind.segment-size (default 16MB), and the
+//segments behind the checkpoint are deleted after every batch, so the journal stays about as big as the backlog.  A
+//database with no checkpoint row never saw this journal (i.e., a new in-memory H2), and what the journal holds
+//goes to the dead-letter file instead of being attached to whatever Pets have those ids now - startup fails
+//if it cannot be written there.  On shutdown the flusher writes what is queued; what it cannot write stays in
+//the journal.
+//
+//Trade-off:  a Visit written behind is not in the database yet when saveLater() returns (id null) - the Owner
+//page the visit form redirects to may not show it for a moment.
+//
+//Metrics (actuator /metrics):
+//    petclinic.visits.write-behind.appended   Counter - Visits acknowledged from the journal
+//    petclinic.visits.write-behind.flushed    Counter - Visits written to the database
+//    petclinic.visits.write-behind.dropped    Counter - Visits sent to the dead-letter file
+//    petclinic.visits.write-behind.commits    Counter - database transactions (batches)
+//    petclinic.visits.write-behind.syncs      Counter - journal fsyncs
+//    petclinic.visits.write-behind.pending    Gauge - Visits acknowledged and not written yet
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Profile("springdatajpa")
+@ConditionalOnProperty(prefix = "petclinic.visits.write-behind", name = "enabled")
+@Component
+public class VisitWriteBehind {
+
+	public static final String APPENDED = "petclinic.visits.write-behind.appended";
+	public static final String FLUSHED = "petclinic.visits.write-behind.flushed";
+	public static final String DROPPED = "petclinic.visits.write-behind.dropped";
+	public static final String COMMITS = "petclinic.visits.write-behind.commits";
+	public static final String SYNCS = "petclinic.visits.write-behind.syncs";
+	public static final String PENDING = "petclinic.visits.write-behind.pending";
+
+	private static final Logger log = LoggerFactory.getLogger(VisitWriteBehind.class);
+	private static final long APPEND_TIMEOUT_SECONDS = 5;
+	private static final long MAX_BACKOFF_MILLIS = 5_000;
+	private static final long SHUTDOWN_MILLIS = 10_000;
+
+	private final VisitService visitService;
+	private final PetService petService;
+	private final TransactionTemplate transactionTemplate;
+	private final JdbcTemplate jdbcTemplate;
+	private final VisitJournal journal;
+	private final VisitDeadLetters deadLetters;
+	private final String journalName;
+	private final int maxBatch;
+	private final int capacity;
+
+	private final Object appendLock = new Object();      // journal order == queue order
+	private final LinkedBlockingQueue<VisitJournal.Record> queue = new LinkedBlockingQueue<>();
+	private final Semaphore permits;                      // capacity - Visits not written yet
+	private final Thread flusher;
+	private volatile boolean stopped;
+	private volatile long checkpoint;                     // last sequence number in the database
+
+	private final LongAdder appended = new LongAdder();
+	private final LongAdder flushed = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder commits = new LongAdder();
+
+	// VisitService is the bean (EntityChangePostProcessor's proxy) - its saveAll reaches the listeners.
+	public VisitWriteBehind(VisitService visitService, PetService petService, PlatformTransactionManager transactionManager,
+	                        JdbcTemplate jdbcTemplate, MeterRegistry registry, Environment environment) throws IOException {
+		this.visitService = visitService;
+		this.petService = petService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.jdbcTemplate = jdbcTemplate;
+		this.maxBatch = environment.getProperty("petclinic.visits.write-behind.max-batch", Integer.class, 500);
+		this.capacity = environment.getProperty("petclinic.visits.write-behind.capacity", Integer.class, 10_000);
+		if (maxBatch < 1 || capacity < 1)
+			throw new IllegalArgumentException("petclinic.visits.write-behind.max-batch and capacity must be at least 1");
+		Path file = Paths.get(environment.getProperty("petclinic.visits.write-behind.journal",
+		                                              Paths.get(System.getProperty("java.io.tmpdir"), "petclinic", "visit-journal.log").toString()));
+		this.journalName = file.getFileName().toString();
+		long segmentSize = DataSize.parse(environment.getProperty("petclinic.visits.write-behind.segment-size", "16MB")).toBytes();
+		this.journal = new VisitJournal(file, segmentSize);
+		this.deadLetters = new VisitDeadLetters(Paths.get(environment.getProperty("petclinic.visits.write-behind.dead-letters",
+		                                                                          file + ".dead")));
+
+		jdbcTemplate.execute("create table if not exists visit_write_behind (journal varchar(255) primary key, last_seq bigint not null)");
+		List<Long> saved = jdbcTemplate.queryForList("select last_seq from visit_write_behind where journal = ?", Long.class, journalName);
+		List<VisitJournal.Record> recovered = journal.recover(saved.isEmpty() ? 0 : saved.get(0));
+		if (saved.isEmpty()) {
+			if (!recovered.isEmpty()) {
+				deadLetters.add(recovered, "no checkpoint for journal " + journalName + " in this database");
+				dropped.add(recovered.size());
+				log.warn("Visit journal {} - {} Visit(s) moved to {}, this database has no checkpoint for it", file,
+				         recovered.size(), deadLetters.file());
+			}
+			recovered.clear();
+			journal.deleteFlushed(journal.lastSeq());
+			jdbcTemplate.update("insert into visit_write_behind (journal, last_seq) values (?, ?)", journalName, journal.lastSeq());
+			checkpoint = journal.lastSeq();
+		} else {
+			checkpoint = saved.get(0);
+			if (!recovered.isEmpty())
+				log.info("Visit journal {} - {} Visit(s) not yet in the database queued again", file, recovered.size());
+		}
+		queue.addAll(recovered);
+		this.permits = new Semaphore(capacity - recovered.size());
+
+		FunctionCounter.builder(APPENDED, appended, LongAdder::sum)
+		               .description("Visits acknowledged from the write-behind journal")
+		               .register(registry);
+		FunctionCounter.builder(FLUSHED, flushed, LongAdder::sum)
+		               .description("Visits written behind to the database")
+		               .register(registry);
+		FunctionCounter.builder(DROPPED, dropped, LongAdder::sum)
+		               .description("Visits sent to the write-behind dead-letter file (Pet deleted, refused by the database)")
+		               .register(registry);
+		FunctionCounter.builder(COMMITS, commits, LongAdder::sum)
+		               .description("Write-behind database transactions")
+		               .register(registry);
+		FunctionCounter.builder(SYNCS, journal, VisitJournal::syncs)
+		               .description("Write-behind journal fsyncs")
+		               .register(registry);
+		Gauge.builder(PENDING, this, VisitWriteBehind::pending)
+		     .description("Visits acknowledged and not yet written to the database")
+		     .register(registry);
+
+		this.flusher = new Thread(this::flushLoop, "visit-write-behind");
+		flusher.setDaemon(true);
+		flusher.start();
+	}  // end Constructor
+
+	/**
+	 * @return true if this Visit may be saved with saveLater() - new, of a saved Pet
+	 */
+	public static boolean canSaveLater(Visit visit) {
+		return (visit != null) && visit.isNew() && (visit.getPet() != null) && (visit.getPet().getId() != null);
+	}
+
+	/**
+	 * Journal a new Visit and return once it is on disk; it is written to the database a moment later, in its own
+	 * transaction - not the caller's.  Waits (up to 5s) while capacity Visits are waiting.
+	 * @param visit - new (no id), of a saved Pet - see canSaveLater()
+	 * @throws IllegalArgumentException if it is not
+	 * @throws IllegalStateException if full or shut down
+	 */
+	public void saveLater(Visit visit) {
+		if (!canSaveLater(visit))
+			throw new IllegalArgumentException("Only a new Visit of a saved Pet can be written behind:  " + visit);
+		if (stopped)
+			throw new IllegalStateException("Visit write-behind is shut down");
+		try {
+			if (!permits.tryAcquire(APPEND_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				throw new IllegalStateException("Visit write-behind is full - " + capacity + " Visits waiting for the database");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for the Visit write-behind", e);
+		}
+		VisitJournal.Record record;
+		try {
+			synchronized (appendLock) {
+				record = journal.append(visit.getPet().getId(), visit.getDate(), visit.getDescription());
+				queue.add(record);
+			}
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+		journal.sync(record.seq);
+		appended.increment();
+	}  // end saveLater()
+
+	/**
+	 * @return Visits acknowledged and not written to the database yet
+	 */
+	public int pending() {
+		return capacity - permits.availablePermits();
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException, InterruptedException {
+		stopped = true;                                   // the flusher empties the queue, then ends
+		flusher.join(SHUTDOWN_MILLIS);
+		if (flusher.isAlive())
+			flusher.interrupt();
+		if (pending() > 0)
+			log.warn("Visit write-behind shut down with {} Visit(s) not in the database - kept in the journal", pending());
+		journal.close();
+		deadLetters.close();
+	}  // end shutdown()
+
+	// ------------------------------------------------------
+	// Flusher thread
+	// ------------------------------------------------------
+
+	private void flushLoop() {
+		List<VisitJournal.Record> batch = new ArrayList<>(maxBatch);
+		try {
+			while (!stopped || !queue.isEmpty()) {
+				VisitJournal.Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				batch.add(first);
+				queue.drainTo(batch, maxBatch - 1);
+				int size = batch.size();
+				if (!flushWithRetry(batch))
+					return;                                   // shutting down with the database away
+				journal.deleteFlushed(checkpoint);
+				permits.release(size);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | RuntimeException e) {
+			log.error("Visit write-behind stopped - unwritten Visits stay in the journal", e);
+		}
+	}  // end flushLoop()
+
+	// Retries until the batch is in the database (true), or shutdown with the database still failing (false).
+	private boolean flushWithRetry(List<VisitJournal.Record> batch) throws InterruptedException {
+		long backoff = 100;
+		boolean oneByOne = false;
+		while (true) {
+			batch.removeIf(record -> record.seq <= checkpoint);      // written by an earlier attempt
+			if (batch.isEmpty())
+				return true;
+			try {
+				if (oneByOne)
+					flushOneByOne(batch);
+				else
+					flush(batch);
+				return true;
+			} catch (RuntimeException e) {
+				if ((e instanceof DataIntegrityViolationException) && !oneByOne) {
+					oneByOne = true;                          // some Visit is refused - find it
+					continue;
+				}
+				if (stopped)
+					return false;
+				log.warn("Visit write-behind - {} Visit(s) not written, retrying in {}ms:  {}", batch.size(), backoff, e.toString());
+				Thread.sleep(backoff);
+				backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+			}
+		}
+	}  // end flushWithRetry()
+
+	// Some Visit in the batch is refused - find it and skip it (with its checkpoint) so the rest go through.
+	private void flushOneByOne(List<VisitJournal.Record> batch) {
+		for (VisitJournal.Record record : batch) {
+			try {
+				flush(List.of(record));
+			} catch (DataIntegrityViolationException e) {
+				String reason = "refused by the database:  " + e.getMostSpecificCause();
+				deadLetters.add(List.of(record), reason);
+				log.warn("Visit write-behind - Visit for Pet {} {}, moved to {}", record.petId, reason, deadLetters.file());
+				transactionTemplate.executeWithoutResult(status -> saveCheckpoint(record.seq));
+				checkpoint = record.seq;
+				dropped.increment();
+			}
+		}
+	}  // end flushOneByOne()
+
+	// One transaction:  the Visits and the checkpoint commit together, or neither does.
+	private void flush(List<VisitJournal.Record> batch) {
+		long lastSeq = batch.get(batch.size() - 1).seq;
+		int[] savedAndDropped = transactionTemplate.execute(status -> {
+			Set<Long> petIds = new LinkedHashSet<>();
+			batch.forEach(record -> petIds.add(record.petId));
+			Map<Long, Pet> pets = new HashMap<>();
+			for (Pet pet : petService.findAllById(petIds))
+				pets.put(pet.getId(), Pet.reference(pet));
+			List<Visit> visits = new ArrayList<>(batch.size());
+			List<VisitJournal.Record> petGone = new ArrayList<>();
+			for (VisitJournal.Record record : batch) {
+				Pet pet = pets.get(record.petId);
+				if (pet == null)
+					petGone.add(record);
+				else
+					visits.add(Visit.builder().date(record.date).description(record.description).pet(pet).build());
+			}
+			if (!petGone.isEmpty()) {
+				deadLetters.add(petGone, "Pet no longer exists");      // before the checkpoint passes them
+				log.warn("Visit write-behind - {} Visit(s) of deleted Pets moved to {}", petGone.size(), deadLetters.file());
+			}
+			if (!visits.isEmpty())
+				visitService.saveAll(visits);
+			saveCheckpoint(lastSeq);
+			return new int[] {visits.size(), batch.size() - visits.size()};
+		});
+		checkpoint = lastSeq;
+		commits.increment();
+		flushed.add(savedAndDropped[0]);
+		dropped.add(savedAndDropped[1]);
+	}  // end flush()
+
+	private void saveCheckpoint(long seq) {
+		jdbcTemplate.update("update visit_write_behind set last_seq = ? where journal = ?", seq, journalName);
+	}
+
+}  // end class VisitWriteBehind
@@ -0,0 +1,156 @@
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangePostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.services.map.ExportServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+//Unit test - Map IMPLs wired by hand, VisitService wrapped by EntityChangePostProcessor as Spring would.
+class VisitAnalyticsTest {
+
+	private static final LocalDate DAY = LocalDate.of(2020, 1, 1);
+
+	private VisitAnalytics analytics;
+	private VisitService visitService;        // the proxy
+	private Pet dog;                           // Boston
+	private Pet cat;                           // Miami
+
+	@BeforeEach
+	void setUp() {
+		PetTypeServiceMapImpl petTypeService = new PetTypeServiceMapImpl();
+		VisitServiceMapImpl visitServiceImpl = new VisitServiceMapImpl();
+		PetServiceMapImpl petService = new PetServiceMapImpl(petTypeService, visitServiceImpl);
+		OwnerServiceMapImpl ownerService = new OwnerServiceMapImpl(petService);
+		analytics = new VisitAnalytics(new ExportServiceMapImpl(ownerService, visitServiceImpl),
+		                               new MockEnvironment().withProperty("petclinic.analytics.visits.threads", "3"));
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("visitAnalytics", analytics);
+		EntityChangePostProcessor changePostProcessor = new EntityChangePostProcessor();
+		changePostProcessor.setBeanFactory(beanFactory);
+		visitService = (VisitService) changePostProcessor.postProcessAfterInitialization(visitServiceImpl, "visitService");
+
+		PetType dogType = petTypeService.save(PetType.builder().name("Dog").build());
+		PetType catType = petTypeService.save(PetType.builder().name("Cat").build());
+		Owner boston = ownerService.save(Owner.builder().firstName("A").lastName("A").city("Boston").build());
+		Owner miami = ownerService.save(Owner.builder().firstName("B").lastName("B").city("Miami").build());
+		dog = petService.save(new Pet("Rex", dogType, boston, null));
+		cat = petService.save(new Pet("Tom", catType, miami, null));
+	}
+
+	private Visit save(LocalDate day, Pet pet) {
+		return visitService.save(new Visit(day, "Checkup " + day, pet));
+	}
+
+	@Test
+	void testCountsFollowSavesAndDeletes() {
+		Visit first = save(DAY, dog);
+		save(DAY, cat);
+		save(DAY.plusDays(1), dog);
+		visitService.saveAll(List.of(new Visit(DAY.plusDays(2), "a", cat), new Visit(DAY.plusDays(2), "b", cat)));
+
+		VisitStats stats = analytics.stats(null, null);
+		assertEquals(5, stats.getTotal());
+		assertEquals(DAY.plusDays(2), stats.getTo());
+		assertEquals(Long.valueOf(2), stats.getPerDay().get(DAY.toString()));
+		assertEquals(Long.valueOf(3), stats.getPerPetType().get("Cat"));
+		assertEquals("Cat", stats.getPerPetType().keySet().iterator().next());     // most first
+		assertEquals(Long.valueOf(2), stats.getPerCity().get("Boston"));
+
+		// Saving again moves the Visit, never counts it twice.  A new object with the id, as the visit form does.
+		Visit moved = new Visit(DAY.plusDays(1), first.getDescription(), dog);
+		moved.setId(first.getId());
+		visitService.save(moved);
+		visitService.save(moved);
+		stats = analytics.stats(DAY, DAY.plusDays(1));
+		assertEquals(5, stats.getTotal());
+		assertEquals(Long.valueOf(1), stats.getPerDay().get(DAY.toString()));
+		assertEquals(Long.valueOf(2), stats.getPerDay().get(DAY.plusDays(1).toString()));
+		assertNull(stats.getPerDay().get(DAY.plusDays(2).toString()));              // outside from .. to
+
+		visitService.delete(moved);
+		visitService.deleteById(first.getId());                                    // already gone - no change
+		stats = analytics.stats(null, null);
+		assertEquals(4, stats.getTotal());
+		assertEquals(Long.valueOf(1), stats.getPerCity().get("Boston"));
+	}
+
+	@Test
+	void testFailedSaveCountsNothingAndHoldsNoRebuildBack() {
+		save(DAY, dog);
+		Visit noPet = new Visit(DAY, "Nobody's", null);
+
+		assertThrows(RuntimeException.class, () -> visitService.save(noPet));
+
+		assertEquals(1, analytics.stats(null, null).getTotal());
+		assertEquals(1, analytics.rebuild().getTotal());          // would wait forever if the save were still "in"
+		save(DAY, cat);
+		assertEquals(2, analytics.stats(null, null).getTotal());
+	}
+
+	@Test
+	void testRebuildMatchesIncremental() {
+		for (int i = 0; i < 200; i++)
+			save(DAY.plusDays(i % 10), (i % 3 == 0) ? cat : dog);
+		VisitStats incremental = analytics.stats(null, null);
+
+		VisitStats rebuilt = analytics.rebuild();
+
+		assertEquals(200, rebuilt.getTotal());
+		assertEquals(incremental.getPerDay(), rebuilt.getPerDay());
+		assertEquals(incremental.getPerPetType(), rebuilt.getPerPetType());
+		assertEquals(incremental.getPerCity(), rebuilt.getPerCity());
+		assertNotNull(rebuilt.getRebuilt());
+	}
+
+	@Test
+	void testConcurrentSavesDuringRebuild() throws Exception {
+		for (int i = 0; i < 2000; i++)
+			save(DAY.plusDays(i % 30), dog);
+		ExecutorService savers = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> done = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int thread = t;
+				done.add(savers.submit(() -> {
+					for (int i = 0; i < 500; i++) {
+						Visit visit = save(DAY.plusDays(thread), cat);
+						if (i % 5 == 0)
+							visitService.delete(visit);
+					}
+				}));
+			}
+			analytics.rebuild();
+			for (Future<?> saver : done)
+				saver.get();
+		} finally {
+			savers.shutdown();
+		}
+
+		VisitStats afterConcurrentUpdates = analytics.stats(null, null);
+		assertEquals(2000 + 4 * 400, afterConcurrentUpdates.getTotal());
+		assertEquals(afterConcurrentUpdates.getPerPetType(), analytics.rebuild().getPerPetType());
+	}
+
+}  // end class VisitAnalyticsTest
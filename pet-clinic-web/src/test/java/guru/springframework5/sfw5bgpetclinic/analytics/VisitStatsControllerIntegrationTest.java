@@ -0,0 +1,65 @@
+package guru.springframework5.sfw5bgpetclinic.analytics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - springdatajpa services and H2 (application.properties).  The VisitService bean is the
+//EntityChangePostProcessor proxy, so a save through it shows up in /api/stats/visits straight away.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class VisitStatsControllerIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+
+	@Test
+	void testSaveShowsUpAndRebuildAgrees() throws Exception {
+		PetType petType = petTypeService.save(PetType.builder().name("Statsbird").build());
+		Owner owner = Owner.builder().firstName("Stat").lastName("Istic").city("Statsville").build();
+		new Pet("Tweety", petType, owner, null);
+		owner = ownerService.save(owner);
+		Pet pet = owner.getPet("Tweety", false);
+		LocalDate day = LocalDate.of(1999, 12, 31);
+		visitService.save(new Visit(day, "Y2K checkup", pet));
+		visitService.save(new Visit(day, "Y2K follow up", pet));
+
+		mockMvc.perform(get("/api/stats/visits").param("from", "1999-12-01").param("to", "1999-12-31"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.perDay['1999-12-31']").value(2))
+		       .andExpect(jsonPath("$.perPetType.Statsbird").value(2))
+		       .andExpect(jsonPath("$.perCity.Statsville").value(2));
+
+		int total = visitService.findAll().size();
+		mockMvc.perform(post("/api/stats/visits/rebuild"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.total").value(total))
+		       .andExpect(jsonPath("$.perPetType.Statsbird").value(2))
+		       .andExpect(jsonPath("$.rebuilt").exists());
+	}
+
+}  // end class VisitStatsControllerIntegrationTest
@@ -0,0 +1,154 @@
+package guru.springframework5.sfw5bgpetclinic.batching;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.ClassUtils;
+
+import guru.springframework5.sfw5bgpetclinic.coalescing.SingleFlightPostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Integration test - springdatajpa services and H2 (application.properties), batch loader switched on and the
+//near-cache off.  Callers without a persistence context share the loader's selects; web requests (open-in-view)
+//are batched too, each getting its own copy.  A test post processor (inside the batch loader) holds Owner loads
+//back while the test sets `held`, so the requests are sure to overlap.
+@SpringBootTest(properties = {"petclinic.batching.enabled=true", "petclinic.cache.owners.enabled=false"})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class BatchLoaderIntegrationTest {
+
+	private static volatile CountDownLatch held = new CountDownLatch(0);
+
+	@TestConfiguration
+	static class SlowOwnerLoads {
+
+		@Bean                                                                // its own type - Spring orders it before creating it
+		static SlowOwnerLoadsPostProcessor slowOwnerLoads() {
+			return new SlowOwnerLoadsPostProcessor();
+		}
+	}
+
+	static class SlowOwnerLoadsPostProcessor implements BeanPostProcessor, Ordered {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (!(bean instanceof OwnerService))
+				return bean;
+			return Proxy.newProxyInstance(bean.getClass().getClassLoader(), ClassUtils.getAllInterfaces(bean), (proxy, method, args) -> {
+				if (method.getName().startsWith("find"))
+					held.await(10, TimeUnit.SECONDS);
+				try {
+					return method.invoke(bean, args);
+				} catch (InvocationTargetException e) {
+					throw e.getTargetException();
+				}
+			});
+		}
+
+		@Override
+		public int getOrder() {
+			return -2;                                                       // before BatchLoaderPostProcessor
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private PetService petService;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private MeterRegistry registry;
+
+	private double calls(String result) {
+		return registry.get(BatchLoaderPostProcessor.CALLS).tag("entity", "Pet").tag("result", result).functionCounter().count();
+	}
+
+	@Test
+	void testLoads() throws Exception {
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Pet>> pets = new ArrayList<>();
+		try {
+			for (int i = 0; i < 64; i++) {
+				long id = (i % 3 == 2) ? 9999L : 1L + i % 3;
+				pets.add(callers.submit(() -> {
+					start.await();
+					return petService.findById(id);
+				}));
+			}
+			start.countDown();
+			for (int i = 0; i < pets.size(); i++) {
+				if (i % 3 == 2)
+					assertNull(pets.get(i).get());
+				else
+					assertEquals(1L + i % 3, pets.get(i).get().getId());
+			}
+		} finally {
+			callers.shutdownNow();
+		}
+		mockMvc.perform(get("/owners/1/pets/1/update")).andExpect(status().isOk());
+
+		// Single flight (outside the batch loader) answers the calls for an id already loading - the rest load here.
+		double joined = registry.get(SingleFlightPostProcessor.CALLS).tag("entity", "Pet").tag("result", "joined")
+		                        .functionCounter().count();
+		assertEquals(64 + 1, calls("direct") + calls("batched") + joined);          // + the page's own
+		assertEquals(0, calls("bypassed"));
+	}
+
+	@Test
+	void testConcurrentOwnerPagesAreBatched() throws Exception {
+		String lastName = ownerService.findById(2L).getLastName();
+		double batched = ownerCalls("batched");
+		ExecutorService requests = Executors.newFixedThreadPool(2);
+		held = new CountDownLatch(1);
+		try {
+			Future<?> first = requests.submit(() -> mockMvc.perform(get("/owners/1")).andExpect(status().isOk()));
+			Thread.sleep(100);                                               // first in - loads alone
+			Future<?> second = requests.submit(() -> mockMvc.perform(get("/owners/2"))
+			                                               .andExpect(status().isOk())
+			                                               .andExpect(content().string(Matchers.containsString(lastName))));
+			for (int wait = 0; wait < 500 && ownerCalls("batched") < batched + 1; wait++)
+				Thread.sleep(10);
+			held.countDown();
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+		} finally {
+			held.countDown();
+			requests.shutdownNow();
+		}
+
+		assertEquals(batched + 1, ownerCalls("batched"));
+		assertEquals(0, ownerCalls("bypassed"));
+	}
+
+	private double ownerCalls(String result) {
+		return registry.get(BatchLoaderPostProcessor.CALLS).tag("entity", "Owner").tag("result", result).functionCounter().count();
+	}
+
+}  // end class BatchLoaderIntegrationTest
@@ -0,0 +1,258 @@
+package guru.springframework5.sfw5bgpetclinic.batching;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Unit test - no Spring context.  A map OwnerService whose findById / findAllById wait for the test to let them go
+//(a slow query), wrapped by hand as the post processor wraps the service beans at startup.
+class BatchLoaderPostProcessorTest {
+
+	private final List<Collection<Long>> loads = new CopyOnWriteArrayList<>();     // ids of each findById / findAllById
+	private volatile CountDownLatch release = new CountDownLatch(0);
+	private OwnerServiceMapImpl target;
+	private SimpleMeterRegistry registry;
+	private ExecutorService callers;
+	private OwnerService ownerService;
+
+	@BeforeEach
+	void setUp() {
+		target = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl())) {
+			@Override
+			public Owner findById(Long id) {
+				load(List.of(id));
+				return super.findById(id);
+			}
+
+			@Override
+			public List<Owner> findAllById(Collection<Long> ids) {
+				load(ids);
+				return ids.stream().map(super::findById).filter(Objects::nonNull).collect(Collectors.toList());
+			}
+
+			private void load(Collection<Long> ids) {
+				loads.add(new ArrayList<>(ids));
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (ids.contains(-1L))
+					throw new IllegalArgumentException("no such id -1");
+			}
+		};
+		for (int i = 1; i <= 4; i++)
+			target.save(Owner.builder().firstName("Bob").lastName("Smith" + i).build());
+		loads.clear();
+		registry = new SimpleMeterRegistry();
+		callers = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+		if (ownerService != null)
+			BatchLoaderPostProcessor.shutdown(ownerService);
+	}
+
+	private OwnerService batch(boolean sharedEntities) {
+		ownerService = (OwnerService) BatchLoaderPostProcessor.batch(target, registry, sharedEntities, Duration.ZERO, 100);
+		return ownerService;
+	}
+
+	private double calls(String result) {
+		return registry.get(BatchLoaderPostProcessor.CALLS).tag("entity", "Owner").tag("result", result).functionCounter().count();
+	}
+
+	private Future<Owner> findById(long id) {
+		return callers.submit(() -> ownerService.findById(id));
+	}
+
+	private void awaitLoads(int count) throws InterruptedException {
+		for (int wait = 0; wait < 200 && loads.size() < count; wait++)
+			Thread.sleep(10);
+		assertEquals(count, loads.size());
+	}
+
+	private void awaitBatched(double count) throws InterruptedException {
+		for (int wait = 0; wait < 200 && calls("batched") < count; wait++)
+			Thread.sleep(10);
+		assertEquals(count, calls("batched"));
+	}
+
+	@Test
+	void testCallsInFlightShareOneLoad() throws Exception {
+		batch(true);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = findById(1L);                    // alone - loads itself
+		awaitLoads(1);
+		Future<Owner> second = findById(2L);                   // queued - a batch of one, holds the loader
+		awaitLoads(2);
+		List<Future<Owner>> rest = new ArrayList<>();
+		for (long id : new long[] {3L, 3L, 4L, 99L})
+			rest.add(findById(id));
+		awaitBatched(5);
+		release.countDown();
+		for (Future<Owner> owner : rest)
+			owner.get();
+		assertEquals(3, loads.size());
+
+		assertSame(target.findById(1L), first.get());
+		assertSame(target.findById(2L), second.get());
+		assertSame(target.findById(3L), rest.get(0).get());
+		assertSame(target.findById(3L), rest.get(1).get());
+		assertSame(target.findById(4L), rest.get(2).get());
+		assertNull(rest.get(3).get());                                                 // not found - null, as findById
+		assertEquals(Set.of(3L, 4L, 99L), new HashSet<>(loads.get(2)));               // the rest in one, 3 once
+		assertEquals(3, loads.get(2).size());
+		assertEquals(1, calls("direct"));
+		assertEquals(2.0, registry.get(BatchLoaderPostProcessor.BATCHES).functionCounter().count());
+		assertEquals(2.0, registry.get(BatchLoaderPostProcessor.SIZE).gauge().value());  // (1 + 3) / 2
+	}
+
+	@Test
+	void testErrorsGoToTheWholeBatch() throws Exception {
+		batch(true);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = findById(1L);
+		awaitLoads(1);
+		Future<Owner> second = findById(2L);
+		awaitLoads(2);
+		Future<Owner> bad = findById(-1L);
+		Future<Owner> good = findById(3L);
+		awaitBatched(3);
+		release.countDown();
+
+		assertNotNull(first.get());
+		assertNotNull(second.get());
+		for (Future<Owner> owner : List.of(bad, good))
+			assertTrue(assertThrows(Exception.class, owner::get).getCause() instanceof IllegalArgumentException);
+		assertNotNull(ownerService.findById(3L));                                     // next load is fine
+	}
+
+	// As open-in-view binds its EntityManager for the whole request (no transaction).
+	private <T> T inPersistenceContext(Callable<T> call) throws Exception {
+		TransactionSynchronizationManager.bindResource("entityManagerFactory", "entityManager");
+		try {
+			return call.call();
+		} finally {
+			TransactionSynchronizationManager.unbindResource("entityManagerFactory");
+		}
+	}
+
+	@Test
+	void testPersistenceContextCallersGetCopies() throws Exception {
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		ownerService = (OwnerService) BatchLoaderPostProcessor.batch(target, registry, () -> transactionManager, false,
+		                                                             Duration.ZERO, 100);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = callers.submit(() -> inPersistenceContext(() -> ownerService.findById(1L)));
+		awaitLoads(1);
+		List<Future<Owner>> queued = new ArrayList<>();
+		for (long id = 2; id <= 4; id++) {
+			long ownerId = id;
+			queued.add(callers.submit(() -> inPersistenceContext(() -> ownerService.findById(ownerId))));
+		}
+		awaitBatched(3);
+		release.countDown();
+
+		assertSame(target.findById(1L), first.get());                       // alone - its own
+		for (int i = 0; i < queued.size(); i++) {
+			Owner stored = target.findById(2L + i), copy = queued.get(i).get();
+			assertNotSame(stored, copy);
+			assertEquals(stored.getId(), copy.getId());
+			assertEquals(stored.getLastName(), copy.getLastName());
+		}
+		verify(transactionManager, atLeastOnce()).getTransaction(any());   // the batches ran in read-only transactions
+		verify(transactionManager, atLeastOnce()).commit(any());
+	}
+
+	@Test
+	void testCopiesWithoutTransactionManager() throws Exception {
+		ownerService = (OwnerService) BatchLoaderPostProcessor.batch(target, registry, () -> null, false, Duration.ZERO, 100);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = callers.submit(() -> inPersistenceContext(() -> ownerService.findById(1L)));
+		awaitLoads(1);
+		Future<Owner> queued = callers.submit(() -> inPersistenceContext(() -> ownerService.findById(2L)));
+		awaitBatched(1);
+		release.countDown();
+
+		assertSame(target.findById(1L), first.get());
+		Owner copy = queued.get();                                           // loaded and copied with no transaction
+		assertNotSame(target.findById(2L), copy);
+		assertEquals(2L, copy.getId());
+	}
+
+	@Test
+	void testTransactionCallersLoadTheirOwn() throws Exception {
+		ownerService = (OwnerService) BatchLoaderPostProcessor.batch(target, registry, () -> mock(PlatformTransactionManager.class),
+		                                                             false, Duration.ZERO, 100);
+
+		ownerService.findById(1L);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			assertNotNull(inPersistenceContext(() -> ownerService.findById(1L)));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+
+		assertEquals(1, calls("direct"));
+		assertEquals(1, calls("bypassed"));
+		assertEquals(2, loads.size());
+	}
+
+	@Test
+	void testShutdown() throws Exception {
+		batch(true);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = findById(1L);
+		awaitLoads(1);
+		BatchLoaderPostProcessor.shutdown(ownerService);
+		Future<Owner> queued = findById(2L);                   // nobody left to load it
+		assertTrue(assertThrows(Exception.class, queued::get).getCause() instanceof IllegalStateException);
+		release.countDown();
+
+		assertNotNull(first.get());
+		assertNotNull(ownerService.findById(1L));                                      // alone - still loads itself
+		assertEquals(4, ownerService.findAll().size());
+		assertThrows(IllegalArgumentException.class,
+		             () -> new BatchLoaderPostProcessor(null, null, null, true, Duration.ZERO, 0));
+	}
+
+}  // end class BatchLoaderPostProcessorTest
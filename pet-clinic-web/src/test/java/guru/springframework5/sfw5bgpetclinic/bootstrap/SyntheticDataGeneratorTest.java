@@ -0,0 +1,128 @@
+package guru.springframework5.sfw5bgpetclinic.bootstrap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.SpecialtyServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+//Unit test - generates into the Map IMPLs (wired by hand, no Spring context, no transactions).
+class SyntheticDataGeneratorTest {
+
+	// One set of Map services - what a Spring context with the map profile would have.
+	private static final class MapServices {
+		final PetTypeServiceMapImpl petTypeService = new PetTypeServiceMapImpl();
+		final VisitServiceMapImpl visitService = new VisitServiceMapImpl();
+		final PetServiceMapImpl petService = new PetServiceMapImpl(petTypeService, visitService);
+		final OwnerServiceMapImpl ownerService = new OwnerServiceMapImpl(petService);
+		final SpecialtyServiceMapImpl specialtyService = new SpecialtyServiceMapImpl();
+		final VetServiceMapImpl vetService = new VetServiceMapImpl(specialtyService);
+
+		SyntheticDataGenerator generator() {
+			return new SyntheticDataGenerator(ownerService, petService, visitService, petTypeService, specialtyService, vetService, null);
+		}
+
+		// Everything generated about each Visit (and its Pet and Owner) except the ids, sorted.
+		List<String> visitSignatures() {
+			return visitService.findAll().stream()
+			                   .map(SyntheticDataGeneratorTest::signature)
+			                   .sorted()
+			                   .collect(Collectors.toList());
+		}
+	}  // end class MapServices
+
+	private static SyntheticDataPlan smallPlan(long seed, int threads) {
+		SyntheticDataPlan plan = new SyntheticDataPlan();
+		plan.setSeed(seed);
+		plan.setOwners(230);                 // not a multiple of the partition size - last partition is short
+		plan.setPartitionSize(50);
+		plan.setVets(15);
+		plan.setThreads(threads);
+		return plan;
+	}
+
+	private static String signature(Visit visit) {
+		return visit.getPet().getOwner().getFirstName() + "|" + visit.getPet().getOwner().getLastName() + "|" +
+		       visit.getPet().getOwner().getAddress() + "|" + visit.getPet().getOwner().getTelephone() + "|" +
+		       visit.getPet().getName() + "|" + visit.getPet().getPetType().getName() + "|" + visit.getPet().getBirthDate() + "|" +
+		       visit.getDate() + "|" + visit.getDescription();
+	}
+
+	@Test
+	void testFixedCountsAllSaved() throws Exception {
+		SyntheticDataPlan plan = smallPlan(7L, 2);
+		plan.setPetsPerOwnerDistribution(CountDistribution.FIXED);
+		plan.setPetsPerOwner(2);
+		plan.setVisitsPerPetDistribution(CountDistribution.FIXED);
+		plan.setVisitsPerPet(3);
+		plan.setSpecialtiesPerVetDistribution(CountDistribution.FIXED);
+		plan.setSpecialtiesPerVet(2);
+		MapServices services = new MapServices();
+
+		SyntheticDataGenerator.Totals totals = services.generator().generate(plan);
+
+		assertEquals(230, totals.getOwners());
+		assertEquals(460, totals.getPets());
+		assertEquals(1380, totals.getVisits());
+		assertEquals(230, services.ownerService.findAll().size());
+		assertEquals(460, services.petService.findAll().size());
+		assertEquals(1380, services.visitService.findAll().size());
+		assertEquals(15, services.vetService.findAll().size());
+		assertEquals(12, services.specialtyService.findAll().size());
+		services.vetService.findAll().forEach(vet -> assertEquals(2, vet.getSpecialties().size()));
+		// Every Visit is after its Pet was born and before the plan's as-of date.
+		services.visitService.findAll().forEach(visit -> {
+			assertTrue(visit.getDate().isAfter(visit.getPet().getBirthDate()));
+			assertFalse(visit.getDate().isAfter(plan.getAsOf()));
+		});
+	}
+
+	@Test
+	void testSameSeedSameDataWhateverThreads() throws Exception {
+		MapServices oneThread = new MapServices();
+		MapServices fourThreads = new MapServices();
+
+		oneThread.generator().generate(smallPlan(42L, 1));
+		fourThreads.generator().generate(smallPlan(42L, 4));
+
+		assertFalse(oneThread.visitSignatures().isEmpty());
+		assertEquals(oneThread.visitSignatures(), fourThreads.visitSignatures());
+	}
+
+	@Test
+	void testDifferentSeedDifferentData() throws Exception {
+		MapServices seed1 = new MapServices();
+		MapServices seed2 = new MapServices();
+
+		seed1.generator().generate(smallPlan(1L, 1));
+		seed2.generator().generate(smallPlan(2L, 1));
+
+		assertNotEquals(seed1.visitSignatures(), seed2.visitSignatures());
+	}
+
+	@Test
+	void testDistributionsKeepTheMean() {
+		SplittableRandom random = new SplittableRandom(3L);
+		for (CountDistribution distribution : CountDistribution.values()) {
+			long total = 0;
+			for (int i = 0; i < 100_000; i++) {
+				int count = distribution.sample(random, 4.0);
+				assertTrue(count >= 0);
+				total += count;
+			}
+			assertEquals(4.0, total / 100_000.0, 0.1, distribution.name());
+		}
+		assertEquals(0, CountDistribution.POISSON.sample(random, 0));
+	}
+
+}  // end class SyntheticDataGeneratorTest
@@ -0,0 +1,133 @@
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jayway.jsonpath.JsonPath;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.search.OwnerNameSearch;
+import guru.springframework5.sfw5bgpetclinic.search.VisitSearch;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerBatchService;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+
+//Integration test - POST /admin/import with the springdatajpa services and H2 (application.properties), so the
+//StatelessSession / JDBC batch path of OwnerBatchServiceSDJpaImpl writes to the real tables.  The endpoint is
+//off by default - turned on here.
+@SpringBootTest(properties = "petclinic.import.endpoint-enabled=true")
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class BulkImportIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private OwnerBatchService ownerBatchService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private OwnerNameSearch ownerNameSearch;
+	@Autowired
+	private VisitSearch visitSearch;
+
+	@Test
+	@Transactional      // only for the lazy Pets / Visits read at the end - the import commits on its own threads
+	void testPostCsv() throws Exception {
+		String file = "OWNER,Imported,Bulkowner,1 Import St,Boston,6175550000\n" +
+		              "PET,Rex,Dog,2015-03-01\n" +
+		              "VISIT,2020-01-02,Checkup\n" +
+		              "VISIT,2020-02-03,\"Shots, rabies\"\n" +
+		              "PET,Nemo,Fish\n" +
+		              "OWNER,,Nobody\n";
+
+		MvcResult started = mockMvc.perform(post("/admin/import").contentType("text/csv").content(file))
+		                            .andExpect(status().isAccepted())
+		                            .andExpect(jsonPath("$.id").exists())
+		                            .andReturn();
+		int id = JsonPath.read(started.getResponse().getContentAsString(), "$.id");
+		waitUntilDone(id);
+
+		mockMvc.perform(get("/admin/import/" + id))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.state").value("DONE"))
+		       .andExpect(jsonPath("$.owners").value(1))
+		       .andExpect(jsonPath("$.pets").value(1))
+		       .andExpect(jsonPath("$.visits").value(2))
+		       .andExpect(jsonPath("$.rejectedRows").value(2))
+		       .andExpect(jsonPath("$.rejections[0].line").exists());
+
+		Owner owner = ownerService.findByLastName("Bulkowner");
+		assertNotNull(owner);
+		assertEquals("Boston", owner.getCity());
+		assertEquals(1, owner.getPets().size());
+		owner.getPets().forEach(pet -> {
+			assertEquals("Dog", pet.getPetType().getName());
+			assertEquals(2, pet.getVisits().size());
+		});
+
+		mockMvc.perform(get("/admin/import"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.owners").value(1));
+	}
+
+	// The JDBC batches go around the services - the listeners still hear every row, straight away (no rebuild).
+	@Test
+	void testInsertAllReportsToListeners() {
+		PetType dog = petTypeService.findAll().stream().filter(type -> type.getName().equals("Dog")).findFirst().get();
+		Owner owner = Owner.builder().firstName("Heard").lastName("Batchlistened").build();
+		Pet pet = new Pet("Rex", dog, owner, LocalDate.of(2015, 3, 1));
+		new Visit(LocalDate.of(2020, 1, 2), "Zygomatic arch", pet);
+		Visit undated = new Visit(null, "Undated", pet);
+		undated.setDate(null);                                                   // the column allows it - no NPE mid batch
+
+		ownerBatchService.insertAll(Collections.singletonList(owner));
+
+		assertNotNull(undated.getId());
+		assertEquals(1, ownerNameSearch.complete(false, "Batchlisten", 5).size());
+		assertEquals(1, visitSearch.search("zygomatic", 5).getHits().size());
+		assertNotNull(visitSearch.search("zygomatic", 5).getHits().get(0).getVisitId());
+	}
+
+	@Test
+	void testUnknownImportId() throws Exception {
+		mockMvc.perform(get("/admin/import/999999"))
+		       .andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testUnknownFormat() throws Exception {
+		mockMvc.perform(post("/admin/import").contentType("application/xml").content("<owners/>"))
+		       .andExpect(status().isBadRequest());
+	}
+
+	private void waitUntilDone(int id) throws Exception {
+		long deadline = System.nanoTime() + 30_000_000_000L;
+		String state;
+		do {
+			Thread.sleep(20);
+			MvcResult result = mockMvc.perform(get("/admin/import/" + id)).andExpect(status().isOk()).andReturn();
+			state = JsonPath.read(result.getResponse().getContentAsString(), "$.state");
+		} while (state.equals("RUNNING") && System.nanoTime() < deadline);
+	}
+
+}  // end class BulkImportIntegrationTest
@@ -0,0 +1,116 @@
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerBatchServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+//Unit test - imports into the Map IMPLs (wired by hand, no Spring context).
+class BulkImporterTest {
+
+	private PetTypeServiceMapImpl petTypeService;
+	private VisitServiceMapImpl visitService;
+	private PetServiceMapImpl petService;
+	private OwnerServiceMapImpl ownerService;
+	private MockEnvironment environment;
+
+	@BeforeEach
+	void setUp() {
+		petTypeService = new PetTypeServiceMapImpl();
+		visitService = new VisitServiceMapImpl();
+		petService = new PetServiceMapImpl(petTypeService, visitService);
+		ownerService = new OwnerServiceMapImpl(petService);
+		petTypeService.save(PetType.builder().name("Dog").build());
+		petTypeService.save(PetType.builder().name("Cat").build());
+		environment = new MockEnvironment().withProperty("petclinic.import.batch-size", "3")
+		                                   .withProperty("petclinic.import.threads", "2");
+	}
+
+	private BulkImporter importer() {
+		return new BulkImporter(petTypeService, new OwnerBatchServiceMapImpl(ownerService, petService, visitService), event -> { }, environment);
+	}
+
+	@Test
+	void testImportsValidRowsAndReportsTheRest() {
+		StringBuilder file = new StringBuilder();
+		for (int i = 1; i <= 10; i++)                                   // lines 1 - 30:  10 good Owners
+			file.append("OWNER,First").append(i).append(",Last").append(i).append(",,,555000").append(i).append('\n')
+			    .append("PET,Pet").append(i).append(",dog,2015-01-01\n")
+			    .append("VISIT,2020-01-0").append(i % 9 + 1).append(",Checkup\n");
+		file.append("OWNER,,Nobody\n")                                  // 31 no first name - takes 32, 33 along
+		    .append("PET,Rex,Dog\n")
+		    .append("VISIT,2020-01-01,Checkup\n")
+		    .append("OWNER,Mike,Smith,,,phone\n")                       // 34 telephone not digits
+		    .append("OWNER,Sue,Jones\n")                                // 35 imported with Tom only
+		    .append("PET,Tom,cat\n")
+		    .append("VISIT,2020-01-01,Checkup\n")
+		    .append("VISIT,2020-01-01,Checkup\n")                       // 38 duplicate
+		    .append("VISIT,01/02/2020,Checkup\n")                       // 39 bad date
+		    .append("PET,tom,Cat\n")                                    // 40 same name
+		    .append("PET,Nemo,Fish\n")                                  // 41 unknown type - takes 42 along
+		    .append("VISIT,2020-01-01,Checkup\n")
+		    .append("PET,Old,Dog,2999-01-01\n");                        // 43 born in the future
+
+		ImportProgress progress = importer().importFrom("test", ImportFormat.CSV, new StringReader(file.toString()));
+
+		assertEquals(ImportProgress.State.DONE, progress.getState());
+		assertEquals(43, progress.getLinesRead());
+		assertEquals(11, progress.getOwners());
+		assertEquals(11, progress.getPets());
+		assertEquals(11, progress.getVisits());
+		assertEquals(11, ownerService.findAll().size());
+		assertEquals(11, petService.findAll().size());
+		assertEquals(11, visitService.findAll().size());
+		assertEquals(3 + 1 + 1 + 1 + 1 + 2 + 1, progress.getRejectedRows());
+		List<Long> lines = progress.getRejections().stream().map(ImportRejection::getLine).sorted().collect(Collectors.toList());
+		assertEquals(Arrays.asList(31L, 34L, 38L, 39L, 40L, 41L, 43L), lines);
+
+		Owner sue = ownerService.findByLastName("Jones");
+		assertNotNull(sue.getId());
+		assertEquals(1, sue.getPets().size());
+		sue.getPets().forEach(tom -> {
+			assertNotNull(tom.getId());
+			assertEquals("Cat", tom.getPetType().getName());
+			assertEquals(1, tom.getVisits().size());
+		});
+	}
+
+	@Test
+	void testCreatePetTypes() {
+		environment.setProperty("petclinic.import.create-pet-types", "true");
+		String file = "OWNER,Sue,Jones\nPET,Nemo,Fish\nOWNER,Bob,Brown\nPET,Dory,fish\n";
+
+		ImportProgress progress = importer().importFrom("test", ImportFormat.CSV, new StringReader(file));
+
+		assertEquals(0, progress.getRejectedRows());
+		assertEquals(2, progress.getPets());
+		assertEquals(3, petTypeService.findAll().size());        // Fish saved once
+	}
+
+	@Test
+	void testLastImport() {
+		BulkImporter importer = importer();
+		assertNull(importer.getLastImport());
+
+		ImportProgress progress = importer.importFrom("test", ImportFormat.NDJSON, new StringReader("{\"firstName\":\"Sue\",\"lastName\":\"Jones\"}\n"));
+
+		assertSame(progress, importer.getLastImport());
+		assertEquals(1, progress.getOwners());
+		assertNotNull(progress.getFinished());
+	}
+
+}  // end class BulkImporterTest
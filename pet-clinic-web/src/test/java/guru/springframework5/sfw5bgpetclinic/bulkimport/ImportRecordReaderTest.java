@@ -0,0 +1,117 @@
+package guru.springframework5.sfw5bgpetclinic.bulkimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+//Unit test - CSV and NDJSON readers on in-memory files (no Spring context).
+class ImportRecordReaderTest {
+
+	private final List<ImportRejection> rejections = new ArrayList<>();
+
+	private List<OwnerRecord> readAll(ImportFormat format, String file) throws IOException {
+		List<OwnerRecord> records = new ArrayList<>();
+		try (ImportRecordReader reader = format.open(new StringReader(file), rejections::add)) {
+			OwnerRecord record;
+			while ((record = reader.next()) != null)
+				records.add(record);
+		}
+		return records;
+	}
+
+	@Test
+	void testSplitQuotedColumns() {
+		assertEquals(Arrays.asList("VISIT", "2020-01-02", "Sneezy, \"very\" sneezy"),
+		             CsvImportRecordReader.split("VISIT,2020-01-02,\"Sneezy, \"\"very\"\" sneezy\""));
+		assertEquals(Arrays.asList("OWNER", "", "Smith", ""), CsvImportRecordReader.split("OWNER,,Smith,"));
+	}
+
+	@Test
+	void testCsvOwnersPetsVisits() throws IOException {
+		String file = "# owners\n" +
+		              "OWNER,Mike,Smith,1 Main St,Boston,6175551234\n" +
+		              "PET,Rex,Dog,2015-03-01\n" +
+		              "VISIT,2020-01-02,Checkup\n" +
+		              "VISIT,2020-02-03,\"Shots, rabies\"\n" +
+		              "PET,Tom,cat\n" +
+		              "\n" +
+		              "OWNER,Sue,Jones\n";
+
+		List<OwnerRecord> records = readAll(ImportFormat.CSV, file);
+
+		assertTrue(rejections.isEmpty());
+		assertEquals(2, records.size());
+		OwnerRecord mike = records.get(0);
+		assertEquals(2, mike.line);
+		assertEquals("Boston", mike.city);
+		assertEquals(2, mike.pets.size());
+		assertEquals(2, mike.pets.get(0).visits.size());
+		assertEquals("Shots, rabies", mike.pets.get(0).visits.get(1).description);
+		assertNull(mike.pets.get(1).birthDate);
+		assertEquals(5, mike.rows());
+		assertEquals(8, records.get(1).line);
+		assertNull(records.get(1).telephone);
+		assertTrue(records.get(1).pets.isEmpty());
+	}
+
+	@Test
+	void testCsvRowsThatCannotBePlaced() throws IOException {
+		String file = "PET,Rex,Dog\n" +                                      // 1 no OWNER
+		              "OWNER,Mike,Smith,1 Main St,Boston,6175551234,extra\n" + // 2 too many columns
+		              "PET,Rex,Dog\n" +                                      // 3 belongs to rejected OWNER
+		              "VISIT,2020-01-02,Checkup\n" +                         // 4 belongs to rejected PET
+		              "OWNER,Sue,Jones\n" +
+		              "VISIT,2020-01-02,Checkup\n" +                         // 6 no PET
+		              "VET,Bob\n";                                           // 7 unknown type
+
+		List<OwnerRecord> records = readAll(ImportFormat.CSV, file);
+
+		assertEquals(1, records.size());
+		assertEquals("Sue", records.get(0).firstName);
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 6L, 7L),
+		             rejections.stream().map(ImportRejection::getLine).collect(Collectors.toList()));
+		assertTrue(rejections.get(2).getReason().contains("rejected OWNER row at line 2"));
+		assertTrue(rejections.get(3).getReason().contains("rejected PET row at line 3"));
+		assertTrue(rejections.get(4).getReason().contains("no PET row before it"));
+	}
+
+	@Test
+	void testNdjson() throws IOException {
+		String file = "{\"firstName\":\"Mike\",\"lastName\":\"Smith\",\"pets\":[{\"name\":\"Rex\",\"type\":\"Dog\"," +
+		              "\"visits\":[{\"date\":\"2020-01-02\",\"description\":\"Checkup\"}]}],\"unknown\":1}\n" +
+		              "\n" +
+		              "{not json\n" +
+		              "null\n" +
+		              "{\"firstName\":\" \",\"lastName\":\"Jones\"}\n";
+
+		List<OwnerRecord> records = readAll(ImportFormat.NDJSON, file);
+
+		assertEquals(2, records.size());
+		assertEquals(3, records.get(0).rows());
+		assertEquals(1, records.get(0).pets.get(0).visits.get(0).line);
+		assertNull(records.get(1).firstName);          // blank is missing
+		assertTrue(records.get(1).pets.isEmpty());
+		assertEquals(5, records.get(1).line);
+		assertEquals(2, rejections.size());
+		assertEquals(3, rejections.get(0).getLine());
+		assertEquals(4, rejections.get(1).getLine());
+	}
+
+	@Test
+	void testFormatOf() {
+		assertEquals(ImportFormat.CSV, ImportFormat.of("owners.CSV"));
+		assertEquals(ImportFormat.CSV, ImportFormat.of("text/csv; charset=UTF-8"));
+		assertEquals(ImportFormat.NDJSON, ImportFormat.of("application/x-ndjson"));
+		assertEquals(ImportFormat.NDJSON, ImportFormat.of("owners.jsonl"));
+		assertNull(ImportFormat.of("owners.xml"));
+		assertNull(ImportFormat.of(null));
+	}
+
+}  // end class ImportRecordReaderTest
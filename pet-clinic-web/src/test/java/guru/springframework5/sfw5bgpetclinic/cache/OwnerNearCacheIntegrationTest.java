@@ -0,0 +1,118 @@
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.diagnostics.SqlStatements;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Integration test - springdatajpa services and H2 (application.properties).  Everything goes through the
+//service beans, so the cache sees the writes exactly as the controllers make them.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class OwnerNearCacheIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetService petService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+	@Autowired
+	private MeterRegistry registry;
+
+	private Owner owner;
+	private Pet pet;
+	private Visit visit;
+
+	@BeforeEach
+	void setUp() {
+		PetType petType = petTypeService.save(new PetType("Cachedog"));
+		owner = ownerService.save(Owner.builder().firstName("Carl").lastName("Cached").telephone("555 0101").build());
+		pet = petService.save(new Pet("Rex", petType, owner, LocalDate.of(2018, 1, 1)));
+		visit = visitService.save(Visit.builder().date(LocalDate.of(2020, 1, 1)).description("Shots").pet(pet).build());
+	}
+
+	private double requests(String result) {
+		return registry.get("petclinic.cache.owners.requests").tag("result", result).functionCounter().count();
+	}
+
+	// Misses until the loader thread has cached it.
+	private Owner findCached(Long ownerId) throws InterruptedException {
+		for (int wait = 0; wait < 100; wait++) {
+			double hits = requests("hit");
+			Owner found = ownerService.findById(ownerId);
+			if (requests("hit") > hits)
+				return found;
+			Thread.sleep(20);
+		}
+		return fail("never cached");
+	}
+
+	@Test
+	void testHitsAreDetachedCopies() throws Exception {
+		Owner cached = findCached(owner.getId());
+		assertEquals("Cached", cached.getLastName());
+		assertEquals("Shots", cached.getPet("Rex", false).getVisits().iterator().next().getDescription());
+		assertEquals("Cachedog", cached.getPet("Rex", false).getPetType().getName());
+
+		cached.setLastName("Changed");
+		cached.getPets().clear();
+		Owner again = findCached(owner.getId());
+		assertNotSame(cached, again);
+		assertEquals("Cached", again.getLastName());
+		assertEquals(1, again.getPets().size());
+
+		// The owner page from the cache - no SQL at all.
+		mockMvc.perform(get("/owners/" + owner.getId()))
+		       .andExpect(status().isOk())
+		       .andExpect(model().attribute("owner", again))
+		       .andExpect(SqlStatements.atMost(0));
+		assertTrue(registry.get("petclinic.cache.owners.memory").gauge().value() > 0);
+	}
+
+	@Test
+	void testWritesDropTheOwnerTheyTouch() throws Exception {
+		findCached(owner.getId());
+		Visit followUp = visitService.save(Visit.builder().date(LocalDate.of(2020, 2, 1)).description("Follow up").pet(pet).build());
+		assertEquals(2, findCached(owner.getId()).getPet("Rex", false).getVisits().size());
+
+		visitService.deleteById(followUp.getId());                         // only the id - found through the index
+		assertEquals(1, findCached(owner.getId()).getPet("Rex", false).getVisits().size());
+
+		petService.deleteById(pet.getId());
+		assertTrue(findCached(owner.getId()).getPets().isEmpty());
+
+		Owner renamed = ownerService.findById(owner.getId());
+		renamed.setLastName("Recached");
+		ownerService.save(renamed);
+		assertEquals("Recached", findCached(owner.getId()).getLastName());
+		assertTrue(registry.get("petclinic.cache.owners.invalidations").functionCounter().count() >= 4);
+		assertNull(visitService.findById(visit.getId()));                   // cascaded with the pet
+	}
+
+}  // end class OwnerNearCacheIntegrationTest
@@ -0,0 +1,83 @@
+package guru.springframework5.sfw5bgpetclinic.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+//Unit test - the cache policy on its own (no Owners).
+class WTinyLfuCacheTest {
+
+	private final List<Integer> removed = new ArrayList<>();
+
+	private WTinyLfuCache<Integer, String> cache(long maximumWeight) {
+		return new WTinyLfuCache<>(maximumWeight, 100, (key, value) -> removed.add(key));
+	}
+
+	@Test
+	void testWeightBound() {
+		WTinyLfuCache<Integer, String> cache = cache(1000);
+		for (int i = 0; i < 500; i++) {
+			cache.put(i, "v" + i, 10 + i % 7);
+			assertTrue(cache.weightedSize() <= 1000, "weight " + cache.weightedSize());
+		}
+		assertEquals(500, cache.size() + removed.size());                  // every entry either kept or reported
+		assertTrue(cache.evictions() > 0);
+		assertFalse(cache.put(-1, "too big", 991));                         // heavier than the main space
+	}
+
+	@Test
+	void testFrequentEntriesSurviveAScan() {
+		WTinyLfuCache<Integer, String> cache = cache(100 * 10);
+		// 50 hot keys, each read a few times ...
+		for (int round = 0; round < 5; round++) {
+			for (int hot = 0; hot < 50; hot++) {
+				if (cache.get(hot) == null)
+					cache.put(hot, "hot", 10);
+			}
+		}
+		// ... then 10,000 keys read once each (an export, a crawler) - an LRU would now hold none of the hot ones.
+		for (int once = 1000; once < 11_000; once++) {
+			if (cache.get(once) == null)
+				cache.put(once, "once", 10);
+		}
+		int hotKept = 0;
+		for (int hot = 0; hot < 50; hot++) {
+			if (cache.get(hot) != null)
+				hotKept++;
+		}
+		assertTrue(hotKept >= 45, "hot entries kept " + hotKept);
+	}
+
+	@Test
+	void testInvalidate() {
+		WTinyLfuCache<Integer, String> cache = cache(1000);
+		cache.put(1, "one", 10);
+		cache.put(1, "uno", 20);                                            // replaced - not reported as removed
+		assertEquals("uno", cache.get(1));
+		assertEquals(20, cache.weightedSize());
+		assertTrue(removed.isEmpty());
+
+		assertTrue(cache.invalidate(1));
+		assertFalse(cache.invalidate(1));
+		assertNull(cache.get(1));
+		assertEquals(List.of(1), removed);
+		assertEquals(0, cache.weightedSize());
+	}
+
+	@Test
+	void testFrequencySketchAges() {
+		WTinyLfuCache.FrequencySketch sketch = new WTinyLfuCache.FrequencySketch(16);
+		for (int i = 0; i < 20; i++)
+			sketch.increment(42);
+		assertEquals(15, sketch.frequency(42));                             // 4 bit counters saturate
+		assertEquals(0, sketch.frequency(7));
+
+		for (int i = 0; i < 160; i++)                                       // 10 x expected entries - halved
+			sketch.increment(1000 + i);
+		assertTrue(sketch.frequency(42) <= 7, "after halving " + sketch.frequency(42));
+	}
+
+}  // end class WTinyLfuCacheTest
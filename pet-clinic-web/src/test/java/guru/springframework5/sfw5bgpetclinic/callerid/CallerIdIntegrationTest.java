@@ -0,0 +1,51 @@
+package guru.springframework5.sfw5bgpetclinic.callerid;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+//Integration test - springdatajpa services and H2 (application.properties), so the lookup runs the derived query
+//on the indexed telephone_digits column.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class CallerIdIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+
+	@Test
+	void testCallers() throws Exception {
+		Owner first = ownerService.save(Owner.builder().firstName("Hal").lastName("Caller").telephone("(212) 555-0199").build());
+		ownerService.save(Owner.builder().firstName("Ivy").lastName("Caller").telephone("212.555.0199").build());
+		Owner alone = ownerService.save(Owner.builder().firstName("Jo").lastName("Caller").telephone("212 555 0198").build());
+
+		mockMvc.perform(get("/api/owners/callers").param("telephone", "+ 212-555-0199"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.length()").value(2))
+		       .andExpect(jsonPath("$[0].id").value(first.getId()))
+		       .andExpect(jsonPath("$[0].telephone").value("(212) 555-0199"))
+		       .andExpect(jsonPath("$[1].firstName").value("Ivy"));
+		mockMvc.perform(get("/api/owners/callers").param("telephone", "2125550100"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.length()").value(0));
+		mockMvc.perform(get("/api/owners/callers").param("telephone", "unknown"))
+		       .andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/owners/calls").param("telephone", "2125550198"))
+		       .andExpect(redirectedUrl("/owners/" + alone.getId()));
+	}
+
+}  // end class CallerIdIntegrationTest
@@ -0,0 +1,92 @@
+package guru.springframework5.sfw5bgpetclinic.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+//Integration test - full context on a real port with petclinic.checkpoint.enabled alone, but no CRaC JDK:  the
+//test calls beforeCheckpoint / afterRestore itself (what the JVM does around jcmd <pid> JDK.checkpoint) and
+//checks nothing is left listening or connected in between and that the owner and vet pages work after.
+//Any error logged meanwhile fails the test (a request cut off by the connector stop logs one from Tomcat).
+//runtime/crac-test.sh does the real checkpoint and restore on a CRaC JDK.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "petclinic.checkpoint.enabled=true")
+class CheckpointRestoreIntegrationTest {
+
+	@LocalServerPort
+	private int port;
+	@Autowired
+	private CheckpointRestoreResource resource;
+	@Autowired
+	private HikariDataSource dataSource;
+
+	private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+
+	@BeforeEach
+	void setUp() {
+		logged.start();
+		root().addAppender(logged);
+	}
+
+	@AfterEach
+	void tearDown() {
+		root().detachAppender(logged);
+		for (ILoggingEvent event : logged.list) {
+			if (event.getLevel().isGreaterOrEqual(Level.ERROR))
+				fail("Logged " + event.getFormattedMessage()
+				     + ((event.getThrowableProxy() == null) ? "" : ":  " + event.getThrowableProxy().getClassName()));
+		}
+	}
+
+	@Test
+	void testServesAfterSimulatedRestore() throws Exception {
+		assertEquals(200, get("/owners/find"));
+		assertTrue(dataSource.isAllowPoolSuspension());                      // no hikari setting needed
+
+		resource.beforeCheckpoint(null);
+		assertThrows(ConnectException.class, () -> get("/owners/find"));
+		assertEquals(0, dataSource.getHikariPoolMXBean().getTotalConnections());
+
+		resource.afterRestore(null);
+		assertEquals(200, get("/owners?lastName="));
+		assertEquals(200, get("/vets.html"));
+		assertEquals(200, get("/api/vets"));
+	}
+
+	@Test
+	void testWarmupDrivesOwnerAndVetPages() throws Exception {
+		assertEquals(0, new CheckpointWarmup("http://localhost:" + port).run(2 * CheckpointWarmup.PATHS.length));
+	}
+
+	private static Logger root() {
+		return (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+	}
+
+	private int get(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+}  // end class CheckpointRestoreIntegrationTest
@@ -0,0 +1,104 @@
+package guru.springframework5.sfw5bgpetclinic.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+//Unit test - no Spring context, no CRaC JDK.  The JVM calls beforeCheckpoint / afterRestore; here the test does.
+@ExtendWith(MockitoExtension.class)
+class CheckpointRestoreResourceTest {
+
+	@Mock
+	HikariDataSource dataSource;
+
+	@Mock
+	HikariPoolMXBean pool;
+
+	@Mock
+	Lifecycle connector;
+
+	private CheckpointRestoreResource resource;
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+		resource = new CheckpointRestoreResource(dataSource, () -> new Lifecycle[] { connector }, 1000);
+	}
+
+	@Test
+	void testBeforeCheckpointStopsRequestsThenClosesConnections() throws Exception {
+		resource.beforeCheckpoint(null);
+
+		InOrder inOrder = inOrder(connector, pool);
+		inOrder.verify(connector).stop();
+		inOrder.verify(pool).suspendPool();
+		inOrder.verify(pool).softEvictConnections();
+		verify(pool, never()).resumePool();
+	}
+
+	// A real (never started) Connector - stop() is final.  Its request threads are the mock executor.
+	@Test
+	void testBeforeCheckpointWaitsForRequestsInFlight() throws Exception {
+		ThreadPoolExecutor executor = mock(ThreadPoolExecutor.class);
+		when(executor.getActiveCount()).thenReturn(2, 1, 0);
+		Connector tomcat = connector(executor);
+
+		new CheckpointRestoreResource(dataSource, () -> new Lifecycle[] { tomcat }, 1000).beforeCheckpoint(null);
+
+		verify(executor, times(3)).getActiveCount();
+		assertEquals(LifecycleState.STOPPED, tomcat.getState());
+		verify(pool).suspendPool();
+	}
+
+	@Test
+	void testBeforeCheckpointStopsAfterDrainTimeout() throws Exception {
+		ThreadPoolExecutor executor = mock(ThreadPoolExecutor.class);
+		when(executor.getActiveCount()).thenReturn(1);   // a request that never ends
+		Connector tomcat = connector(executor);
+
+		long start = System.nanoTime();
+		new CheckpointRestoreResource(null, () -> new Lifecycle[] { tomcat }, 50).beforeCheckpoint(null);
+
+		assertTrue(System.nanoTime() - start < 5_000_000_000L);
+		assertEquals(LifecycleState.STOPPED, tomcat.getState());
+	}
+
+	@Test
+	void testAfterRestoreReopensConnectionsThenTakesRequests() throws Exception {
+		resource.afterRestore(null);
+
+		InOrder inOrder = inOrder(connector, pool);
+		inOrder.verify(pool).resumePool();
+		inOrder.verify(connector).start();
+	}
+
+	private static Connector connector(ThreadPoolExecutor executor) {
+		Connector connector = new Connector("HTTP/1.1");
+		connector.setPort(8080);
+		((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(executor);
+		return connector;
+	}
+
+	@Test
+	void testNoDataSourceOrServer() throws Exception {
+		CheckpointRestoreResource noResources = new CheckpointRestoreResource(null, () -> new Lifecycle[0], 1000);
+		noResources.beforeCheckpoint(null);
+		noResources.afterRestore(null);
+	}
+
+}  // end class CheckpointRestoreResourceTest
@@ -0,0 +1,124 @@
+package guru.springframework5.sfw5bgpetclinic.coalescing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.ClassUtils;
+
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Integration test - springdatajpa services and H2 (application.properties), near-cache off so every findById
+//reaches the coalescing proxy.  The OwnerService bean is coalesced; web requests (open-in-view persistence
+//context) share one load too, each getting its own copy.  A test post processor (inside the coalescing proxy)
+//holds Owner loads back while the test sets `held`, so the requests are sure to overlap.
+@SpringBootTest(properties = "petclinic.cache.owners.enabled=false")
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class SingleFlightIntegrationTest {
+
+	private static volatile CountDownLatch held = new CountDownLatch(0);
+
+	@TestConfiguration
+	static class SlowOwnerLoads {
+
+		@Bean                                                                // its own type - Spring orders it before creating it
+		static SlowOwnerLoadsPostProcessor slowOwnerLoads() {
+			return new SlowOwnerLoadsPostProcessor();
+		}
+	}
+
+	static class SlowOwnerLoadsPostProcessor implements BeanPostProcessor, Ordered {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (!(bean instanceof OwnerService))
+				return bean;
+			return Proxy.newProxyInstance(bean.getClass().getClassLoader(), ClassUtils.getAllInterfaces(bean), (proxy, method, args) -> {
+				if (method.getName().equals("findById"))
+					held.await(10, TimeUnit.SECONDS);
+				try {
+					return method.invoke(bean, args);
+				} catch (InvocationTargetException e) {
+					throw e.getTargetException();
+				}
+			});
+		}
+
+		@Override
+		public int getOrder() {
+			return -2;                                                       // before SingleFlightPostProcessor
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private MeterRegistry registry;
+
+	private double calls(String result) {
+		return registry.get(SingleFlightPostProcessor.CALLS).tag("entity", "Owner").tag("result", result).functionCounter().count();
+	}
+
+	@Test
+	void testOwnerLoads() throws Exception {
+		double led = calls("led"), bypassed = calls("bypassed");
+
+		assertNotNull(ownerService.findById(1L));
+		mockMvc.perform(get("/owners/1")).andExpect(status().isOk());
+
+		assertEquals(led + 2, calls("led"));
+		assertEquals(bypassed, calls("bypassed"));
+	}
+
+	@Test
+	void testConcurrentOwnerPagesShareOneLoad() throws Exception {
+		String lastName = ownerService.findById(1L).getLastName();
+		double led = calls("led"), joined = calls("joined");
+		ExecutorService requests = Executors.newFixedThreadPool(4);
+		held = new CountDownLatch(1);
+		try {
+			List<Future<?>> pages = new ArrayList<>();
+			for (int i = 0; i < 4; i++)
+				pages.add(requests.submit(() -> mockMvc.perform(get("/owners/1"))
+				                                       .andExpect(status().isOk())
+				                                       .andExpect(content().string(Matchers.containsString(lastName)))));
+			for (int wait = 0; wait < 500 && calls("joined") < joined + 3; wait++)
+				Thread.sleep(10);
+			held.countDown();
+			for (Future<?> page : pages)
+				page.get(10, TimeUnit.SECONDS);
+		} finally {
+			held.countDown();
+			requests.shutdownNow();
+		}
+
+		assertEquals(led + 1, calls("led"));
+		assertEquals(joined + 3, calls("joined"));
+	}
+
+}  // end class SingleFlightIntegrationTest
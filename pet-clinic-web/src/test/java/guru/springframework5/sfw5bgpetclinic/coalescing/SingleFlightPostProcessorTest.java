@@ -0,0 +1,183 @@
+package guru.springframework5.sfw5bgpetclinic.coalescing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Unit test - no Spring context.  A map OwnerService whose findById waits for the test to let it go (a slow
+//query), wrapped by hand as the post processor wraps the service beans at startup.
+class SingleFlightPostProcessorTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+	private volatile CountDownLatch release = new CountDownLatch(0);
+	private OwnerServiceMapImpl target;
+	private SimpleMeterRegistry registry;
+	private ExecutorService callers;
+
+	@BeforeEach
+	void setUp() {
+		target = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl())) {
+			@Override
+			public Owner findById(Long id) {
+				loads.incrementAndGet();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (id < 0)
+					throw new IllegalArgumentException("no such id " + id);
+				return super.findById(id);
+			}
+		};
+		target.save(Owner.builder().firstName("Bob").lastName("Smith").build());
+		registry = new SimpleMeterRegistry();
+		callers = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+	}
+
+	private double calls(String result) {
+		return registry.get(SingleFlightPostProcessor.CALLS).tag("entity", "Owner").tag("result", result).functionCounter().count();
+	}
+
+	private void awaitCalls(String result, double count) throws InterruptedException {
+		for (int wait = 0; wait < 200 && calls(result) < count; wait++)
+			Thread.sleep(10);
+		assertEquals(count, calls(result));
+	}
+
+	@Test
+	void testConcurrentLoadsShareOne() throws Exception {
+		OwnerService ownerService = (OwnerService) SingleFlightPostProcessor.coalesce(target, registry, true);
+		release = new CountDownLatch(1);
+
+		List<Future<Owner>> owners = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+			owners.add(callers.submit(() -> ownerService.findById(1L)));
+		awaitCalls("joined", 7);
+		release.countDown();
+
+		Owner stored = target.findById(1L);
+		for (Future<Owner> owner : owners)
+			assertSame(stored, owner.get());
+		assertEquals(1 + 1, loads.get());                                  // the herd's one + stored
+		assertEquals(7.0 / 8, registry.get(SingleFlightPostProcessor.RATIO).gauge().value());
+
+		ownerService.findById(1L);                                          // nothing kept - loads again
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	void testErrorsAreShared() throws Exception {
+		OwnerService ownerService = (OwnerService) SingleFlightPostProcessor.coalesce(target, registry, true);
+		release = new CountDownLatch(1);
+
+		Future<Owner> first = callers.submit(() -> ownerService.findById(-1L));
+		Future<Owner> second = callers.submit(() -> ownerService.findById(-1L));
+		awaitCalls("joined", 1);
+		release.countDown();
+
+		for (Future<Owner> owner : List.of(first, second))
+			assertTrue(assertThrows(Exception.class, owner::get).getCause() instanceof IllegalArgumentException);
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void testWriteDropsTheLoadInFlight() throws Exception {
+		OwnerService ownerService = (OwnerService) SingleFlightPostProcessor.coalesce(target, registry, true);
+		release = new CountDownLatch(1);
+
+		Future<Owner> before = callers.submit(() -> ownerService.findById(1L));
+		awaitCalls("led", 1);
+		Owner owner = Owner.builder().firstName("Bob").lastName("Jones").build();
+		owner.setId(1L);
+		ownerService.save(owner);
+		Future<Owner> after = callers.submit(() -> ownerService.findById(1L));
+		awaitCalls("led", 2);                                               // its own load, not the one before the save
+		release.countDown();
+
+		assertEquals("Jones", after.get().getLastName());
+		before.get();
+		assertEquals(0, calls("joined"));
+	}
+
+	// As open-in-view binds its EntityManager for the whole request (no transaction).
+	private <T> T inPersistenceContext(Callable<T> call) throws Exception {
+		TransactionSynchronizationManager.bindResource("entityManagerFactory", "entityManager");
+		try {
+			return call.call();
+		} finally {
+			TransactionSynchronizationManager.unbindResource("entityManagerFactory");
+		}
+	}
+
+	@Test
+	void testPersistenceContextCallersGetCopies() throws Exception {
+		OwnerService ownerService = (OwnerService) SingleFlightPostProcessor.coalesce(target, registry, false);
+		release = new CountDownLatch(1);
+
+		Future<Owner> leader = callers.submit(() -> inPersistenceContext(() -> ownerService.findById(1L)));
+		awaitCalls("led", 1);
+		List<Future<Owner>> joiners = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+			joiners.add(callers.submit(() -> inPersistenceContext(() -> ownerService.findById(1L))));
+		awaitCalls("joined", 3);
+		release.countDown();
+
+		Owner stored = target.findById(1L);
+		assertSame(stored, leader.get());                                  // the leader keeps its own
+		for (Future<Owner> joiner : joiners) {
+			Owner copy = joiner.get();
+			assertNotSame(stored, copy);
+			assertEquals(stored.getId(), copy.getId());
+			assertEquals("Smith", copy.getLastName());
+		}
+		assertNotSame(joiners.get(0).get(), joiners.get(1).get());         // each its own copy
+		assertEquals(1 + 1, loads.get());
+	}
+
+	@Test
+	void testTransactionCallersLoadTheirOwn() throws Exception {
+		OwnerService ownerService = (OwnerService) SingleFlightPostProcessor.coalesce(target, registry, false);
+
+		ownerService.findById(1L);
+		inPersistenceContext(() -> ownerService.findById(1L));
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			inPersistenceContext(() -> ownerService.findById(1L));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+
+		assertEquals(2, calls("led"));
+		assertEquals(1, calls("bypassed"));
+		assertEquals(3, loads.get());
+	}
+
+}  // end class SingleFlightPostProcessorTest
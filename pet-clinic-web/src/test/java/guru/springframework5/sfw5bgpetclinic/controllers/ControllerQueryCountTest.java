@@ -0,0 +1,228 @@
+package guru.springframework5.sfw5bgpetclinic.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.diagnostics.SqlStatements;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - full Spring context with the springdatajpa services and H2 (application.properties).
+//Upper bounds on the SQL each controller flow runs, INCLUDING the lazy loading done while the
+//Thymeleaf template renders.  A change to fetch strategies in the model package (or a template
+//walking a new association) that brings back an N+1 select fails here instead of in production.
+//
+//NOT @Transactional - each request must load through its own persistence context exactly like a
+//real request, otherwise entities cached by the test's setup hide the queries.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)   // Printing the model calls toString() on lazy collections after the session closed.
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)  // So @BeforeAll can use the @Autowired services.
+class ControllerQueryCountTest {
+
+	private static final int PETS = 20;
+	private static final int VISITS_PER_PET = 2;
+	private static final int LISTED_OWNERS = 10;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetService petService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+
+	private PetType petType;
+	private Long bigOwnerId;        // PETS pets, each with VISITS_PER_PET visits - read only
+	private Long editOwnerId;       // 1 pet with 1 visit - the update flows change it
+	private Long editPetId;
+	private Long editVisitId;
+
+	// -------------------------------------
+	// Test data - saved once through the services (own transactions, like DataLoader).
+	// -------------------------------------
+
+	@BeforeAll
+	void setUpData() {
+		petType = petTypeService.save(new PetType("Querydog"));
+
+		Owner bigOwner = ownerService.save(Owner.builder().firstName("Many").lastName("Querypets").build());
+		bigOwnerId = bigOwner.getId();
+		for (int p = 0; p < PETS; p++) {
+			Pet pet = petService.save(new Pet("Pet" + p, petType, bigOwner, LocalDate.of(2015, 1, 1)));
+			for (int v = 0; v < VISITS_PER_PET; v++)
+				visitService.save(Visit.builder().date(LocalDate.of(2019, 1, v + 1)).description("Checkup " + v).pet(pet).build());
+		}
+
+		// Several owners sharing a last name - find shows the list page.
+		for (int o = 0; o < LISTED_OWNERS; o++) {
+			Owner listed = ownerService.save(Owner.builder().firstName("First" + o).lastName("Querylisted").build());
+			petService.save(new Pet("Listpet" + o, petType, listed, LocalDate.of(2016, 1, 1)));
+			petService.save(new Pet("Otherpet" + o, petType, listed, LocalDate.of(2017, 1, 1)));
+		}
+
+		Owner editOwner = ownerService.save(Owner.builder().firstName("Edit").lastName("Queryedit")
+		                                          .address("1 Main St").city("Town").telephone("5551234").build());
+		editOwnerId = editOwner.getId();
+		Pet editPet = petService.save(new Pet("Editpet", petType, editOwner, LocalDate.of(2018, 1, 1)));
+		editPetId = editPet.getId();
+		editVisitId = visitService.save(Visit.builder().date(LocalDate.of(2019, 6, 1)).description("Shots").pet(editPet).build()).getId();
+	}
+
+	// -------------------------------------
+	// OwnerController
+	// -------------------------------------
+
+	@Test
+	void showOwnerWithManyPetsAndVisits() throws Exception {
+		// Owner, its pets (with PetType), then all their visits - not one select per pet.
+		mockMvc.perform(get("/owners/" + bigOwnerId))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(3))
+		       .andExpect(SqlStatements.noneRepeatedMoreThan(1));
+	}
+
+	@Test
+	void findOwnersListPage() throws Exception {
+		mockMvc.perform(get("/owners").param("lastName", "Querylisted"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(2))
+		       .andExpect(SqlStatements.noneRepeatedMoreThan(1));
+	}
+
+	@Test
+	void findOwnersSingleResultRedirects() throws Exception {
+		mockMvc.perform(get("/owners").param("lastName", "Querypets"))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(1));
+	}
+
+	@Test
+	void createOwner() throws Exception {
+		mockMvc.perform(get("/owners/new"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(0));
+
+		mockMvc.perform(post("/owners/new")
+		                .param("firstName", "New").param("lastName", "Querycreated")
+		                .param("address", "2 Main St").param("city", "Town").param("telephone", "5550000"))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(1));
+	}
+
+	@Test
+	void updateOwner() throws Exception {
+		mockMvc.perform(get("/owners/" + editOwnerId + "/update"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(1));
+
+		mockMvc.perform(post("/owners/" + editOwnerId + "/update")
+		                .param("firstName", "Edit").param("lastName", "Queryedit")
+		                .param("address", "3 Main St").param("city", "Town").param("telephone", "5551234"))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(3));
+	}
+
+	// -------------------------------------
+	// PetController
+	//
+	// The pet form's select reads all PetTypes once for the "types" model attribute, then once more per
+	// <option> while rendering:  Spring compares each option to the bound petType by parsing it with
+	// PetTypeFormatter (which does petTypeService.findAll()).  Bounded by the number of PetTypes (3 here).
+	// -------------------------------------
+
+	@Test
+	void createPet() throws Exception {
+		mockMvc.perform(get("/owners/" + editOwnerId + "/pets/new"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(6));
+
+		mockMvc.perform(post("/owners/" + editOwnerId + "/pets/new")
+		                .param("name", "Newpet" + System.nanoTime()).param("birthDate", "2019-01-01")
+		                .param("petType", petType.getName()))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(5));
+	}
+
+	@Test
+	void updatePet() throws Exception {
+		mockMvc.perform(get("/owners/" + editOwnerId + "/pets/" + editPetId + "/update"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(5));
+
+		mockMvc.perform(post("/owners/" + editOwnerId + "/pets/" + editPetId + "/update")
+		                .param("name", "Editpet").param("birthDate", "2018-02-01")
+		                .param("petType", petType.getName()))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(6));
+	}
+
+	// -------------------------------------
+	// VisitController
+	// -------------------------------------
+
+	@Test
+	void createVisit() throws Exception {
+		mockMvc.perform(get("/owners/" + editOwnerId + "/pets/" + editPetId + "/visits/new"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(3));
+
+		mockMvc.perform(post("/owners/" + editOwnerId + "/pets/" + editPetId + "/visits/new")
+		                .param("date", "2019-07-01").param("description", "Follow up"))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(4));
+	}
+
+	@Test
+	void updateVisit() throws Exception {
+		mockMvc.perform(get("/owners/" + editOwnerId + "/pets/" + editPetId + "/visits/" + editVisitId + "/update"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(3));
+
+		mockMvc.perform(post("/owners/" + editOwnerId + "/pets/" + editPetId + "/visits/" + editVisitId + "/update")
+		                .param("date", "2019-06-02").param("description", "Shots again"))
+		       .andExpect(status().is3xxRedirection())
+		       .andExpect(SqlStatements.atMost(4));
+	}
+
+	// -------------------------------------
+	// VetController
+	// -------------------------------------
+
+	@Test
+	void listVets() throws Exception {
+		mockMvc.perform(get("/vets.html"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(2))
+		       .andExpect(SqlStatements.noneRepeatedMoreThan(1));
+	}
+
+	@Test
+	void listVetsJson() throws Exception {
+		mockMvc.perform(get("/api/vets"))
+		       .andExpect(status().isOk())
+		       .andExpect(SqlStatements.atMost(2))
+		       .andExpect(SqlStatements.noneRepeatedMoreThan(1));
+	}
+
+}
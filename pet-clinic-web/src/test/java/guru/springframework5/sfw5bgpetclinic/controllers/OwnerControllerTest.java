@@ -1,19 +1,24 @@
 package guru.springframework5.sfw5bgpetclinic.controllers;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 
 import org.hibernate.dialect.identity.Oracle12cGetGeneratedKeysDelegate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.search.NameMatch;
+import guru.springframework5.sfw5bgpetclinic.search.OwnerNameSearch;
+import guru.springframework5.sfw5bgpetclinic.search.OwnerSearchFilter;
 import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
 
 //This is a Unit Test - - Run without Spring Context or DB.   
@@ -39,8 +44,18 @@ class OwnerControllerTest {
 	            // Mockito can tell it what data to return (fake DB call), monitor its calls, etc.)
 	private OwnerService ownerService; 
 
-	@InjectMocks  	// Tell Mockito to inject this controller with necessary @Mock classes.
-	private OwnerController ownerController;  // Class to be tested! 
+	@Mock       // "Did you mean" last names when the find comes up empty
+	private ObjectProvider<OwnerNameSearch> ownerNameSearchProvider;
+	@Mock
+	private OwnerNameSearch ownerNameSearch;
+	@Mock       // Searches nobody can match - skip the query
+	private ObjectProvider<OwnerSearchFilter> ownerSearchFilterProvider;
+	@Mock
+	private OwnerSearchFilter ownerSearchFilter;
+
+	// Class to be tested!  Built in setUp() - @InjectMocks matches constructor arguments by class only, so it
+	// cannot tell the two ObjectProviders apart.
+	private OwnerController ownerController;
 
 	private MockMvc mockMvc;  // Mocks HTTP requests and Dispatcher Servlet that invokes correct Controller.
 	
@@ -66,6 +81,7 @@ class OwnerControllerTest {
 		// standaloneSetup(...) does NOT start Spring Context (since Unit Test).  
 		//                      Give it Controller DispatcherServlet would be calling in to. 
 		// webAppContextSetup(...) DOES start Spring Context - If use, then not Unit test. 
+		ownerController = new OwnerController(ownerService, ownerNameSearchProvider, ownerSearchFilterProvider);
 		mockMvc = MockMvcBuilders.standaloneSetup(ownerController).build();
 	}
 
@@ -124,6 +140,67 @@ class OwnerControllerTest {
 		org.mockito.Mockito.verify(ownerService, org.mockito.Mockito.times(1)).findAllByLastNameLike(org.mockito.Mockito.anyString());
 	}
 
+	@Test
+	void testProcessFindFormNoneOffersSimilarNames() throws Exception {
+		// Nobody is called "Glenane" - the page comes back with "not found" and the last names a typo away.
+		org.mockito.Mockito.when(ownerService.findAllByLastNameLike(org.mockito.Mockito.anyString())).thenReturn(new HashSet<Owner>());
+		org.mockito.Mockito.when(ownerNameSearchProvider.getIfAvailable()).thenReturn(ownerNameSearch);
+		org.mockito.Mockito.when(ownerNameSearch.similarLastNames("Glenane"))
+		                   .thenReturn(Arrays.asList(new NameMatch("Glenanne", 1, 1)));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners").param("lastName", "Glenane"))
+			   .andExpect(MockMvcResultMatchers.status().isOk())
+			   .andExpect(MockMvcResultMatchers.view().name("owners/findOwners"))
+			   .andExpect(MockMvcResultMatchers.model().attributeHasFieldErrors("owner", "lastName"))
+			   .andExpect(MockMvcResultMatchers.model().attribute("similarLastNames", org.hamcrest.Matchers.hasSize(1)));
+	}
+
+	@Test
+	void testProcessFindFormFilterSkipsTheQuery() throws Exception {
+		// The filter knows no last name has "zq" in it - "not found" without asking OwnerService.
+		org.mockito.Mockito.when(ownerSearchFilterProvider.getIfAvailable()).thenReturn(ownerSearchFilter);
+		org.mockito.Mockito.when(ownerSearchFilter.mightMatch("%Zq%")).thenReturn(false);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners").param("lastName", "Zq"))
+			   .andExpect(MockMvcResultMatchers.status().isOk())
+			   .andExpect(MockMvcResultMatchers.view().name("owners/findOwners"))
+			   .andExpect(MockMvcResultMatchers.model().attributeHasFieldErrors("owner", "lastName"));
+
+		org.mockito.Mockito.verify(ownerService, org.mockito.Mockito.never()).findAllByLastNameLike(org.mockito.Mockito.anyString());
+
+		// A "maybe" that finds nobody is counted as a false positive.
+		org.mockito.Mockito.when(ownerSearchFilter.mightMatch("%Smyth%")).thenReturn(true);
+		org.mockito.Mockito.when(ownerService.findAllByLastNameLike("%Smyth%")).thenReturn(new HashSet<Owner>());
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners").param("lastName", "Smyth"))
+			   .andExpect(MockMvcResultMatchers.view().name("owners/findOwners"));
+		org.mockito.Mockito.verify(ownerSearchFilter).foundNothing();
+	}
+
+	// -------------------------------------
+	// Test processIncomingCall
+	// -------------------------------------
+
+	@Test
+	void testProcessIncomingCall() throws Exception {
+		// One caller - straight to them.  A household - the list.  Nobody - new Owner form with the number filled in.
+		Owner[] owners = expectedOwners.toArray(new Owner[0]);
+		org.mockito.Mockito.when(ownerService.findByTelephone("617-555-0000")).thenReturn(Arrays.asList(owners[0]));
+		org.mockito.Mockito.when(ownerService.findByTelephone("6175551111")).thenReturn(Arrays.asList(owners));
+		org.mockito.Mockito.when(ownerService.findByTelephone("(508) 555-2222")).thenReturn(Collections.emptyList());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners/calls").param("telephone", "617-555-0000"))
+			   .andExpect(MockMvcResultMatchers.status().is3xxRedirection())
+			   .andExpect(MockMvcResultMatchers.view().name("redirect:/owners/" + owners[0].getId()));
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners/calls").param("telephone", "6175551111"))
+			   .andExpect(MockMvcResultMatchers.status().isOk())
+			   .andExpect(MockMvcResultMatchers.view().name("owners/listOwners"))
+			   .andExpect(MockMvcResultMatchers.model().attribute("owners", org.hamcrest.Matchers.hasSize(2)));
+		mockMvc.perform(MockMvcRequestBuilders.get("/owners/calls").param("telephone", "(508) 555-2222"))
+			   .andExpect(MockMvcResultMatchers.status().isOk())
+			   .andExpect(MockMvcResultMatchers.view().name("owners/createOrUpdateOwner"))
+			   .andExpect(MockMvcResultMatchers.model().attribute("owner", org.hamcrest.Matchers.hasProperty("telephone", org.hamcrest.Matchers.equalTo("5085552222"))));
+	}
+
 	// -------------------------------------
 	// Test showOwner
 	// -------------------------------------
@@ -16,7 +16,9 @@ import guru.springframework5.sfw5bgpetclinic.services.VisitService;
 import guru.springframework5.sfw5bgpetclinic.model.Owner;
 import guru.springframework5.sfw5bgpetclinic.model.Pet;
 import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.writebehind.VisitWriteBehind;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -50,6 +52,8 @@ class VisitControllerTest {
 	private VisitService visitService;
 	@Mock		
 	private PetService petService;
+	@Mock		// Write-behind off - getIfAvailable() returns null
+	private ObjectProvider<VisitWriteBehind> writeBehindProvider;
 	
 	@InjectMocks  	// Tell Mockito to inject this controller with necessary @Mock classes.
 	private VisitController visitController;  // Class to be tested! 
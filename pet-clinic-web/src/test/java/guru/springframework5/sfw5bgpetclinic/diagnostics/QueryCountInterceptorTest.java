@@ -0,0 +1,68 @@
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.Model;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+
+import guru.springframework5.sfw5bgpetclinic.controllers.VetController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Unit test - no Spring context or DB.  Play the part of DispatcherServlet (pre/post/afterCompletion)
+//and Hibernate (inspect each statement) around one "request".
+class QueryCountInterceptorTest {
+
+	private MeterRegistry registry;
+	private QueryCountInterceptor interceptor;
+	private QueryCountingStatementInspector inspector;
+	private HandlerMethod handler;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new SimpleMeterRegistry();
+		interceptor = new QueryCountInterceptor(registry, 3);
+		inspector = new QueryCountingStatementInspector();
+		handler = new HandlerMethod(new VetController(null), VetController.class.getMethod("listVets", Model.class));
+		request = new MockHttpServletRequest();
+		response = new MockHttpServletResponse();
+	}
+
+	@Test
+	void testRepeatedStatementsFlagged() throws Exception {
+		interceptor.preHandle(request, response, handler);
+		inspector.inspect("select * from vets");
+		inspector.inspect("select * from specialties where vet_id=1");   // literal ids - same shape
+		inspector.inspect("select * from specialties where vet_id=2");
+		inspector.inspect("select * from specialties where vet_id=3");
+		interceptor.postHandle(request, response, handler, new ModelAndView("vets/index"));
+		interceptor.afterCompletion(request, response, handler, null);
+
+		QueryStatistics statistics = (QueryStatistics) request.getAttribute(QueryStatistics.ATTRIBUTE);
+		assertEquals(4, statistics.getStatementCount());
+		assertEquals(2, statistics.getShapeCount());
+		assertEquals(3, statistics.getRepeatedShapes(3).get("select * from specialties where vet_id=?"));
+
+		assertEquals(4, registry.get(QueryCountInterceptor.QUERIES).tag("endpoint", "VetController.listVets").summary().totalAmount());
+		assertEquals(1, registry.get(QueryCountInterceptor.REPEATED).tag("endpoint", "VetController.listVets").counter().count());
+	}
+
+	@Test
+	void testNotTrackedOutsideRequest() throws Exception {
+		interceptor.preHandle(request, response, handler);
+		interceptor.afterCompletion(request, response, handler, null);
+		inspector.inspect("select * from vets");     // i.e., DataLoader - after the request finished
+
+		QueryStatistics statistics = (QueryStatistics) request.getAttribute(QueryStatistics.ATTRIBUTE);
+		assertEquals(0, statistics.getStatementCount());
+		assertNull(registry.find(QueryCountInterceptor.REPEATED).counter());
+	}
+
+}
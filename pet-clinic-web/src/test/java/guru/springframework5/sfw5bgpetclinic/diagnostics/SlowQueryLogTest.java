@@ -0,0 +1,58 @@
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import guru.springframework5.sfw5bgpetclinic.diagnostics.SlowQueryLog.SlowQuery;
+
+//Unit test - no Spring context or DB.
+class SlowQueryLogTest {
+
+	@Test
+	void testOnlySlowQueriesKept() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(10, 50, 1.0);
+		slowQueryLog.record("select o from Owner o", 5, 49);
+		slowQueryLog.record("select v from Vet v", 3, 50);
+
+		List<SlowQuery> entries = slowQueryLog.getEntries();
+		assertEquals(1, entries.size());
+		assertEquals("select v from Vet v", entries.get(0).getQuery());
+		assertEquals(50, entries.get(0).getMillis());
+		assertEquals(3, entries.get(0).getRows());
+	}
+
+	@Test
+	void testLiteralsRedacted() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(10, 0, 1.0);
+		slowQueryLog.record("select o from Owner o where o.lastName like '%Smith%' and o.id > 42", 1, 10);
+
+		assertEquals("select o from Owner o where o.lastName like ? and o.id > ?", slowQueryLog.getEntries().get(0).getQuery());
+	}
+
+	@Test
+	void testRingBufferKeepsNewest() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(3, 0, 1.0);
+		for (int i = 1; i <= 5; i++)
+			slowQueryLog.record("select q" + "abcde".charAt(i - 1) + " from Owner", 0, i);
+
+		List<SlowQuery> entries = slowQueryLog.getEntries();
+		assertEquals(3, entries.size());
+		assertEquals(5, entries.get(0).getMillis());   // newest first
+		assertEquals(3, entries.get(2).getMillis());
+
+		slowQueryLog.clear();
+		assertTrue(slowQueryLog.getEntries().isEmpty());
+	}
+
+	@Test
+	void testSampling() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(10, 0, 0.0);
+		slowQueryLog.record("select o from Owner o", 1, 100);
+
+		assertTrue(slowQueryLog.getEntries().isEmpty());
+	}
+
+}
@@ -0,0 +1,73 @@
+//***************************************************************************
+//Class:        SqlStatements
+//
+//Test utility - MockMvc ResultMatchers on the SQL a request ran.  Works with any MockMvc built from
+//the full Spring context (@SpringBootTest + @AutoConfigureMockMvc) since the capture is done by the
+//runtime N+1 detector (QueryCountingStatementInspector / QueryCountInterceptor), which leaves the
+//request's QueryStatistics on the request.  Standalone MockMvc (Mockito unit tests) has no
+//interceptor and no SQL, so these do not apply there.
+//
+//Usage:
+//    mockMvc.perform(get("/owners/" + id))
+//           .andExpect(status().isOk())
+//           .andExpect(SqlStatements.atMost(3))              // total statements
+//           .andExpect(SqlStatements.noneRepeatedMoreThan(1)); // no N+1 - every statement shape once
+//
+//Failure messages list every statement shape and how many times it ran.
+//***************************************************************************
+package guru.springframework5.sfw5bgpetclinic.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+public final class SqlStatements {
+
+	private SqlStatements() {
+	}
+
+	/**
+	 * @param result - MockMvc result of a request handled by a controller method
+	 * @return the SQL statistics captured for the request
+	 */
+	public static QueryStatistics of(MvcResult result) {
+		QueryStatistics statistics = (QueryStatistics) result.getRequest().getAttribute(QueryStatistics.ATTRIBUTE);
+		assertNotNull(statistics, "No SQL statistics on the request - is the full context (with QueryCountInterceptor) in use?");
+		return statistics;
+	}
+
+	/**
+	 * Request ran no more than the given number of statements.
+	 */
+	public static ResultMatcher atMost(int max) {
+		return result -> {
+			QueryStatistics statistics = of(result);
+			assertTrue(statistics.getStatementCount() <= max,
+			           () -> "Expected at most " + max + " SQL statements but " + describe(statistics));
+		};
+	}
+
+	/**
+	 * No statement shape ran more than the given number of times (1 = no N+1 selects at all).
+	 */
+	public static ResultMatcher noneRepeatedMoreThan(int times) {
+		return result -> {
+			QueryStatistics statistics = of(result);
+			assertTrue(statistics.getRepeatedShapes(times + 1).isEmpty(),
+			           () -> "Expected no statement run more than " + times + " times but " + describe(statistics));
+		};
+	}
+
+	private static String describe(QueryStatistics statistics) {
+		StringBuilder description = new StringBuilder()
+			.append(statistics.getStatementCount()).append(" ran:");
+		for (Map.Entry<String, Integer> shape : statistics.getShapes().entrySet())
+			description.append(System.lineSeparator()).append("    ").append(shape.getValue()).append("x ").append(shape.getKey());
+		return description.toString();
+	}
+
+}  // end class SqlStatements
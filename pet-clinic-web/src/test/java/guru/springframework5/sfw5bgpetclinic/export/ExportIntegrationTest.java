@@ -0,0 +1,126 @@
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - GET /admin/export/* with the springdatajpa services and H2 (application.properties), so the
+//ScrollableResults path of ExportServiceSDJpaImpl reads the real tables (DataLoader's Owners are there too).
+@SpringBootTest(properties = "petclinic.export.endpoint-enabled=true")     // off by default
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)  // So @BeforeAll can use the @Autowired services.
+class ExportIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+
+	private Long ownerId;
+	private Long visitId;
+
+	@BeforeAll
+	void saveOwner() {
+		PetType petType = petTypeService.save(PetType.builder().name("Exportbird").build());
+		Owner owner = Owner.builder().firstName("Ex").lastName("Porter").address("1 Export Rd").city("Boston").telephone("6175550001").build();
+		new Pet("Polly", petType, owner, LocalDate.of(2018, 5, 6));
+		new Pet("Crackers", petType, owner, null);
+		owner = ownerService.save(owner);
+		ownerId = owner.getId();
+		Visit visit = visitService.save(new Visit(LocalDate.of(2020, 3, 4), "Wing, clipped", owner.getPet("Polly", false)));
+		visitId = visit.getId();
+	}
+
+	@Test
+	void testOwnersCsv() throws Exception {
+		String csv = mockMvc.perform(get("/admin/export/owners").param("format", "csv"))
+		                    .andExpect(status().isOk())
+		                    .andExpect(content().contentType("text/csv;charset=UTF-8"))
+		                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"owners.csv\""))
+		                    .andReturn().getResponse().getContentAsString();
+
+		assertTrue(csv.startsWith("# OWNER,"));
+		// Pets follow their Owner (in id order - which of the two got the lower id depends on the save).
+		String porter = csv.substring(csv.indexOf("OWNER,Ex,Porter,1 Export Rd,Boston,6175550001\n"));
+		String pets = porter.substring(porter.indexOf('\n') + 1).split("OWNER,")[0];
+		assertTrue(pets.contains("PET,Polly,Exportbird,2018-05-06\n"));
+		assertTrue(pets.contains("PET,Crackers,Exportbird,\n"));
+		assertEquals(2, pets.split("\n").length);
+	}
+
+	@Test
+	void testOwnersNdjsonFromAccept() throws Exception {
+		String ndjson = mockMvc.perform(get("/admin/export/owners").accept("application/x-ndjson"))
+		                       .andExpect(status().isOk())
+		                       .andReturn().getResponse().getContentAsString();
+
+		assertTrue(ndjson.contains("{\"id\":" + ownerId + ",\"firstName\":\"Ex\",\"lastName\":\"Porter\""));
+		assertTrue(ndjson.contains("\"name\":\"Crackers\",\"type\":\"Exportbird\"}"));
+		// One line per Owner - DataLoader's and this test's.
+		assertEquals(ownerService.findAll().size(), ndjson.split("\n").length);
+	}
+
+	@Test
+	void testVisitsGzip() throws Exception {
+		MvcResult result = mockMvc.perform(get("/admin/export/visits").param("format", "csv").header("Accept-Encoding", "gzip, deflate"))
+		                          .andExpect(status().isOk())
+		                          .andExpect(header().string("Content-Encoding", "gzip"))
+		                          .andReturn();
+
+		String csv = gunzip(result.getResponse().getContentAsByteArray());
+		assertTrue(csv.startsWith("id,date,description,petId,petName,ownerId,ownerFirstName,ownerLastName\n"));
+		assertTrue(csv.contains(visitId + ",2020-03-04,\"Wing, clipped\","));
+		assertTrue(csv.contains(",Polly," + ownerId + ",Ex,Porter\n"));
+	}
+
+	@Test
+	void testUnknownFormat() throws Exception {
+		mockMvc.perform(get("/admin/export/visits").param("format", "xml"))
+		       .andExpect(status().isBadRequest());
+	}
+
+	private static String gunzip(byte[] bytes) throws IOException {
+		StringWriter out = new StringWriter();
+		try (Reader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8)) {
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+		}
+		return out.toString();
+	}
+
+}  // end class ExportIntegrationTest
@@ -0,0 +1,140 @@
+package guru.springframework5.sfw5bgpetclinic.export;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import guru.springframework5.sfw5bgpetclinic.bulkimport.ImportFormat;
+import guru.springframework5.sfw5bgpetclinic.bulkimport.ImportRecordReader;
+import guru.springframework5.sfw5bgpetclinic.bulkimport.ImportRejection;
+import guru.springframework5.sfw5bgpetclinic.bulkimport.OwnerRecord;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+
+//Unit test - writers on in-memory Writers.  Owners are read back with the bulk import readers, so an
+//export can always be imported again.
+class ExportWriterTest {
+
+	private static Owner owner() {
+		Owner owner = Owner.builder().firstName("Mike").lastName("Smith, Jr.").address(" 1 Main St").city("Boston").build();
+		owner.setId(7L);
+		PetType dog = PetType.builder().name("Dog").build();
+		dog.setId(1L);
+		Pet rex = new Pet("Rex \"the dog\"", dog, null, LocalDate.of(2015, 3, 1));
+		rex.setId(12L);
+		owner.add(rex);
+		Pet tom = new Pet("Tom", null, null, null);
+		tom.setId(11L);
+		owner.add(tom);
+		return owner;
+	}
+
+	private static String write(ExportFormat format, boolean owners) throws IOException {
+		StringWriter out = new StringWriter();
+		try (ExportWriter writer = format.open(out)) {
+			Owner owner = owner();
+			if (owners) {
+				writer.startOwners();
+				writer.writeOwner(owner);
+			} else {
+				writer.startVisits();
+				Visit visit = new Visit(LocalDate.of(2020, 1, 2), "Shots, rabies", null);
+				visit.setId(3L);
+				visit.setPet(owner.getPet("Tom", false));
+				writer.writeVisit(visit);
+			}
+		}
+		return out.toString();
+	}
+
+	private static OwnerRecord readBack(ImportFormat format, String file, List<ImportRejection> rejections) throws IOException {
+		try (ImportRecordReader reader = format.open(new StringReader(file), rejections::add)) {
+			OwnerRecord record = reader.next();
+			assertNull(reader.next());
+			return record;
+		}
+	}
+
+	@Test
+	void testQuote() {
+		assertEquals("plain", CsvExportWriter.quote("plain"));
+		assertEquals("\"a,b\"", CsvExportWriter.quote("a,b"));
+		assertEquals("\"say \"\"hi\"\"\"", CsvExportWriter.quote("say \"hi\""));
+		assertEquals("\" padded\"", CsvExportWriter.quote(" padded"));
+		assertEquals("\"two\nlines\"", CsvExportWriter.quote("two\nlines"));
+	}
+
+	@Test
+	void testOwnersCsvIsImportLayout() throws IOException {
+		String csv = write(ExportFormat.CSV, true);
+		List<ImportRejection> rejections = new ArrayList<>();
+
+		OwnerRecord record = readBack(ImportFormat.CSV, csv, rejections);
+
+		assertTrue(rejections.isEmpty());
+		assertEquals("Smith, Jr.", record.lastName);
+		assertEquals("1 Main St", record.address);        // the import trims - quoting keeps the field in one piece
+		assertEquals(2, record.pets.size());
+		assertEquals("Tom", record.pets.get(0).name);      // id order
+		assertNull(record.pets.get(0).type);
+		assertEquals("Rex \"the dog\"", record.pets.get(1).name);
+		assertEquals("Dog", record.pets.get(1).type);
+		assertEquals("2015-03-01", record.pets.get(1).birthDate);
+	}
+
+	@Test
+	void testOwnersNdjsonIsImportLayout() throws IOException {
+		String ndjson = write(ExportFormat.NDJSON, true);
+		List<ImportRejection> rejections = new ArrayList<>();
+
+		OwnerRecord record = readBack(ImportFormat.NDJSON, ndjson, rejections);
+
+		assertTrue(ndjson.endsWith("}\n"));
+		assertTrue(ndjson.contains("\"id\":7"));
+		assertTrue(rejections.isEmpty());
+		assertEquals("Smith, Jr.", record.lastName);
+		assertNull(record.telephone);
+		assertEquals(2, record.pets.size());
+		assertEquals("Rex \"the dog\"", record.pets.get(1).name);
+	}
+
+	@Test
+	void testNdjsonOneObjectPerLine() throws IOException {
+		StringWriter out = new StringWriter();
+		try (ExportWriter writer = ExportFormat.NDJSON.open(out)) {
+			writer.writeOwner(owner());
+			writer.writeOwner(owner());
+		}
+
+		String[] lines = out.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[1].startsWith("{\"id\":7,"));     // nothing between one line and the next
+	}
+
+	@Test
+	void testVisits() throws IOException {
+		String[] csv = write(ExportFormat.CSV, false).split("\n");
+		assertEquals(2, csv.length);
+		assertEquals("id,date,description,petId,petName,ownerId,ownerFirstName,ownerLastName", csv[0]);
+		assertEquals("3,2020-01-02,\"Shots, rabies\",11,Tom,7,Mike,\"Smith, Jr.\"", csv[1]);
+
+		JsonNode visit = new ObjectMapper().readTree(write(ExportFormat.NDJSON, false));
+		assertEquals(3, visit.get("id").asLong());
+		assertEquals("2020-01-02", visit.get("date").asText());
+		assertEquals(11, visit.get("petId").asLong());
+		assertEquals("Smith, Jr.", visit.get("ownerLastName").asText());
+	}
+
+}  // end class ExportWriterTest
@@ -0,0 +1,135 @@
+package guru.springframework5.sfw5bgpetclinic.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - springdatajpa services and H2 (application.properties), endpoint turned on, at most 50 Visits per
+//request.  Good items are created (and searchable - the listeners heard), bad ones rejected one by one.
+@SpringBootTest(properties = {"petclinic.visits.batch.enabled=true", "petclinic.visits.batch.max-items=50"})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class VisitBatchIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Pet savedPet() {
+		PetType petType = petTypeService.save(PetType.builder().name("Batchbird").build());
+		Owner owner = Owner.builder().firstName("Bea").lastName("Batcher").build();
+		new Pet("Peep", petType, owner, null);
+		return ownerService.save(owner).getPet("Peep", false);
+	}
+
+	private String json(List<VisitBatchItem> items) throws Exception {
+		return objectMapper.writeValueAsString(items);
+	}
+
+	@Test
+	void testCreatesGoodItemsAndRejectsBadOnes() throws Exception {
+		Long petId = savedPet().getId();
+		List<VisitBatchItem> items = Arrays.asList(
+		        new VisitBatchItem(petId, "2021-06-01", "Quokkalike sneezing"),
+		        new VisitBatchItem(petId, null, "  Quokkalike follow up  "),
+		        new VisitBatchItem(999_999L, "2021-06-01", "Unknown pet"),
+		        new VisitBatchItem(petId, "2021-06-01", " "),
+		        new VisitBatchItem(petId, "06/01/2021", "Bad date"),
+		        new VisitBatchItem(null, "2021-06-01", "No pet"),
+		        new VisitBatchItem(petId, "2021-06-01", String.join("", Collections.nCopies(256, "x"))),
+		        null);
+
+		String body = mockMvc.perform(post("/api/visits:batch").contentType(MediaType.APPLICATION_JSON).content(json(items)))
+		                     .andExpect(status().isOk())
+		                     .andExpect(jsonPath("$.created").value(2))
+		                     .andExpect(jsonPath("$.rejected").value(6))
+		                     .andExpect(jsonPath("$.results.length()").value(8))
+		                     .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+		                     .andExpect(jsonPath("$.results[2].error").value("no Pet 999999"))
+		                     .andExpect(jsonPath("$.results[3].error").value("description is missing"))
+		                     .andExpect(jsonPath("$.results[4].error").value("date '06/01/2021' is not yyyy-MM-dd"))
+		                     .andExpect(jsonPath("$.results[5].error").value("petId is missing"))
+		                     .andExpect(jsonPath("$.results[6].error").value("description is longer than 255 characters"))
+		                     .andExpect(jsonPath("$.results[7].error").value("visit is missing"))
+		                     .andReturn().getResponse().getContentAsString();
+
+		JsonNode results = objectMapper.readTree(body).get("results");
+		Visit first = visitService.findById(results.get(0).get("visitId").asLong());
+		Visit second = visitService.findById(results.get(1).get("visitId").asLong());
+		assertEquals("Quokkalike sneezing", first.getDescription());
+		assertEquals(LocalDate.of(2021, 6, 1), first.getDate());
+		assertEquals(petId, first.getPet().getId());
+		assertEquals("Quokkalike follow up", second.getDescription());
+		assertEquals(LocalDate.now(), second.getDate());
+		assertTrue(second.getId() > first.getId());                             // inserted in the order sent
+
+		mockMvc.perform(get("/api/visits/search").param("q", "quokkalike"))       // the listeners heard
+		       .andExpect(jsonPath("$.total").value(2));
+	}
+
+	@Test
+	void testBadRequests() throws Exception {
+		Long petId = savedPet().getId();
+		List<VisitBatchItem> tooMany = new ArrayList<>();
+		for (int i = 0; i < 51; i++)
+			tooMany.add(new VisitBatchItem(petId, "2021-06-01", "Visit " + i));
+		mockMvc.perform(post("/api/visits:batch").contentType(MediaType.APPLICATION_JSON).content(json(tooMany)))
+		       .andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/visits:batch").contentType(MediaType.APPLICATION_JSON).content("{\"petId\":1}"))
+		       .andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/visits:batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.created").value(0));
+	}
+
+	@Test
+	void testInsertAllJoinsTheCallersTransaction() {
+		Long visitId = new TransactionTemplate(transactionManager).execute(status -> {
+			Visit visit = new Visit(LocalDate.of(2021, 6, 1), "Rolled back", savedPet());   // Pet new in this transaction
+			Long id = visitService.insertAll(new ArrayList<>(List.of(visit))).get(0).getId();
+			assertNotNull(visitService.findById(id));
+			status.setRollbackOnly();
+			return id;
+		});
+
+		assertNull(visitService.findById(visitId));                              // rolled back with the caller
+	}
+
+}  // end class VisitBatchIntegrationTest
@@ -0,0 +1,98 @@
+package guru.springframework5.sfw5bgpetclinic.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Unit test - no Spring context.  Wrap a map OwnerService by hand (what the post processor does to
+//the service beans at startup) and check the meters it records.
+class ServiceMetricsPostProcessorTest {
+
+	private MeterRegistry registry;
+	private OwnerService ownerService;   // instrumented proxy
+
+	@BeforeEach
+	void setUp() throws Exception {
+		registry = new SimpleMeterRegistry();
+		OwnerService target = new OwnerServiceMapImpl(
+				                  new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+		ownerService = (OwnerService) ServiceMetricsPostProcessor.instrument(target, registry, false, 1);
+		ownerService.save(Owner.builder().firstName("Bob").lastName("Smith").build());
+	}
+
+	@Test
+	void testCallsTaggedByEntityAndBackend() {
+		ownerService.findById(1L);
+		ownerService.findById(1L);
+
+		assertEquals(2, registry.get(ServiceMetricsPostProcessor.CALLS)
+		                        .tag("service", "OwnerService")
+		                        .tag("entity", "Owner")
+		                        .tag("backend", "map")
+		                        .tag("method", "findById")
+		                        .functionTimer().count());
+		assertEquals(1, registry.get(ServiceMetricsPostProcessor.CALLS).tag("method", "save").functionTimer().count());
+	}
+
+	@Test
+	void testPercentileHistogramUsesTimer() {
+		MeterRegistry histogramRegistry = new SimpleMeterRegistry();
+		OwnerService target = new OwnerServiceMapImpl(
+				                  new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+		OwnerService histogramService = (OwnerService) ServiceMetricsPostProcessor.instrument(target, histogramRegistry, true, 8);
+		histogramService.findAll();
+
+		assertEquals(1, histogramRegistry.get(ServiceMetricsPostProcessor.CALLS).tag("method", "findAll").timer().count());
+	}
+
+	@Test
+	void testSampledTimingCountsEveryCall() {
+		MeterRegistry sampledRegistry = new SimpleMeterRegistry();
+		OwnerService target = new OwnerServiceMapImpl(
+				                  new PetServiceMapImpl(new PetTypeServiceMapImpl(), new VisitServiceMapImpl()));
+		OwnerService sampledService = (OwnerService) ServiceMetricsPostProcessor.instrument(target, sampledRegistry, false, 8);
+		for (int i = 0; i < 1000; i++)
+			sampledService.findById(1L);
+
+		FunctionTimer calls = sampledRegistry.get(ServiceMetricsPostProcessor.CALLS).tag("method", "findById").functionTimer();
+		assertEquals(1000, calls.count());
+		assertTrue(calls.totalTime(TimeUnit.NANOSECONDS) > 0);   // ~125 calls timed, scaled up to all 1000
+		assertThrows(IllegalArgumentException.class, () -> ServiceMetricsPostProcessor.instrument(target, sampledRegistry, false, 0));
+	}
+
+	@Test
+	void testResultSizes() {
+		ownerService.findAll();              // 1 Owner
+		ownerService.findById(99L);          // miss -> 0
+
+		assertEquals(1, registry.get(ServiceMetricsPostProcessor.RESULTS).tag("method", "findAll").functionCounter().count());
+		assertEquals(0, registry.get(ServiceMetricsPostProcessor.RESULTS).tag("method", "findById").functionCounter().count());
+		// Not a finder - no result size meter.
+		assertNull(registry.find(ServiceMetricsPostProcessor.RESULTS).tag("method", "save").functionCounter());
+	}
+
+	@Test
+	void testErrorsCountedAndRethrown() {
+		// Map IMPL throws RuntimeException when asked to update an Owner it does not have.
+		Owner unknown = Owner.builder().firstName("Nobody").lastName("Here").build();
+		unknown.setId(99L);
+		assertThrows(RuntimeException.class, () -> ownerService.save(unknown));
+
+		assertEquals(1, registry.get(ServiceMetricsPostProcessor.ERRORS).tag("method", "save").functionCounter().count());
+		assertEquals(2, registry.get(ServiceMetricsPostProcessor.CALLS).tag("method", "save").functionTimer().count());
+	}
+
+}
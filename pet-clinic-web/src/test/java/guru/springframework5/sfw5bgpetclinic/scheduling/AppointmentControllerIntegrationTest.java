@@ -0,0 +1,140 @@
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.Vet;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.AppointmentService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - springdatajpa services and H2 (application.properties), DataLoader's Vets:  Axe (radiology,
+//surgery) and Porter (dentistry, surgery), both on the default hours.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class AppointmentControllerIntegrationTest {
+
+	private static final LocalDate MONDAY = LocalDate.now().plusYears(2).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private PetService petService;
+	@Autowired
+	private VetService vetService;
+	@Autowired
+	private VisitService visitService;
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Test
+	void testFindBookConflictCancel() throws Exception {
+		Long petId = petService.findAll().stream().map(Pet::getId).findFirst().get();
+		Long porterId = vetService.findByLastName("Porter").getId();
+
+		mockMvc.perform(get("/api/appointments/next").param("specialty", "Dentistry").param("minutes", "45")
+		                                             .param("after", MONDAY + "T07:00"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.vetId").value(porterId))
+		       .andExpect(jsonPath("$.date").value(MONDAY.toString()))
+		       .andExpect(jsonPath("$.start").value("08:00:00"))
+		       .andExpect(jsonPath("$.end").value("08:45:00"));
+
+		String booked = mockMvc.perform(post("/api/appointments").param("petId", petId.toString()).param("minutes", "45")
+		                                                         .param("vetId", porterId.toString()).param("date", MONDAY.toString())
+		                                                         .param("start", "08:00").param("specialty", "dentistry")
+		                                                         .param("description", "Cleaning"))
+		                       .andExpect(status().isCreated())
+		                       .andExpect(jsonPath("$.appointmentId").exists())
+		                       .andExpect(jsonPath("$.visitId").exists())
+		                       .andReturn().getResponse().getContentAsString();
+		Integer appointmentId = JsonPath.read(booked, "$.appointmentId");
+
+		mockMvc.perform(post("/api/appointments").param("petId", petId.toString()).param("minutes", "30")
+		                                         .param("vetId", porterId.toString()).param("date", MONDAY.toString())
+		                                         .param("start", "08:30"))
+		       .andExpect(status().isConflict());
+		mockMvc.perform(post("/api/appointments").param("petId", petId.toString()).param("minutes", "30")
+		                                         .param("vetId", porterId.toString()).param("date", MONDAY.toString())
+		                                         .param("start", "08:40"))
+		       .andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/appointments/next").param("specialty", "dentistry").param("minutes", "45")
+		                                             .param("after", MONDAY + "T07:00"))
+		       .andExpect(jsonPath("$.start").value("08:45:00"));
+
+		mockMvc.perform(delete("/api/appointments/" + appointmentId))
+		       .andExpect(status().isNoContent());
+		mockMvc.perform(delete("/api/appointments/" + appointmentId))
+		       .andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/appointments/free").param("vetId", porterId.toString()).param("minutes", "45")
+		                                             .param("date", MONDAY.toString()))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$[0].start").value("08:00:00"));
+	}
+
+	// As if another instance (calendars of its own) had booked Axe at 10:00 - the database refuses the second.
+	@Test
+	void testDatabaseRefusesSameStartBookedElsewhere() throws Exception {
+		LocalDate day = MONDAY.plusWeeks(1);
+		Pet saved = petService.findAll().iterator().next();
+		Pet pet = new Pet(saved.getName(), saved.getPetType(), null, saved.getBirthDate());   // detached - its id only
+		pet.setId(saved.getId());
+		Vet axe = vetService.findByLastName("Axe");
+		Visit elsewhere = visitService.save(new Visit(day, "Booked elsewhere", pet));
+		appointmentService.save(Appointment.builder().vet(axe).visit(elsewhere).startTime(LocalTime.of(10, 0))
+		                                   .endTime(LocalTime.of(10, 30)).build());
+		int visits = visitService.findAll().size();
+
+		mockMvc.perform(post("/api/appointments").param("petId", pet.getId().toString()).param("minutes", "30")
+		                                         .param("vetId", axe.getId().toString()).param("date", day.toString())
+		                                         .param("start", "10:00"))
+		       .andExpect(status().isConflict());
+		assertEquals(visits, visitService.findAll().size());                  // its Visit deleted again
+		mockMvc.perform(get("/api/appointments/free").param("vetId", axe.getId().toString()).param("minutes", "15")
+		                                             .param("date", day.toString()))
+		       .andExpect(jsonPath("$[?(@.start == '10:00:00')]").isEmpty());   // known booked from now on
+
+		Visit again = visitService.save(new Visit(day, "Booked twice", pet));
+		assertThrows(DataIntegrityViolationException.class,
+		             () -> appointmentService.save(Appointment.builder().vet(axe).visit(again).startTime(LocalTime.of(10, 0))
+		                                                      .endTime(LocalTime.of(11, 0)).build()));
+	}
+
+	@Test
+	void testBookNext() throws Exception {
+		Long petId = petService.findAll().stream().map(Pet::getId).findFirst().get();
+
+		mockMvc.perform(post("/api/appointments").param("petId", petId.toString()).param("minutes", "60")
+		                                         .param("specialty", "surgery").param("description", "Spay"))
+		       .andExpect(status().isCreated())
+		       .andExpect(jsonPath("$.appointmentId").exists());
+		mockMvc.perform(post("/api/appointments").param("petId", petId.toString()).param("minutes", "60")
+		                                         .param("specialty", "cardiology"))
+		       .andExpect(status().isBadRequest());
+	}
+
+}  // end class AppointmentControllerIntegrationTest
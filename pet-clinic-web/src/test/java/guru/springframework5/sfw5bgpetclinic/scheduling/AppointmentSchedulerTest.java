@@ -0,0 +1,239 @@
+package guru.springframework5.sfw5bgpetclinic.scheduling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.model.Appointment;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Specialty;
+import guru.springframework5.sfw5bgpetclinic.model.Vet;
+import guru.springframework5.sfw5bgpetclinic.model.WorkingHours;
+import guru.springframework5.sfw5bgpetclinic.services.map.AppointmentServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.SpecialtyServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.WorkingHoursServiceMapImpl;
+
+//Unit test - Map IMPLs wired by hand, default grid (06:00, 15 minute slots) and hours (Mon - Fri 08:00 - 17:00).
+class AppointmentSchedulerTest {
+
+	// A Monday well in the future, so "not in the past" always holds.
+	private static final LocalDate MONDAY = LocalDate.now().plusYears(1).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+	private AppointmentServiceMapImpl appointmentService;
+	private VisitServiceMapImpl visitService;
+	private WorkingHoursServiceMapImpl workingHoursService;
+	private AppointmentScheduler scheduler;
+	private Vet surgeon;                       // works the default hours
+	private Vet partTimeSurgeon;               // Mondays 13:00 - 15:00 only
+	private Vet dentist;
+	private Pet pet;
+	private List<Pet> pets = new ArrayList<>();        // one per booking thread (a Pet's visits are a plain HashSet)
+
+	@BeforeEach
+	void setUp() {
+		PetTypeServiceMapImpl petTypeService = new PetTypeServiceMapImpl();
+		visitService = new VisitServiceMapImpl();
+		PetServiceMapImpl petService = new PetServiceMapImpl(petTypeService, visitService);
+		OwnerServiceMapImpl ownerService = new OwnerServiceMapImpl(petService);
+		SpecialtyServiceMapImpl specialtyService = new SpecialtyServiceMapImpl();
+		VetServiceMapImpl vetService = new VetServiceMapImpl(specialtyService);
+		workingHoursService = new WorkingHoursServiceMapImpl();
+		appointmentService = new AppointmentServiceMapImpl();
+
+		Specialty surgery = new Specialty("Surgery");
+		Specialty dentistry = new Specialty("Dentistry");
+		surgeon = vet(vetService, "Sam", surgery);
+		partTimeSurgeon = vet(vetService, "Pat", surgery);
+		dentist = vet(vetService, "Dee", dentistry);
+		workingHoursService.save(new WorkingHours(partTimeSurgeon, DayOfWeek.MONDAY, LocalTime.of(13, 0), LocalTime.of(15, 0)));
+
+		Owner owner = ownerService.save(Owner.builder().firstName("A").lastName("A").build());
+		PetType dog = PetType.builder().name("Dog").build();
+		pet = petService.save(new Pet("Rex", dog, owner, null));
+		for (int i = 0; i < 8; i++)
+			pets.add(petService.save(new Pet("Pet" + i, dog, owner, null)));
+
+		scheduler = new AppointmentScheduler(vetService, workingHoursService, appointmentService, visitService, petService, new MockEnvironment());
+		scheduler.reload();
+	}
+
+	private static Vet vet(VetServiceMapImpl vetService, String name, Specialty specialty) {
+		Vet vet = new Vet();
+		vet.setFirstName(name);
+		vet.setLastName("Vet");
+		vet.add(specialty);
+		return vetService.save(vet);
+	}
+
+	private Appointment book(Vet vet, int hour, int minute, int minutes) {
+		return book(vet, pet, hour, minute, minutes);
+	}
+
+	private Appointment book(Vet vet, Pet pet, int hour, int minute, int minutes) {
+		return scheduler.book(vet.getId(), pet.getId(), MONDAY, LocalTime.of(hour, minute), minutes, "surgery", "Surgery");
+	}
+
+	@Test
+	void testFirstRun() {
+		assertEquals(0, SlotGrid.firstRun(-1L, 64));
+		assertEquals(3, SlotGrid.firstRun(0b1111000L, 4));
+		assertEquals(-1, SlotGrid.firstRun(0b1110111L, 4));
+		assertEquals(7, SlotGrid.firstRun(0b11110110110L, 3));
+		assertEquals(60, SlotGrid.firstRun(0xF000000000000000L, 4));
+		assertEquals(-1, SlotGrid.firstRun(0L, 1));
+	}
+
+	@Test
+	void testFindNextBySpecialtyAndHours() {
+		LocalDateTime mondayMorning = MONDAY.atTime(7, 0);
+
+		AppointmentSlot slot = scheduler.findNext("Surgery", 60, mondayMorning);
+		assertEquals(surgeon.getId(), slot.getVetId());
+		assertEquals(MONDAY, slot.getDate());
+		assertEquals(LocalTime.of(8, 0), slot.getStart());
+		assertEquals(LocalTime.of(9, 0), slot.getEnd());
+
+		// Surgeon booked all afternoon - the part timer's 13:00 is next after 12:30.
+		book(surgeon, 12, 0, 5 * 60);
+		slot = scheduler.findNext("surgery", 60, MONDAY.atTime(12, 30));
+		assertEquals(partTimeSurgeon.getId(), slot.getVetId());
+		assertEquals(LocalTime.of(13, 0), slot.getStart());
+
+		// Nobody works 3 hours in a row after 16:00 on Monday - Tuesday 08:00, any Vet.
+		slot = scheduler.findNext(null, 180, MONDAY.atTime(16, 0));
+		assertEquals(MONDAY.plusDays(1), slot.getDate());
+		assertEquals(LocalTime.of(8, 0), slot.getStart());
+
+		// Friday after hours - next Monday (not the weekend).
+		slot = scheduler.findNext("dentistry", 30, MONDAY.plusDays(4).atTime(17, 0));
+		assertEquals(dentist.getId(), slot.getVetId());
+		assertEquals(MONDAY.plusDays(7), slot.getDate());
+
+		assertThrows(IllegalArgumentException.class, () -> scheduler.findNext("radiology", 30, mondayMorning));
+		assertThrows(IllegalArgumentException.class, () -> scheduler.findNext(null, 0, mondayMorning));
+	}
+
+	@Test
+	void testBookRejectsOverlapsAndHours() {
+		Appointment appointment = book(surgeon, 9, 0, 60);
+		assertNotNull(appointment.getId());
+		assertEquals(MONDAY, appointment.getVisit().getDate());
+		assertEquals(LocalTime.of(10, 0), appointment.getEndTime());
+		assertEquals("Surgery", appointment.getSpecialty().getDescription());
+		assertEquals(1, pet.getVisits().size());
+
+		assertThrows(IllegalStateException.class, () -> book(surgeon, 9, 45, 30));     // overlaps
+		assertThrows(IllegalStateException.class, () -> book(surgeon, 16, 30, 60));    // past 17:00
+		assertThrows(IllegalStateException.class, () -> book(partTimeSurgeon, 9, 0, 30));
+		assertThrows(IllegalArgumentException.class, () -> book(surgeon, 11, 10, 30)); // off the grid
+		assertThrows(IllegalArgumentException.class, () -> book(dentist, 11, 0, 30));  // no surgery
+		assertNotNull(book(surgeon, 10, 0, 15));                                       // right after
+		assertEquals(2, appointmentService.findAll().size());
+		assertEquals(2, visitService.findAll().size());
+
+		List<AppointmentSlot> free = scheduler.freeSlots(surgeon.getId(), MONDAY, 60);
+		assertEquals(LocalTime.of(8, 0), free.get(0).getStart());
+		assertEquals(LocalTime.of(10, 15), free.get(1).getStart());
+		assertEquals(LocalTime.of(16, 0), free.get(free.size() - 1).getStart());
+	}
+
+	@Test
+	void testCancelFreesTheTime() {
+		Appointment appointment = book(surgeon, 8, 0, 60);
+		assertEquals(LocalTime.of(9, 0), scheduler.findNext("surgery", 60, MONDAY.atTime(8, 0)).getStart());
+
+		assertTrue(scheduler.cancel(appointment.getId()));
+		assertFalse(scheduler.cancel(appointment.getId()));
+
+		assertTrue(appointmentService.findAll().isEmpty());
+		assertTrue(visitService.findAll().isEmpty());
+		assertEquals(LocalTime.of(8, 0), scheduler.findNext("surgery", 60, MONDAY.atTime(8, 0)).getStart());
+	}
+
+	@Test
+	void testPruneForgetsPastDays() {
+		LocalDate today = LocalDate.now();
+		VetCalendar calendar = new VetCalendar(1L, "Sam Vet", Set.of(), new long[DayOfWeek.values().length]);
+		calendar.mark(today.minusDays(30), 1L);
+		calendar.mark(today.minusDays(1), 1L);
+		calendar.mark(today, 2L);
+		calendar.mark(today.plusDays(1), 4L);
+
+		calendar.prune(today);
+
+		assertEquals(2, calendar.bookedDays());
+		assertEquals(0L, calendar.booked(today.minusDays(1)));
+		assertEquals(2L, calendar.booked(today));
+		assertEquals(4L, calendar.booked(today.plusDays(1)));
+	}
+
+	@Test
+	void testReloadKeepsBookingsAndReadsHours() {
+		book(surgeon, 8, 0, 60);
+		workingHoursService.save(new WorkingHours(surgeon, DayOfWeek.MONDAY, LocalTime.of(8, 0), LocalTime.of(10, 0)));
+
+		scheduler.reload();
+
+		assertThrows(IllegalStateException.class, () -> book(surgeon, 8, 0, 15));
+		assertThrows(IllegalStateException.class, () -> book(surgeon, 10, 0, 15));      // now after hours
+		assertNotNull(book(surgeon, 9, 0, 60));
+	}
+
+	@Test
+	void testNoDoubleBookingUnderContention() throws Exception {
+		// 8 threads each try to book every 30 minutes of the surgeon's day, starting at a different time.
+		int threads = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> booked = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int offset = t;
+				Callable<Integer> booker = () -> {
+					int mine = 0;
+					for (int i = 0; i < 18; i++) {
+						int slot = (i + offset) % 18;             // 08:00 .. 16:30
+						try {
+							book(surgeon, pets.get(offset), 8 + slot / 2, (slot % 2) * 30, 30);
+							mine++;
+						} catch (IllegalStateException taken) {
+							// someone else got it
+						}
+					}
+					return mine;
+				};
+				booked.add(pool.submit(booker));
+			}
+			int total = 0;
+			for (Future<Integer> future : booked)
+				total += future.get();
+			assertEquals(18, total);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(18, appointmentService.findAll().size());
+		assertNotEquals(surgeon.getId(), scheduler.findNext("surgery", 15, MONDAY.atTime(8, 0)).getVetId());
+	}
+
+}  // end class AppointmentSchedulerTest
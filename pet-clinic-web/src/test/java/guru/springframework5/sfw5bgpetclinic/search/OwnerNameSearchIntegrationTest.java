@@ -0,0 +1,72 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+
+//Integration test - springdatajpa services and H2 (application.properties).  An Owner saved through the
+//OwnerService bean completes (and is offered for a near miss) straight away.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class OwnerNameSearchIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+
+	@Test
+	void testAutocomplete() throws Exception {
+		ownerService.save(Owner.builder().firstName("Quincy").lastName("Qwertyuiop").build());
+		ownerService.save(Owner.builder().firstName("Quinn").lastName("Qwertyuiop").build());
+		ownerService.save(Owner.builder().firstName("Quentin").lastName("Qwerty").build());
+
+		mockMvc.perform(get("/api/owners/autocomplete").param("prefix", "qwer"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$[0].name").value("Qwertyuiop"))
+		       .andExpect(jsonPath("$[0].owners").value(2))
+		       .andExpect(jsonPath("$[1].name").value("Qwerty"));
+
+		mockMvc.perform(get("/api/owners/autocomplete").param("prefix", "quin").param("field", "firstName"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.length()").value(2));
+	}
+
+	@Test
+	void testSimilarLastNames() throws Exception {
+		ownerService.save(Owner.builder().firstName("Zelda").lastName("Zxcvbnmlk").build());
+
+		mockMvc.perform(get("/api/owners/similar").param("lastName", "Zxcvbmlk"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$[0].name").value("Zxcvbnmlk"))
+		       .andExpect(jsonPath("$[0].distance").value(1));
+
+		// Find Owners with the typo offers the name
+		mockMvc.perform(get("/owners").param("lastName", "Zxcvbmlk"))
+		       .andExpect(status().isOk())
+		       .andExpect(content().string(containsString("lastName=Zxcvbnmlk")));
+	}
+
+	@Test
+	void testBadRequests() throws Exception {
+		mockMvc.perform(get("/api/owners/autocomplete").param("prefix", "a").param("field", "city"))
+		       .andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/owners/autocomplete").param("prefix", "a").param("limit", "11"))
+		       .andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/owners/similar").param("lastName", "a").param("distance", "3"))
+		       .andExpect(status().isBadRequest());
+	}
+
+}  // end class OwnerNameSearchIntegrationTest
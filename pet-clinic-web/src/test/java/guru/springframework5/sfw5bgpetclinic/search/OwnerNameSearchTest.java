@@ -0,0 +1,192 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangePostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.ExportServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+//Unit test - Map IMPLs wired by hand, OwnerService wrapped by EntityChangePostProcessor as Spring would.
+class OwnerNameSearchTest {
+
+	private OwnerNameSearch search;
+	private OwnerService ownerService;        // the proxy
+	private OwnerServiceMapImpl ownerServiceImpl;
+
+	@BeforeEach
+	void setUp() {
+		VisitServiceMapImpl visitService = new VisitServiceMapImpl();
+		ownerServiceImpl = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), visitService));
+		search = new OwnerNameSearch(new ExportServiceMapImpl(ownerServiceImpl, visitService),
+		                             new MockEnvironment().withProperty("petclinic.search.owners.max-limit", "3")
+		                                                     .withProperty("petclinic.search.owners.max-distance", "3"));
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("ownerNameSearch", search);
+		EntityChangePostProcessor changePostProcessor = new EntityChangePostProcessor();
+		changePostProcessor.setBeanFactory(beanFactory);
+		ownerService = (OwnerService) changePostProcessor.postProcessAfterInitialization(ownerServiceImpl, "ownerService");
+	}
+
+	private Owner save(String firstName, String lastName) {
+		return ownerService.save(Owner.builder().firstName(firstName).lastName(lastName).build());
+	}
+
+	private List<String> lastNames(String prefix) {
+		return search.complete(false, prefix, 3).stream().map(name -> name.getName() + ":" + name.getOwners())
+		             .collect(Collectors.toList());
+	}
+
+	@Test
+	void testMostOwnersFirstThenAlphabetical() {
+		save("Ann", "Smith");
+		save("Bob", "smith");                      // same name, any case - shown as first saved
+		save("Cal", "Smithers");
+		save("Dee", "Smart");
+		save("Eve", "Small");
+		save("Fay", "Jones");
+
+		assertEquals(Arrays.asList("Smith:2", "Small:1", "Smart:1"), lastNames("SM"));
+		assertEquals(Arrays.asList("Smith:2", "Smithers:1"), lastNames("smit"));
+		assertEquals(Arrays.asList("Smithers:1"), lastNames("smithe"));
+		assertEquals(Arrays.asList("Small:1", "Smart:1"), lastNames("sma"));
+		assertTrue(lastNames("x").isEmpty());
+		assertTrue(lastNames("smithereens").isEmpty());
+		assertTrue(lastNames(" ").isEmpty());
+		assertEquals("Ann", search.complete(true, "a", 1).get(0).getName());
+
+		assertThrows(IllegalArgumentException.class, () -> search.complete(false, "s", 4));
+	}
+
+	@Test
+	void testRenamesAndDeletes() {
+		Owner cal = save("Cal", "Smithers");
+		Owner ann = save("Ann", "Smith");
+		save("Bob", "Smith");
+
+		cal.setLastName("Jones");
+		ownerService.save(cal);
+		assertEquals(Arrays.asList("Smith:2"), lastNames("smi"));
+		assertEquals(Arrays.asList("Jones:1"), lastNames("j"));
+
+		ownerService.delete(ann);
+		assertEquals(Arrays.asList("Smith:1"), lastNames("s"));
+		ownerService.deleteById(cal.getId());
+		assertTrue(lastNames("j").isEmpty());
+	}
+
+	@Test
+	void testTrieMatchesBruteForce() {
+		// Random adds / removes of names sharing prefixes - every prefix's top 3 as counted by hand.
+		NameTrie trie = new NameTrie(3);
+		Map<String, Integer> counts = new TreeMap<>();
+		String[] names = {"a", "ab", "abc", "abd", "b", "ba", "bab", "abcd", "abce", "c"};
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			String name = names[random.nextInt(names.length)];
+			if (random.nextInt(3) == 0 && counts.getOrDefault(name, 0) > 0) {
+				trie.remove(name);
+				counts.merge(name, -1, Integer::sum);
+			} else {
+				trie.add(name);
+				counts.merge(name, 1, Integer::sum);
+			}
+			for (String prefix : Arrays.asList("a", "ab", "abc", "b", "ba", "c")) {
+				List<String> expected = counts.entrySet().stream()
+				                              .filter(entry -> entry.getKey().startsWith(prefix) && entry.getValue() > 0)
+				                              .sorted((x, y) -> y.getValue() - x.getValue())
+				                              .limit(3).map(entry -> entry.getKey() + ":" + entry.getValue())
+				                              .collect(Collectors.toList());
+				List<String> actual = trie.complete(prefix, 3).stream().map(completion -> completion.getName() + ":" + completion.getOwners())
+				                          .collect(Collectors.toList());
+				assertEquals(expected, actual, prefix);
+			}
+		}
+		assertEquals(counts.values().stream().filter(count -> count > 0).count(), trie.size());
+	}
+
+	@Test
+	void testSimilarLastNames() {
+		save("Fi", "Glenanne");
+		save("Mi", "Glenanne");
+		save("Sam", "Axe");
+		save("Jesse", "Porter");
+		save("Ann", "Glen");
+
+		List<NameMatch> similar = search.similarLastNames("glenane", 2, 3);
+		assertEquals(1, similar.size());
+		assertEquals("Glenanne", similar.get(0).getName());
+		assertEquals(2, similar.get(0).getOwners());
+		assertEquals(1, similar.get(0).getDistance());
+
+		assertEquals(Arrays.asList("Glen", "Glenanne"), search.similarLastNames("Glena", 3, 3).stream().map(NameMatch::getName)
+		                                                      .collect(Collectors.toList()));    // 1 away, then 3 away
+		assertEquals(Arrays.asList("Glenanne", "Glen"), search.similarLastNames("Glenan", 2, 3).stream().map(NameMatch::getName)
+		                                                      .collect(Collectors.toList()));    // both 2 away - most Owners first
+		assertEquals(1, search.similarLastNames("Porter", 0, 3).size());
+		assertTrue(search.similarLastNames("Smith", 2, 3).isEmpty());
+
+		// Gone from the results once nobody has the name; back when someone does again.
+		Owner porter = ownerService.findByLastName("Porter");
+		ownerService.delete(porter);
+		assertTrue(search.similarLastNames("Porter", 0, 3).isEmpty());
+		save("Jess", "porter");
+		assertEquals("porter", search.similarLastNames("Porter", 0, 3).get(0).getName());
+
+		assertThrows(IllegalArgumentException.class, () -> search.similarLastNames("Axe", 4, 3));
+		assertThrows(IllegalArgumentException.class, () -> search.similarLastNames("Axe", 2, 4));
+	}
+
+	@Test
+	void testBkTreeMatchesBruteForce() {
+		NameBkTree tree = new NameBkTree();
+		Random random = new Random(11);
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder name = new StringBuilder();
+			for (int length = 3 + random.nextInt(6); name.length() < length; )
+				name.append("abcdeł".charAt(random.nextInt(6)));          // one letter past Latin-1
+			names.add(name.toString());
+			tree.add(name.toString());
+		}
+		for (int q = 0; q < 50; q++) {
+			String query = names.get(random.nextInt(names.size())).substring(1) + "b";
+			long expected = names.stream().distinct().filter(name -> NameBkTree.distance(query, name) <= 2).count();
+			assertEquals(expected, tree.search(query, 2, Integer.MAX_VALUE).size(), query);
+		}
+		assertEquals(3, NameBkTree.distance("kitten", "sitting"));
+		String longName = String.join("", Collections.nCopies(10, "abcdefg"));              // 70 - past one word
+		tree.add(longName);
+		assertEquals(1, tree.search(longName.substring(1), 1, 1).size());
+		assertEquals(1, NameBkTree.distance("glenane", "glenanne"));
+	}
+
+	@Test
+	void testRebuildReadsTheData() {
+		ownerServiceImpl.save(Owner.builder().firstName("Zed").lastName("Zulu").build());     // around the proxy
+		assertTrue(lastNames("z").isEmpty());
+
+		assertEquals(1, search.rebuild());
+		assertEquals(Arrays.asList("Zulu:1"), lastNames("z"));
+	}
+
+}  // end class OwnerNameSearchTest
@@ -0,0 +1,55 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Integration test - springdatajpa services and H2 (application.properties).  An Owner saved through the
+//OwnerService bean is found straight away; a search nobody can match never reaches the database.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class OwnerSearchFilterIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private MeterRegistry registry;
+
+	private double checks(String result) {
+		return registry.get("petclinic.search.owners.filter.checks").tag("result", result).functionCounter().count();
+	}
+
+	@Test
+	void testFindOwners() throws Exception {
+		Owner owner = ownerService.save(Owner.builder().firstName("Bart").lastName("Kwyjibo").build());
+		double rejected = checks("rejected");
+
+		mockMvc.perform(get("/owners").param("lastName", "wyjib"))
+		       .andExpect(redirectedUrl("/owners/" + owner.getId()));
+		mockMvc.perform(get("/owners").param("lastName", "Kwyjibozz"))
+		       .andExpect(status().isOk())
+		       .andExpect(view().name("owners/findOwners"));
+
+		assertEquals(rejected + 1, checks("rejected"));
+
+		mockMvc.perform(post("/api/owners/search-filter/rebuild"))
+		       .andExpect(status().isAccepted());
+	}
+
+}  // end class OwnerSearchFilterIntegrationTest
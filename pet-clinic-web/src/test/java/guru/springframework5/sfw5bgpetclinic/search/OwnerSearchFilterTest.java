@@ -0,0 +1,169 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.bulkimport.ImportProgress;
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangePostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.map.ExportServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Unit test - Map IMPLs wired by hand, OwnerService wrapped by EntityChangePostProcessor as Spring would.
+class OwnerSearchFilterTest {
+
+	private OwnerSearchFilter filter;
+	private OwnerService ownerService;        // the proxy
+	private OwnerServiceMapImpl ownerServiceImpl;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		VisitServiceMapImpl visitService = new VisitServiceMapImpl();
+		ownerServiceImpl = new OwnerServiceMapImpl(new PetServiceMapImpl(new PetTypeServiceMapImpl(), visitService));
+		registry = new SimpleMeterRegistry();
+		filter = new OwnerSearchFilter(new ExportServiceMapImpl(ownerServiceImpl, visitService), registry,
+		                               new MockEnvironment().withProperty("petclinic.search.owners.filter.capacity", "200")
+		                                                    .withProperty("petclinic.search.owners.filter.max-gram", "4"));
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("ownerSearchFilter", filter);
+		EntityChangePostProcessor changePostProcessor = new EntityChangePostProcessor();
+		changePostProcessor.setBeanFactory(beanFactory);
+		ownerService = (OwnerService) changePostProcessor.postProcessAfterInitialization(ownerServiceImpl, "ownerService");
+		filter.rebuild();                                       // ready (nobody yet)
+	}
+
+	private Owner save(String lastName) {
+		return ownerService.save(Owner.builder().firstName("A").lastName(lastName).build());
+	}
+
+	@Test
+	void testRejectsOnlyWhatNobodyCanMatch() {
+		save("Glenanne");
+		save("Smith");
+
+		assertTrue(filter.mightMatch("%%"));                    // blank search lists everyone
+		assertTrue(filter.mightMatch("%gLeN%"));                // any case
+		assertTrue(filter.mightMatch("%Glenanne%"));            // longer than max-gram - every 4 letter window
+		assertTrue(filter.mightMatch("%Sm_th%"));
+		assertTrue(filter.mightMatch("%a\\%b%"));               // escaped - not worked out, maybe
+
+		assertFalse(filter.mightMatch("%Glenane%"));            // "nane" is in nobody's name
+		assertFalse(filter.mightMatch("%Smyth%"));
+		assertFalse(filter.mightMatch("%Sm_tz%"));
+		assertFalse(filter.mightMatch("%q%"));
+
+		assertEquals(5, registry.get("petclinic.search.owners.filter.checks").tag("result", "passed").functionCounter().count());
+		assertEquals(4, registry.get("petclinic.search.owners.filter.checks").tag("result", "rejected").functionCounter().count());
+	}
+
+	@Test
+	void testMaybeUntilRebuiltAndWhileImporting() throws Exception {
+		// Saved before the filter is (as the data is at startup) - the new filter has never heard of it.
+		ownerServiceImpl.save(Owner.builder().firstName("A").lastName("Smith").build());
+		OwnerSearchFilter fresh = new OwnerSearchFilter(new ExportServiceMapImpl(ownerServiceImpl, new VisitServiceMapImpl()),
+		                                                new SimpleMeterRegistry(), new MockEnvironment());
+		assertFalse(fresh.isReady());
+		assertTrue(fresh.mightMatch("%smith%"));
+		assertTrue(fresh.mightMatch("%zz%"));
+
+		fresh.rebuild();
+		assertTrue(fresh.isReady());
+		assertTrue(fresh.mightMatch("%smith%"));
+		assertFalse(fresh.mightMatch("%zz%"));
+
+		ImportProgress progress = mock(ImportProgress.class);
+		when(progress.getState()).thenReturn(ImportProgress.State.RUNNING);
+		fresh.importChanged(progress);
+		assertTrue(fresh.mightMatch("%zz%"));
+		fresh.rebuild();                                        // the import still runs
+		assertTrue(fresh.mightMatch("%zz%"));
+
+		when(progress.getState()).thenReturn(ImportProgress.State.DONE);
+		fresh.importChanged(progress);                          // rebuilds in the background
+		for (int wait = 0; wait < 100 && !fresh.isReady(); wait++)
+			Thread.sleep(50);
+		assertFalse(fresh.mightMatch("%zz%"));
+		fresh.shutdown();
+	}
+
+	@Test
+	void testNeverHidesAnOwner() {
+		// Random names, random pieces of them (with wildcards), and random saves after - always "maybe".
+		Random random = new Random(3);
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			StringBuilder name = new StringBuilder();
+			for (int length = 2 + random.nextInt(10); name.length() < length; )
+				name.append((char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(26)));
+			names.add(save(name.toString()).getLastName());
+		}
+		for (String name : names) {
+			int from = random.nextInt(name.length());
+			char[] piece = name.substring(from, from + 1 + random.nextInt(name.length() - from)).toCharArray();
+			piece[random.nextInt(piece.length)] = '_';
+			assertTrue(filter.mightMatch("%" + new String(piece) + "%"), name);
+		}
+	}
+
+	@Test
+	void testRebuildDropsOldNamesAndGrowsInBackground() throws Exception {
+		Owner owner = save("Smith");
+		owner.setLastName("Jones");
+		ownerService.save(owner);
+		assertTrue(filter.mightMatch("%smith%"));               // a Bloom filter cannot forget
+
+		filter.rebuild();
+		assertFalse(filter.mightMatch("%smith%"));
+		assertTrue(filter.mightMatch("%jones%"));
+
+		// ~20 pieces a name against a capacity of 200 - past the first stage, then rebuilt on its own (Jones gone).
+		owner.setLastName("Brown");
+		ownerService.save(owner);
+		for (int i = 0; i < 50; i++)
+			save("Name" + (char) ('a' + i % 26) + (char) ('a' + i / 26));
+		for (int wait = 0; wait < 100 && filter.mightMatch("%jones%"); wait++)
+			Thread.sleep(50);
+		assertFalse(filter.mightMatch("%jones%"));
+		assertTrue(filter.mightMatch("%nameab%"));
+		assertTrue(filter.mightMatch("%brown%"));
+		assertTrue(registry.get("petclinic.search.owners.filter.fpp").tag("kind", "estimated").gauge().value() < 0.01);
+	}
+
+	@Test
+	void testScalableBloomFilterFalsePositiveRate() {
+		// 10x more than the first stage was sized for - still under fpp.
+		ScalableBloomFilter bloom = new ScalableBloomFilter(1000, 0.01);
+		for (int i = 0; i < 10_000; i++)
+			bloom.add("in" + i);
+		for (int i = 0; i < 10_000; i++)
+			assertTrue(bloom.mightContain("in" + i));
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (bloom.mightContain("out" + i))
+				falsePositives++;
+		}
+		assertEquals(4, bloom.stages());                        // 1000 + 2000 + 4000 + 8000 >= 10,000
+		assertTrue(falsePositives < 1000, "false positives " + falsePositives);
+		assertTrue(bloom.expectedFpp() < 0.01);
+
+		assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(1000, 1.0));
+	}
+
+}  // end class OwnerSearchFilterTest
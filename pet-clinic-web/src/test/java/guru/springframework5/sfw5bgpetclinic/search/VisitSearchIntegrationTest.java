@@ -0,0 +1,73 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+
+//Integration test - springdatajpa services and H2 (application.properties).  A save through the VisitService
+//bean is searchable straight away, as JSON and on the page.
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class VisitSearchIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private VisitService visitService;
+
+	@Test
+	void testSearchJsonAndPage() throws Exception {
+		PetType petType = petTypeService.save(PetType.builder().name("Searchbird").build());
+		Owner owner = Owner.builder().firstName("Sal").lastName("Searcher").build();
+		new Pet("Polly", petType, owner, null);
+		owner = ownerService.save(owner);
+		Pet pet = owner.getPet("Polly", false);
+		visitService.save(new Visit(LocalDate.of(2001, 1, 1), "Squawking at zebras", pet));
+		visitService.save(new Visit(LocalDate.of(2001, 2, 1), "Zebra feather plucking", pet));
+
+		mockMvc.perform(get("/api/visits/search").param("q", "zebras"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.total").value(2))
+		       .andExpect(jsonPath("$.hits[0].description").value("Zebra feather plucking"))
+		       .andExpect(jsonPath("$.hits[0].ownerName").value("Sal Searcher"));
+
+		mockMvc.perform(get("/api/visits/search").param("q", "zebra -squawk").param("limit", "1"))
+		       .andExpect(status().isOk())
+		       .andExpect(jsonPath("$.total").value(1));
+
+		mockMvc.perform(get("/visits/search").param("q", "\"squawking at zebras\""))
+		       .andExpect(status().isOk())
+		       .andExpect(content().string(containsString("Squawking at zebras")))
+		       .andExpect(content().string(containsString("1 visits found")));
+	}
+
+	@Test
+	void testBadLimit() throws Exception {
+		mockMvc.perform(get("/api/visits/search").param("q", "x").param("limit", "0"))
+		       .andExpect(status().isBadRequest());
+	}
+
+}  // end class VisitSearchIntegrationTest
@@ -0,0 +1,152 @@
+package guru.springframework5.sfw5bgpetclinic.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import guru.springframework5.sfw5bgpetclinic.changes.EntityChangePostProcessor;
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import guru.springframework5.sfw5bgpetclinic.services.map.ExportServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.OwnerServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.PetTypeServiceMapImpl;
+import guru.springframework5.sfw5bgpetclinic.services.map.VisitServiceMapImpl;
+
+//Unit test - Map IMPLs wired by hand, VisitService wrapped by EntityChangePostProcessor as Spring would.
+class VisitSearchTest {
+
+	private static final LocalDate DAY = LocalDate.of(2020, 1, 1);
+
+	private VisitSearch search;
+	private VisitService visitService;        // the proxy
+	private VisitServiceMapImpl visitServiceImpl;
+	private Pet rex;
+
+	@BeforeEach
+	void setUp() {
+		PetTypeServiceMapImpl petTypeService = new PetTypeServiceMapImpl();
+		visitServiceImpl = new VisitServiceMapImpl();
+		PetServiceMapImpl petService = new PetServiceMapImpl(petTypeService, visitServiceImpl);
+		OwnerServiceMapImpl ownerService = new OwnerServiceMapImpl(petService);
+		search = new VisitSearch(new ExportServiceMapImpl(ownerService, visitServiceImpl),
+		                         new MockEnvironment().withProperty("petclinic.search.visits.threads", "2")
+		                                              .withProperty("petclinic.search.visits.max-limit", "10")
+		                                              .withProperty("petclinic.search.visits.max-count", "3"));
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("visitSearch", search);
+		EntityChangePostProcessor changePostProcessor = new EntityChangePostProcessor();
+		changePostProcessor.setBeanFactory(beanFactory);
+		visitService = (VisitService) changePostProcessor.postProcessAfterInitialization(visitServiceImpl, "visitService");
+
+		PetType dog = petTypeService.save(PetType.builder().name("Dog").build());
+		Owner owner = ownerService.save(Owner.builder().firstName("Sue").lastName("Jones").build());
+		rex = petService.save(new Pet("Rex", dog, owner, null));
+	}
+
+	private Visit save(int day, String description) {
+		return visitService.save(new Visit(DAY.plusDays(day), description, rex));
+	}
+
+	private List<String> find(String query) {
+		return search.search(query, 10).getHits().stream().map(VisitSearchHit::getDescription).collect(Collectors.toList());
+	}
+
+	@Test
+	void testStemmer() {
+		assertEquals(Arrays.asList("limp", "limp", "limp", "sneez", "sneez", "caress", "poni", "rabi", "hop", "x", "rai"),
+		             Tokenizer.tokens("Limps, limped LIMPING sneezing sneezes caresses ponies rabies hopping x-ray"));
+		assertEquals("agre", Tokenizer.stem("agreed"));
+		assertEquals("fail", Tokenizer.stem("failing"));
+		assertEquals("file", Tokenizer.stem("filing"));
+		assertEquals("happi", Tokenizer.stem("happy"));
+		assertEquals("2020", Tokenizer.stem("2020"));
+		assertEquals("café", Tokenizer.stem("café"));
+	}
+
+	@Test
+	void testBooleanAndPhraseQueriesNewestFirst() {
+		save(0, "Limping on the left front leg");
+		save(1, "Sneezing and coughing");
+		save(2, "Eye drops for the left eye");
+		save(3, "Limps after walks, sneezes at night");
+		save(4, "Drops left out - eye checked");
+
+		assertEquals(Arrays.asList("Limps after walks, sneezes at night", "Limping on the left front leg"), find("limp"));
+		assertEquals(Arrays.asList("Limps after walks, sneezes at night"), find("LIMPED sneeze"));
+		assertEquals(Arrays.asList("Limps after walks, sneezes at night", "Sneezing and coughing"), find("sneeze"));
+		assertEquals(Arrays.asList("Limps after walks, sneezes at night", "Sneezing and coughing", "Limping on the left front leg"),
+		             find("sneeze OR limp"));
+		assertEquals(Arrays.asList("Sneezing and coughing"), find("sneeze -limp"));
+		assertEquals(Arrays.asList("Sneezing and coughing"), find("sneeze NOT limp"));
+		assertEquals(Arrays.asList("Eye drops for the left eye"), find("\"eye drops\""));
+		assertEquals(Arrays.asList("Drops left out - eye checked", "Eye drops for the left eye"), find("eye drop"));
+		assertEquals(Arrays.asList("Drops left out - eye checked"), find("eye drop -\"eye drops\""));
+		assertTrue(find("nothing").isEmpty());
+		assertTrue(find("  -limp ").isEmpty());          // only exclusions - finds nothing, not everything
+
+		VisitSearchResult result = search.search("left", 2);
+		assertEquals(3, result.getTotal());
+		assertEquals(2, result.getHits().size());
+		assertEquals(DAY.plusDays(4), result.getHits().get(0).getDate());
+		assertEquals("Rex", result.getHits().get(0).getPetName());
+		assertEquals("Sue Jones", result.getHits().get(0).getOwnerName());
+		assertEquals(5, result.getIndexed());
+
+		assertThrows(IllegalArgumentException.class, () -> search.search("left", 0));
+		assertThrows(IllegalArgumentException.class, () -> search.search("left", 11));
+	}
+
+	@Test
+	void testCountStopsAtMaxCount() {
+		for (int day = 0; day < 5; day++)
+			save(day, "Annual checkup");
+
+		VisitSearchResult result = search.search("checkup", 1);
+		assertEquals(3, result.getTotal());               // max-count
+		assertFalse(result.isTotalExact());
+		assertEquals(DAY.plusDays(4), result.getHits().get(0).getDate());
+
+		result = search.search("checkup", 10);           // the hits are never cut short
+		assertEquals(5, result.getTotal());
+		assertTrue(result.isTotalExact());
+		assertEquals(5, result.getHits().size());
+	}
+
+	@Test
+	void testIndexFollowsSavesAndDeletes() {
+		Visit visit = save(0, "Vomiting");
+		assertEquals(1, find("vomit").size());
+
+		visit.setDescription("Feeling better");
+		visitService.save(visit);
+		assertTrue(find("vomit").isEmpty());
+		assertEquals(1, find("better").size());
+
+		visitService.deleteById(visit.getId());
+		assertTrue(find("better").isEmpty());
+		assertEquals(0, search.search("better", 10).getIndexed());
+	}
+
+	@Test
+	void testRebuildReadsTheData() {
+		visitServiceImpl.save(new Visit(DAY, "Saved around the proxy", rex));    // as a JPA cascade / bulk import would
+		assertTrue(find("proxy").isEmpty());
+
+		assertEquals(1, search.rebuild());
+		assertEquals(1, find("proxy").size());
+	}
+
+}  // end class VisitSearchTest
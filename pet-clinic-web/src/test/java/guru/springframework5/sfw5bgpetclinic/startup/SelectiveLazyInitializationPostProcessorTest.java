@@ -0,0 +1,54 @@
+package guru.springframework5.sfw5bgpetclinic.startup;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import guru.springframework5.sfw5bgpetclinic.controllers.OwnerController;
+import guru.springframework5.sfw5bgpetclinic.controllers.VetController;
+import guru.springframework5.sfw5bgpetclinic.diagnostics.SlowQueryLog;
+
+//Unit test - bean definitions only, nothing is created.
+class SelectiveLazyInitializationPostProcessorTest {
+
+	@Test
+	void testMatchingBeansMadeLazy() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("ownerController", new RootBeanDefinition(OwnerController.class));
+		beanFactory.registerBeanDefinition("vetController", new RootBeanDefinition(VetController.class));
+		beanFactory.registerBeanDefinition("slowQueryLog", new RootBeanDefinition(SlowQueryLog.class));
+
+		new SelectiveLazyInitializationPostProcessor(Arrays.asList("guru.springframework5.sfw5bgpetclinic.controllers."))
+				.postProcessBeanFactory(beanFactory);
+
+		assertTrue(beanFactory.getBeanDefinition("ownerController").isLazyInit());
+		assertTrue(beanFactory.getBeanDefinition("vetController").isLazyInit());
+		assertFalse(beanFactory.getBeanDefinition("slowQueryLog").isLazyInit());
+	}
+
+	@Test
+	void testInfrastructureBeansLeftAlone() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		RootBeanDefinition definition = new RootBeanDefinition(OwnerController.class);
+		definition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		beanFactory.registerBeanDefinition("ownerController", definition);
+
+		new SelectiveLazyInitializationPostProcessor(Arrays.asList("guru.springframework5.sfw5bgpetclinic."))
+				.postProcessBeanFactory(beanFactory);
+
+		assertFalse(beanFactory.getBeanDefinition("ownerController").isLazyInit());
+	}
+
+	@Test
+	void testNoPrefixesNothingLazy() {
+		SelectiveLazyInitializationPostProcessor postProcessor = new SelectiveLazyInitializationPostProcessor(Collections.emptyList());
+		assertFalse(postProcessor.matches(OwnerController.class.getName()));
+	}
+
+}  // end class SelectiveLazyInitializationPostProcessorTest
@@ -0,0 +1,38 @@
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Unit test - the dead-letter file on its own:  one line per Visit, however often its batch is retried.
+class VisitDeadLettersTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void testRetriedVisitIsWrittenOnce() throws Exception {
+		VisitJournal.Record gone = new VisitJournal.Record(3L, 7L, LocalDate.of(2021, 3, 7), "Pet\tgone");
+		VisitJournal.Record refused = new VisitJournal.Record(4L, 8L, null, null);
+		Path file = dir.resolve("visits.log.dead");
+		try (VisitDeadLetters deadLetters = new VisitDeadLetters(file)) {
+			deadLetters.add(List.of(gone), "Pet no longer exists");
+			deadLetters.add(List.of(gone, refused), "Pet no longer exists");     // the batch again
+			deadLetters.add(List.of(refused), "refused by the database:  duplicate");  // one by one
+		}
+		try (VisitDeadLetters deadLetters = new VisitDeadLetters(file)) {         // replayed after a restart
+			deadLetters.add(List.of(gone, refused), "Pet no longer exists");
+		}
+
+		assertEquals(List.of("3\t7\t2021-03-07\tPet\\tgone\tPet no longer exists",
+		                     "4\t8\t\t\tPet no longer exists"),
+		             Files.readAllLines(file));
+	}
+
+}  // end class VisitDeadLettersTest
@@ -0,0 +1,196 @@
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Unit test - the journal file on its own:  what comes back after a restart, torn records, group fsync, segments.
+class VisitJournalTest {
+
+	@TempDir
+	Path dir;
+
+	private VisitJournal open(long checkpoint, List<VisitJournal.Record> recovered) throws Exception {
+		VisitJournal journal = new VisitJournal(dir.resolve("visits.log"));
+		recovered.addAll(journal.recover(checkpoint));
+		return journal;
+	}
+
+	@Test
+	void testRecoverAfterCheckpoint() throws Exception {
+		List<VisitJournal.Record> recovered = new ArrayList<>();
+		try (VisitJournal journal = open(0, recovered)) {
+			assertTrue(recovered.isEmpty());
+			journal.append(7L, LocalDate.of(2020, 1, 2), "Rabies shot");
+			journal.append(8L, null, null);
+			journal.sync(journal.append(7L, LocalDate.of(2020, 1, 3), "Check up").seq);
+		}
+
+		try (VisitJournal journal = open(1, recovered)) {
+			assertEquals(2, recovered.size());                                     // seq 1 is in the database
+			assertEquals(2L, recovered.get(0).seq);
+			assertEquals(8L, recovered.get(0).petId);
+			assertNull(recovered.get(0).date);
+			assertNull(recovered.get(0).description);
+			assertEquals(7L, recovered.get(1).petId);
+			assertEquals(LocalDate.of(2020, 1, 3), recovered.get(1).date);
+			assertEquals("Check up", recovered.get(1).description);
+			assertEquals(4L, journal.append(9L, null, "next").seq);               // numbering carries on
+		}
+	}
+
+	@Test
+	void testTornTailIsCutOff() throws Exception {
+		List<VisitJournal.Record> recovered = new ArrayList<>();
+		try (VisitJournal journal = open(0, recovered)) {
+			journal.append(1L, null, "one");
+			journal.append(2L, null, "two");
+			journal.sync(2L);
+		}
+		Path file = dir.resolve("visits.log");
+		long intact = Files.size(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {   // half a third record
+			channel.truncate(intact - 5);
+		}
+
+		try (VisitJournal journal = open(0, recovered)) {
+			assertEquals(1, recovered.size());
+			assertEquals("one", recovered.get(0).description);
+			assertEquals(2L, journal.append(3L, null, "two again").seq);
+		}
+		recovered.clear();
+		try (VisitJournal journal = open(0, recovered)) {
+			assertEquals(2, recovered.size());
+			assertEquals("two again", recovered.get(1).description);
+		}
+
+		byte[] bytes = Files.readAllBytes(file);                                 // flip a byte of the second record
+		bytes[bytes.length - 2] ^= 1;
+		Files.write(file, bytes);
+		recovered.clear();
+		try (VisitJournal journal = open(0, recovered)) {
+			assertEquals(1, recovered.size());
+		}
+	}
+
+	@Test
+	void testGroupSyncAndDeleteFlushed() throws Exception {
+		ExecutorService savers = Executors.newFixedThreadPool(8);
+		try (VisitJournal journal = open(0, new ArrayList<>())) {
+			List<Future<?>> saves = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				long petId = i;
+				saves.add(savers.submit(() -> journal.sync(journal.append(petId, null, "visit").seq)));
+			}
+			for (Future<?> save : saves)
+				save.get();
+			assertTrue(journal.syncs() >= 1 && journal.syncs() <= 200);
+			journal.sync(200L);                                                  // already durable - no force
+			long syncs = journal.syncs();
+			journal.sync(1L);
+			assertEquals(syncs, journal.syncs());
+
+			assertFalse(journal.deleteFlushed(199L));                            // seq 200 not in the database yet
+			assertTrue(journal.size() > 0);
+			assertTrue(journal.deleteFlushed(200L));
+			assertEquals(0, journal.size());
+			assertEquals(201L, journal.append(1L, null, "after").seq);
+		} finally {
+			savers.shutdownNow();
+		}
+	}
+
+	@Test
+	void testSegmentsBehindTheCheckpointAreDeleted() throws Exception {
+		Path file = dir.resolve("visits.log");
+		try (VisitJournal journal = new VisitJournal(file, 200)) {
+			journal.recover(0);
+			for (long petId = 1; petId <= 30; petId++)
+				journal.append(petId, null, "visit " + petId);
+			journal.sync(30L);
+			int segments = journal.segments();
+			assertTrue(segments > 3, "segments:  " + segments);
+			assertEquals(segments, files().size());
+
+			assertFalse(journal.deleteFlushed(0L));
+			assertTrue(journal.deleteFlushed(20L));                              // the database is 10 Visits behind
+			assertTrue(journal.segments() < segments);
+			assertEquals(journal.segments(), files().size());
+		}
+
+		List<VisitJournal.Record> recovered = new ArrayList<>();
+		try (VisitJournal journal = new VisitJournal(file, 200)) {
+			recovered.addAll(journal.recover(20L));
+			assertEquals(31L, journal.append(31L, null, "after").seq);
+		}
+		assertEquals(List.of(21L, 22L, 23L, 24L, 25L, 26L, 27L, 28L, 29L, 30L),
+		             recovered.stream().map(record -> record.seq).collect(Collectors.toList()));
+
+		recovered.clear();
+		try (VisitJournal journal = new VisitJournal(file, 200)) {
+			recovered.addAll(journal.recover(31L));                              // all in the database
+			assertTrue(recovered.isEmpty());
+			journal.deleteFlushed(31L);
+			assertEquals(0, journal.size());
+			assertEquals(List.of("visits.log"), files());
+		}
+	}
+
+	@Test
+	void testCorruptSegmentCutsOffTheSegmentsAfterIt() throws Exception {
+		Path file = dir.resolve("visits.log");
+		try (VisitJournal journal = new VisitJournal(file, 100)) {
+			journal.recover(0);
+			for (long petId = 1; petId <= 12; petId++)
+				journal.append(petId, null, "visit " + petId);
+			journal.sync(12L);
+		}
+		Path first = dir.resolve(files().get(0));
+		byte[] bytes = Files.readAllBytes(first);                                // its last record
+		bytes[bytes.length - 2] ^= 1;
+		Files.write(first, bytes);
+
+		List<VisitJournal.Record> recovered = new ArrayList<>();
+		try (VisitJournal journal = new VisitJournal(file, 100)) {
+			recovered.addAll(journal.recover(0));
+			long next = journal.append(99L, null, "next").seq;
+			assertEquals(recovered.size() + 1, next);                           // numbering carries on from the cut
+		}
+		assertFalse(recovered.isEmpty());
+		recovered.clear();
+		try (VisitJournal journal = new VisitJournal(file, 100)) {
+			recovered.addAll(journal.recover(0));
+		}
+		for (int i = 0; i < recovered.size(); i++)
+			assertEquals(i + 1, recovered.get(i).seq);                           // still in sequence order
+		assertEquals("next", recovered.get(recovered.size() - 1).description);
+	}
+
+	// The journal's file names, closed segments (by last sequence number) first.
+	private List<String> files() throws Exception {
+		try (Stream<Path> paths = Files.list(dir)) {
+			return paths.map(path -> path.getFileName().toString())
+			            .sorted((a, b) -> Long.compare(suffix(a), suffix(b)))
+			            .collect(Collectors.toList());
+		}
+	}
+
+	private static long suffix(String name) {
+		return name.equals("visits.log") ? Long.MAX_VALUE : Long.parseLong(name.substring("visits.log.".length()));
+	}
+
+}  // end class VisitJournalTest
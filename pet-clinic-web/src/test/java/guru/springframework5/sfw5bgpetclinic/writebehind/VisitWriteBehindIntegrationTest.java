@@ -0,0 +1,190 @@
+package guru.springframework5.sfw5bgpetclinic.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import guru.springframework5.sfw5bgpetclinic.model.Owner;
+import guru.springframework5.sfw5bgpetclinic.model.Pet;
+import guru.springframework5.sfw5bgpetclinic.model.PetType;
+import guru.springframework5.sfw5bgpetclinic.model.Visit;
+import guru.springframework5.sfw5bgpetclinic.services.OwnerService;
+import guru.springframework5.sfw5bgpetclinic.services.PetService;
+import guru.springframework5.sfw5bgpetclinic.services.PetTypeService;
+import guru.springframework5.sfw5bgpetclinic.services.VetService;
+import guru.springframework5.sfw5bgpetclinic.services.VisitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Integration test - springdatajpa services and H2 (application.properties), write-behind switched on.  Visits from
+//the form and saveLater come back without an id and reach the database, in order, and the listeners (search)
+//after the flush; VisitService.save (and so booking an appointment) is not written behind.  More VisitWriteBehinds
+//on prepared journals play the part of the restarted process.
+@SpringBootTest(properties = {"petclinic.visits.write-behind.enabled=true",
+                              "petclinic.visits.write-behind.journal=target/visit-write-behind/visit-journal.log"})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class VisitWriteBehindIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private OwnerService ownerService;
+	@Autowired
+	private PetTypeService petTypeService;
+	@Autowired
+	private PetService petService;
+	@Autowired
+	private VisitService visitService;
+	@Autowired
+	private VetService vetService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private MeterRegistry registry;
+	@Autowired
+	private VisitWriteBehind writeBehind;
+
+	@TempDir
+	Path dir;
+
+	private Owner owner;
+	private Pet pet;
+
+	@BeforeEach
+	void setUp() {
+		PetType petType = petTypeService.save(PetType.builder().name("Journalbird").build());
+		owner = Owner.builder().firstName("Wanda").lastName("Writer").build();
+		new Pet("Quill", petType, owner, null);
+		owner = ownerService.save(owner);
+		pet = owner.getPet("Quill", false);
+	}
+
+	private List<String> descriptions() {
+		return jdbcTemplate.queryForList("select description from visits where pet_id = ? order by id", String.class, pet.getId());
+	}
+
+	private List<String> awaitDescriptions(int count) throws InterruptedException {
+		for (int wait = 0; wait < 500 && descriptions().size() < count; wait++)
+			Thread.sleep(10);
+		return descriptions();
+	}
+
+	@Test
+	void testNewVisitsAreWrittenBehindInOrder() throws Exception {
+		mockMvc.perform(post("/owners/" + owner.getId() + "/pets/" + pet.getId() + "/visits/new")
+		                .param("date", "2021-03-04").param("description", "Zyzzyva wingbeat 0"))
+		       .andExpect(redirectedUrl("/owners/" + owner.getId()));
+		List<String> expected = new ArrayList<>(List.of("Zyzzyva wingbeat 0"));
+		for (int i = 1; i <= 20; i++) {
+			Visit visit = new Visit(LocalDate.of(2021, 3, 5), "Zyzzyva wingbeat " + i, pet);
+			writeBehind.saveLater(visit);
+			assertNull(visit.getId());                                          // acknowledged, not written yet
+			expected.add("Zyzzyva wingbeat " + i);
+		}
+
+		assertEquals(expected, awaitDescriptions(21));                         // ids in the order saved
+		mockMvc.perform(get("/api/visits/search").param("q", "zyzzyva"))        // the listeners heard after commit
+		       .andExpect(jsonPath("$.total").value(21));
+		assertTrue(registry.get(VisitWriteBehind.APPENDED).functionCounter().count() >= 21);
+		assertTrue(registry.get(VisitWriteBehind.FLUSHED).functionCounter().count() >= 21);
+		assertTrue(registry.get(VisitWriteBehind.SYNCS).functionCounter().count() >= 1);
+
+		assertNotNull(visitService.save(new Visit(LocalDate.of(2021, 3, 6), "Zyzzyva at once", pet)).getId());
+		Visit inTransaction = new TransactionTemplate(transactionManager)
+		        .execute(status -> visitService.save(new Visit(LocalDate.of(2021, 3, 6), "Zyzzyva in a transaction", pet)));
+		assertNotNull(inTransaction.getId());                                  // written with its transaction
+		assertThrows(IllegalArgumentException.class, () -> writeBehind.saveLater(inTransaction));
+	}
+
+	@Test
+	void testBookingSavesItsVisitAtOnce() throws Exception {
+		LocalDate monday = LocalDate.now().plusYears(3).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+		mockMvc.perform(post("/api/appointments").param("petId", pet.getId().toString()).param("minutes", "30")
+		                                         .param("vetId", vetService.findByLastName("Porter").getId().toString())
+		                                         .param("date", monday.toString()).param("start", "10:00")
+		                                         .param("description", "Booked with write-behind on"))
+		       .andExpect(status().isCreated())
+		       .andExpect(jsonPath("$.visitId").exists());
+
+		assertEquals(List.of("Booked with write-behind on"), descriptions());
+	}
+
+	@Test
+	void testRestartWritesWhatTheCheckpointMissed() throws Exception {
+		// The previous run:  3 Visits journaled, the first one's batch committed (checkpoint 1), then it died.
+		try (VisitJournal journal = new VisitJournal(dir.resolve("replay.log"))) {
+			journal.recover(0);
+			journal.append(pet.getId(), null, "Replayed one");
+			journal.append(pet.getId(), null, "Replayed two");
+			journal.sync(journal.append(pet.getId(), null, "Replayed three").seq);
+		}
+		jdbcTemplate.update("insert into visit_write_behind (journal, last_seq) values (?, ?)", "replay.log", 1L);
+		// A journal this database never saw.
+		try (VisitJournal journal = new VisitJournal(dir.resolve("orphan.log"))) {
+			journal.recover(0);
+			journal.sync(journal.append(pet.getId(), null, "Orphaned\tone").seq);
+		}
+		// And one with a Visit of a Pet deleted since.
+		try (VisitJournal journal = new VisitJournal(dir.resolve("gone.log"))) {
+			journal.recover(0);
+			journal.sync(journal.append(987_654L, LocalDate.of(2021, 3, 7), "Pet gone").seq);
+		}
+		jdbcTemplate.update("insert into visit_write_behind (journal, last_seq) values (?, ?)", "gone.log", 0L);
+
+		VisitWriteBehind replay = restart("replay.log");
+		VisitWriteBehind orphan = restart("orphan.log");
+		VisitWriteBehind gone = restart("gone.log");
+		assertEquals(List.of("Replayed two", "Replayed three"), awaitDescriptions(2));
+		for (int wait = 0; wait < 500 && gone.pending() > 0; wait++)
+			Thread.sleep(10);
+		replay.shutdown();
+		orphan.shutdown();
+		gone.shutdown();
+
+		assertEquals(List.of("Replayed two", "Replayed three"), descriptions());
+		assertEquals(3L, jdbcTemplate.queryForObject("select last_seq from visit_write_behind where journal = ?", Long.class, "replay.log"));
+		assertEquals(0, Files.size(dir.resolve("replay.log")));
+		assertEquals(0, Files.size(dir.resolve("orphan.log")));
+		assertEquals(1L, jdbcTemplate.queryForObject("select last_seq from visit_write_behind where journal = ?", Long.class, "orphan.log"));
+		assertEquals(1L, jdbcTemplate.queryForObject("select last_seq from visit_write_behind where journal = ?", Long.class, "gone.log"));
+
+		// What was not written is kept, not just logged.
+		assertEquals(0, Files.size(dir.resolve("replay.log.dead")));
+		assertEquals(List.of("1\t" + pet.getId() + "\t\tOrphaned\\tone\tno checkpoint for journal orphan.log in this database"),
+		             Files.readAllLines(dir.resolve("orphan.log.dead")));
+		assertEquals(List.of("1\t987654\t2021-03-07\tPet gone\tPet no longer exists"), Files.readAllLines(dir.resolve("gone.log.dead")));
+	}
+
+	private VisitWriteBehind restart(String journal) throws Exception {
+		MockEnvironment environment = new MockEnvironment()
+		        .withProperty("petclinic.visits.write-behind.journal", dir.resolve(journal).toString());
+		return new VisitWriteBehind(visitService, petService, transactionManager, jdbcTemplate, new SimpleMeterRegistry(), environment);
+	}
+
+}  // end class VisitWriteBehindIntegrationTest